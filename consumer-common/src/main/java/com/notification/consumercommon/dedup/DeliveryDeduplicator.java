@@ -0,0 +1,94 @@
+package com.notification.consumercommon.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DeliveryDeduplicator - Which notifications of a channel were already delivered, by notificationId
+ *
+ * Offsets are committed after records are handled, so a restart or rebalance replays the
+ * records handled since the last commit. Checking here before sending turns such a replay
+ * into a skip instead of a second email/SMS/push to the user.
+ *
+ * A notification is marked delivered (delivered:<channel>:<notificationId> in Redis) once the
+ * vendor accepted it, not before the call: a crash in between means a possible duplicate,
+ * never a lost notification. Keys expire after dedup.<channel>.ttl-seconds [86400], far
+ * longer than any replay window.
+ *
+ * If Redis is unavailable notifications count as not delivered (sent rather than dropped).
+ *
+ * Metrics: consumer.dedup.skipped{channel} (Counter)
+ */
+@Slf4j
+public class DeliveryDeduplicator {
+    private static final String KEY_PREFIX = "delivered:";
+    private static final byte[] DELIVERED = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final String keyPrefix;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Counter skipped;
+
+    public DeliveryDeduplicator(String channel, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        this.keyPrefix = KEY_PREFIX + channel + ":";
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(environment.getProperty("dedup." + channel + ".ttl-seconds", Long.class, 86400L));
+        this.skipped = Counter.builder("consumer.dedup.skipped").tag("channel", channel).register(meterRegistry);
+    }
+
+    /**
+     * @return true if the notification was delivered before and must not be sent again
+     */
+    public boolean isDelivered(Long notificationId) {
+        if (notificationId == null) {
+            return false;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(keyPrefix + notificationId))) {
+                skipped.increment();
+                return true;
+            }
+        } catch (Exception exception) {
+            log.warn("Could not check delivery of Notification {}, sending it: {}", notificationId, exception.toString());
+        }
+        return false;
+    }
+
+    public void markDelivered(Long notificationId) {
+        markDelivered(notificationId == null ? List.of() : List.of(notificationId));
+    }
+
+    /**
+     * Mark notifications delivered, in one pipelined round-trip
+     */
+    public void markDelivered(Collection<Long> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long notificationId : notificationIds) {
+                    if (notificationId == null) {
+                        continue;
+                    }
+                    connection.stringCommands().set((keyPrefix + notificationId).getBytes(StandardCharsets.UTF_8), DELIVERED,
+                            Expiration.from(ttl), RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception exception) {
+            log.warn("Could not mark Notifications {} delivered, a replay would send them again: {}", notificationIds, exception.toString());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.notification.consumercommon.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.SchemePortResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VendorHttpClientFactory - Long-lived, pooled HTTP clients for the vendor SDKs
+ *
+ * SendGrid and Twilio both run on Apache HttpClient 4. Building a new SDK client per message
+ * opened a new connection (TCP + TLS handshake) for every email/SMS. Clients built here share
+ * one connection pool per vendor, reused across messages and dispatch threads.
+ *
+ * Properties http-client.<vendor>.* (defaults in brackets):
+ * - max-connections                pool size, also the per-route limit (one vendor host) [50]
+ * - keep-alive-ms                  how long an idle connection is kept for reuse [30000]
+ * - connect-timeout-ms             TCP connect [2000]
+ * - socket-timeout-ms              waiting for response data [10000]
+ * - connection-request-timeout-ms  waiting for a free pooled connection [2000]
+ * - base-url                       send every request to this plain-HTTP address instead of the
+ *                                  vendor, e.g. http://localhost:8089 for the VendorStubServer [unset]
+ *
+ * Pool metrics: httpcomponents.httpclient.pool.* with tag httpclient=<vendor>
+ */
+@Slf4j
+public class VendorHttpClientFactory implements AutoCloseable {
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final List<PoolingHttpClientConnectionManager> connectionManagers = new CopyOnWriteArrayList<>();
+
+    public VendorHttpClientFactory(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * @return a builder with the vendor's pool, timeouts and keep-alive set; build() it once and reuse the client
+     */
+    public HttpClientBuilder builder(String vendor) {
+        String prefix = "http-client." + vendor + ".";
+        int maxConnections = environment.getProperty(prefix + "max-connections", Integer.class, 50);
+        long keepAliveMs = environment.getProperty(prefix + "keep-alive-ms", Long.class, 30000L);
+        int connectTimeoutMs = environment.getProperty(prefix + "connect-timeout-ms", Integer.class, 2000);
+        int socketTimeoutMs = environment.getProperty(prefix + "socket-timeout-ms", Integer.class, 10000);
+        int connectionRequestTimeoutMs = environment.getProperty(prefix + "connection-request-timeout-ms", Integer.class, 2000);
+        String baseUrl = environment.getProperty(prefix + "base-url");
+
+        PoolingHttpClientConnectionManager connectionManager = baseUrl == null
+                ? new PoolingHttpClientConnectionManager(keepAliveMs, TimeUnit.MILLISECONDS)
+                : redirectingConnectionManager(vendor, URI.create(baseUrl), keepAliveMs);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        // Re-check connections idle for a while before reuse; the vendor may have closed them
+        connectionManager.setValidateAfterInactivity(2000);
+        connectionManagers.add(connectionManager);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, vendor).bindTo(meterRegistry);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+        return HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> keepAliveMs)
+                .evictIdleConnections(keepAliveMs, TimeUnit.MILLISECONDS)
+                .evictExpiredConnections();
+    }
+
+    // Local testing only: the SDKs build their vendor URLs themselves, so instead of rewriting
+    // URLs every host resolves to the base-url host, on its port, over plain HTTP
+    private static PoolingHttpClientConnectionManager redirectingConnectionManager(String vendor, URI baseUrl, long keepAliveMs) {
+        log.warn("HTTP client for {} sends all requests to {} instead of the vendor", vendor, baseUrl);
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", PlainConnectionSocketFactory.getSocketFactory())
+                .build();
+        SchemePortResolver port = host -> baseUrl.getPort();
+        DnsResolver dns = host -> SystemDefaultDnsResolver.INSTANCE.resolve(baseUrl.getHost());
+        return new PoolingHttpClientConnectionManager(socketFactories, null, port, dns, keepAliveMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        connectionManagers.forEach(PoolingHttpClientConnectionManager::shutdown);
+    }
+}
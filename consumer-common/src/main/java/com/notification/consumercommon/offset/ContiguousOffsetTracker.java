@@ -0,0 +1,49 @@
+package com.notification.consumercommon.offset;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ContiguousOffsetTracker - Which offset of one partition may be committed
+ *
+ * Records of a partition are dispatched in offset order but may complete in any order.
+ * Committing the offset of a completed record while an earlier one is still in flight would
+ * lose the earlier one on a crash, so the committable offset only moves past a record
+ * once it and every record before it completed.
+ *
+ * track() is called by the polling thread, complete() by the dispatch threads.
+ */
+public class ContiguousOffsetTracker {
+    private final ArrayDeque<Long> inFlight = new ArrayDeque<>(); // dispatch (= offset) order
+    private final Set<Long> completed = new HashSet<>();
+    private long committableOffset = -1;
+    private long lastPolledOffset = -1;
+
+    public synchronized void track(long offset) {
+        inFlight.addLast(offset);
+    }
+
+    public synchronized void complete(long offset) {
+        completed.add(offset);
+        while (!inFlight.isEmpty() && completed.remove(inFlight.peekFirst())) {
+            committableOffset = inFlight.pollFirst() + 1;
+        }
+    }
+
+    /**
+     * @return the next offset to commit (last contiguous completed record + 1),
+     *         or -1 if it didn't move since the previous call
+     */
+    public synchronized long pollCommittableOffset() {
+        if (committableOffset == lastPolledOffset) {
+            return -1;
+        }
+        lastPolledOffset = committableOffset;
+        return committableOffset;
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,140 @@
+package com.notification.consumercommon.offset;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.env.Environment;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * OffsetCommitter - Batched manual offset commits for a poll loop with auto-commit disabled
+ *
+ * A ContiguousOffsetTracker per assigned partition follows the records handed out, so only
+ * the contiguous watermark of completed records is committed: nothing handed out is skipped
+ * by a crash, however out of order records complete. Commits are asynchronous and batched,
+ * at most every offset-commit.interval-ms [1000] or once offset-commit.max-pending [500]
+ * records completed since the previous commit, whichever comes first.
+ *
+ * A restart thus replays at most the records completed since the last commit plus those in
+ * flight, a bounded window that DeliveryDeduplicator keeps from being sent twice.
+ *
+ * On revocation the partitions' in-flight records get offset-commit.revoke-drain-ms [10000]
+ * to complete, then their watermark is committed synchronously before the new owner starts.
+ *
+ * assigned(), track(), maybeCommit() and revoked() are called from the poll loop thread,
+ * the callbacks returned by track() from any thread.
+ */
+@Slf4j
+public class OffsetCommitter {
+    private final long intervalNanos;
+    private final int maxPending;
+    private final long revokeDrainMs;
+    private final Map<TopicPartition, ContiguousOffsetTracker> offsetTrackers = new HashMap<>();
+    private final AtomicInteger completedSinceCommit = new AtomicInteger();
+    private final LongSupplier nanoClock;
+    private long lastCommitNanos;
+
+    public OffsetCommitter(Environment environment) {
+        this(environment, System::nanoTime);
+    }
+
+    OffsetCommitter(Environment environment, LongSupplier nanoClock) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(environment.getProperty("offset-commit.interval-ms", Long.class, 1000L));
+        this.maxPending = Math.max(1, environment.getProperty("offset-commit.max-pending", Integer.class, 500));
+        this.revokeDrainMs = environment.getProperty("offset-commit.revoke-drain-ms", Long.class, 10000L);
+        this.nanoClock = nanoClock;
+        this.lastCommitNanos = nanoClock.getAsLong();
+    }
+
+    public void assigned(Collection<TopicPartition> partitions) {
+        partitions.forEach(partition -> offsetTrackers.put(partition, new ContiguousOffsetTracker()));
+    }
+
+    /**
+     * Follow a record handed out for handling, in offset order per partition
+     *
+     * @return to run once the record was handled (sent, retried or given up on)
+     */
+    public Runnable track(ConsumerRecord<?, ?> record) {
+        ContiguousOffsetTracker offsetTracker = offsetTrackers.computeIfAbsent(
+                new TopicPartition(record.topic(), record.partition()), partition -> new ContiguousOffsetTracker());
+        long offset = record.offset();
+        offsetTracker.track(offset);
+        // Bound to this tracker: a completion arriving after revocation doesn't touch a later owner's state
+        return () -> {
+            offsetTracker.complete(offset);
+            completedSinceCommit.incrementAndGet();
+        };
+    }
+
+    /**
+     * Commit the completed watermarks if the interval passed or enough records completed
+     */
+    public void maybeCommit(Consumer<?, ?> consumer) {
+        int completed = completedSinceCommit.get();
+        if (completed == 0 || (completed < maxPending && nanoClock.getAsLong() - lastCommitNanos < intervalNanos)) {
+            return;
+        }
+        // Reset first: records completing while the offsets are collected count for the next commit
+        completedSinceCommit.set(0);
+        lastCommitNanos = nanoClock.getAsLong();
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(offsetTrackers);
+        if (!offsets.isEmpty()) {
+            consumer.commitAsync(offsets, (committed, exception) -> {
+                if (exception != null) {
+                    log.error("Failed to commit offsets {}: {}", committed, exception.toString());
+                }
+            });
+        }
+    }
+
+    /**
+     * Let in-flight records of revoked partitions complete and commit them; call from onPartitionsRevoked
+     */
+    public void revoked(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, ContiguousOffsetTracker> revoked = new HashMap<>();
+        partitions.forEach(partition -> {
+            ContiguousOffsetTracker offsetTracker = offsetTrackers.remove(partition);
+            if (offsetTracker != null) {
+                revoked.put(partition, offsetTracker);
+            }
+        });
+        awaitInFlight(revoked);
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(revoked);
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> committableOffsets(Map<TopicPartition, ContiguousOffsetTracker> offsetTrackers) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        offsetTrackers.forEach((partition, offsetTracker) -> {
+            long offset = offsetTracker.pollCommittableOffset();
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        });
+        return offsets;
+    }
+
+    // Records still in flight after the timeout are handled again by the partition's new owner
+    private void awaitInFlight(Map<TopicPartition, ContiguousOffsetTracker> offsetTrackers) {
+        long deadline = System.currentTimeMillis() + revokeDrainMs;
+        try {
+            while (offsetTrackers.values().stream().anyMatch(offsetTracker -> offsetTracker.inFlightCount() > 0)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
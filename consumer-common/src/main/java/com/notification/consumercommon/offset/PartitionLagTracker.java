@@ -0,0 +1,107 @@
+package com.notification.consumercommon.offset;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.env.Environment;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * PartitionLagTracker - Lag of each assigned partition, without a broker round-trip per poll
+ *
+ * Every fetch response carries the partition's log end offset, so the consumer already knows
+ * its lag: currentLag() reads it locally. Only partitions it has no fetch metadata for yet
+ * (just assigned, or paused before their first fetch) have their end offsets asked from the
+ * broker with endOffsets(), at most once per lag.refresh-ms [30000].
+ *
+ * Lag = records in Kafka past the consumer's position; records already polled but still
+ * waiting in the poll loop are not included.
+ *
+ * Metrics: consumer.partition.lag{topic, partition} (Gauge, -1 until known)
+ *
+ * update() must be called from the poll loop thread (KafkaConsumer is not thread-safe),
+ * the gauges may be read from any thread.
+ */
+public class PartitionLagTracker {
+    private final MeterRegistry meterRegistry;
+    private final long refreshNanos;
+    private final Map<TopicPartition, AtomicLong> lags = new HashMap<>();
+    private final LongSupplier nanoClock;
+    private long lastRefreshNanos;
+    private boolean refreshed;
+
+    public PartitionLagTracker(MeterRegistry meterRegistry, Environment environment) {
+        this(meterRegistry, environment, System::nanoTime);
+    }
+
+    PartitionLagTracker(MeterRegistry meterRegistry, Environment environment, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(environment.getProperty("lag.refresh-ms", Long.class, 30000L));
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Update the lag of every assigned partition; call after poll()
+     */
+    public void update(Consumer<?, ?> consumer) {
+        Set<TopicPartition> unknown = new HashSet<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                lagOf(partition).set(lag.getAsLong());
+            } else {
+                unknown.add(partition);
+            }
+        }
+
+        long now = nanoClock.getAsLong();
+        if (unknown.isEmpty() || (refreshed && now - lastRefreshNanos < refreshNanos)) {
+            return;
+        }
+        refreshed = true;
+        lastRefreshNanos = now;
+        consumer.endOffsets(unknown).forEach((partition, endOffset) ->
+                lagOf(partition).set(Math.max(0, endOffset - consumer.position(partition))));
+    }
+
+    /**
+     * Stop reporting partitions no longer assigned (their new owner reports them)
+     */
+    public void remove(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            if (lags.remove(partition) != null) {
+                Gauge gauge = meterRegistry.find("consumer.partition.lag").tags(tags(partition)).gauge();
+                if (gauge != null) {
+                    meterRegistry.remove(gauge);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the last known lag of the partition, -1 if not known
+     */
+    public long getLag(TopicPartition partition) {
+        AtomicLong lag = lags.get(partition);
+        return lag == null ? -1 : lag.get();
+    }
+
+    private AtomicLong lagOf(TopicPartition partition) {
+        return lags.computeIfAbsent(partition, p -> meterRegistry.gauge("consumer.partition.lag", tags(p), new AtomicLong(-1)));
+    }
+
+    private static Tags tags(TopicPartition partition) {
+        return Tags.of("topic", partition.topic(), "partition", String.valueOf(partition.partition()));
+    }
+}
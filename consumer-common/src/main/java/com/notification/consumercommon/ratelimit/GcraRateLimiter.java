@@ -0,0 +1,128 @@
+package com.notification.consumercommon.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * GcraRateLimiter - Lock-free token bucket for third-party vendor quotas (one JVM)
+ *
+ * Generic Cell Rate Algorithm: instead of a token count refilled by a timer, the whole bucket
+ * state is one number, the theoretical arrival time (TAT) of the next permit.
+ * - Each permit moves the TAT forward by the emission interval (1s / permitsPerSecond)
+ * - A caller may go ahead as long as the TAT is at most "burst" intervals in the future
+ * - Otherwise it waits until it is
+ * The TAT is updated with a single CAS, so any number of threads can share one limiter.
+ * Refill is continuous (nanosecond resolution), a quota of 600/min allows one send every 100 ms
+ * instead of 600 sends and then a stall until the minute is over.
+ *
+ * Metrics (tag vendor=<name>):
+ * - consumer.rate_limiter.wait       Timer, how long acquire() callers waited for a permit
+ * - consumer.rate_limiter.throttled  Counter, acquisitions that had to wait / were refused
+ */
+public final class GcraRateLimiter implements RateLimiter {
+    private final String vendor;
+    private final long emissionIntervalNanos;
+    private final int burst;
+    private final long burstWindowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrivalNanos;
+    private final Timer waitTimer;
+    private final Counter throttled;
+
+    /**
+     * @param vendor            name of the quota, used as the metric tag
+     * @param permitsPerSecond  sustained rate (fractions allowed, e.g. 0.5 = one per 2s)
+     * @param burst             permits that may be taken at once after an idle period (>= 1)
+     */
+    public GcraRateLimiter(String vendor, double permitsPerSecond, int burst, MeterRegistry meterRegistry) {
+        this(vendor, permitsPerSecond, burst, meterRegistry, System::nanoTime);
+    }
+
+    GcraRateLimiter(String vendor, double permitsPerSecond, int burst, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1, got " + permitsPerSecond + " / " + burst);
+        }
+        this.vendor = vendor;
+        this.emissionIntervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = burst;
+        this.burstWindowNanos = emissionIntervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.theoreticalArrivalNanos = new AtomicLong(nanoClock.getAsLong());
+        this.waitTimer = Timer.builder("consumer.rate_limiter.wait").tag("vendor", vendor).register(meterRegistry);
+        this.throttled = Counter.builder("consumer.rate_limiter.throttled").tag("vendor", vendor).register(meterRegistry);
+    }
+
+    /**
+     * Take permits, waiting as long as needed. Waiting callers reserve their slot first,
+     * so concurrent callers are released one emission interval apart, in arrival order.
+     * More than burst permits are reserved a burst at a time, once the previous one is due:
+     * callers arriving meanwhile get the slots in between instead of waiting for all of them.
+     *
+     * @return nanoseconds waited
+     * @throws InterruptedException if interrupted while waiting (the reserved permits are not returned)
+     */
+    @Override
+    public long acquire(int permits) throws InterruptedException {
+        long waitNanos = 0;
+        for (int left = permits; left > 0; left -= burst) {
+            long chunkWaitNanos = reserve(Math.min(left, burst));
+            if (chunkWaitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(chunkWaitNanos);
+                waitNanos += chunkWaitNanos;
+            }
+        }
+        if (waitNanos > 0) {
+            throttled.increment();
+        }
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        return waitNanos;
+    }
+
+    /**
+     * Take permits only if that needs no waiting.
+     *
+     * @return true if the permits were taken
+     */
+    public boolean tryAcquire(int permits) {
+        long increment = emissionIntervalNanos * permits;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long tat = theoreticalArrivalNanos.get();
+            long newTat = (tat - now > 0 ? tat : now) + increment;
+            if (newTat - now > burstWindowNanos) {
+                throttled.increment();
+                return false;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, newTat)) {
+                return true;
+            }
+        }
+    }
+
+    // Moves the TAT forward by the permits, returns how long the caller has to wait for them
+    private long reserve(int permits) {
+        long increment = emissionIntervalNanos * permits;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long tat = theoreticalArrivalNanos.get();
+            // nanoTime values may be negative / wrap: compare differences, never absolute values
+            long newTat = (tat - now > 0 ? tat : now) + increment;
+            if (theoreticalArrivalNanos.compareAndSet(tat, newTat)) {
+                return Math.max(0, newTat - now - burstWindowNanos);
+            }
+        }
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / emissionIntervalNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package com.notification.consumercommon.ratelimit;
+
+/**
+ * RateLimiter - Permits for calls to a rate limited third-party vendor
+ *
+ * Implementations:
+ * - GcraRateLimiter: quota of this JVM only
+ * - RedisGcraRateLimiter: quota shared by all instances of a consumer (and all consumers using the vendor)
+ * Create them through RateLimiterFactory, configured by rate-limit.<vendor>.* properties.
+ */
+public interface RateLimiter {
+
+    /**
+     * Take permits, waiting as long as needed.
+     * More permits than the burst are granted a burst at a time, and callers arriving meanwhile
+     * get theirs in between: one large request doesn't hold back a small one for its whole wait.
+     *
+     * @return nanoseconds waited
+     * @throws InterruptedException if interrupted while waiting
+     */
+    long acquire(int permits) throws InterruptedException;
+
+    default long acquire() throws InterruptedException {
+        return acquire(1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.notification.consumercommon.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * RateLimiterFactory - Builds the RateLimiter of a vendor from rate-limit.<vendor>.* properties
+ *
+ * Properties (defaults in brackets):
+ * - permits-per-second  vendor quota shared by all instances [10]
+ * - burst               permits that may be used back to back after an idle period [10]
+ * - distributed         share the quota through Redis; false = every instance gets the full quota [true]
+ * - lease-size          permits taken from Redis per round-trip [5]
+ * - lease-ttl-ms        how long leased permits may be used [1000]
+ * - expected-instances  while Redis is unavailable each instance uses permits-per-second / expected-instances [1]
+ */
+public class RateLimiterFactory {
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    public RateLimiterFactory(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    public RateLimiter create(String vendor) {
+        String prefix = "rate-limit." + vendor + ".";
+        double permitsPerSecond = environment.getProperty(prefix + "permits-per-second", Double.class, 10.0);
+        int burst = environment.getProperty(prefix + "burst", Integer.class, 10);
+        if (!environment.getProperty(prefix + "distributed", Boolean.class, true)) {
+            return new GcraRateLimiter(vendor, permitsPerSecond, burst, meterRegistry);
+        }
+
+        int leaseSize = environment.getProperty(prefix + "lease-size", Integer.class, 5);
+        long leaseTtlMs = environment.getProperty(prefix + "lease-ttl-ms", Long.class, 1000L);
+        int expectedInstances = Math.max(1, environment.getProperty(prefix + "expected-instances", Integer.class, 1));
+        GcraRateLimiter fallback = new GcraRateLimiter(vendor, permitsPerSecond / expectedInstances,
+                Math.max(1, burst / expectedInstances), meterRegistry);
+        return new RedisGcraRateLimiter(vendor, permitsPerSecond, burst, leaseSize, leaseTtlMs, redisTemplate, fallback, meterRegistry);
+    }
+}
@@ -0,0 +1,192 @@
+package com.notification.consumercommon.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * RedisGcraRateLimiter - One vendor quota shared by every instance, kept in Redis
+ *
+ * The GCRA state (theoretical arrival time, microseconds of the Redis clock) lives in
+ * ratelimit:<vendor> and is only changed by a Lua script, so concurrent instances can't
+ * over-grant. Redis TIME is the single clock, instance clock skew doesn't matter.
+ *
+ * Local leasing: instead of one round-trip per message, an instance takes up to leaseSize
+ * permits per script call and hands them out locally. Leased permits not used within
+ * leaseTtl are dropped, so a stale lease can't add a burst on top of the shared quota.
+ *
+ * If Redis is unavailable, permits come from a local GcraRateLimiter (the fallback, usually
+ * configured with the vendor rate divided by the number of instances) until Redis is back.
+ *
+ * Metrics (tag vendor=<name>): consumer.rate_limiter.wait / .throttled like GcraRateLimiter,
+ * plus consumer.rate_limiter.leases (script calls that granted permits).
+ */
+@Slf4j
+public final class RedisGcraRateLimiter implements RateLimiter {
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    // ARGV: emission interval (us), burst window (us), permits requested
+    // Returns {permits granted, microseconds until the next permit if none were granted}
+    private static final RedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "redis.replicate_commands() " +
+            "local interval = tonumber(ARGV[1]) " +
+            "local burstWindow = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1])) or now " +
+            "if tat < now then tat = now end " +
+            "local available = math.floor((now + burstWindow - tat) / interval) " +
+            "if available < 1 then return {0, math.ceil(tat + interval - burstWindow - now)} end " +
+            "local granted = math.min(requested, available) " +
+            "tat = tat + granted * interval " +
+            "redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000) + 1000) " +
+            "return {granted, 0}", List.class);
+
+    private final String vendor;
+    private final String key;
+    private final StringRedisTemplate redisTemplate;
+    private final String emissionIntervalMicros;
+    private final String burstWindowMicros;
+    private final int leaseSize;
+    private final long leaseTtlNanos;
+    private final GcraRateLimiter fallback;
+    private final LongSupplier nanoClock;
+    private final Timer waitTimer;
+    private final Counter throttled;
+    private final Counter leases;
+
+    // Fair: callers take turns in arrival order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    // Guarded by lock
+    private int leased;
+    private long leaseExpiresNanos;
+    private boolean usingFallback;
+
+    /**
+     * @param leaseSize permits taken from Redis per round-trip (capped at burst, the most Redis grants at once)
+     * @param leaseTtlMs how long leased permits may be used
+     * @param fallback  limiter used while Redis is unavailable
+     */
+    public RedisGcraRateLimiter(String vendor, double permitsPerSecond, int burst, int leaseSize, long leaseTtlMs,
+                                StringRedisTemplate redisTemplate, GcraRateLimiter fallback, MeterRegistry meterRegistry) {
+        this(vendor, permitsPerSecond, burst, leaseSize, leaseTtlMs, redisTemplate, fallback, meterRegistry, System::nanoTime);
+    }
+
+    RedisGcraRateLimiter(String vendor, double permitsPerSecond, int burst, int leaseSize, long leaseTtlMs,
+                         StringRedisTemplate redisTemplate, GcraRateLimiter fallback, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1 || leaseSize < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0, burst and leaseSize >= 1, got "
+                    + permitsPerSecond + " / " + burst + " / " + leaseSize);
+        }
+        long intervalMicros = Math.max(1, Math.round(TimeUnit.SECONDS.toMicros(1) / permitsPerSecond));
+        this.vendor = vendor;
+        this.key = KEY_PREFIX + vendor;
+        this.redisTemplate = redisTemplate;
+        this.emissionIntervalMicros = Long.toString(intervalMicros);
+        this.burstWindowMicros = Long.toString(intervalMicros * burst);
+        this.leaseSize = Math.min(leaseSize, burst);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        this.fallback = fallback;
+        this.nanoClock = nanoClock;
+        this.waitTimer = Timer.builder("consumer.rate_limiter.wait").tag("vendor", vendor).register(meterRegistry);
+        this.throttled = Counter.builder("consumer.rate_limiter.throttled").tag("vendor", vendor).register(meterRegistry);
+        this.leases = Counter.builder("consumer.rate_limiter.leases").tag("vendor", vendor).register(meterRegistry);
+    }
+
+    /**
+     * Take permits from the local lease, leasing more from Redis when it runs out.
+     * Callers take turns in arrival order, one lease at a time, and wait for the shared quota
+     * without holding the others back: a request larger than the burst gets the quota as it
+     * refills, with the permits of callers that arrived meanwhile granted in between.
+     */
+    @Override
+    public long acquire(int permits) throws InterruptedException {
+        long start = nanoClock.getAsLong();
+        boolean waited = false;
+        int needed = permits;
+        while (needed > 0) {
+            long waitMicros = 0;
+            boolean redisUnavailable = false;
+            lock.lockInterruptibly();
+            try {
+                long now = nanoClock.getAsLong();
+                if (leased > 0 && now - leaseExpiresNanos >= 0) {
+                    leased = 0; // expired lease
+                }
+                if (leased == 0) {
+                    List<Long> grant = tryLease(Math.max(leaseSize, needed));
+                    if (grant == null) {
+                        redisUnavailable = true;
+                    } else if (grant.get(0) > 0) {
+                        leases.increment();
+                        leased = grant.get(0).intValue();
+                        leaseExpiresNanos = now + leaseTtlNanos;
+                    } else {
+                        waitMicros = Math.max(1, grant.get(1));
+                    }
+                }
+                int taken = Math.min(leased, needed);
+                leased -= taken;
+                needed -= taken;
+            } finally {
+                lock.unlock();
+            }
+
+            if (redisUnavailable) {
+                // Permits already leased were used up first; the fallback records its own wait metrics
+                return (nanoClock.getAsLong() - start) + fallback.acquire(needed);
+            }
+            if (waitMicros > 0) {
+                waited = true;
+                TimeUnit.MICROSECONDS.sleep(waitMicros);
+            }
+        }
+
+        long waitNanos = nanoClock.getAsLong() - start;
+        if (waited) {
+            throttled.increment();
+        }
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        return waitNanos;
+    }
+
+    // Lease from Redis, null if it is unavailable; called with the lock held
+    private List<Long> tryLease(int requested) {
+        List<Long> grant;
+        try {
+            grant = lease(requested);
+        } catch (Exception e) {
+            if (!usingFallback) {
+                usingFallback = true;
+                log.error("Redis rate limiter for {} unavailable, using local limit of {}/s. Exception: {}",
+                        vendor, fallback.getPermitsPerSecond(), e.toString());
+            }
+            return null;
+        }
+        if (usingFallback) {
+            usingFallback = false;
+            log.info("Redis rate limiter for {} available again", vendor);
+        }
+        return grant;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> lease(int requested) {
+        List<Long> grant = redisTemplate.execute(LEASE_SCRIPT, List.of(key),
+                emissionIntervalMicros, burstWindowMicros, Integer.toString(requested));
+        if (grant == null || grant.size() < 2) {
+            throw new IllegalStateException("Unexpected rate limiter script result: " + grant);
+        }
+        return grant;
+    }
+}
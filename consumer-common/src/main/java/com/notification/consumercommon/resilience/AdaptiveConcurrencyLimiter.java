@@ -0,0 +1,131 @@
+package com.notification.consumercommon.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AdaptiveConcurrencyLimiter - How many calls to a vendor may be in flight, learned with AIMD
+ *
+ * TCP-style additive increase / multiplicative decrease:
+ * - A call that succeeds within the latency threshold raises the limit by 1/limit
+ *   (so by about one per round of "limit" calls), up to maxLimit
+ * - A failed or slow call multiplies the limit by decreaseRatio, down to minLimit. Only calls
+ *   started after the previous decrease count, so one burst of slow responses cuts the limit once
+ *
+ * When a vendor degrades its latency rises before it fails, fewer calls queue up on it (each
+ * waiting up to its socket timeout), and the limit grows back as latency recovers.
+ * Callers over the limit wait up to maxWait for a slot, then give up (load shedding).
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double decreaseRatio;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs,
+                                      double decreaseRatio, long maxWaitMs) {
+        this(initialLimit, minLimit, maxLimit, latencyThresholdMs, decreaseRatio, maxWaitMs, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs,
+                               double decreaseRatio, long maxWaitMs, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || decreaseRatio <= 0 || decreaseRatio >= 1) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit and 0 < decreaseRatio < 1, got "
+                    + minLimit + " / " + maxLimit + " / " + decreaseRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.decreaseRatio = decreaseRatio;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.nanoClock = nanoClock;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Wait for a slot, at most maxWait
+     *
+     * @return start time of the call (System.nanoTime), to pass to release()/cancel(); -1 if no slot freed up in time
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    return -1;
+                }
+                remainingNanos = slotFreed.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+            return nanoClock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Call finished, adjust the limit from its outcome and latency
+     */
+    public void release(long startNanos, boolean failed) {
+        long now = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            inFlight--;
+            if (failed || now - startNanos > latencyThresholdNanos) {
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * decreaseRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slot taken but no call was made, the limit stays as is
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.notification.consumercommon.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreaker - Stops calling a vendor that keeps failing, probes it until it recovers
+ *
+ * - CLOSED: calls go through; the outcomes of the last windowSize calls are kept. Once at
+ *   least minimumCalls were made and failureRateThreshold % of them failed, it opens.
+ * - OPEN: calls are refused right away (no waiting for timeouts). After openDuration it
+ *   moves to HALF_OPEN.
+ * - HALF_OPEN: halfOpenCalls trial calls are let through, other calls are refused. If all
+ *   of them succeed it closes, a single failure opens it again.
+ *
+ * Outcomes of calls that started in another state than the current one are ignored.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String vendor;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final int halfOpenCalls;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] failedCalls; // ring buffer of the last calls' outcomes
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAtNanos;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    /**
+     * @param failureRateThreshold failure percentage (0-100] of the window that opens the circuit
+     */
+    public CircuitBreaker(String vendor, double failureRateThreshold, int windowSize, int minimumCalls,
+                          long openDurationMs, int halfOpenCalls) {
+        this(vendor, failureRateThreshold, windowSize, minimumCalls, openDurationMs, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(String vendor, double failureRateThreshold, int windowSize, int minimumCalls,
+                   long openDurationMs, int halfOpenCalls, LongSupplier nanoClock) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100 || windowSize < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 100], windowSize and halfOpenCalls >= 1, got "
+                    + failureRateThreshold + " / " + windowSize + " / " + halfOpenCalls);
+        }
+        this.vendor = vendor;
+        this.failureRateThreshold = failureRateThreshold;
+        this.failedCalls = new boolean[windowSize];
+        this.minimumCalls = Math.min(Math.max(1, minimumCalls), windowSize);
+        this.halfOpenCalls = halfOpenCalls;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Take permission for one call (a trial permit when half open)
+     *
+     * @return the state the call is made in, or null if it must not be made
+     */
+    public synchronized State tryAcquirePermission() {
+        if (!isCallPermitted()) {
+            return null;
+        }
+        if (state == State.HALF_OPEN) {
+            trialPermits--;
+        }
+        return state;
+    }
+
+    /**
+     * @return true if a call would be let through now, without taking permission for it
+     */
+    public synchronized boolean isCallPermitted() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> trialPermits > 0;
+        };
+    }
+
+    /**
+     * Permission was taken but no call was made
+     */
+    public synchronized void releasePermission(State permittedIn) {
+        if (permittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+            trialPermits++;
+        }
+    }
+
+    public synchronized void onSuccess(State permittedIn) {
+        if (permittedIn != state) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++trialSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(State permittedIn) {
+        if (permittedIn != state) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100.0 >= failureRateThreshold * recorded) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == failedCalls.length) {
+            if (failedCalls[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        failedCalls[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % failedCalls.length;
+    }
+
+    private void transitionTo(State newState) {
+        switch (newState) {
+            case OPEN -> {
+                openedAtNanos = nanoClock.getAsLong();
+                String reason = state == State.HALF_OPEN ? "a trial call failed" : failures + " of the last " + recorded + " calls failed";
+                log.error("Circuit breaker for {} OPEN ({}), refusing calls for {} ms",
+                        vendor, reason, TimeUnit.NANOSECONDS.toMillis(openNanos));
+            }
+            case HALF_OPEN -> {
+                trialPermits = halfOpenCalls;
+                trialSuccesses = 0;
+                log.info("Circuit breaker for {} HALF_OPEN, letting {} trial calls through", vendor, halfOpenCalls);
+            }
+            case CLOSED -> log.info("Circuit breaker for {} CLOSED, {} recovered", vendor, vendor);
+        }
+        state = newState;
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+}
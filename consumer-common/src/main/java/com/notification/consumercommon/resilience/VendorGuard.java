@@ -0,0 +1,125 @@
+package com.notification.consumercommon.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * VendorGuard - Circuit breaker and adaptive concurrency limit around the calls to one vendor
+ *
+ * call() refuses right away while the circuit is open, waits for a slot of the
+ * AdaptiveConcurrencyLimiter otherwise, and feeds the outcome (failed / latency) back to both.
+ * Refused calls throw VendorUnavailableException; the consumers requeue the request to the
+ * retry topics (RetryPolicy.requeue) instead of waiting on a vendor that is down, without
+ * counting it as an attempt since the vendor was never called.
+ * The poll loops use isAvailable() to pause their partitions while the circuit is open.
+ *
+ * Metrics (tag vendor=<name>):
+ * - consumer.vendor.concurrency_limit  Gauge, current adaptive limit
+ * - consumer.vendor.in_flight          Gauge, calls in progress
+ * - consumer.vendor.circuit_state      Gauge, 0 closed / 1 half open / 2 open
+ * - consumer.vendor.rejected           Counter, refused calls, tag reason=circuit_open|concurrency_limit
+ */
+public class VendorGuard {
+    private final String vendor;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter rejectedCircuitOpen;
+    private final Counter rejectedConcurrencyLimit;
+
+    public VendorGuard(String vendor, CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                       MeterRegistry meterRegistry) {
+        this.vendor = vendor;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        Gauge.builder("consumer.vendor.concurrency_limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("vendor", vendor).register(meterRegistry);
+        Gauge.builder("consumer.vendor.in_flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("vendor", vendor).register(meterRegistry);
+        Gauge.builder("consumer.vendor.circuit_state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .tag("vendor", vendor).register(meterRegistry);
+        this.rejectedCircuitOpen = Counter.builder("consumer.vendor.rejected")
+                .tag("vendor", vendor).tag("reason", "circuit_open").register(meterRegistry);
+        this.rejectedConcurrencyLimit = Counter.builder("consumer.vendor.rejected")
+                .tag("vendor", vendor).tag("reason", "concurrency_limit").register(meterRegistry);
+    }
+
+    /**
+     * Make a vendor call under the circuit breaker and concurrency limit
+     *
+     * @param vendorCall the call; exceptions it throws count as failures and are rethrown
+     * @param failed     whether a returned response is a vendor failure, see isVendorFailure
+     * @throws VendorUnavailableException if the call was not made
+     */
+    public <T> T call(Supplier<T> vendorCall, Predicate<T> failed) {
+        if (!circuitBreaker.isCallPermitted()) {
+            rejectedCircuitOpen.increment();
+            throw new VendorUnavailableException(vendor + " circuit breaker is open");
+        }
+
+        long startNanos;
+        try {
+            startNanos = concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VendorUnavailableException("Interrupted while waiting for a " + vendor + " call slot");
+        }
+        if (startNanos < 0) {
+            rejectedConcurrencyLimit.increment();
+            throw new VendorUnavailableException(vendor + " concurrency limit of " + concurrencyLimiter.getLimit() + " reached");
+        }
+
+        // The circuit may have opened, or its trial calls been taken, while waiting for the slot
+        CircuitBreaker.State permittedIn = circuitBreaker.tryAcquirePermission();
+        if (permittedIn == null) {
+            concurrencyLimiter.cancel();
+            rejectedCircuitOpen.increment();
+            throw new VendorUnavailableException(vendor + " circuit breaker is open");
+        }
+
+        T result;
+        try {
+            result = vendorCall.get();
+        } catch (RuntimeException e) {
+            concurrencyLimiter.release(startNanos, true);
+            circuitBreaker.onFailure(permittedIn);
+            throw e;
+        }
+        boolean vendorFailed = failed.test(result);
+        concurrencyLimiter.release(startNanos, vendorFailed);
+        if (vendorFailed) {
+            circuitBreaker.onFailure(permittedIn);
+        } else {
+            circuitBreaker.onSuccess(permittedIn);
+        }
+        return result;
+    }
+
+    /**
+     * @return false while the circuit is open (or half open with all trial calls under way)
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Failures that say something about the vendor's health: throttling and server errors.
+     * Other 4xx (bad number, invalid address) are the request's fault and don't count.
+     */
+    public static boolean isVendorFailure(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public static class VendorUnavailableException extends RuntimeException {
+        public VendorUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
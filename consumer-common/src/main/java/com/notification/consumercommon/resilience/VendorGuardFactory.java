@@ -0,0 +1,53 @@
+package com.notification.consumercommon.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+
+/**
+ * VendorGuardFactory - Builds the VendorGuard of a vendor from circuit-breaker.<vendor>.* and
+ * concurrency-limit.<vendor>.* properties
+ *
+ * circuit-breaker.<vendor>.* (defaults in brackets):
+ * - failure-rate-threshold  % of failed calls in the window that opens the circuit [50]
+ * - window-size             calls the failure rate is computed over [20]
+ * - minimum-calls           calls needed in the window before it may open [10]
+ * - open-ms                 how long calls are refused before trial calls [10000]
+ * - half-open-calls         trial calls that must all succeed to close it again [3]
+ *
+ * concurrency-limit.<vendor>.* (defaults in brackets):
+ * - initial-limit           calls in flight at startup [10]
+ * - min-limit / max-limit   bounds of the adaptive limit [1 / 50, the default http-client pool size]
+ * - latency-threshold-ms    slower calls count as congestion and lower the limit [2000]
+ * - decrease-ratio          limit multiplier on a failed or slow call [0.7]
+ * - max-wait-ms             how long a call waits for a slot before it is refused [5000]
+ */
+public class VendorGuardFactory {
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    public VendorGuardFactory(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    public VendorGuard create(String vendor) {
+        String breaker = "circuit-breaker." + vendor + ".";
+        CircuitBreaker circuitBreaker = new CircuitBreaker(vendor,
+                environment.getProperty(breaker + "failure-rate-threshold", Double.class, 50.0),
+                environment.getProperty(breaker + "window-size", Integer.class, 20),
+                environment.getProperty(breaker + "minimum-calls", Integer.class, 10),
+                environment.getProperty(breaker + "open-ms", Long.class, 10000L),
+                environment.getProperty(breaker + "half-open-calls", Integer.class, 3));
+
+        String limit = "concurrency-limit." + vendor + ".";
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                environment.getProperty(limit + "initial-limit", Integer.class, 10),
+                environment.getProperty(limit + "min-limit", Integer.class, 1),
+                environment.getProperty(limit + "max-limit", Integer.class, 50),
+                environment.getProperty(limit + "latency-threshold-ms", Long.class, 2000L),
+                environment.getProperty(limit + "decrease-ratio", Double.class, 0.7),
+                environment.getProperty(limit + "max-wait-ms", Long.class, 5000L));
+
+        return new VendorGuard(vendor, circuitBreaker, concurrencyLimiter, meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.notification.consumercommon.retry;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RetryPolicy - When and where a failed delivery of a channel is retried
+ *
+ * A failed message is republished to one of the channel's retry tier topics
+ * (<channel>-retry-30s, -5m, -1h by default), each consumed by its own RetryTopicConsumer,
+ * or to the dead-letter topic <channel>-dlt once its priority's attempts are used up.
+ *
+ * Backoff: initial-delay * multiplier^(attempt - 1), capped at the longest tier, with "equal
+ * jitter" (a random delay between half and all of it) so failures of one vendor outage don't
+ * come back at the same instant. The message goes to the shortest tier that is at least that
+ * delay; records of a tier are thus due at most one tier delay after they were published,
+ * and a record waiting at the head of a tier partition never holds back later ones for longer.
+ *
+ * Properties retry.<channel>.* (defaults in brackets):
+ * - tiers              retry topic delays, one topic each [30s,5m,1h]
+ * - initial-delay      backoff of the first retry [30s]
+ * - multiplier         backoff growth per attempt [4]
+ * - max-attempts.p<N>  deliveries (first one included) of a priority N message [p1: 6, p2: 4, p3: 3]
+ * - partitions         partitions of each retry / dead-letter topic [3]
+ *
+ * A refused delivery (VendorGuard) is requeued with the same backoff, its attempt count unchanged.
+ */
+public class RetryPolicy {
+    private static final int[] DEFAULT_MAX_ATTEMPTS = {6, 4, 3};
+
+    private final List<Tier> tiers;
+    private final String deadLetterTopic;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final int[] maxAttempts;
+    private final int partitions;
+
+    public RetryPolicy(String channel, Environment environment) {
+        String prefix = "retry." + channel + ".";
+        this.tiers = Arrays.stream(environment.getProperty(prefix + "tiers", "30s,5m,1h").split(","))
+                .map(String::trim)
+                .map(delay -> new Tier(channel + "-retry-" + delay, DurationStyle.detectAndParse(delay).toMillis()))
+                .sorted(Comparator.comparingLong(Tier::delayMs))
+                .toList();
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException(prefix + "tiers must list at least one delay");
+        }
+        this.deadLetterTopic = channel + "-dlt";
+        this.initialDelayMs = DurationStyle.detectAndParse(environment.getProperty(prefix + "initial-delay", "30s")).toMillis();
+        this.multiplier = environment.getProperty(prefix + "multiplier", Double.class, 4.0);
+        this.maxAttempts = new int[DEFAULT_MAX_ATTEMPTS.length];
+        for (int i = 0; i < maxAttempts.length; i++) {
+            maxAttempts[i] = environment.getProperty(prefix + "max-attempts.p" + (i + 1), Integer.class, DEFAULT_MAX_ATTEMPTS[i]);
+        }
+        this.partitions = environment.getProperty(prefix + "partitions", Integer.class, 3);
+    }
+
+    /**
+     * @param priority     1 (highest) to 3; anything else is treated as the lowest priority
+     * @param attemptsMade deliveries made so far, including the one that just failed
+     * @return the retry topic and delay, or the dead-letter topic if no attempts are left
+     */
+    public RetryDecision next(int priority, int attemptsMade) {
+        if (attemptsMade >= maxAttempts(priority)) {
+            return new RetryDecision(deadLetterTopic, 0, true);
+        }
+        return retry(attemptsMade);
+    }
+
+    /**
+     * For a delivery refused without calling the vendor (circuit open, no concurrency slot): the
+     * message goes back to the tier it would be retried on, and the refusal is not an attempt
+     *
+     * @param attemptsMade deliveries made so far, the refused one not included
+     * @return the retry topic and delay, never the dead-letter topic
+     */
+    public RetryDecision requeue(int attemptsMade) {
+        return retry(Math.max(1, attemptsMade));
+    }
+
+    private RetryDecision retry(int attemptsMade) {
+        long longestTierMs = tiers.get(tiers.size() - 1).delayMs();
+        long backoffMs = (long) Math.min(longestTierMs, initialDelayMs * Math.pow(multiplier, Math.max(0, attemptsMade - 1)));
+        long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        Tier tier = tiers.stream()
+                .filter(candidate -> candidate.delayMs() >= delayMs)
+                .findFirst()
+                .orElse(tiers.get(tiers.size() - 1));
+        return new RetryDecision(tier.topic(), delayMs, false);
+    }
+
+    public int maxAttempts(int priority) {
+        boolean known = priority >= 1 && priority <= maxAttempts.length;
+        return maxAttempts[known ? priority - 1 : maxAttempts.length - 1];
+    }
+
+    public List<String> getTierTopics() {
+        return tiers.stream().map(Tier::topic).toList();
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    /**
+     * @return the tier topics followed by the dead-letter topic, all to be created
+     */
+    public List<String> getTopics() {
+        List<String> topics = new ArrayList<>(getTierTopics());
+        topics.add(deadLetterTopic);
+        return topics;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    private record Tier(String topic, long delayMs) {
+    }
+
+    /**
+     * @param topic      retry tier or dead-letter topic to publish to
+     * @param delayMs    how long from now the message is due (0 for the dead-letter topic)
+     * @param deadLetter true if the message is not retried anymore
+     */
+    public record RetryDecision(String topic, long delayMs, boolean deadLetter) {
+    }
+}
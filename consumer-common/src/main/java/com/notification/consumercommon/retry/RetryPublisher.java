@@ -0,0 +1,59 @@
+package com.notification.consumercommon.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * RetryPublisher - Publishes a failed message to its retry tier or dead-letter topic
+ *
+ * The value is the channel's request JSON as is (with its attempt count already updated),
+ * the time it is due goes in the retry-due-at header (epoch millis) read by RetryTopicConsumer.
+ * Sends are synchronous, so a message is only given up by its caller once Kafka has it.
+ *
+ * Metrics: consumer.retry.published (Counter, tag topic=<retry or dead-letter topic>)
+ */
+public class RetryPublisher {
+    public static final String DUE_AT_HEADER = "retry-due-at";
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public RetryPublisher(KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param key     record key, the notification id keeps retries of one notification on one partition
+     * @param payload request JSON
+     * @throws RetryPublishException if Kafka did not acknowledge the message in time
+     */
+    public void publish(RetryPolicy.RetryDecision decision, String key, String payload) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(decision.topic(), key, payload);
+        long dueAt = System.currentTimeMillis() + decision.delayMs();
+        record.headers().add(DUE_AT_HEADER, Long.toString(dueAt).getBytes(StandardCharsets.UTF_8));
+        try {
+            kafkaTemplate.send(record).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetryPublishException("Interrupted while publishing to " + decision.topic(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RetryPublishException("Failed to publish to " + decision.topic(), e);
+        }
+        Counter.builder("consumer.retry.published").tag("topic", decision.topic()).register(meterRegistry).increment();
+    }
+
+    public static class RetryPublishException extends RuntimeException {
+        public RetryPublishException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.notification.consumercommon.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * RetryTopicConsumer - Poll loop of one retry tier topic, on its own thread
+ *
+ * Each tier has its own consumer (and group), so waiting retries never hold back fresh traffic
+ * on the main topic or retries of another tier.
+ *
+ * Records are handed to the handler once their retry-due-at time has come. Records of a tier
+ * partition are due in roughly publish order, so when the head record is not due yet the
+ * partition is paused and rewound to it until then; other partitions keep going.
+ * Offsets are committed after the handler returned (the handler republishes what fails again).
+ * While the vendor is unavailable (its circuit breaker is open) all partitions stay paused, so
+ * retries don't use up their attempts on calls that are refused anyway.
+ *
+ * Auto-commit must be disabled on the consumer passed in.
+ */
+@Slf4j
+public class RetryTopicConsumer implements Runnable {
+    private static final long MAX_POLL_MS = 500;
+
+    private final Consumer<String, String> consumer;
+    private final String topic;
+    private final java.util.function.Consumer<String> handler;
+    private final BooleanSupplier vendorAvailable;
+    private final Map<TopicPartition, Long> pausedUntil = new HashMap<>();
+    private volatile boolean running = true;
+
+    public RetryTopicConsumer(Consumer<String, String> consumer, String topic, java.util.function.Consumer<String> handler,
+                              BooleanSupplier vendorAvailable) {
+        this.consumer = consumer;
+        this.topic = topic;
+        this.handler = handler;
+        this.vendorAvailable = vendorAvailable;
+    }
+
+    @Override
+    public void run() {
+        consumer.subscribe(List.of(topic));
+        try {
+            while (running) {
+                try {
+                    pollOnce();
+                } catch (WakeupException e) {
+                    // stop() was called
+                } catch (Exception e) {
+                    log.error("Error in retry consumer of {}: {}", topic, e.getMessage(), e);
+                }
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        consumer.wakeup();
+    }
+
+    private void pollOnce() {
+        long now = System.currentTimeMillis();
+        if (!vendorAvailable.getAsBoolean()) {
+            consumer.pause(consumer.assignment());
+            consumer.assignment().forEach(partition -> pausedUntil.merge(partition, now + MAX_POLL_MS, Math::max));
+        }
+        long nextResume = now + MAX_POLL_MS;
+        var resumed = pausedUntil.entrySet().iterator();
+        while (resumed.hasNext()) {
+            Map.Entry<TopicPartition, Long> paused = resumed.next();
+            if (paused.getValue() <= now) {
+                // A rebalance may have taken the partition away in the meantime
+                if (consumer.assignment().contains(paused.getKey())) {
+                    consumer.resume(List.of(paused.getKey()));
+                }
+                resumed.remove();
+            } else {
+                nextResume = Math.min(nextResume, paused.getValue());
+            }
+        }
+
+        // With every partition paused, poll just waits for the earliest one to be due
+        ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(Math.max(1, nextResume - now)));
+        Map<TopicPartition, OffsetAndMetadata> handled = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            for (ConsumerRecord<String, String> record : records.records(partition)) {
+                long dueAt = dueAt(record);
+                if (dueAt > System.currentTimeMillis()) {
+                    consumer.pause(List.of(partition));
+                    consumer.seek(partition, record.offset());
+                    pausedUntil.put(partition, dueAt);
+                    break;
+                }
+                try {
+                    handler.accept(record.value());
+                } catch (Exception e) {
+                    log.error("Unexpected Exception while retrying record {} of {}: {}", record.offset(), partition, e.toString());
+                }
+                handled.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            }
+        }
+        if (!handled.isEmpty()) {
+            consumer.commitSync(handled);
+        }
+    }
+
+    // Records without the header (published by hand) are due right away
+    private static long dueAt(ConsumerRecord<String, String> record) {
+        Header header = record.headers().lastHeader(RetryPublisher.DUE_AT_HEADER);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
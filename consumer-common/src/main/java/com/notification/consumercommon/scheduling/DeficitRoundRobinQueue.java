@@ -0,0 +1,168 @@
+package com.notification.consumercommon.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * DeficitRoundRobinQueue - Items in priority lanes, taken out by weighted shares instead of strict priority
+ *
+ * Deficit round-robin: lanes are visited in turn and each visit adds the lane's weight to its
+ * deficit; a lane hands out items while its deficit lasts (one per item). With weights 8/3/1
+ * and all lanes busy, lane 0 gets 8 of every 12 items and lane 2 still gets 1 - nothing starves.
+ * An idle lane's deficit is reset, so it can't save up a burst.
+ *
+ * Maximum age: an item that waited longer than its lane's maxAge is taken before anything else
+ * (the most overdue first), which bounds the latency of a low priority lane when the higher
+ * lanes are busy beyond what their weights foresee.
+ *
+ * STRICT policy: the lowest busy lane always goes first (maximum age still applies).
+ *
+ * Not thread-safe: meant for the single poll loop thread.
+ */
+public class DeficitRoundRobinQueue<T> {
+    public enum Policy { DRR, STRICT }
+
+    private final Policy policy;
+    private final Lane<T>[] lanes;
+    private final LongSupplier nanoClock;
+    private int current;
+    private int size;
+
+    /**
+     * @param weights   share of each lane (>= 1), index 0 = highest priority
+     * @param maxAgesMs maximum wait of each lane's items before they go first, 0 = none
+     */
+    public DeficitRoundRobinQueue(Policy policy, int[] weights, long[] maxAgesMs) {
+        this(policy, weights, maxAgesMs, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    DeficitRoundRobinQueue(Policy policy, int[] weights, long[] maxAgesMs, LongSupplier nanoClock) {
+        if (weights.length == 0 || weights.length != maxAgesMs.length) {
+            throw new IllegalArgumentException("Need one weight and one max age per lane");
+        }
+        this.policy = policy;
+        this.nanoClock = nanoClock;
+        this.lanes = new Lane[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 1) {
+                throw new IllegalArgumentException("Lane weights must be >= 1, got " + weights[i]);
+            }
+            lanes[i] = new Lane<>(weights[i], TimeUnit.MILLISECONDS.toNanos(maxAgesMs[i]));
+        }
+        // The first take() moves on to lane 0 and credits it
+        this.current = lanes.length - 1;
+    }
+
+    public void add(int lane, T item) {
+        lanes[lane].items.addLast(new Entry<>(item, nanoClock.getAsLong()));
+        size++;
+    }
+
+    /**
+     * @return the next item, or null if all lanes are empty
+     */
+    public T take() {
+        if (size == 0) {
+            return null;
+        }
+        Lane<T> overdue = mostOverdueLane();
+        if (overdue != null) {
+            return remove(overdue);
+        }
+        if (policy == Policy.STRICT) {
+            for (Lane<T> lane : lanes) {
+                if (!lane.items.isEmpty()) {
+                    return remove(lane);
+                }
+            }
+        }
+        while (true) {
+            Lane<T> lane = lanes[current];
+            if (!lane.items.isEmpty() && lane.deficit >= 1) {
+                lane.deficit--;
+                return remove(lane);
+            }
+            if (lane.items.isEmpty()) {
+                lane.deficit = 0;
+            }
+            current = (current + 1) % lanes.length;
+            Lane<T> next = lanes[current];
+            if (!next.items.isEmpty()) {
+                next.deficit += next.weight;
+            }
+        }
+    }
+
+    /**
+     * Remove the items matching the filter from all lanes
+     */
+    public void removeIf(Predicate<T> filter) {
+        for (Lane<T> lane : lanes) {
+            int before = lane.items.size();
+            lane.items.removeIf(entry -> filter.test(entry.item));
+            size -= before - lane.items.size();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int size(int lane) {
+        return lanes[lane].items.size();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return items handed out per round when every lane is busy (the sum of the weights)
+     */
+    public int getRoundSize() {
+        int roundSize = 0;
+        for (Lane<T> lane : lanes) {
+            roundSize += lane.weight;
+        }
+        return roundSize;
+    }
+
+    private Lane<T> mostOverdueLane() {
+        long now = nanoClock.getAsLong();
+        Lane<T> mostOverdue = null;
+        long mostOverdueNanos = 0;
+        for (Lane<T> lane : lanes) {
+            if (lane.maxAgeNanos > 0 && !lane.items.isEmpty()) {
+                long overdueNanos = now - lane.items.peekFirst().enqueuedNanos - lane.maxAgeNanos;
+                if (overdueNanos > mostOverdueNanos) {
+                    mostOverdue = lane;
+                    mostOverdueNanos = overdueNanos;
+                }
+            }
+        }
+        return mostOverdue;
+    }
+
+    private T remove(Lane<T> lane) {
+        size--;
+        return lane.items.pollFirst().item;
+    }
+
+    private static final class Lane<T> {
+        final ArrayDeque<Entry<T>> items = new ArrayDeque<>();
+        final int weight;
+        final long maxAgeNanos;
+        long deficit;
+
+        Lane(int weight, long maxAgeNanos) {
+            this.weight = weight;
+            this.maxAgeNanos = maxAgeNanos;
+        }
+    }
+
+    private record Entry<T>(T item, long enqueuedNanos) {
+    }
+}
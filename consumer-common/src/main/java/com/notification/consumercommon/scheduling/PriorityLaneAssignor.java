@@ -0,0 +1,66 @@
+package com.notification.consumercommon.scheduling;
+
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PriorityLaneAssignor - Group assignment that spreads every priority lane over all members
+ *
+ * The stock assignors balance partition counts only. With the interleaved layout of
+ * PriorityLanes they can hand one member all priority 1 partitions and another all priority 3
+ * ones (range: contiguous blocks; round-robin: every 3rd partition when the member count is a
+ * multiple of 3), so instances would no longer enforce priority across their own lanes.
+ *
+ * Here the partitions of each lane are dealt out round-robin, continuing with the next member
+ * where the previous lane stopped. With N partitions per lane and at most N members every
+ * member gets partitions of all three lanes; members beyond that stay (partly) idle.
+ *
+ * Set as partition.assignment.strategy on every member of the group.
+ */
+public class PriorityLaneAssignor implements ConsumerPartitionAssignor {
+    public static final String NAME = "priority-lane";
+
+    @Override
+    public GroupAssignment assign(Cluster metadata, GroupSubscription groupSubscription) {
+        Map<String, Subscription> subscriptions = groupSubscription.groupSubscription();
+        Map<String, List<TopicPartition>> assigned = new HashMap<>();
+        // Topic -> subscribed members, both sorted so every leader computes the same assignment
+        Map<String, List<String>> membersByTopic = new TreeMap<>();
+        subscriptions.keySet().stream().sorted().forEach(memberId -> {
+            assigned.put(memberId, new ArrayList<>());
+            subscriptions.get(memberId).topics().forEach(topic ->
+                    membersByTopic.computeIfAbsent(topic, t -> new ArrayList<>()).add(memberId));
+        });
+
+        int next = 0;
+        for (Map.Entry<String, List<String>> topicMembers : membersByTopic.entrySet()) {
+            Integer partitionCount = metadata.partitionCountForTopic(topicMembers.getKey());
+            if (partitionCount == null) {
+                continue;
+            }
+            List<String> members = topicMembers.getValue();
+            for (int lane = 0; lane < PriorityLanes.PRIORITIES; lane++) {
+                for (int partition = lane; partition < partitionCount; partition += PriorityLanes.PRIORITIES) {
+                    String memberId = members.get(next++ % members.size());
+                    assigned.get(memberId).add(new TopicPartition(topicMembers.getKey(), partition));
+                }
+            }
+        }
+
+        Map<String, Assignment> assignments = new HashMap<>();
+        assigned.forEach((memberId, partitions) -> assignments.put(memberId, new Assignment(partitions)));
+        return new GroupAssignment(assignments);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+}
@@ -0,0 +1,26 @@
+package com.notification.consumercommon.scheduling;
+
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * PriorityLanes - Which priority a channel topic partition carries
+ *
+ * Channel topics have 3 * N partitions, N per priority, interleaved: partition p carries
+ * priority p % 3 + 1 (0, 3, 6, ... priority 1; 1, 4, 7, ... priority 2; 2, 5, 8, ... priority 3).
+ * With N = 1 this is the original layout of one partition per priority. The producer side
+ * (CustomPartitioner in priority-processor) follows the same rule.
+ */
+public final class PriorityLanes {
+    public static final int PRIORITIES = 3;
+
+    private PriorityLanes() {
+    }
+
+    public static int priorityOf(int partition) {
+        return partition % PRIORITIES + 1;
+    }
+
+    public static int priorityOf(TopicPartition partition) {
+        return priorityOf(partition.partition());
+    }
+}
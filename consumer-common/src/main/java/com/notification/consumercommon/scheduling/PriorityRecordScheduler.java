@@ -0,0 +1,115 @@
+package com.notification.consumercommon.scheduling;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * PriorityRecordScheduler - Order in which the records polled from the priority partitions are handled
+ *
+ * The poll loops used to pause the lower priority partitions whenever a higher one had lag, so a
+ * steady trickle of priority 1 traffic starved priority 3 forever. Now every partition is polled
+ * and its records buffered in the lane of its priority; a DeficitRoundRobinQueue decides what is
+ * handled next: priority 1 gets the largest share, priority 3 a guaranteed minimum share and a
+ * maximum wait.
+ *
+ * Backpressure: a partition is paused once its lane holds max-buffered records and resumed when
+ * the lane is down to half of that, so a backlog stays in Kafka rather than in memory.
+ *
+ * Records of one partition are handed out in offset order. A partition's priority follows
+ * from its number (PriorityLanes), so any number of partitions per priority can be assigned,
+ * and remove() drops the records of partitions taken away by a rebalance.
+ *
+ * Properties priority-scheduler.* (defaults in brackets):
+ * - policy           drr = weighted shares, strict = always the highest priority first [drr]
+ * - weight.p<N>      share of priority N when all are busy [p1: 8, p2: 3, p3: 1]
+ * - max-age-ms.p<N>  a record waiting longer goes first, 0 = no limit [p1: 0, p2: 10000, p3: 30000]
+ * - max-buffered     records buffered per priority before its partitions are paused [500]
+ */
+public class PriorityRecordScheduler {
+    private static final int[] DEFAULT_WEIGHTS = {8, 3, 1};
+    private static final long[] DEFAULT_MAX_AGES_MS = {0, 10000, 30000};
+
+    private final DeficitRoundRobinQueue<ConsumerRecord<String, String>> queue;
+    private final int maxBuffered;
+
+    public PriorityRecordScheduler(Environment environment) {
+        int[] weights = new int[PriorityLanes.PRIORITIES];
+        long[] maxAgesMs = new long[PriorityLanes.PRIORITIES];
+        for (int i = 0; i < PriorityLanes.PRIORITIES; i++) {
+            weights[i] = environment.getProperty("priority-scheduler.weight.p" + (i + 1), Integer.class, DEFAULT_WEIGHTS[i]);
+            maxAgesMs[i] = environment.getProperty("priority-scheduler.max-age-ms.p" + (i + 1), Long.class, DEFAULT_MAX_AGES_MS[i]);
+        }
+        DeficitRoundRobinQueue.Policy policy = DeficitRoundRobinQueue.Policy.valueOf(
+                environment.getProperty("priority-scheduler.policy", "drr").toUpperCase(Locale.ROOT));
+        this.queue = new DeficitRoundRobinQueue<>(policy, weights, maxAgesMs);
+        this.maxBuffered = Math.max(1, environment.getProperty("priority-scheduler.max-buffered", Integer.class, 500));
+    }
+
+    public void addAll(ConsumerRecords<String, String> records) {
+        for (ConsumerRecord<String, String> record : records) {
+            queue.add(lane(new TopicPartition(record.topic(), record.partition())), record);
+        }
+    }
+
+    /**
+     * Drop the buffered records of partitions no longer assigned
+     */
+    public void remove(Collection<TopicPartition> partitions) {
+        Set<TopicPartition> removed = new HashSet<>(partitions);
+        queue.removeIf(record -> removed.contains(new TopicPartition(record.topic(), record.partition())));
+    }
+
+    /**
+     * @return the record to handle next, or null if none is buffered
+     */
+    public ConsumerRecord<String, String> next() {
+        return queue.take();
+    }
+
+    /**
+     * Pause the partitions of full lanes, resume those of lanes drained to half
+     */
+    public void applyBackpressure(Consumer<?, ?> consumer) {
+        List<TopicPartition> pause = new ArrayList<>();
+        List<TopicPartition> resume = new ArrayList<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            int buffered = queue.size(lane(partition));
+            if (buffered >= maxBuffered) {
+                pause.add(partition);
+            } else if (buffered <= maxBuffered / 2) {
+                resume.add(partition);
+            }
+        }
+        consumer.pause(pause);
+        consumer.resume(resume);
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int buffered(int priority) {
+        return queue.size(priority - 1);
+    }
+
+    /**
+     * @return records handled per scheduling round when all priorities are busy
+     */
+    public int getRoundSize() {
+        return queue.getRoundSize();
+    }
+
+    private static int lane(TopicPartition partition) {
+        return PriorityLanes.priorityOf(partition) - 1;
+    }
+}
@@ -0,0 +1,118 @@
+package com.notification.consumercommon.benchmark;
+
+import com.notification.consumercommon.offset.PartitionLagTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lag bookkeeping cost per poll loop iteration, for the 3 priority partitions.
+ *
+ * "endOffsetsPerIteration" is what the loop did before every poll: endOffsets() plus a
+ * position() per partition. "lagTracker" is PartitionLagTracker.update(), which reads the
+ * lag from the consumer's fetch metadata. The MockConsumer stands in for KafkaConsumer;
+ * endOffsets() waits brokerRttMicros to stand for its ListOffsets round-trip, which the
+ * real consumer makes on every call.
+ *
+ * Run: mvn -pl consumer-common test-compile exec:java
+ *        -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.notification.consumercommon.benchmark.LagTrackingBenchmark
+ * (or run main() from the IDE)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LagTrackingBenchmark {
+    private static final List<TopicPartition> PARTITIONS = List.of(
+            new TopicPartition("email-topic", 0),
+            new TopicPartition("email-topic", 1),
+            new TopicPartition("email-topic", 2));
+
+    // Simulated broker round-trip of one endOffsets() call
+    @Param({"0", "500"})
+    public long brokerRttMicros;
+
+    private BrokerRoundTripConsumer consumer;
+    private PartitionLagTracker lagTracker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        consumer = new BrokerRoundTripConsumer(TimeUnit.MICROSECONDS.toNanos(brokerRttMicros));
+        consumer.assign(PARTITIONS);
+        consumer.updateBeginningOffsets(Map.of(PARTITIONS.get(0), 0L, PARTITIONS.get(1), 0L, PARTITIONS.get(2), 0L));
+        consumer.updateEndOffsets(Map.of(PARTITIONS.get(0), 1000L, PARTITIONS.get(1), 5000L, PARTITIONS.get(2), 20000L));
+        PARTITIONS.forEach(partition -> consumer.seek(partition, 100));
+        lagTracker = new PartitionLagTracker(new SimpleMeterRegistry(), new StandardEnvironment());
+    }
+
+    @Benchmark
+    public long endOffsetsPerIteration() {
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(PARTITIONS);
+        long lag = 0;
+        for (TopicPartition partition : PARTITIONS) {
+            lag += endOffsets.get(partition) - consumer.position(partition);
+        }
+        return lag;
+    }
+
+    @Benchmark
+    public long lagTracker() {
+        lagTracker.update(consumer);
+        long lag = 0;
+        for (TopicPartition partition : PARTITIONS) {
+            lag += lagTracker.getLag(partition);
+        }
+        return lag;
+    }
+
+    private static final class BrokerRoundTripConsumer extends MockConsumer<String, String> {
+        private final long roundTripNanos;
+
+        private BrokerRoundTripConsumer(long roundTripNanos) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.roundTripNanos = roundTripNanos;
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+            if (roundTripNanos > 0) {
+                LockSupport.parkNanos(roundTripNanos);
+            }
+            return super.endOffsets(partitions);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LagTrackingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.notification.consumercommon.benchmark;
+
+import com.notification.consumercommon.http.VendorHttpClientFactory;
+import com.sendgrid.Client;
+import com.sendgrid.Method;
+import com.sendgrid.Request;
+import com.sendgrid.SendGrid;
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.type.PhoneNumber;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vendor calls/second against the local VendorStubServer (no network, no vendor account needed).
+ *
+ * "perMessage" builds a new SDK client (and with it a new connection pool) for every call,
+ * like EmailService did with new SendGrid(apiKey); "pooled" reuses one client built by
+ * VendorHttpClientFactory, like the VendorClientConfig beans.
+ * The stub speaks plain HTTP, so this measures connection setup and pool reuse, not TLS
+ * handshakes; against the real vendors perMessage pays a TLS handshake per call on top.
+ *
+ * Run: mvn -pl consumer-common test-compile exec:java
+ *        -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.notification.consumercommon.benchmark.VendorClientBenchmark
+ * (or run main() from the IDE)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class VendorClientBenchmark {
+
+    @Param({"perMessage", "pooled"})
+    public String client;
+
+    // Simulated vendor round-trip
+    @Param({"5"})
+    public long latencyMs;
+
+    private VendorStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private StandardEnvironment environment;
+    private VendorHttpClientFactory pooledFactory;
+    private SendGrid pooledSendGrid;
+    private TwilioRestClient pooledTwilio;
+    private Request sendGridRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stub = new VendorStubServer(0, latencyMs);
+        String baseUrl = "http://localhost:" + stub.getPort();
+        environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "http-client.sendgrid.base-url", baseUrl,
+                "http-client.twilio.base-url", baseUrl)));
+        meterRegistry = new SimpleMeterRegistry();
+
+        pooledFactory = new VendorHttpClientFactory(meterRegistry, environment);
+        pooledSendGrid = new SendGrid("SG.benchmark", new Client(pooledFactory.builder("sendgrid").build()));
+        pooledTwilio = twilioClient(pooledFactory);
+
+        sendGridRequest = new Request();
+        sendGridRequest.setMethod(Method.POST);
+        sendGridRequest.setEndpoint("mail/send");
+        sendGridRequest.setBody("{\"personalizations\":[{\"to\":[{\"email\":\"user@example.com\"}]}],"
+                + "\"from\":{\"email\":\"noreply@example.com\"},\"subject\":\"Benchmark\","
+                + "\"content\":[{\"type\":\"text/plain\",\"value\":\"Hello\"}]}");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pooledFactory.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public int sendGrid() throws IOException {
+        if ("pooled".equals(client)) {
+            return pooledSendGrid.api(sendGridRequest).getStatusCode();
+        }
+        try (VendorHttpClientFactory factory = new VendorHttpClientFactory(meterRegistry, environment)) {
+            return new SendGrid("SG.benchmark", new Client(factory.builder("sendgrid").build())).api(sendGridRequest).getStatusCode();
+        }
+    }
+
+    @Benchmark
+    public String twilio() {
+        if ("pooled".equals(client)) {
+            return sendSms(pooledTwilio);
+        }
+        try (VendorHttpClientFactory factory = new VendorHttpClientFactory(meterRegistry, environment)) {
+            return sendSms(twilioClient(factory));
+        }
+    }
+
+    private static String sendSms(TwilioRestClient twilioRestClient) {
+        return Message.creator(new PhoneNumber("+910000000000"), new PhoneNumber("+10000000000"), "Hello")
+                .create(twilioRestClient)
+                .getSid();
+    }
+
+    private static TwilioRestClient twilioClient(VendorHttpClientFactory factory) {
+        return new TwilioRestClient.Builder("AC00000000000000000000000000000000", "token")
+                .httpClient(new NetworkHttpClient(factory.builder("twilio")))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VendorClientBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.notification.consumercommon.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the SendGrid and Twilio APIs, for offline latency/throughput measurements.
+ *
+ * - POST /v3/mail/send                             -> 202, empty body (SendGrid)
+ * - POST /2010-04-01/Accounts/{sid}/Messages.json  -> 201, minimal Message JSON (Twilio)
+ * Every response is delayed by latencyMs to mimic the vendor round-trip.
+ *
+ * Point a consumer at it with http-client.sendgrid.base-url / http-client.twilio.base-url=http://localhost:<port>
+ * Run standalone: main(port, latencyMs), e.g. 8089 50
+ */
+public class VendorStubServer implements AutoCloseable {
+    private static final byte[] TWILIO_MESSAGE = ("{\"sid\":\"SM00000000000000000000000000000000\",\"status\":\"queued\","
+            + "\"body\":\"stub\",\"to\":\"+910000000000\",\"from\":\"+10000000000\"}").getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle on, the client's delayed ACK
+        // adds ~40 ms to every response on a kept-alive connection
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+
+    public VendorStubServer(int port, long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/v3/mail/send", exchange -> respond(exchange, 202, new byte[0]));
+        server.createContext("/2010-04-01/Accounts/", exchange -> respond(exchange, 201, TWILIO_MESSAGE));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.readAllBytes();
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        requests.incrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        VendorStubServer stub = new VendorStubServer(port, latencyMs);
+        System.out.println("Vendor stub listening on http://localhost:" + stub.getPort() + " with " + latencyMs + " ms latency");
+    }
+}
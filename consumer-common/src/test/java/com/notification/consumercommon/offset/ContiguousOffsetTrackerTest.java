@@ -0,0 +1,74 @@
+package com.notification.consumercommon.offset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContiguousOffsetTrackerTest {
+    private final ContiguousOffsetTracker offsetTracker = new ContiguousOffsetTracker();
+
+    @Test
+    void nothingIsCommittableBeforeARecordCompleted() {
+        offsetTracker.track(10);
+
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(-1);
+        assertThat(offsetTracker.inFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    void inOrderCompletionsMoveTheWatermarkPastTheRecord() {
+        track(10, 11, 12);
+
+        offsetTracker.complete(10);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(11);
+        offsetTracker.complete(11);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(12);
+        assertThat(offsetTracker.inFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    void anEarlierRecordInFlightHoldsTheWatermarkBack() {
+        track(10, 11, 12, 13);
+
+        offsetTracker.complete(12);
+        offsetTracker.complete(11);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(-1);
+
+        // 10 completes: 11 and 12 were waiting on it
+        offsetTracker.complete(10);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(13);
+        assertThat(offsetTracker.inFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    void gapsInTheOffsetsDoNotHoldTheWatermarkBack() {
+        // Offsets skipped by compaction or transaction markers are never tracked
+        track(10, 15, 20);
+
+        offsetTracker.complete(20);
+        offsetTracker.complete(10);
+        offsetTracker.complete(15);
+
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(21);
+        assertThat(offsetTracker.inFlightCount()).isZero();
+    }
+
+    @Test
+    void anUnchangedWatermarkIsPolledOnce() {
+        track(10, 11);
+        offsetTracker.complete(10);
+
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(11);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(-1);
+
+        offsetTracker.complete(11);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(12);
+        assertThat(offsetTracker.pollCommittableOffset()).isEqualTo(-1);
+    }
+
+    private void track(long... offsets) {
+        for (long offset : offsets) {
+            offsetTracker.track(offset);
+        }
+    }
+}
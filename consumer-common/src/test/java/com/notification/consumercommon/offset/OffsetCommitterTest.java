@@ -0,0 +1,200 @@
+package com.notification.consumercommon.offset;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetCommitterTest {
+    private static final TopicPartition PARTITION_0 = new TopicPartition("email-topic", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("email-topic", 1);
+
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+    private final RecordingConsumer consumer = new RecordingConsumer();
+
+    @Test
+    void completedRecordsWaitForTheInterval() {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        complete(offsetCommitter.track(record(PARTITION_0, 0)), offsetCommitter.track(record(PARTITION_0, 1)));
+
+        advanceMillis(999);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).isEmpty();
+
+        advanceMillis(1);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).containsExactly(Map.of(PARTITION_0, new OffsetAndMetadata(2)));
+        assertThat(consumer.syncCommits).isEmpty();
+    }
+
+    @Test
+    void maxPendingCompletionsCommitBeforeTheInterval() {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        offsetCommitter.assigned(List.of(PARTITION_0, PARTITION_1));
+        Runnable first = offsetCommitter.track(record(PARTITION_0, 0));
+        Runnable second = offsetCommitter.track(record(PARTITION_1, 7));
+
+        complete(first, second);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).isEmpty();
+
+        complete(offsetCommitter.track(record(PARTITION_0, 1)));
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).containsExactly(Map.of(
+                PARTITION_0, new OffsetAndMetadata(2), PARTITION_1, new OffsetAndMetadata(8)));
+    }
+
+    @Test
+    void onlyTheContiguousWatermarkIsCommitted() {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        Runnable first = offsetCommitter.track(record(PARTITION_0, 0));
+        Runnable second = offsetCommitter.track(record(PARTITION_0, 1));
+        Runnable third = offsetCommitter.track(record(PARTITION_0, 2));
+
+        complete(second, third);
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+        // Offset 0 is still in flight: nothing to commit yet
+        assertThat(consumer.asyncCommits).isEmpty();
+
+        complete(first);
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).containsExactly(Map.of(PARTITION_0, new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    void unchangedWatermarksAreNotCommittedAgain() {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        offsetCommitter.assigned(List.of(PARTITION_0, PARTITION_1));
+        complete(offsetCommitter.track(record(PARTITION_0, 0)));
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+
+        complete(offsetCommitter.track(record(PARTITION_1, 0)));
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+
+        assertThat(consumer.asyncCommits).containsExactly(
+                Map.of(PARTITION_0, new OffsetAndMetadata(1)), Map.of(PARTITION_1, new OffsetAndMetadata(1)));
+    }
+
+    @Test
+    void nothingIsCommittedWithoutCompletions() {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        offsetCommitter.track(record(PARTITION_0, 0));
+
+        advanceMillis(60_000);
+        offsetCommitter.maybeCommit(consumer);
+
+        assertThat(consumer.asyncCommits).isEmpty();
+    }
+
+    @Test
+    void revokedPartitionsAreDrainedThenCommittedSynchronously() throws Exception {
+        OffsetCommitter offsetCommitter = offsetCommitter(10_000);
+        offsetCommitter.assigned(List.of(PARTITION_0, PARTITION_1));
+        complete(offsetCommitter.track(record(PARTITION_0, 0)));
+        Runnable inFlight = offsetCommitter.track(record(PARTITION_0, 1));
+        complete(offsetCommitter.track(record(PARTITION_1, 0)));
+
+        CompletableFuture<Void> completion = CompletableFuture.runAsync(() -> {
+            sleep(200);
+            inFlight.run();
+        });
+        offsetCommitter.revoked(consumer, List.of(PARTITION_0));
+
+        assertThat(completion).isDone();
+        assertThat(consumer.syncCommits).containsExactly(Map.of(PARTITION_0, new OffsetAndMetadata(2)));
+        assertThat(consumer.asyncCommits).isEmpty();
+
+        // The partition kept is still committed by the poll loop
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).containsExactly(Map.of(PARTITION_1, new OffsetAndMetadata(1)));
+    }
+
+    @Test
+    void recordsStillInFlightAfterTheDrainAreLeftToTheNextOwner() {
+        OffsetCommitter offsetCommitter = offsetCommitter(100);
+        offsetCommitter.assigned(List.of(PARTITION_0));
+        complete(offsetCommitter.track(record(PARTITION_0, 0)));
+        Runnable inFlight = offsetCommitter.track(record(PARTITION_0, 1));
+
+        offsetCommitter.revoked(consumer, List.of(PARTITION_0));
+        assertThat(consumer.syncCommits).containsExactly(Map.of(PARTITION_0, new OffsetAndMetadata(1)));
+
+        // Assigned again: the late completion belongs to the revoked tracker
+        offsetCommitter.assigned(List.of(PARTITION_0));
+        inFlight.run();
+        advanceMillis(1000);
+        offsetCommitter.maybeCommit(consumer);
+        assertThat(consumer.asyncCommits).isEmpty();
+    }
+
+    // Commits at most every second or every 3 completions
+    private OffsetCommitter offsetCommitter(long revokeDrainMs) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("offset-commit.interval-ms", "1000")
+                .withProperty("offset-commit.max-pending", "3")
+                .withProperty("offset-commit.revoke-drain-ms", Long.toString(revokeDrainMs));
+        return new OffsetCommitter(environment, clock::get);
+    }
+
+    private static ConsumerRecord<String, String> record(TopicPartition partition, long offset) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "priority-1|1", "message");
+    }
+
+    private static void complete(Runnable... completions) {
+        for (Runnable completion : completions) {
+            completion.run();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // Keeps the offsets of every commit, telling synchronous (revocation) from asynchronous ones
+    private static class RecordingConsumer extends MockConsumer<String, String> {
+        final List<Map<TopicPartition, OffsetAndMetadata>> syncCommits = new ArrayList<>();
+        final List<Map<TopicPartition, OffsetAndMetadata>> asyncCommits = new ArrayList<>();
+
+        RecordingConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            syncCommits.add(offsets);
+            super.commitAsync(offsets, null);
+        }
+
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+            asyncCommits.add(offsets);
+            super.commitAsync(offsets, callback);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.notification.consumercommon.offset;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionLagTrackerTest {
+    private static final TopicPartition PARTITION_0 = new TopicPartition("email-topic", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("email-topic", 1);
+
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LagConsumer consumer = new LagConsumer();
+    // Refreshes unknown partitions at most every second
+    private final PartitionLagTracker lagTracker = new PartitionLagTracker(meterRegistry,
+            new MockEnvironment().withProperty("lag.refresh-ms", "1000"), clock::get);
+
+    @Test
+    void theLagKnownFromFetchesIsUsedWithoutAskingTheBroker() {
+        assign(PARTITION_0, 10, 15);
+        assign(PARTITION_1, 0, 0);
+        consumer.currentLags.put(PARTITION_0, 5L);
+        consumer.currentLags.put(PARTITION_1, 0L);
+
+        lagTracker.update(consumer);
+        consumer.currentLags.put(PARTITION_0, 3L);
+        lagTracker.update(consumer);
+
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(3);
+        assertThat(lagTracker.getLag(PARTITION_1)).isZero();
+        assertThat(gauge(PARTITION_0)).isEqualTo(3);
+        assertThat(consumer.endOffsetsRequests).isEmpty();
+    }
+
+    @Test
+    void onlyPartitionsWithoutFetchMetadataHaveTheirEndOffsetsRequested() {
+        // Partition 1 was just assigned: position 20, end offset 50
+        assign(PARTITION_0, 10, 15);
+        assign(PARTITION_1, 20, 50);
+        consumer.currentLags.put(PARTITION_0, 5L);
+
+        lagTracker.update(consumer);
+
+        assertThat(consumer.endOffsetsRequests).containsExactly(Set.of(PARTITION_1));
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(5);
+        assertThat(lagTracker.getLag(PARTITION_1)).isEqualTo(30);
+    }
+
+    @Test
+    void endOffsetsAreRequestedAtMostOncePerRefreshInterval() {
+        assign(PARTITION_0, 20, 50);
+
+        lagTracker.update(consumer);
+        consumer.updateEndOffsets(Map.of(PARTITION_0, 60L));
+        advanceMillis(999);
+        lagTracker.update(consumer);
+        assertThat(consumer.endOffsetsRequests).hasSize(1);
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(30);
+
+        advanceMillis(1);
+        lagTracker.update(consumer);
+        assertThat(consumer.endOffsetsRequests).hasSize(2);
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(40);
+    }
+
+    @Test
+    void noEndOffsetsAreRequestedOnceEveryLagIsKnown() {
+        assign(PARTITION_0, 20, 50);
+        lagTracker.update(consumer);
+
+        consumer.currentLags.put(PARTITION_0, 25L);
+        advanceMillis(60_000);
+        lagTracker.update(consumer);
+
+        assertThat(consumer.endOffsetsRequests).hasSize(1);
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(25);
+    }
+
+    @Test
+    void removedPartitionsNoLongerHaveAGauge() {
+        assign(PARTITION_0, 10, 15);
+        assign(PARTITION_1, 0, 0);
+        consumer.currentLags.put(PARTITION_0, 5L);
+        consumer.currentLags.put(PARTITION_1, 0L);
+        lagTracker.update(consumer);
+
+        lagTracker.remove(List.of(PARTITION_0));
+
+        assertThat(meterRegistry.find("consumer.partition.lag").tag("partition", "0").gauge()).isNull();
+        assertThat(lagTracker.getLag(PARTITION_0)).isEqualTo(-1);
+        assertThat(gauge(PARTITION_1)).isZero();
+    }
+
+    @Test
+    void aReassignedPartitionGetsANewGauge() {
+        assign(PARTITION_0, 10, 15);
+        consumer.currentLags.put(PARTITION_0, 5L);
+        lagTracker.update(consumer);
+        lagTracker.remove(List.of(PARTITION_0));
+
+        consumer.currentLags.put(PARTITION_0, 2L);
+        lagTracker.update(consumer);
+
+        assertThat(gauge(PARTITION_0)).isEqualTo(2);
+    }
+
+    private void assign(TopicPartition partition, long position, long endOffset) {
+        List<TopicPartition> assignment = new ArrayList<>(consumer.assignment());
+        assignment.add(partition);
+        consumer.assign(assignment);
+        consumer.updateBeginningOffsets(Map.of(partition, 0L));
+        consumer.updateEndOffsets(Map.of(partition, endOffset));
+        consumer.seek(partition, position);
+    }
+
+    private double gauge(TopicPartition partition) {
+        return meterRegistry.get("consumer.partition.lag")
+                .tag("topic", partition.topic())
+                .tag("partition", String.valueOf(partition.partition()))
+                .gauge().value();
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // currentLag() answers from currentLags (empty without fetch metadata), endOffsets() calls are recorded
+    private static class LagConsumer extends MockConsumer<String, String> {
+        final Map<TopicPartition, Long> currentLags = new HashMap<>();
+        final List<Set<TopicPartition>> endOffsetsRequests = new ArrayList<>();
+
+        LagConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized OptionalLong currentLag(TopicPartition partition) {
+            Long lag = currentLags.get(partition);
+            return lag == null ? OptionalLong.empty() : OptionalLong.of(lag);
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+            endOffsetsRequests.add(Set.copyOf(partitions));
+            return super.endOffsets(partitions);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.notification.consumercommon.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GcraRateLimiterTest {
+    // Arbitrary, nanoTime may start anywhere (even negative)
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+
+    @Test
+    void aFullBucketAllowsBurstPermitsAtOnce() {
+        GcraRateLimiter rateLimiter = rateLimiter(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire(1)).isTrue();
+        }
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void permitsRefillContinuouslyOneEmissionIntervalApart() {
+        GcraRateLimiter rateLimiter = rateLimiter(10, 5);
+        drain(rateLimiter);
+
+        advanceMillis(50);
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+        advanceMillis(50);
+        assertThat(rateLimiter.tryAcquire(1)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+
+        advanceMillis(250);
+        assertThat(rateLimiter.tryAcquire(2)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void idleTimeRefillsNoMoreThanTheBurst() {
+        GcraRateLimiter rateLimiter = rateLimiter(10, 5);
+        drain(rateLimiter);
+
+        advanceMillis(TimeUnit.HOURS.toMillis(1));
+
+        assertThat(drain(rateLimiter)).isEqualTo(5);
+    }
+
+    @Test
+    void fractionalRates() {
+        GcraRateLimiter rateLimiter = rateLimiter(0.5, 1);
+        assertThat(rateLimiter.tryAcquire(1)).isTrue();
+
+        advanceMillis(1999);
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+        advanceMillis(1);
+        assertThat(rateLimiter.tryAcquire(1)).isTrue();
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(0.5);
+    }
+
+    @Test
+    void moreThanTheBurstAtOnceIsNeverAllowedWithoutWaiting() {
+        GcraRateLimiter rateLimiter = rateLimiter(10, 5);
+
+        assertThat(rateLimiter.tryAcquire(6)).isFalse();
+        assertThat(rateLimiter.tryAcquire(5)).isTrue();
+    }
+
+    @Test
+    void acquireReservesSlotsInArrivalOrder() throws InterruptedException {
+        // 1 ms interval: the real sleeps stay short
+        GcraRateLimiter rateLimiter = rateLimiter(1000, 1);
+
+        assertThat(rateLimiter.acquire()).isZero();
+        assertThat(rateLimiter.acquire()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(rateLimiter.acquire()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+        // The reserved slots are taken, so nothing is left for tryAcquire until the clock catches up
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+        advanceMillis(3);
+        assertThat(rateLimiter.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    void acquireChargesOneIntervalPerPermit() throws InterruptedException {
+        GcraRateLimiter rateLimiter = rateLimiter(1000, 10);
+
+        assertThat(rateLimiter.acquire(10)).isZero();
+        assertThat(rateLimiter.acquire(2)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBurst() throws Exception {
+        GcraRateLimiter rateLimiter = rateLimiter(1, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                granted.add(executor.submit(() -> {
+                    start.await();
+                    int permits = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        if (rateLimiter.tryAcquire(1)) {
+                            permits++;
+                        }
+                    }
+                    return permits;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : granted) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(100);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aLargeAcquireDoesNotHoldBackLaterCallersUntilItIsDone() throws Exception {
+        // Real clock, 10 ms interval: 100 permits take about a second, reserved 10 at a time
+        GcraRateLimiter rateLimiter = new GcraRateLimiter("sendgrid", 100, 10, new SimpleMeterRegistry());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> large = executor.submit(() -> rateLimiter.acquire(100));
+            Thread.sleep(100);
+
+            assertThat(rateLimiter.acquire()).isLessThan(TimeUnit.MILLISECONDS.toNanos(400));
+            assertThat(large).isNotDone();
+            large.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(() -> rateLimiter(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> rateLimiter(10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private GcraRateLimiter rateLimiter(double permitsPerSecond, int burst) {
+        return new GcraRateLimiter("sendgrid", permitsPerSecond, burst, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // Takes every permit available right now
+    private static int drain(GcraRateLimiter rateLimiter) {
+        int permits = 0;
+        while (rateLimiter.tryAcquire(1)) {
+            permits++;
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,201 @@
+package com.notification.consumercommon.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the lease script against a real (embedded) Redis server.
+ */
+class RedisGcraRateLimiterTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final AtomicLong clock = new AtomicLong();
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = connectionFactory(port);
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.delete("ratelimit:sendgrid");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void permitsAreLeasedFromRedisLeaseSizeAtATime() throws InterruptedException {
+        RedisGcraRateLimiter rateLimiter = rateLimiter(10, 10, 5, 60_000, redisTemplate);
+
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire();
+        }
+        assertThat(leases()).isEqualTo(1);
+
+        rateLimiter.acquire();
+        assertThat(leases()).isEqualTo(2);
+        // TAT = now + 10 emission intervals of 100 ms, kept a second past it
+        Long ttlMs = redisTemplate.getExpire("ratelimit:sendgrid", TimeUnit.MILLISECONDS);
+        assertThat(ttlMs).isBetween(1000L, 2000L);
+    }
+
+    @Test
+    void requestsLargerThanTheLeaseAreGrantedInOneCall() throws InterruptedException {
+        RedisGcraRateLimiter rateLimiter = rateLimiter(10, 10, 2, 60_000, redisTemplate);
+
+        rateLimiter.acquire(8);
+
+        assertThat(leases()).isEqualTo(1);
+    }
+
+    @Test
+    void instancesShareOneQuota() throws InterruptedException {
+        // Two instances, each taking the whole burst of 5 (100 ms interval): the second has to wait for the first
+        RedisGcraRateLimiter first = new RedisGcraRateLimiter("sendgrid", 10, 5, 5, 60_000, redisTemplate, fallback(), meterRegistry);
+        RedisGcraRateLimiter second = new RedisGcraRateLimiter("sendgrid", 10, 5, 5, 60_000, redisTemplate, fallback(), meterRegistry);
+
+        assertThat(first.acquire(5)).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        long waited = second.acquire();
+
+        assertThat(waited).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(meterRegistry.get("consumer.rate_limiter.throttled").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aLargeAcquireDoesNotHoldBackLaterCallersUntilItIsDone() throws Exception {
+        // 10 ms interval on the Redis clock: 100 permits take about a second, leased 10 at a time
+        RedisGcraRateLimiter rateLimiter = rateLimiter(100, 10, 10, 60_000, redisTemplate);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> large = executor.submit(() -> rateLimiter.acquire(100));
+            Thread.sleep(100);
+
+            long start = System.nanoTime();
+            rateLimiter.acquire();
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(400));
+            assertThat(large).isNotDone();
+            large.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredLeasesAreDroppedAndLeasedAgain() throws InterruptedException {
+        RedisGcraRateLimiter rateLimiter = rateLimiter(10, 10, 5, 1000, redisTemplate);
+        rateLimiter.acquire();
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        rateLimiter.acquire();
+        assertThat(leases()).isEqualTo(1);
+
+        // The 3 permits left are past their TTL: the next acquire goes back to Redis
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        rateLimiter.acquire();
+        assertThat(leases()).isEqualTo(2);
+    }
+
+    @Test
+    void theLocalFallbackLimitsWhileRedisIsDown() throws Exception {
+        LettuceConnectionFactory downFactory = connectionFactory(freePort());
+        try {
+            GcraRateLimiter fallback = fallback();
+            RedisGcraRateLimiter rateLimiter = new RedisGcraRateLimiter("sendgrid", 10, 10, 5, 60_000,
+                    new StringRedisTemplate(downFactory), fallback, meterRegistry, clock::get);
+
+            rateLimiter.acquire();
+
+            // The permit came out of the fallback's burst of 2
+            assertThat(fallback.tryAcquire(1)).isTrue();
+            assertThat(fallback.tryAcquire(1)).isFalse();
+            assertThat(leases()).isZero();
+        } finally {
+            downFactory.destroy();
+        }
+    }
+
+    @Test
+    void leasedPermitsAreUsedBeforeTheFallback() throws Exception {
+        GcraRateLimiter fallback = fallback();
+        RedisGcraRateLimiter rateLimiter = rateLimiter(10, 10, 5, 60_000, redisTemplate, fallback);
+        rateLimiter.acquire();
+
+        redisServer.stop();
+        try {
+            // 4 leased permits left, the 5th comes from the fallback
+            rateLimiter.acquire(5);
+            assertThat(fallback.tryAcquire(1)).isTrue();
+            assertThat(fallback.tryAcquire(1)).isFalse();
+        } finally {
+            redisServer.start();
+        }
+
+        // Back to Redis once it is available again
+        rateLimiter.acquire();
+        assertThat(leases()).isEqualTo(2);
+    }
+
+    private RedisGcraRateLimiter rateLimiter(double permitsPerSecond, int burst, int leaseSize, long leaseTtlMs, StringRedisTemplate template) {
+        return rateLimiter(permitsPerSecond, burst, leaseSize, leaseTtlMs, template, fallback());
+    }
+
+    private RedisGcraRateLimiter rateLimiter(double permitsPerSecond, int burst, int leaseSize, long leaseTtlMs, StringRedisTemplate template,
+                                             GcraRateLimiter fallback) {
+        return new RedisGcraRateLimiter("sendgrid", permitsPerSecond, burst, leaseSize, leaseTtlMs, template, fallback, meterRegistry, clock::get);
+    }
+
+    // 1 permit/s with a burst of 2, on the fake clock: permits taken from it are easy to count
+    private GcraRateLimiter fallback() {
+        return new GcraRateLimiter("sendgrid-local", 1, 2, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private double leases() {
+        return meterRegistry.get("consumer.rate_limiter.leases").counter().count();
+    }
+
+    // Commands to a stopped server fail fast instead of waiting out the default 60 s timeout
+    private static LettuceConnectionFactory connectionFactory(int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(500)).build());
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.notification.consumercommon.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+
+    @Test
+    void successfulCallsRaiseTheLimitByOneOverTheLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10, 50);
+
+        // 2 + 1/2 + 1/2.5 = 2.9, the third success takes it past 3
+        succeed(limiter, 2);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        succeed(limiter, 1);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void theLimitNeverExceedsMaxLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 5, 50);
+
+        succeed(limiter, 100);
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void aBurstOfSlowCallsCutsTheLimitOnce() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 10, 50);
+        advanceMillis(1);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        long third = limiter.acquire();
+
+        advanceMillis(1000);
+        limiter.release(first, false);
+        limiter.release(second, false);
+        limiter.release(third, true);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // A call started after the decrease counts again
+        advanceMillis(1);
+        long later = limiter.acquire();
+        limiter.release(later, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void theLimitNeverDropsBelowMinLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 2, 10, 50);
+
+        for (int i = 0; i < 5; i++) {
+            advanceMillis(1);
+            limiter.release(limiter.acquire(), true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void callersOverTheLimitGiveUpAfterMaxWait() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 10, 20);
+        limiter.acquire();
+
+        assertThat(limiter.acquire()).isEqualTo(-1);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void aFreedSlotWakesUpAWaitingCaller() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 10, 10_000);
+        limiter.acquire();
+
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException interruptedException) {
+                throw new IllegalStateException(interruptedException);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiting).isNotDone();
+
+        // Cancelled: the slot is freed but the limit stays
+        limiter.cancel();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotEqualTo(-1);
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    // Latency threshold of 500 ms, halving on a failed or slow call
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit, long maxWaitMs) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, 500, 0.5, maxWaitMs, clock::get);
+    }
+
+    private void succeed(AdaptiveConcurrencyLimiter limiter, int calls) throws InterruptedException {
+        for (int i = 0; i < calls; i++) {
+            long start = limiter.acquire();
+            advanceMillis(10);
+            limiter.release(start, false);
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,145 @@
+package com.notification.consumercommon.resilience;
+
+import com.notification.consumercommon.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+
+    // Opens at 50% failures of the last 10 calls, once 4 were made; 2 trial calls after 1 s open
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("sendgrid", 50, 10, 4, 1000, 2, clock::get);
+
+    @Test
+    void opensAtTheThresholdOnceMinimumCallsWereMade() {
+        fail(3);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isNull();
+    }
+
+    @Test
+    void staysClosedBelowTheThreshold() {
+        succeed(3);
+        fail(2);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+        // 3 failures of 6 calls
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void onlyTheLastWindowSizeCallsCount() {
+        fail(3);
+        succeed(10);
+
+        // The early failures left the window: 1 of 10 failed
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void movesToHalfOpenAfterTheOpenDuration() {
+        fail(4);
+
+        advanceMillis(999);
+        assertThat(circuitBreaker.isCallPermitted()).isFalse();
+        advanceMillis(1);
+        assertThat(circuitBreaker.isCallPermitted()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+
+    @Test
+    void onlyHalfOpenCallsTrialsAreLetThrough() {
+        halfOpen();
+
+        State first = circuitBreaker.tryAcquirePermission();
+        State second = circuitBreaker.tryAcquirePermission();
+        assertThat(first).isEqualTo(State.HALF_OPEN);
+        assertThat(second).isEqualTo(State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isNull();
+
+        // A permit given back can be taken again
+        circuitBreaker.releasePermission(second);
+        assertThat(circuitBreaker.tryAcquirePermission()).isEqualTo(State.HALF_OPEN);
+    }
+
+    @Test
+    void aFailedTrialOpensTheCircuitAgain() {
+        halfOpen();
+        State first = circuitBreaker.tryAcquirePermission();
+        State second = circuitBreaker.tryAcquirePermission();
+
+        circuitBreaker.onSuccess(first);
+        circuitBreaker.onFailure(second);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(circuitBreaker.isCallPermitted()).isFalse();
+        advanceMillis(1000);
+        assertThat(circuitBreaker.isCallPermitted()).isTrue();
+    }
+
+    @Test
+    void closesOnceEveryTrialSucceeded() {
+        halfOpen();
+        State first = circuitBreaker.tryAcquirePermission();
+        State second = circuitBreaker.tryAcquirePermission();
+
+        circuitBreaker.onSuccess(first);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        circuitBreaker.onSuccess(second);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+        // The window starts over: old failures do not reopen it
+        fail(3);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void outcomesOfCallsStartedInAnotherStateAreIgnored() {
+        // Started while closed, finished after the circuit opened
+        State closedCall = circuitBreaker.tryAcquirePermission();
+        fail(4);
+        halfOpen();
+        State trial = circuitBreaker.tryAcquirePermission();
+
+        circuitBreaker.onFailure(closedCall);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        circuitBreaker.onSuccess(trial);
+        circuitBreaker.onSuccess(closedCall);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+
+    // Opens the circuit if needed, then waits out the open duration
+    private void halfOpen() {
+        if (circuitBreaker.getState() == State.CLOSED) {
+            fail(4);
+        }
+        advanceMillis(1000);
+        assertThat(circuitBreaker.isCallPermitted()).isTrue();
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        }
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            circuitBreaker.onSuccess(circuitBreaker.tryAcquirePermission());
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,44 @@
+package com.notification.consumercommon.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryPolicyTest {
+    private final RetryPolicy retryPolicy = new RetryPolicy("email", new MockEnvironment());
+
+    @Test
+    void failedAttemptsBackOffThroughTheTiersUntilTheDeadLetterTopic() {
+        for (int i = 0; i < 50; i++) {
+            // Backoff 30s, then 2m: jittered to 15-30s and 60-120s
+            assertThat(retryPolicy.next(3, 1).topic()).isEqualTo("email-retry-30s");
+            assertThat(retryPolicy.next(3, 1).delayMs()).isBetween(15_000L, 30_000L);
+            assertThat(retryPolicy.next(3, 2).topic()).isEqualTo("email-retry-5m");
+        }
+
+        RetryPolicy.RetryDecision decision = retryPolicy.next(3, 3);
+        assertThat(decision.deadLetter()).isTrue();
+        assertThat(decision.topic()).isEqualTo("email-dlt");
+        assertThat(retryPolicy.next(1, 3).deadLetter()).isFalse();
+    }
+
+    @Test
+    void aRefusedDeliveryIsRequeuedToTheTierOfItsLastAttempt() {
+        for (int i = 0; i < 50; i++) {
+            // Never delivered yet: first tier
+            assertThat(retryPolicy.requeue(0).topic()).isEqualTo("email-retry-30s");
+            assertThat(retryPolicy.requeue(1).topic()).isEqualTo("email-retry-30s");
+            assertThat(retryPolicy.requeue(2).topic()).isEqualTo("email-retry-5m");
+        }
+    }
+
+    @Test
+    void aRefusedDeliveryIsNeverDeadLettered() {
+        // A P3 message has 3 attempts, all used up
+        RetryPolicy.RetryDecision decision = retryPolicy.requeue(3);
+
+        assertThat(decision.deadLetter()).isFalse();
+        assertThat(retryPolicy.getTierTopics()).contains(decision.topic());
+    }
+}
@@ -0,0 +1,155 @@
+package com.notification.consumercommon.scheduling;
+
+import com.notification.consumercommon.scheduling.DeficitRoundRobinQueue.Policy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeficitRoundRobinQueueTest {
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+
+    @Test
+    void busyLanesShareTheirWeights() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 0, 0);
+        fill(queue, 0, 100);
+        fill(queue, 1, 100);
+        fill(queue, 2, 100);
+
+        // One round: lane 0 first, for its whole deficit
+        assertThat(lanesOf(take(queue, 12))).containsExactly(0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 2);
+
+        List<Integer> lanes = lanesOf(take(queue, 108));
+        assertThat(lanes).filteredOn(lane -> lane == 0).hasSize(72);
+        assertThat(lanes).filteredOn(lane -> lane == 1).hasSize(27);
+        assertThat(lanes).filteredOn(lane -> lane == 2).hasSize(9);
+        assertThat(queue.size()).isEqualTo(180);
+        assertThat(queue.getRoundSize()).isEqualTo(12);
+    }
+
+    @Test
+    void anIdleLaneSharesGoToTheBusyOnes() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 0, 0);
+        fill(queue, 1, 10);
+        fill(queue, 2, 10);
+
+        assertThat(lanesOf(take(queue, 8))).containsExactly(1, 1, 1, 2, 1, 1, 1, 2);
+    }
+
+    @Test
+    void anIdleLanesDeficitIsReset() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 0, 0);
+        fill(queue, 0, 2);
+        fill(queue, 1, 100);
+        fill(queue, 2, 100);
+
+        // Lane 0 runs dry with 6 of its 8 credits unused
+        assertThat(lanesOf(take(queue, 3))).containsExactly(0, 0, 1);
+        fill(queue, 0, 100);
+
+        // Its next visit gets 8 items, not 8 + 6
+        assertThat(lanesOf(take(queue, 12))).containsExactly(1, 1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    void itemsPastTheirMaxAgeGoFirstMostOverdueFirst() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 1000, 500);
+        queue.add(1, "1-0");
+        queue.add(2, "2-0");
+        fill(queue, 0, 100);
+
+        advanceMillis(1000);
+        // Only lane 2 is overdue (by 500 ms)
+        assertThat(queue.take()).isEqualTo("2-0");
+        assertThat(lanesOf(take(queue, 1))).containsExactly(0);
+
+        advanceMillis(1);
+        assertThat(queue.take()).isEqualTo("1-0");
+    }
+
+    @Test
+    void theMostOverdueLaneWinsWhenSeveralAre() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 1000, 500);
+        queue.add(1, "1-0");
+        advanceMillis(900);
+        queue.add(2, "2-0");
+        fill(queue, 0, 100);
+
+        // Lane 1 overdue by 1000 ms, lane 2 by 600 ms
+        advanceMillis(1100);
+        assertThat(queue.take()).isEqualTo("1-0");
+        assertThat(queue.take()).isEqualTo("2-0");
+    }
+
+    @Test
+    void strictPolicyAlwaysTakesTheLowestBusyLane() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.STRICT, 0, 0, 0);
+        fill(queue, 0, 20);
+        fill(queue, 2, 5);
+        queue.add(1, "1-0");
+
+        assertThat(lanesOf(take(queue, 26))).containsExactly(
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 2, 2, 2, 2, 2);
+        assertThat(queue.take()).isNull();
+    }
+
+    @Test
+    void strictPolicyStillHonoursMaxAge() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.STRICT, 0, 0, 500);
+        queue.add(2, "2-0");
+        fill(queue, 0, 20);
+
+        assertThat(lanesOf(take(queue, 1))).containsExactly(0);
+        advanceMillis(501);
+        assertThat(queue.take()).isEqualTo("2-0");
+    }
+
+    @Test
+    void removeIfKeepsTheSizes() {
+        DeficitRoundRobinQueue<String> queue = queue(Policy.DRR, 0, 0, 0);
+        queue.add(0, "partition-1");
+        queue.add(0, "partition-2");
+        queue.add(1, "partition-1");
+        queue.add(2, "partition-3");
+
+        queue.removeIf("partition-1"::equals);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.size(0)).isEqualTo(1);
+        assertThat(queue.size(1)).isZero();
+        assertThat(take(queue, 2)).containsExactlyInAnyOrder("partition-2", "partition-3");
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.take()).isNull();
+    }
+
+    // Weights 8/3/1, as configured for the priority lanes
+    private DeficitRoundRobinQueue<String> queue(Policy policy, long... maxAgesMs) {
+        return new DeficitRoundRobinQueue<>(policy, new int[]{8, 3, 1}, maxAgesMs, clock::get);
+    }
+
+    private static void fill(DeficitRoundRobinQueue<String> queue, int lane, int items) {
+        for (int i = 0; i < items; i++) {
+            queue.add(lane, lane + "-" + i);
+        }
+    }
+
+    private static List<String> take(DeficitRoundRobinQueue<String> queue, int items) {
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            taken.add(queue.take());
+        }
+        return taken;
+    }
+
+    private static List<Integer> lanesOf(List<String> items) {
+        return items.stream().map(item -> Integer.parseInt(item.substring(0, item.indexOf('-')))).toList();
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,129 @@
+package com.notification.consumercommon.scheduling;
+
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.Assignment;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.GroupSubscription;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.Subscription;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityLaneAssignorTest {
+    private static final Node BROKER = new Node(0, "localhost", 9092);
+
+    private final PriorityLaneAssignor assignor = new PriorityLaneAssignor();
+
+    @Test
+    void everyMemberGetsAllThreeLanesWhileThereAreAtMostNMembers() {
+        // 4 partitions per lane
+        Cluster cluster = cluster(Map.of("email-topic", 12));
+
+        for (int memberCount = 1; memberCount <= 4; memberCount++) {
+            Map<String, Assignment> assignments = assign(cluster, members(memberCount, "email-topic"));
+
+            assertThat(assignments).hasSize(memberCount);
+            assignments.values().forEach(assignment ->
+                    assertThat(lanesOf(assignment)).containsExactlyInAnyOrder(1, 2, 3));
+            assertThat(allPartitions(assignments)).hasSize(12).doesNotHaveDuplicates();
+        }
+    }
+
+    @Test
+    void partitionsAreBalancedAcrossMembers() {
+        Cluster cluster = cluster(Map.of("email-topic", 12));
+
+        Map<String, Assignment> assignments = assign(cluster, members(4, "email-topic"));
+
+        assignments.values().forEach(assignment -> assertThat(assignment.partitions()).hasSize(3));
+    }
+
+    @Test
+    void membersBeyondNStayPartlyIdleButEveryPartitionIsAssignedOnce() {
+        Cluster cluster = cluster(Map.of("email-topic", 6));
+
+        Map<String, Assignment> assignments = assign(cluster, members(8, "email-topic"));
+
+        assertThat(allPartitions(assignments)).hasSize(6).doesNotHaveDuplicates();
+        assertThat(assignments.values()).filteredOn(assignment -> assignment.partitions().isEmpty()).hasSize(2);
+    }
+
+    @Test
+    void theAssignmentDoesNotDependOnTheSubscriptionOrder() {
+        Cluster cluster = cluster(Map.of("email-topic", 12, "email-retry-topic", 6));
+        Map<String, Subscription> subscriptions = members(3, "email-topic", "email-retry-topic");
+        Map<String, Subscription> reversed = new LinkedHashMap<>();
+        List<String> memberIds = new ArrayList<>(subscriptions.keySet());
+        Collections.reverse(memberIds);
+        memberIds.forEach(memberId -> reversed.put(memberId, subscriptions.get(memberId)));
+
+        Map<String, Assignment> first = assign(cluster, subscriptions);
+        Map<String, Assignment> second = assign(cluster, reversed);
+
+        assertThat(first.keySet()).isEqualTo(second.keySet());
+        first.forEach((memberId, assignment) ->
+                assertThat(assignment.partitions()).isEqualTo(second.get(memberId).partitions()));
+    }
+
+    @Test
+    void onlySubscribedMembersGetATopicsPartitions() {
+        Cluster cluster = cluster(Map.of("email-topic", 3, "email-retry-topic", 3));
+        Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+        subscriptions.put("member-1", new Subscription(List.of("email-topic")));
+        subscriptions.put("member-2", new Subscription(List.of("email-retry-topic")));
+
+        Map<String, Assignment> assignments = assign(cluster, subscriptions);
+
+        assertThat(assignments.get("member-1").partitions()).extracting(TopicPartition::topic).containsOnly("email-topic").hasSize(3);
+        assertThat(assignments.get("member-2").partitions()).extracting(TopicPartition::topic).containsOnly("email-retry-topic").hasSize(3);
+    }
+
+    @Test
+    void topicsUnknownToTheClusterAreSkipped() {
+        Map<String, Assignment> assignments = assign(cluster(Map.of()), members(2, "email-topic"));
+
+        assertThat(allPartitions(assignments)).isEmpty();
+    }
+
+    private Map<String, Assignment> assign(Cluster cluster, Map<String, Subscription> subscriptions) {
+        return assignor.assign(cluster, new GroupSubscription(subscriptions)).groupAssignment();
+    }
+
+    private static Map<String, Subscription> members(int count, String... topics) {
+        Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+        for (int i = 1; i <= count; i++) {
+            subscriptions.put("member-" + i, new Subscription(List.of(topics)));
+        }
+        return subscriptions;
+    }
+
+    private static Cluster cluster(Map<String, Integer> partitionCounts) {
+        List<PartitionInfo> partitions = new ArrayList<>();
+        partitionCounts.forEach((topic, count) -> {
+            for (int partition = 0; partition < count; partition++) {
+                partitions.add(new PartitionInfo(topic, partition, BROKER, new Node[]{BROKER}, new Node[]{BROKER}));
+            }
+        });
+        return new Cluster("cluster", List.of(BROKER), partitions, Set.of(), Set.of());
+    }
+
+    private static Set<Integer> lanesOf(Assignment assignment) {
+        return assignment.partitions().stream().map(PriorityLanes::priorityOf).collect(Collectors.toSet());
+    }
+
+    private static List<TopicPartition> allPartitions(Map<String, Assignment> assignments) {
+        List<TopicPartition> partitions = new ArrayList<>();
+        assignments.values().forEach(assignment -> partitions.addAll(assignment.partitions()));
+        return partitions;
+    }
+}
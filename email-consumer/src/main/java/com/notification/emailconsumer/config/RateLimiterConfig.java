@@ -0,0 +1,30 @@
+package com.notification.emailconsumer.config;
+
+import com.notification.consumercommon.ratelimit.RateLimiter;
+import com.notification.consumercommon.ratelimit.RateLimiterFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Rate limit of the SendGrid API
+ *
+ * Configured by rate-limit.sendgrid.* (see RateLimiterFactory). Defaults match the SendGrid
+ * quota of 600 emails/minute (10/s), shared through Redis by every email-consumer instance.
+ * One permit is one recipient: a coalesced send to N recipients takes N permits.
+ */
+@Configuration
+public class RateLimiterConfig {
+
+    @Bean
+    public RateLimiterFactory rateLimiterFactory(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        return new RateLimiterFactory(redisTemplate, meterRegistry, environment);
+    }
+
+    @Bean
+    public RateLimiter sendGridRateLimiter(RateLimiterFactory rateLimiterFactory) {
+        return rateLimiterFactory.create("sendgrid");
+    }
+}
@@ -0,0 +1,30 @@
+package com.notification.emailconsumer.config;
+
+import com.notification.consumercommon.http.VendorHttpClientFactory;
+import com.sendgrid.Client;
+import com.sendgrid.SendGrid;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * SendGrid client, built once and shared by all dispatch threads
+ *
+ * Connections are pooled and kept alive (http-client.sendgrid.*, see VendorHttpClientFactory),
+ * so consecutive emails reuse the TLS connection instead of opening one per email.
+ */
+@Configuration
+public class VendorClientConfig {
+
+    @Bean
+    public VendorHttpClientFactory vendorHttpClientFactory(MeterRegistry meterRegistry, Environment environment) {
+        return new VendorHttpClientFactory(meterRegistry, environment);
+    }
+
+    @Bean
+    public SendGrid sendGrid(VendorHttpClientFactory vendorHttpClientFactory, @Value("${sendgrid.api.key}") String sendgridApiKey) {
+        return new SendGrid(sendgridApiKey, new Client(vendorHttpClientFactory.builder("sendgrid").build()));
+    }
+}
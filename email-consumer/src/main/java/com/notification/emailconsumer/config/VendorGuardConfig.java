@@ -0,0 +1,29 @@
+package com.notification.emailconsumer.config;
+
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.resilience.VendorGuardFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Circuit breaker and adaptive concurrency limit of the SendGrid calls
+ *
+ * Configured by circuit-breaker.sendgrid.* and concurrency-limit.sendgrid.* (see VendorGuardFactory).
+ * While the circuit is open, emails fail fast into the retry topics and
+ * PriorityAwarePartitionConsumer pauses its partitions.
+ */
+@Configuration
+public class VendorGuardConfig {
+
+    @Bean
+    public VendorGuardFactory vendorGuardFactory(MeterRegistry meterRegistry, Environment environment) {
+        return new VendorGuardFactory(meterRegistry, environment);
+    }
+
+    @Bean
+    public VendorGuard sendGridGuard(VendorGuardFactory vendorGuardFactory) {
+        return vendorGuardFactory.create("sendgrid");
+    }
+}
@@ -9,12 +9,15 @@ package com.notification.emailconsumer.constants;
  * 
  * PARTITION STRATEGY:
  * The email-topic has 3 partitions:
- * - Partition 0: Priority 1 messages (from priority1-processor)
- * - Partition 1: Priority 2 messages (from priority2-processor)
- * - Partition 2: Priority 3 messages (from priority3-processor)
+ * - Partition 0: Priority 1 messages (from priority-processor, priority-1 listener)
+ * - Partition 1: Priority 2 messages (from priority-processor, priority-2 listener)
+ * - Partition 2: Priority 3 messages (from priority-processor, priority-3 listener)
  * 
  * The PriorityAwarePartitionConsumer uses these constants to
  * subscribe to all partitions and enforce priority-based processing.
+ * 
+ * RETRIES:
+ * CHANNEL names the retry topics (email-retry-30s, ...) and the dead-letter topic (email-dlt), see RetryConfig
  */
 public class Constants {
     // Kafka topic containing email notifications from all priority processors
@@ -22,4 +25,7 @@ public class Constants {
     
     // Consumer group ID for tracking offset across restarts
     public static final String GROUP_ID = "email-consumer";
+
+    // Prefix of the retry tier and dead-letter topics
+    public static final String CHANNEL = "email";
 }
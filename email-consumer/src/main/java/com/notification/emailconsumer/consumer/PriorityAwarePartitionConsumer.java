@@ -1,19 +1,30 @@
 package com.notification.emailconsumer.consumer;
 
-import com.notification.emailconsumer.service.MessageHandlerService;
+import com.notification.consumercommon.offset.OffsetCommitter;
+import com.notification.consumercommon.offset.PartitionLagTracker;
+import com.notification.emailconsumer.service.EmailDispatchService;
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.scheduling.PriorityLaneAssignor;
+import com.notification.consumercommon.scheduling.PriorityLanes;
+import com.notification.consumercommon.scheduling.PriorityRecordScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.Arrays;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
 
 import static com.notification.emailconsumer.constants.Constants.TOPIC;
 import static com.notification.emailconsumer.constants.Constants.GROUP_ID;
@@ -23,105 +34,148 @@ import static com.notification.emailconsumer.constants.Constants.GROUP_ID;
  * 
  * CORE LOGIC - PARTITION-LEVEL PRIORITY ENFORCEMENT:
  * 
- * 1. Manual Partition Assignment:
- *    - Subscribes to all 3 partitions of email-topic
- *    - Partition 0: Priority 1 (highest)
- *    - Partition 1: Priority 2 (medium)
- *    - Partition 2: Priority 3 (lowest)
+ * 1. Group-Managed Partition Assignment (scale-out):
+ *    - email-topic has N partitions per priority, interleaved (PriorityLanes):
+ *      Partitions 0, 3, 6, ...: Priority 1 (highest)
+ *      Partitions 1, 4, 7, ...: Priority 2 (medium)
+ *      Partitions 2, 5, 8, ...: Priority 3 (lowest)
+ *    - Instances subscribe as one group; PriorityLaneAssignor gives each of them
+ *      partitions of every priority, so up to N instances enforce priority on their own
+ *    - On revocation buffered records are dropped and in-flight emails get up to 10s
+ *      to complete and be committed (OffsetCommitter); the rest is re-delivered to the new owner
  * 
  * 2. Infinite Polling Loop:
- *    - Continuously checks pending messages in each partition
- *    - Uses endOffsets vs current position to calculate lag
+ *    - Polls all assigned partitions together, the records are buffered per priority
+ *      (PriorityRecordScheduler)
+ *    - One scheduling round (12 records) is dispatched per poll, then it polls again
  * 
- * 3. Smart Pause/Resume Strategy:
- *    IF partition 0 has messages:
- *      → PAUSE partitions 1 & 2
- *      → Process ONLY partition 0
- *    ELSE IF partition 1 has messages:
- *      → PAUSE partition 2
- *      → RESUME partition 1
- *      → Process partition 1
- *    ELSE:
- *      → RESUME all partitions
- *      → Process partition 2
+ * 3. Weighted Priority Scheduling (priority-scheduler.* properties):
+ *    WHILE all priorities have records:
+ *      → 8 of every 12 records dispatched are priority 1
+ *      → 3 are priority 2, 1 is priority 3 (deficit round-robin)
+ *    A priority 2 / 3 record waiting longer than 10s / 30s goes first
+ *    A priority with 500 records buffered has its partitions paused
+ *      until half of them are dispatched
  * 
- * This ensures high-priority emails are ALWAYS sent before low-priority ones!
+ * Priority 1 gets most of the throughput, yet a steady stream of it can no longer
+ * starve priority 3 the way strict pausing did.
+ * 
+ * 4. Concurrent Dispatch:
+ *    - Records are handed to EmailDispatchService (bounded number in flight)
+ *      instead of being sent one at a time on the polling thread
+ *    - Its queue is FIFO, keeping the order the scheduler picked
+ * 
+ * 5. Offset Commits (auto-commit disabled):
+ *    - OffsetCommitter keeps a ContiguousOffsetTracker per partition for in-flight records
+ *    - Only offsets up to the last contiguous completed record are committed (commitAsync),
+ *      batched: every second or every 500 completed records
+ *    - A crash re-delivers records that were in flight or completed since the last commit,
+ *      nothing is skipped; DeliveryDeduplicator skips those already sent
+ * 
+ * 6. Vendor Outage:
+ *    - While the SendGrid circuit breaker is open (VendorGuardConfig) all partitions are paused
+ *    - They resume on their own once it lets trial calls through
+ * 
+ * 7. Lag Metrics:
+ *    - consumer.partition.lag per partition, from PartitionLagTracker
+ *    - Read from the fetch metadata of each poll, no endOffsets() call per iteration
  */
 @Component
 @Slf4j
 public class PriorityAwarePartitionConsumer {
     private ConsumerFactory consumerFactory;
-    private MessageHandlerService messageHandlerService;
+    private EmailDispatchService emailDispatchService;
+    private VendorGuard sendGridGuard;
+    private Environment environment;
+    private MeterRegistry meterRegistry;
 
-    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, MessageHandlerService messageHandlerService){
+    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, EmailDispatchService emailDispatchService, VendorGuard sendGridGuard,
+                                          Environment environment, MeterRegistry meterRegistry){
         this.consumerFactory = consumerFactory;
-        this.messageHandlerService = messageHandlerService;
+        this.emailDispatchService = emailDispatchService;
+        this.sendGridGuard = sendGridGuard;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
     }
 
     @EventListener
     public void onAppStarted(ApplicationStartedEvent applicationStartedEvent){
-         KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID,"email-consumer");
-
-        TopicPartition PARTITION_PRIORITY_1 = new TopicPartition(TOPIC,0);
-        TopicPartition PARTITION_PRIORITY_2 = new TopicPartition(TOPIC,1);
-        TopicPartition PARTITION_PRIORITY_3 = new TopicPartition(TOPIC,2);
+        // Offsets are committed by this loop once records are sent, not when they are polled
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, PriorityLaneAssignor.class.getName());
+        KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID, "email-consumer", null, overrides);
+
+        OffsetCommitter offsetCommitter = new OffsetCommitter(environment);
+        PriorityRecordScheduler scheduler = new PriorityRecordScheduler(environment);
+        PartitionLagTracker lagTracker = new PartitionLagTracker(meterRegistry, environment);
+
+        // Subscribe (group-managed assignment) so several instances can share email-topic
+        consumer.subscribe(List.of(TOPIC), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                scheduler.remove(partitions);
+                lagTracker.remove(partitions);
+                // Let in-flight emails finish so their offsets are committed before the new owner takes over
+                offsetCommitter.revoked(consumer, partitions);
+                log.info("Partitions revoked: {}", partitions);
+            }
 
-        // Assign partitions manually (not subscribe) for fine-grained control
-        consumer.assign(Arrays.asList(
-                PARTITION_PRIORITY_1,
-                PARTITION_PRIORITY_2,
-                PARTITION_PRIORITY_3
-        ));
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                offsetCommitter.assigned(partitions);
+                log.info("Partitions assigned: {}", partitions);
+            }
+        });
 
+        // Set while all partitions are paused because the vendor is unavailable
+        boolean pausedForVendor = false;
         while(true){
             try {
-                // Fetch end offsets for all partitions
-                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(Arrays.asList(
-                        PARTITION_PRIORITY_1, PARTITION_PRIORITY_2, PARTITION_PRIORITY_3
-                ));
-
-                // Get current positions
-                long positionP1 = consumer.position(PARTITION_PRIORITY_1);
-                long positionP2 = consumer.position(PARTITION_PRIORITY_2);
-                long positionP3 = consumer.position(PARTITION_PRIORITY_3);
+                // Vendor outage: take no new records until the circuit breaker lets calls through again
+                if (!sendGridGuard.isAvailable()) {
+                    if (!pausedForVendor) {
+                        log.warn("SendGrid unavailable, pausing all partitions");
+                        pausedForVendor = true;
+                    }
+                    consumer.pause(consumer.assignment());
+                    // A rebalance in this poll may assign partitions that aren't paused yet; keep what they return
+                    scheduler.addAll(consumer.poll(Duration.ofMillis(500)));
+                    offsetCommitter.maybeCommit(consumer);
+                    continue;
+                }
+                if (pausedForVendor) {
+                    // applyBackpressure below resumes the partitions whose lane isn't full
+                    pausedForVendor = false;
+                    log.info("SendGrid available again, resuming partitions");
+                }
 
-                // Check offsets for priority-based pausing/resuming
-                boolean hasPriority1Messages = (endOffsets.get(PARTITION_PRIORITY_1) - positionP1) > 0;
+                scheduler.applyBackpressure(consumer);
 
-                if (hasPriority1Messages) {
-                    // Pause lower-priority partitions
-                    consumer.pause(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                } else {
-                    boolean hasPriority2Messages = (endOffsets.get(PARTITION_PRIORITY_2) - positionP2) > 0;
+                // Poll all partitions at once; don't wait for more while records are buffered
+                ConsumerRecords<String, String> records = consumer.poll(scheduler.isEmpty() ? Duration.ofMillis(500) : Duration.ZERO);
+                scheduler.addAll(records);
+                // From the fetch metadata of this poll, no broker call
+                lagTracker.update(consumer);
 
-                    if (hasPriority2Messages) {
-                        // Pause the lowest-priority partition
-                        consumer.pause(Arrays.asList(PARTITION_PRIORITY_3));
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2));
-                    } else {
-                        // Resume all partitions if no priority 1 or 2 messages are left
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                    }
+                // Dispatch one scheduling round, then poll again so new priority 1 records join quickly
+                for (int i = 0; i < scheduler.getRoundSize() && !scheduler.isEmpty(); i++) {
+                    ConsumerRecord<String, String> record = scheduler.next();
+                    processRecord(record, offsetCommitter.track(record));
                 }
 
-                // Poll for new messages from active partitions
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
-                records.forEach(record -> processRecord(record)); // Process messages
+                // Commit what completed, batched by offset-commit.* (see OffsetCommitter)
+                offsetCommitter.maybeCommit(consumer);
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
 
-    private void processRecord(ConsumerRecord record) {
+    private void processRecord(ConsumerRecord<String, String> record, Runnable onComplete) throws InterruptedException {
         log.debug("Record Received: \n"+"Offset: " + record.offset()
                 + ", Key: " + record.key() + ", Value: " + record.value());
-        processMessage(record.value().toString());
-    }
-
-    private void processMessage(String message) {
-        //process messages as if you are listening to fresh kafka topic
-        //The above code will handle prioritization among partitions
-        messageHandlerService.handleEmailRequest(message);
+        // Blocks while too many emails are in flight
+        emailDispatchService.dispatch(PriorityLanes.priorityOf(record.partition()), record.value(), onComplete);
     }
 }
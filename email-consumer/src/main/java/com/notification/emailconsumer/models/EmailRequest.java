@@ -13,6 +13,10 @@ public class EmailRequest {
     private String emailSubject;
     private String[] emailAttachments;
     private Long notificationId;
+    // Not sent by priority-processor: set from the partition, kept when the request is republished for a retry
+    private int priority;
+    // Deliveries already attempted, counted by FailedNotificationsHandlerService
+    private int attempt;
 
     public EmailRequest(String emailId, String message, String emailSubject, String[] emailAttachments){
         this.emailId = emailId;
@@ -1,5 +1,6 @@
 package com.notification.emailconsumer.models.enums;
 
 public enum Status {
-    pending, sent, failed
+    // deferred: parked by priority-processor until it may be sent (e.g. the user's quiet hours end)
+    pending, sent, failed, deferred
 }
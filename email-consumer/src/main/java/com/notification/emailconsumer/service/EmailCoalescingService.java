@@ -0,0 +1,221 @@
+package com.notification.emailconsumer.service;
+
+import com.notification.consumercommon.ratelimit.RateLimiter;
+import com.notification.emailconsumer.models.EmailRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * EmailCoalescingService - Sends identical emails to many recipients in one SendGrid call
+ *
+ * WHY:
+ * Campaign-style notifications (same subject and body, different recipients) used to cost one
+ * HTTP call per recipient. SendGrid takes up to 1000 personalizations
+ * (recipients) per mail/send request.
+ *
+ * HOW:
+ * - Requests are grouped by subject + message + attachments
+ * - A group is sent email.coalesce.window-ms after its first request arrived, or as soon as it
+ *   has email.coalesce.max-recipients requests, whichever comes first
+ * - Each send takes one SendGrid rate limit permit per recipient (the quota counts emails, not
+ *   HTTP calls), then EmailProcessingService maps the result back to every Notification / DeliveryLog
+ * - Priorities below email.coalesce.min-priority (OTPs, alerts) are sent right away, alone, by
+ *   their own email.coalesce.urgent-sender-threads, so they never queue behind a group
+ * - One group at a time waits for its permits (1000 recipients take ~100s at 10/s), and the
+ *   limiter grants them a burst at a time: urgent sends and retries get permits in between
+ * - The future returned by submit() completes once the request was handled (sent or given up on)
+ *
+ * Metrics: email.coalesce.recipients (DistributionSummary, recipients per SendGrid call)
+ */
+@Service
+@Slf4j
+public class EmailCoalescingService {
+    EmailProcessingService emailProcessingService;
+    RateLimiter sendGridRateLimiter;
+    DistributionSummary recipientsPerSend;
+    ScheduledExecutorService windowTimer;
+    ExecutorService senders;
+    ExecutorService urgentSenders;
+    // One group at a time waits for permits, the urgent sends queue behind its current burst only
+    ReentrantLock groupPermits = new ReentrantLock(true);
+    long windowMs;
+    int maxRecipients;
+    int minPriority;
+
+    // Groups still collecting requests, guarded by this
+    Map<BatchKey, PendingBatch> pending = new HashMap<>();
+
+    public EmailCoalescingService(EmailProcessingService emailProcessingService, RateLimiter sendGridRateLimiter,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${email.coalesce.window-ms:50}") long windowMs,
+                                  @Value("${email.coalesce.max-recipients:1000}") int maxRecipients,
+                                  @Value("${email.coalesce.min-priority:2}") int minPriority,
+                                  @Value("${email.coalesce.sender-threads:8}") int senderThreads,
+                                  @Value("${email.coalesce.urgent-sender-threads:2}") int urgentSenderThreads) {
+        this.emailProcessingService = emailProcessingService;
+        this.sendGridRateLimiter = sendGridRateLimiter;
+        this.windowMs = windowMs;
+        this.maxRecipients = Math.max(1, Math.min(maxRecipients, EmailService.MAX_PERSONALIZATIONS));
+        this.minPriority = minPriority;
+        this.recipientsPerSend = DistributionSummary.builder("email.coalesce.recipients").register(meterRegistry);
+        this.windowTimer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "email-coalesce-timer"));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads,
+                runnable -> new Thread(runnable, "email-send-" + threadNumber.incrementAndGet()));
+        AtomicInteger urgentThreadNumber = new AtomicInteger();
+        this.urgentSenders = Executors.newFixedThreadPool(urgentSenderThreads,
+                runnable -> new Thread(runnable, "email-send-urgent-" + urgentThreadNumber.incrementAndGet()));
+    }
+
+    /**
+     * Add an email to its group, or send it right away if its priority is not coalesced
+     *
+     * @param priority 1 (highest) to 3
+     * @return completes once the email was handled
+     */
+    public CompletableFuture<Void> submit(EmailRequest emailRequest, int priority) {
+        if (priority < minPriority || windowMs <= 0) {
+            PendingBatch single = new PendingBatch(null);
+            CompletableFuture<Void> handled = single.add(emailRequest);
+            if (priority < minPriority) {
+                sendUrgent(single);
+            } else {
+                send(single);
+            }
+            return handled;
+        }
+
+        BatchKey key = BatchKey.of(emailRequest);
+        CompletableFuture<Void> handled;
+        PendingBatch full = null;
+        synchronized (this) {
+            PendingBatch batch = pending.get(key);
+            if (batch == null) {
+                batch = new PendingBatch(key);
+                pending.put(key, batch);
+                PendingBatch opened = batch;
+                windowTimer.schedule(() -> flush(opened), windowMs, TimeUnit.MILLISECONDS);
+            }
+            handled = batch.add(emailRequest);
+            if (batch.requests.size() >= maxRecipients) {
+                pending.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return handled;
+    }
+
+    // Window over: send the group unless it was already sent because it was full
+    private void flush(PendingBatch batch) {
+        synchronized (this) {
+            if (!pending.remove(batch.key, batch)) {
+                return;
+            }
+        }
+        send(batch);
+    }
+
+    private void send(PendingBatch batch) {
+        senders.execute(() -> process(batch, false));
+    }
+
+    private void sendUrgent(PendingBatch batch) {
+        urgentSenders.execute(() -> process(batch, true));
+    }
+
+    private void process(PendingBatch batch, boolean urgent) {
+        try {
+            // SendGrid counts every personalization against the quota, not the HTTP call
+            if (urgent) {
+                sendGridRateLimiter.acquire(batch.requests.size());
+            } else {
+                groupPermits.lockInterruptibly();
+                try {
+                    sendGridRateLimiter.acquire(batch.requests.size());
+                } finally {
+                    groupPermits.unlock();
+                }
+            }
+            recipientsPerSend.record(batch.requests.size());
+            emailProcessingService.processEmails(batch.requests);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for SendGrid rate limit. {} Email Requests not sent: {}",
+                    batch.requests.size(), batch.requests);
+        } catch (Exception exception) {
+            log.error("Unexpected Exception in EmailProcessingService while processing {} Email Requests: {}",
+                    batch.requests.size(), batch.requests);
+            log.error("Exception: {}", exception.toString());
+        } finally {
+            batch.handled.forEach(handled -> handled.complete(null));
+        }
+    }
+
+    /**
+     * Send the groups still collecting and wait for sends in progress.
+     * EmailDispatchService depends on this service, so it has stopped handing over emails by now.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        windowTimer.shutdownNow();
+        List<PendingBatch> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        remaining.forEach(this::send);
+        senders.shutdown();
+        urgentSenders.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        if (!senders.awaitTermination(30, TimeUnit.SECONDS)
+                || !urgentSenders.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            log.warn("Email sends did not finish within 30s");
+        }
+    }
+
+    // Emails that may share one SendGrid request: everything but the recipient is the same
+    record BatchKey(String subject, String message, List<String> attachments) {
+        static BatchKey of(EmailRequest emailRequest) {
+            String[] attachments = emailRequest.getEmailAttachments();
+            return new BatchKey(emailRequest.getEmailSubject(), emailRequest.getMessage(),
+                    attachments == null ? List.of() : Arrays.asList(attachments));
+        }
+    }
+
+    static final class PendingBatch {
+        final BatchKey key;
+        final List<EmailRequest> requests = new ArrayList<>();
+        final List<CompletableFuture<Void>> handled = new ArrayList<>();
+
+        PendingBatch(BatchKey key) {
+            this.key = key;
+        }
+
+        CompletableFuture<Void> add(EmailRequest emailRequest) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            requests.add(emailRequest);
+            handled.add(future);
+            return future;
+        }
+    }
+}
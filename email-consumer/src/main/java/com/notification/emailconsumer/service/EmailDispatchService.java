@@ -0,0 +1,112 @@
+package com.notification.emailconsumer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EmailDispatchService - Hands emails over for sending concurrently, with a bound on in-flight emails
+ *
+ * WHY:
+ * Each SendGrid call is a blocking HTTP request. Sending them one at a time from the poll loop
+ * caps throughput at 1/latency; handled concurrently it is bounded by the rate limit instead.
+ *
+ * HOW:
+ * - dispatch() hands a record to a pool of email.dispatch.threads worker threads, which parse it
+ *   and pass it to EmailCoalescingService (the SendGrid calls run on its sender threads)
+ * - At most email.dispatch.max-in-flight records are queued, waiting for their group to fill up
+ *   or being sent; dispatch() blocks the poll loop when the limit is reached (backpressure
+ *   towards Kafka). Keep it above email.coalesce.max-recipients so full groups can form.
+ * - The queue is FIFO: the poll loop already dispatches in the order PriorityRecordScheduler
+ *   picked (weighted by priority), re-sorting here by strict priority would starve priority 3 again
+ * - onComplete runs after the email was handled (sent or given up on), so the poll loop
+ *   can commit its offset
+ *
+ * Metrics: email.dispatch.in_flight (Gauge)
+ */
+@Service
+@Slf4j
+public class EmailDispatchService {
+    MessageHandlerService messageHandlerService;
+    ThreadPoolExecutor executor;
+    Semaphore inFlight;
+    int maxInFlight;
+
+    public EmailDispatchService(MessageHandlerService messageHandlerService, MeterRegistry meterRegistry,
+                                @Value("${email.dispatch.threads:16}") int threads,
+                                @Value("${email.dispatch.max-in-flight:2000}") int maxInFlight) {
+        this.messageHandlerService = messageHandlerService;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "email-dispatch-" + threadNumber.incrementAndGet()));
+        Gauge.builder("email.dispatch.in_flight", () -> this.maxInFlight - inFlight.availablePermits()).register(meterRegistry);
+    }
+
+    /**
+     * Queue an email for sending, waiting while max-in-flight emails are already queued or running
+     *
+     * @param priority   1 (highest) to 3, from the partition the record came from
+     * @param message    EmailRequest JSON as consumed from Kafka
+     * @param onComplete called once the email was handled, on a dispatch or sender thread
+     */
+    public void dispatch(int priority, String message, Runnable onComplete) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            executor.execute(new DispatchTask(priority, message, onComplete));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Let queued emails be handed over on shutdown; EmailCoalescingService sends them before it stops
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Email dispatch did not finish within 30s, {} emails still in flight", maxInFlight - inFlight.availablePermits());
+        }
+    }
+
+    private final class DispatchTask implements Runnable {
+        private final int priority;
+        private final String message;
+        private final Runnable onComplete;
+
+        private DispatchTask(int priority, String message, Runnable onComplete) {
+            this.priority = priority;
+            this.message = message;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public void run() {
+            CompletableFuture<Void> handled;
+            try {
+                handled = messageHandlerService.handleEmailRequest(message, priority);
+            } catch (Exception exception) {
+                log.error("Unexpected Exception while dispatching Email Request: {}. Exception: {}", message, exception.toString());
+                handled = CompletableFuture.completedFuture(null);
+            }
+            handled.whenComplete((result, exception) -> {
+                inFlight.release();
+                onComplete.run();
+            });
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.notification.emailconsumer.service;
 
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.emailconsumer.models.EmailRequest;
 import com.notification.emailconsumer.models.SendEmailResponse;
 import com.notification.emailconsumer.models.db.DeliveryLog;
@@ -8,10 +10,13 @@ import com.notification.emailconsumer.models.enums.Channel;
 import com.notification.emailconsumer.models.enums.Status;
 import com.notification.emailconsumer.repo.DeliveryLogRepository;
 import com.notification.emailconsumer.repo.NotificationRepository;
-import com.notification.emailconsumer.service.exceptions.NotificationNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * EmailProcessingService - Orchestrates the email sending workflow
  * 
@@ -22,13 +27,19 @@ import org.springframework.stereotype.Service;
  * 4. Delegates failed requests to FailedNotificationsHandlerService
  * 
  * Flow:
- * 1. Receive EmailRequest from MessageHandlerService (after rate limiting)
+ * 1. Receive EmailRequest(s) from EmailCoalescingService (after rate limiting)
  * 2. Call EmailService to send via SendGrid
  * 3. If status 200-299 (success):
+ *    - Mark it delivered (DeliveryDeduplicator), so a replayed record isn't sent again
  *    - Update notification status to 'sent' in database
  *    - Create delivery log with 'sent' status
  * 4. If status >= 300 (failure):
- *    - Delegate to FailedNotificationsHandlerService for retry/logging
+ *    - Delegate to FailedNotificationsHandlerService (delivery log, retry topic or dead-letter topic)
+ * 5. If the SendGrid VendorGuard refused the call (circuit open, no concurrency slot):
+ *    - Requeue via FailedNotificationsHandlerService, without using up an attempt
+ * 
+ * Coalesced requests (EmailCoalescingService) go through processEmails: one SendGrid call
+ * and batched status updates / delivery logs for all recipients.
  */
 @Service
 @Slf4j
@@ -37,15 +48,18 @@ public class EmailProcessingService {
     DeliveryLogRepository deliveryLogRepository;
     NotificationRepository notificationRepository;
     FailedNotificationsHandlerService failedNotificationsHandlerService;
+    DeliveryDeduplicator deliveryDeduplicator;
     
     public EmailProcessingService(EmailService emailService, 
                                  DeliveryLogRepository deliveryLogRepository, 
                                  NotificationRepository notificationRepository, 
-                                 FailedNotificationsHandlerService failedNotificationsHandlerService) {
+                                 FailedNotificationsHandlerService failedNotificationsHandlerService,
+                                 DeliveryDeduplicator deliveryDeduplicator) {
         this.emailService = emailService;
         this.notificationRepository = notificationRepository;
         this.deliveryLogRepository = deliveryLogRepository;
         this.failedNotificationsHandlerService = failedNotificationsHandlerService;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
 
     /**
@@ -54,62 +68,84 @@ public class EmailProcessingService {
      * @param emailRequest The email request containing recipient, subject, message, attachments
      */
     public void processEmail(EmailRequest emailRequest) {
-        SendEmailResponse response = sendEmailToVendors(emailRequest);
+        processEmails(List.of(emailRequest));
+    }
+
+    /**
+     * Process coalesced email requests (same subject/message/attachments) sent as one SendGrid call
+     * 
+     * SendGrid accepts or rejects the request as a whole, so its status applies to every recipient:
+     * on success all notifications are marked sent with one query/save per table, on failure every
+     * request goes to the failure handler (and its retry) on its own, as on a refused call.
+     * 
+     * @param emailRequests requests accepted by EmailService.sendEmails
+     */
+    public void processEmails(List<EmailRequest> emailRequests) {
+        SendEmailResponse response;
+        try {
+            response = sendEmailsToVendors(emailRequests);
+        } catch (VendorGuard.VendorUnavailableException exception) {
+            log.warn("{} EmailRequests not sent: {}", emailRequests.size(), exception.getMessage());
+            emailRequests.forEach(emailRequest -> failedNotificationsHandlerService.handleRefusedRequest(emailRequest, exception.getMessage()));
+            return;
+        }
+        if (response.getStatus() < 200 || response.getStatus() >= 300) {
+            String error = "SendGrid status " + response.getStatus() + ": " + response.getMessage();
+            emailRequests.forEach(emailRequest -> failedNotificationsHandlerService.handleFailedRequest(emailRequest, error));
+            return;
+        }
+
+        List<Long> notificationIds = emailRequests.stream().map(EmailRequest::getNotificationId).toList();
+        // Before the database updates, so a failing update can't get them sent again on replay
+        deliveryDeduplicator.markDelivered(notificationIds);
+        List<Notification> notifications;
+        try {
+            notifications = notificationRepository.findAllById(notificationIds);
+        } catch (Exception exception) {
+            log.error("Exception while loading Notifications {} of sent emails. Exception: {}", notificationIds, exception.toString());
+            return;
+        }
+        if (notifications.size() < notificationIds.size()) {
+            Set<Long> found = notifications.stream().map(Notification::getId).collect(Collectors.toSet());
+            notificationIds.stream().filter(id -> !found.contains(id)).forEach(id ->
+                    log.error("Notification with Id: " + id + " Not found while trying to update notification status/creating delivery log"));
+        }
+
+        notifications.forEach(notification -> notification.setStatus(Status.sent));
+        try {
+            notificationRepository.saveAll(notifications);
+            log.info("Status updated to SENT for {} Notifications", notifications.size());
+        } catch (Exception exception) {
+            log.error("Exception while updating status of Notifications {}. Exception: {}",
+                    notificationIds, exception.toString());
+        }
 
         try {
-            if (response.getStatus() >= 200 && response.getStatus() < 300) {
-                // Email sent successfully - update database
-                Notification notification = notificationRepository.findById(emailRequest.getNotificationId())
-                        .orElseThrow(() -> {
-                            log.error("Notification with Id: " + emailRequest.getNotificationId() + " Not found");
-                            return new NotificationNotFoundException("Notification with Id: " + emailRequest.getNotificationId() + " Not found");
-                        });
-                
-                notification.setStatus(Status.sent);
-                
-                try {
-                    notificationRepository.save(notification); // Update status
-                    log.info("Status updated to SENT for Notification Id: " + emailRequest.getNotificationId());
-                } catch (Exception exception) {
-                    log.error("Exception while updating status of Notification for emailRequest: {}", emailRequest);
-                    log.error("Exception: {}", exception.toString());
-                }
-                
-                try {
-                    deliveryLogRepository.save(new DeliveryLog(notification, Channel.email, Status.sent, ""));
-                } catch (Exception exception) {
-                    log.error("Exception while creating delivery log for Notification id {} for emailRequest: {}", 
-                             notification.getId(), emailRequest);
-                    log.error("Exception: {}", exception.toString());
-                }
-            } else {
-                // Email send failed - delegate to failure handler
-                failedNotificationsHandlerService.handleFailedRequest(emailRequest);
-            }
-        } catch (NotificationNotFoundException exception) {
-            log.error("Notification with Id: " + emailRequest.getNotificationId() + 
-                     " Not found while trying to update notification status/creating delivery log");
+            deliveryLogRepository.saveAll(notifications.stream()
+                    .map(notification -> new DeliveryLog(notification, Channel.email, Status.sent, ""))
+                    .toList());
+        } catch (Exception exception) {
+            log.error("Exception while creating delivery logs for Notifications {}. Exception: {}",
+                    notificationIds, exception.toString());
         }
     }
 
     /**
-     * Send email to third-party vendor (SendGrid) and return response
+     * Send coalesced emails to third-party vendor (SendGrid) with one call and return its response
      * 
-     * @param emailRequest The email request to send
+     * @param emailRequests The email requests to send
      * @return SendEmailResponse with status code and message
      */
-    private SendEmailResponse sendEmailToVendors(EmailRequest emailRequest) {
-        SendEmailResponse sendEmailResponse = emailService.sendEmail(emailRequest);
+    private SendEmailResponse sendEmailsToVendors(List<EmailRequest> emailRequests) {
+        SendEmailResponse sendEmailResponse = emailService.sendEmails(emailRequests);
 
         if (sendEmailResponse.getStatus() >= 200 && sendEmailResponse.getStatus() < 300) {
-            sendEmailResponse.setMessage("Email Sent");
-            log.info("EmailRequest {} sent successfully", emailRequest.toString());
-            return sendEmailResponse;
+            log.info("{} coalesced EmailRequests sent successfully, Notification Ids: {}", emailRequests.size(),
+                    emailRequests.stream().map(EmailRequest::getNotificationId).toList());
         } else {
-            log.error("Failed to send EmailRequest {}. Message: {}", 
-                     emailRequest.toString(), sendEmailResponse.getMessage());
-            sendEmailResponse.setMessage("Something went wrong with SendGrid.");
-            return sendEmailResponse;
+            log.error("Failed to send {} coalesced EmailRequests. Message: {}",
+                    emailRequests.size(), sendEmailResponse.getMessage());
         }
+        return sendEmailResponse;
     }
 }
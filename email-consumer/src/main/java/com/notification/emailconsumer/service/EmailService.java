@@ -1,5 +1,6 @@
 package com.notification.emailconsumer.service;
 
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.emailconsumer.models.EmailRequest;
 import com.notification.emailconsumer.models.SendEmailResponse;
 import com.sendgrid.Method;
@@ -10,11 +11,13 @@ import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Attachments;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * EmailService - SendGrid integration for actual email delivery
@@ -24,9 +27,10 @@ import java.io.IOException;
  * 2. Handles email attachments (if provided)
  * 3. Makes HTTP POST request to SendGrid API
  * 4. Returns response with status code and body
+ * 5. Sends identical emails to many recipients in one call (one personalization each)
  * 
  * SendGrid Configuration:
- * - API Key: Configured in application.properties (sendgrid.api.key)
+ * - Client: shared, pooled SendGrid bean (see VendorClientConfig), API key from sendgrid.api.key
  * - Verified Sender: Configured in application.properties (sendgrid.sender.email)
  * - Endpoint: mail/send
  * - Method: POST
@@ -35,32 +39,70 @@ import java.io.IOException;
  * - 200-299: Email sent successfully
  * - 400+: Email send failed (invalid request, auth error, etc.)
  * - 500: IOException occurred during SendGrid API call
+ * 
+ * Calls that are not made (SendGrid circuit breaker open or concurrency limit reached, see
+ * VendorGuardConfig) throw VendorGuard.VendorUnavailableException instead.
  */
 @Service
 @Slf4j
 public class EmailService {
+    // SendGrid limit on personalizations (recipients) per mail/send request
+    public static final int MAX_PERSONALIZATIONS = 1000;
     
-    @Value("${sendgrid.api.key}")
-    private String sendgridApiKey;
+    private final SendGrid sendGrid;
+    private final VendorGuard sendGridGuard;
     
     @Value("${sendgrid.sender.email}")
     private String senderEmail;
 
+    public EmailService(SendGrid sendGrid, VendorGuard sendGridGuard) {
+        this.sendGrid = sendGrid;
+        this.sendGridGuard = sendGridGuard;
+    }
+
     /**
      * Send email via SendGrid API
      * 
      * @param emailRequest The email request containing recipient, subject, message, attachments
      * @return SendEmailResponse with status code and response body
+     * @throws VendorGuard.VendorUnavailableException if not sent, see sendEmails
      */
     public SendEmailResponse sendEmail(EmailRequest emailRequest) {
-        Email from = new Email(senderEmail);
-        String subject = emailRequest.getEmailSubject() + " | Scalable Notification System";
-        Email to = new Email(emailRequest.getEmailId());
-        Content content = new Content("text/plain", emailRequest.getMessage());
-        Mail mail = new Mail(from, subject, to, content);
+        return sendEmails(List.of(emailRequest));
+    }
+
+    /**
+     * Send one email to several recipients with a single SendGrid API call
+     * 
+     * All requests must share subject, message and attachments (see EmailCoalescingService);
+     * these are taken from the first one. Every recipient gets its own personalization, so
+     * recipients don't see each other, and a notificationId custom arg that SendGrid echoes
+     * in its event webhook to map delivery events back to the notification.
+     * 
+     * @param emailRequests 1 to MAX_PERSONALIZATIONS requests
+     * @return SendEmailResponse of the call, it applies to every recipient
+     * @throws VendorGuard.VendorUnavailableException if not sent: SendGrid circuit breaker open or
+     *         concurrency limit reached (VendorGuardConfig)
+     */
+    public SendEmailResponse sendEmails(List<EmailRequest> emailRequests) {
+        if (emailRequests.isEmpty() || emailRequests.size() > MAX_PERSONALIZATIONS) {
+            throw new IllegalArgumentException("SendGrid accepts 1 to " + MAX_PERSONALIZATIONS
+                    + " personalizations per request, got " + emailRequests.size());
+        }
+        EmailRequest template = emailRequests.get(0);
+        Mail mail = new Mail();
+        mail.setFrom(new Email(senderEmail));
+        mail.setSubject(template.getEmailSubject() + " | Scalable Notification System");
+        mail.addContent(new Content("text/plain", template.getMessage()));
+        for (EmailRequest emailRequest : emailRequests) {
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(emailRequest.getEmailId()));
+            personalization.addCustomArg("notificationId", String.valueOf(emailRequest.getNotificationId()));
+            mail.addPersonalization(personalization);
+        }
 
         // Add attachments if provided
-        if (emailRequest.getEmailAttachments().length != 0) {
+        if (template.getEmailAttachments() != null && template.getEmailAttachments().length != 0) {
             // TODO: Implement attachment handling
             // For now, adding sample attachment
             Attachments attachments2 = new Attachments();
@@ -73,16 +115,26 @@ public class EmailService {
             mail.addAttachments(attachments2);
         }
 
-        SendGrid sg = new SendGrid(sendgridApiKey);
         Request request = new Request();
         try {
             request.setMethod(Method.POST);
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
-            Response response = sg.api(request);
+        } catch (IOException ex) {
+            log.error("Something went wrong with SendGrid. Exception: {}", ex.toString());
+            return new SendEmailResponse(500, "IO Exception occurred in Email Service-SendGrid");
+        }
+
+        return sendGridGuard.call(() -> callSendGrid(request, template, emailRequests.size()),
+                response -> VendorGuard.isVendorFailure(response.getStatus()));
+    }
+
+    private SendEmailResponse callSendGrid(Request request, EmailRequest template, int recipients) {
+        try {
+            Response response = sendGrid.api(request);
             
-            log.info("Email Request (Notification Id: {}). Response from SendGrid: \n Status Code: {}, Body: {}, Headers: {}", 
-                    emailRequest.getNotificationId(), response.getStatusCode(), 
+            log.info("Email Request (Notification Id: {}, {} recipients). Response from SendGrid: \n Status Code: {}, Body: {}, Headers: {}", 
+                    template.getNotificationId(), recipients, response.getStatusCode(), 
                     response.getBody(), response.getHeaders());
             
             return new SendEmailResponse(response.getStatusCode(), response.getBody());
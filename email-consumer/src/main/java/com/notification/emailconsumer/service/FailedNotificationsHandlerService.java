@@ -1,45 +1,126 @@
 package com.notification.emailconsumer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryPublisher;
 import com.notification.emailconsumer.models.EmailRequest;
+import com.notification.emailconsumer.models.db.DeliveryLog;
+import com.notification.emailconsumer.models.db.Notification;
+import com.notification.emailconsumer.models.enums.Channel;
+import com.notification.emailconsumer.models.enums.Status;
+import com.notification.emailconsumer.repo.DeliveryLogRepository;
+import com.notification.emailconsumer.repo.NotificationRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+import java.util.Optional;
+
 /**
  * FailedNotificationsHandlerService - Handles failed email delivery attempts
- * 
+ *
  * Responsibilities:
- * 1. Log failed email requests for monitoring
- * 2. Implement retry strategy (future enhancement)
- * 3. Store failed notifications for manual intervention
- * 
- * Future Enhancements:
- * - Exponential backoff retry strategy
- * - Dead letter queue for permanently failed emails
- * - Alerting system for high failure rates
- * - Database logging of failures with error details
+ * 1. Republish the failed request to a retry tier topic (email-retry-30s / -5m / -1h), with
+ *    jittered exponential backoff and a number of attempts depending on its priority (RetryPolicy)
+ * 2. Once its attempts are used up: publish it to the dead-letter topic email-dlt and mark the
+ *    notification failed
+ * 3. Record every failed attempt in delivery_logs (status failed, vendor error, what happens next)
+ * 4. Requeue requests the VendorGuard refused (vendor not called) without counting an attempt
+ *
+ * Requests are republished one by one, so a failed coalesced SendGrid call is retried per
+ * recipient. Nothing is retried inline: the poll loop and the send threads move on right away.
  */
 @Service
 @Slf4j
 public class FailedNotificationsHandlerService {
-    
+    ObjectWriter emailRequestWriter;
+    RetryPolicy retryPolicy;
+    RetryPublisher retryPublisher;
+    DeliveryLogRepository deliveryLogRepository;
+    NotificationRepository notificationRepository;
+
+    public FailedNotificationsHandlerService(ObjectMapper mapper, RetryPolicy retryPolicy, RetryPublisher retryPublisher,
+                                             DeliveryLogRepository deliveryLogRepository,
+                                             NotificationRepository notificationRepository) {
+        this.emailRequestWriter = mapper.writerFor(EmailRequest.class);
+        this.retryPolicy = retryPolicy;
+        this.retryPublisher = retryPublisher;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
     /**
-     * Handle failed email request
-     * Currently logs the failure for monitoring
-     * 
+     * Handle failed email request: schedule its retry, or give up on it
+     *
      * @param emailRequest The failed email request
+     * @param error        What went wrong (vendor status and response)
      */
-    public void handleFailedRequest(EmailRequest emailRequest) {
-        // Log failed request
-        log.error("Failed to send email for Notification Id: {}. EmailRequest: {}", 
-                 emailRequest.getNotificationId(), emailRequest);
-        
-        // TODO: Implement retry strategy
-        // - Could use exponential backoff
-        // - Could republish to a retry topic in Kafka
-        // - Could store in database for manual retry
-        
-        // TODO: Implement alerting
-        // - Send alert if failure rate exceeds threshold
-        // - Notify operations team for critical failures
+    public void handleFailedRequest(EmailRequest emailRequest, String error) {
+        int attemptsMade = emailRequest.getAttempt() + 1;
+        emailRequest.setAttempt(attemptsMade);
+        RetryPolicy.RetryDecision decision = retryPolicy.next(emailRequest.getPriority(), attemptsMade);
+        String attempt = "Attempt " + attemptsMade + " of " + retryPolicy.maxAttempts(emailRequest.getPriority()) + " failed: " + error;
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(emailRequest.getNotificationId(), null),
+                    emailRequestWriter.writeValueAsString(emailRequest));
+        } catch (Exception exception) {
+            log.error("Failed to send email for Notification Id: {} and could not publish it to {}, giving up. EmailRequest: {}. Exception: {}",
+                    emailRequest.getNotificationId(), decision.topic(), emailRequest, exception.toString());
+            recordAttempt(emailRequest, attempt + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+
+        if (decision.deadLetter()) {
+            log.error("Failed to send email for Notification Id: {}, no attempts left, moved to {}. EmailRequest: {}",
+                    emailRequest.getNotificationId(), decision.topic(), emailRequest);
+            recordAttempt(emailRequest, attempt + ". Moved to " + decision.topic(), true);
+        } else {
+            log.warn("Failed to send email for Notification Id: {} (attempt {}), retrying in {} ms via {}",
+                    emailRequest.getNotificationId(), attemptsMade, decision.delayMs(), decision.topic());
+            recordAttempt(emailRequest, attempt + ". Retry in " + decision.delayMs() / 1000 + "s via " + decision.topic(), false);
+        }
+    }
+
+    /**
+     * Handle a request the vendor guard refused (circuit open, no concurrency slot): the vendor
+     * was not called, so it goes back to its retry tier with its attempt count unchanged
+     *
+     * @param emailRequest The refused email request
+     * @param reason       Why it was refused
+     */
+    public void handleRefusedRequest(EmailRequest emailRequest, String reason) {
+        RetryPolicy.RetryDecision decision = retryPolicy.requeue(emailRequest.getAttempt());
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(emailRequest.getNotificationId(), null),
+                    emailRequestWriter.writeValueAsString(emailRequest));
+        } catch (Exception exception) {
+            log.error("Email for Notification Id: {} not sent ({}) and could not be published to {}, giving up. EmailRequest: {}. Exception: {}",
+                    emailRequest.getNotificationId(), reason, decision.topic(), emailRequest, exception.toString());
+            recordAttempt(emailRequest, "Not sent: " + reason + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+        log.warn("Email for Notification Id: {} not sent ({}), requeued in {} ms via {}",
+                emailRequest.getNotificationId(), reason, decision.delayMs(), decision.topic());
+    }
+
+    private void recordAttempt(EmailRequest emailRequest, String errorMessage, boolean givenUp) {
+        try {
+            Optional<Notification> notification = notificationRepository.findById(emailRequest.getNotificationId());
+            if (notification.isEmpty()) {
+                log.error("Notification with Id: " + emailRequest.getNotificationId() + " Not found while trying to create delivery log of failed attempt");
+                return;
+            }
+            if (givenUp) {
+                notification.get().setStatus(Status.failed);
+                notificationRepository.save(notification.get());
+            }
+            deliveryLogRepository.save(new DeliveryLog(notification.get(), Channel.email, Status.failed, errorMessage));
+        } catch (Exception exception) {
+            log.error("Exception while creating delivery log of failed attempt for emailRequest: {}", emailRequest);
+            log.error("Exception: {}", exception.toString());
+        }
     }
 }
@@ -1,77 +1,100 @@
 package com.notification.emailconsumer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.ratelimit.RateLimiter;
 import com.notification.emailconsumer.models.EmailRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Message Handler Service - Rate Limiting Layer
+ * Message Handler Service - Parsing Layer
  * 
  * RESPONSIBILITIES:
  * 1. Deserialize Kafka messages to EmailRequest objects
- * 2. Implement rate limiting (600 emails/minute for SendGrid)
- * 3. Delegate to EmailProcessingService for actual sending
- * 
- * RATE LIMITING LOGIC:
- * - Tracks sentRequests counter
- * - Resets every minute
- * - If limit reached (600), sleeps until next minute
- * - Prevents SendGrid API throttling
+ * 2. Hand them to EmailCoalescingService, which groups identical emails, applies the
+ *    SendGrid rate limit (one permit per recipient, see RateLimiterConfig) and sends them
+ * 3. Send retries of failed emails (from the retry tier topics) on their own, after a permit
+ * 4. Skip emails already delivered (DeliveryDeduplicator), e.g. replayed after a restart
  */
 @Service
 @Slf4j
 public class MessageHandlerService {
-    ObjectMapper mapper;
+    // Built once: a reader bound to EmailRequest skips the per-message type lookup and the JsonNode tree
+    ObjectReader emailRequestReader;
+    EmailCoalescingService emailCoalescingService;
     EmailProcessingService emailProcessingService;
+    RateLimiter sendGridRateLimiter;
+    DeliveryDeduplicator deliveryDeduplicator;
 
-    public MessageHandlerService(ObjectMapper mapper, EmailProcessingService emailProcessingService){
-        this.mapper = mapper;
+    public MessageHandlerService(ObjectMapper mapper, EmailCoalescingService emailCoalescingService,
+                                 EmailProcessingService emailProcessingService, RateLimiter sendGridRateLimiter,
+                                 DeliveryDeduplicator deliveryDeduplicator){
+        this.emailRequestReader = mapper.readerFor(EmailRequest.class);
+        this.emailCoalescingService = emailCoalescingService;
         this.emailProcessingService = emailProcessingService;
+        this.sendGridRateLimiter = sendGridRateLimiter;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
-    private int sentRequests = 0;
-    private LocalTime startTime = LocalTime.now();
-    private LocalTime endTime = startTime.plusMinutes(1);
 
-    public void handleEmailRequest(String emailRequestString){
+    /**
+     * @param priority 1 (highest) to 3, from the partition the record came from
+     * @return completes once the email was handled (sent or given up on); already complete for unparsable or delivered messages
+     */
+    public CompletableFuture<Void> handleEmailRequest(String emailRequestString, int priority){
         log.info("Email Request Received: "+emailRequestString);
 
-        if(sentRequests == 0){ //Rate limiting configuration as per third party limits - (this case, 600/min)
-            startTime = LocalTime.now();
-            endTime = startTime.plusMinutes(1);
-        }
         try{
-            JsonNode emailRequestJson = mapper.readTree(emailRequestString);
-            EmailRequest emailRequest = mapper.treeToValue(emailRequestJson,EmailRequest.class);
+            EmailRequest emailRequest = emailRequestReader.readValue(emailRequestString);
             log.debug("Successfully parsed Consumed Email Request: {}", emailRequest.toString());
+            emailRequest.setPriority(priority);
+            if (isDelivered(emailRequest)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return emailCoalescingService.submit(emailRequest, priority);
+        } catch (JsonProcessingException jsonProcessingException){
+            log.error("Error parsing kafka consumed message to JSON. Exception: \n {}", jsonProcessingException.toString());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Retry of a failed email, called by RetryTopicsConsumer once it is due.
+     * Sent on the calling thread, a failure goes back to FailedNotificationsHandlerService.
+     */
+    public void handleRetryRequest(String emailRequestString){
+        log.info("Email Retry Request Received: "+emailRequestString);
+
+        try{
+            EmailRequest emailRequest = emailRequestReader.readValue(emailRequestString);
+            if (isDelivered(emailRequest)) {
+                return;
+            }
             try{
+                sendGridRateLimiter.acquire();
                 emailProcessingService.processEmail(emailRequest);
-                sentRequests++;
+            } catch (InterruptedException interruptedException){
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for SendGrid rate limit. Email Retry Request not sent: {}", emailRequest);
             } catch (Exception exception){
-                log.error("Unexpected Exception in EmailProcessingService while processing Email Request: {}", emailRequest);
+                log.error("Unexpected Exception in EmailProcessingService while retrying Email Request: {}", emailRequest);
                 log.error("Exception: {}", exception.toString());
             }
         } catch (JsonProcessingException jsonProcessingException){
-            log.error("Error parsing kafka consumed message to JSON. Exception: \n {}", jsonProcessingException.toString());
+            log.error("Error parsing retried kafka message to JSON. Exception: \n {}", jsonProcessingException.toString());
         }
+    }
 
-        //Achieving rate limiting for consumer
-        if(LocalTime.now().isAfter(endTime)){
-            sentRequests = 0;
-        }
-        if(sentRequests >= 600){
-            try {
-                log.debug("Rate Limit of this minute reached. Forcing thread to sleep for remaining "+(endTime.getSecond() - LocalTime.now().getSecond())+" seconds");
-                Thread.sleep((endTime.getSecond() - LocalTime.now().getSecond()) * 1000L);
-                sentRequests = 0;
-            } catch (InterruptedException e) {
-                log.error("Unexpected error while thread sleeping w.r.t Rate limiting: "+e.toString());
-            }
+    // Replayed after a restart/rebalance, or retried, after it was already sent
+    private boolean isDelivered(EmailRequest emailRequest){
+        if (deliveryDeduplicator.isDelivered(emailRequest.getNotificationId())) {
+            log.info("Notification {} already delivered, skipping", emailRequest.getNotificationId());
+            return true;
         }
-
+        return false;
     }
 }
@@ -0,0 +1,184 @@
+package com.notification.emailconsumer.service;
+
+import com.notification.consumercommon.ratelimit.GcraRateLimiter;
+import com.notification.consumercommon.ratelimit.RateLimiter;
+import com.notification.emailconsumer.models.EmailRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EmailCoalescingServiceTest {
+    private final EmailProcessingService emailProcessingService = mock(EmailProcessingService.class);
+    // Recipients of every processEmails call, and permits of every acquire
+    private final List<List<EmailRequest>> sent = new CopyOnWriteArrayList<>();
+    private final List<Integer> permits = new CopyOnWriteArrayList<>();
+    private EmailCoalescingService coalescingService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> sent.add(List.copyOf(invocation.getArgument(0))))
+                .when(emailProcessingService).processEmails(anyList());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coalescingService.shutdown();
+    }
+
+    @Test
+    void identicalEmailsWithinTheWindowAreSentTogether() throws Exception {
+        coalescingService = coalescingService(this::acquire, 100, 1000, 2);
+        List<CompletableFuture<Void>> handled = new ArrayList<>();
+        handled.addAll(submit(3, "campaign-1", 2));
+        handled.addAll(submit(2, "campaign-2", 3));
+
+        CompletableFuture.allOf(handled.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(sent).hasSize(2);
+        assertThat(subjectsAndSizes()).containsExactlyInAnyOrder("campaign-1:3", "campaign-2:2");
+        // One permit per recipient
+        assertThat(permits).containsExactlyInAnyOrder(3, 2);
+    }
+
+    @Test
+    void emailsDifferingInMoreThanTheRecipientAreNotGrouped() throws Exception {
+        coalescingService = coalescingService(this::acquire, 100, 1000, 2);
+        EmailRequest withAttachment = emailRequest("campaign-1", 1);
+        withAttachment.setEmailAttachments(new String[]{"banner.png"});
+        EmailRequest otherMessage = emailRequest("campaign-1", 2);
+        otherMessage.setMessage("other message");
+
+        CompletableFuture.allOf(
+                coalescingService.submit(emailRequest("campaign-1", 0), 2),
+                coalescingService.submit(withAttachment, 2),
+                coalescingService.submit(otherMessage, 2)).get(5, TimeUnit.SECONDS);
+
+        assertThat(sent).hasSize(3).allSatisfy(requests -> assertThat(requests).hasSize(1));
+    }
+
+    @Test
+    void aFullGroupIsSentWithoutWaitingForTheWindow() throws Exception {
+        coalescingService = coalescingService(this::acquire, 60_000, 3, 2);
+
+        CompletableFuture.allOf(submit(3, "campaign-1", 2).toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> next = coalescingService.submit(emailRequest("campaign-1", 3), 2);
+
+        assertThat(subjectsAndSizes()).containsExactly("campaign-1:3");
+        // The next one opens a new group, which waits for its window
+        Thread.sleep(100);
+        assertThat(next).isNotDone();
+    }
+
+    @Test
+    void theWindowOfAGroupSentFullDoesNotFlushTheNextGroup() throws Exception {
+        coalescingService = coalescingService(this::acquire, 400, 2, 2);
+        CompletableFuture.allOf(submit(2, "campaign-1", 2).toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        CompletableFuture<Void> next = coalescingService.submit(emailRequest("campaign-1", 2), 2);
+
+        // The first group's window is over at 400 ms, the next group's at 600 ms
+        Thread.sleep(300);
+        assertThat(next).isNotDone();
+        assertThat(sent).hasSize(1);
+
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(subjectsAndSizes()).containsExactly("campaign-1:2", "campaign-1:1");
+    }
+
+    @Test
+    void everyEmailOfAFailedGroupIsHandled() throws Exception {
+        doThrow(new IllegalStateException("database down")).when(emailProcessingService).processEmails(anyList());
+        coalescingService = coalescingService(this::acquire, 50, 1000, 2);
+
+        List<CompletableFuture<Void>> handled = submit(5, "campaign-1", 2);
+
+        CompletableFuture.allOf(handled.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(handled).allMatch(future -> future.isDone() && !future.isCompletedExceptionally());
+    }
+
+    @Test
+    void everyEmailOfAGroupInterruptedWaitingForPermitsIsHandled() throws Exception {
+        coalescingService = coalescingService(permits -> {
+            throw new InterruptedException();
+        }, 50, 1000, 2);
+
+        List<CompletableFuture<Void>> handled = submit(5, "campaign-1", 2);
+
+        CompletableFuture.allOf(handled.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        verify(emailProcessingService, never()).processEmails(anyList());
+    }
+
+    @Test
+    void shutdownSendsTheGroupsStillCollecting() throws Exception {
+        coalescingService = coalescingService(this::acquire, 60_000, 1000, 2);
+        List<CompletableFuture<Void>> handled = submit(4, "campaign-1", 2);
+
+        coalescingService.shutdown();
+
+        assertThat(handled).allMatch(CompletableFuture::isDone);
+        assertThat(subjectsAndSizes()).containsExactly("campaign-1:4");
+    }
+
+    @Test
+    void anUrgentEmailIsNotHeldBackByLargeGroups() throws Exception {
+        // 10 ms interval, burst 10: a group of 100 recipients takes about a second of permits
+        RateLimiter rateLimiter = new GcraRateLimiter("sendgrid", 100, 10, new SimpleMeterRegistry());
+        // One sender thread, busy with the groups
+        coalescingService = coalescingService(rateLimiter, 60_000, 100, 1);
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        groups.addAll(submit(100, "campaign-1", 3));
+        groups.addAll(submit(100, "campaign-2", 3));
+        Thread.sleep(100);
+
+        CompletableFuture<Void> urgent = coalescingService.submit(emailRequest("otp", 0), 1);
+
+        urgent.get(500, TimeUnit.MILLISECONDS);
+        assertThat(groups).noneMatch(CompletableFuture::isDone);
+        CompletableFuture.allOf(groups.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+    }
+
+    private List<CompletableFuture<Void>> submit(int count, String subject, int priority) {
+        List<CompletableFuture<Void>> handled = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            handled.add(coalescingService.submit(emailRequest(subject, i), priority));
+        }
+        return handled;
+    }
+
+    // Rate limiter granting every request right away
+    private long acquire(int count) {
+        permits.add(count);
+        return 0;
+    }
+
+    private List<String> subjectsAndSizes() {
+        return sent.stream().map(requests -> requests.get(0).getEmailSubject() + ":" + requests.size()).toList();
+    }
+
+    // Priorities 1 are sent alone, right away
+    private EmailCoalescingService coalescingService(RateLimiter rateLimiter, long windowMs, int maxRecipients, int senderThreads) {
+        return new EmailCoalescingService(emailProcessingService, rateLimiter, new SimpleMeterRegistry(),
+                windowMs, maxRecipients, 2, senderThreads, 1);
+    }
+
+    private static EmailRequest emailRequest(String subject, int recipient) {
+        EmailRequest emailRequest = new EmailRequest("user-" + recipient + "@example.com", "message", subject, null);
+        emailRequest.setNotificationId((long) recipient);
+        return emailRequest;
+    }
+}
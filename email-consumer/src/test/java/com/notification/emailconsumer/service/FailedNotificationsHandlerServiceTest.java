@@ -0,0 +1,101 @@
+package com.notification.emailconsumer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryPublisher;
+import com.notification.emailconsumer.models.EmailRequest;
+import com.notification.emailconsumer.models.db.DeliveryLog;
+import com.notification.emailconsumer.models.db.Notification;
+import com.notification.emailconsumer.repo.DeliveryLogRepository;
+import com.notification.emailconsumer.repo.NotificationRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FailedNotificationsHandlerServiceTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final RetryPolicy retryPolicy = new RetryPolicy("email", new MockEnvironment());
+    private final RetryPublisher retryPublisher = mock(RetryPublisher.class);
+    private final DeliveryLogRepository deliveryLogRepository = mock(DeliveryLogRepository.class);
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final FailedNotificationsHandlerService failedNotificationsHandlerService = new FailedNotificationsHandlerService(
+            mapper, retryPolicy, retryPublisher, deliveryLogRepository, notificationRepository);
+
+    @Test
+    void aFailedDeliveryUsesUpAnAttempt() throws Exception {
+        when(notificationRepository.findById(42L)).thenReturn(Optional.of(new Notification()));
+
+        failedNotificationsHandlerService.handleFailedRequest(emailRequest(3, 1), "SendGrid status 500: error");
+
+        RetryPolicy.RetryDecision decision = publishedDecision();
+        assertThat(decision.topic()).isEqualTo("email-retry-5m");
+        assertThat(publishedRequest().getAttempt()).isEqualTo(2);
+        verify(deliveryLogRepository).save(any(DeliveryLog.class));
+    }
+
+    @Test
+    void aRefusedDeliveryIsRequeuedWithItsAttemptsUnchanged() throws Exception {
+        // P3 has 3 attempts: a failed delivery on its last one would be dead-lettered
+        failedNotificationsHandlerService.handleRefusedRequest(emailRequest(3, 2), "SendGrid circuit breaker is open");
+
+        RetryPolicy.RetryDecision decision = publishedDecision();
+        assertThat(decision.deadLetter()).isFalse();
+        assertThat(decision.topic()).isEqualTo("email-retry-5m");
+        assertThat(publishedRequest().getAttempt()).isEqualTo(2);
+        // Not an attempt: no delivery log, the notification is not touched
+        verify(deliveryLogRepository, never()).save(any());
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void aRefusedFirstDeliveryGoesToTheFirstTier() throws Exception {
+        failedNotificationsHandlerService.handleRefusedRequest(emailRequest(1, 0), "SendGrid concurrency limit of 4 reached");
+
+        assertThat(publishedDecision().topic()).isEqualTo("email-retry-30s");
+        assertThat(publishedRequest().getAttempt()).isZero();
+    }
+
+    @Test
+    void aRefusedDeliveryThatCannotBePublishedIsGivenUp() {
+        Notification notification = new Notification();
+        when(notificationRepository.findById(42L)).thenReturn(Optional.of(notification));
+        doThrow(new RetryPublisher.RetryPublishException("Failed to publish", null))
+                .when(retryPublisher).publish(any(), any(), any());
+
+        failedNotificationsHandlerService.handleRefusedRequest(emailRequest(2, 0), "SendGrid circuit breaker is open");
+
+        verify(notificationRepository).save(notification);
+        verify(deliveryLogRepository).save(any(DeliveryLog.class));
+    }
+
+    private static EmailRequest emailRequest(int priority, int attempt) {
+        EmailRequest emailRequest = new EmailRequest("user@example.com", "message", "subject", null);
+        emailRequest.setNotificationId(42L);
+        emailRequest.setPriority(priority);
+        emailRequest.setAttempt(attempt);
+        return emailRequest;
+    }
+
+    private RetryPolicy.RetryDecision publishedDecision() {
+        ArgumentCaptor<RetryPolicy.RetryDecision> decision = ArgumentCaptor.forClass(RetryPolicy.RetryDecision.class);
+        verify(retryPublisher).publish(decision.capture(), eq("42"), any());
+        return decision.getValue();
+    }
+
+    private EmailRequest publishedRequest() throws Exception {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(retryPublisher).publish(any(), eq("42"), payload.capture());
+        return mapper.readValue(payload.getValue(), EmailRequest.class);
+    }
+}
@@ -1,10 +1,18 @@
 package com.notification.notification_service.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.notification.notification_service.constants.Constants.*;
 
@@ -13,25 +21,94 @@ public class KafkaConfig {
 
     // Create Kafka topics automatically when application starts
     // If topics already exist, this won't recreate them
+    // (partitions can only be increased on existing topics - and that remaps userId keys)
+    // Partition count caps how many processor threads can work a priority in parallel
     @Bean
-    public KafkaAdmin.NewTopics createTopics() {
+    public KafkaAdmin.NewTopics createTopics(
+            @Value("${notification.kafka.priority-1.partitions:6}") int priority1Partitions,
+            @Value("${notification.kafka.priority-2.partitions:6}") int priority2Partitions,
+            @Value("${notification.kafka.priority-3.partitions:3}") int priority3Partitions) {
         
         // Create topic for high priority notifications (OTP, Password Reset)
         NewTopic priority1Topic = TopicBuilder
                 .name(TOPIC_PRIORITY_1)  // "priority-1"
+                .partitions(priority1Partitions)
                 .build();
         
         // Create topic for medium priority notifications (Welcome, Updates)
         NewTopic priority2Topic = TopicBuilder
                 .name(TOPIC_PRIORITY_2)  // "priority-2"
+                .partitions(priority2Partitions)
                 .build();
         
         // Create topic for low priority notifications (Promotional, Newsletters)
         NewTopic priority3Topic = TopicBuilder
                 .name(TOPIC_PRIORITY_3)  // "priority-3"
+                .partitions(priority3Partitions)
                 .build();
-
+        
+        // Compacted: only the latest event per template is kept
+        NewTopic templateEventsTopic = TopicBuilder
+                .name(TEMPLATE_EVENTS_TOPIC)  // "template-events"
+                .compact()
+                .build();
+        
+        // Compacted: only the latest event per user is kept
+        NewTopic preferenceEventsTopic = TopicBuilder
+                .name(PREFERENCE_EVENTS_TOPIC)  // "preference-events"
+                .compact()
+                .build();
+        
         // Return all topics to be created
-        return new KafkaAdmin.NewTopics(priority1Topic, priority2Topic, priority3Topic);
+        return new KafkaAdmin.NewTopics(priority1Topic, priority2Topic, priority3Topic, templateEventsTopic, preferenceEventsTopic);
+    }
+
+    // Default template (Spring Boot backs off its own KafkaTemplate once we declare any)
+    @Bean
+    @Primary
+    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    // Each priority gets its own producer (own buffer, batches and connections)
+    // so large low-priority batches never sit in front of an OTP.
+
+    // Priority 1: send immediately, wait for all in-sync replicas
+    @Bean
+    public KafkaTemplate<String, String> priority1KafkaTemplate(
+            ProducerFactory<String, String> producerFactory,
+            @Value("${notification.kafka.priority-1.linger-ms:0}") int lingerMs,
+            @Value("${notification.kafka.priority-1.batch-size:16384}") int batchSize,
+            @Value("${notification.kafka.priority-1.compression-type:none}") String compressionType) {
+        return new KafkaTemplate<>(producerFactory, producerOverrides(lingerMs, batchSize, compressionType));
+    }
+
+    // Priority 2: small linger so records of concurrent requests share a batch
+    @Bean
+    public KafkaTemplate<String, String> priority2KafkaTemplate(
+            ProducerFactory<String, String> producerFactory,
+            @Value("${notification.kafka.priority-2.linger-ms:5}") int lingerMs,
+            @Value("${notification.kafka.priority-2.batch-size:65536}") int batchSize,
+            @Value("${notification.kafka.priority-2.compression-type:lz4}") String compressionType) {
+        return new KafkaTemplate<>(producerFactory, producerOverrides(lingerMs, batchSize, compressionType));
+    }
+
+    // Priority 3: bulk traffic, optimise for throughput (large compressed batches)
+    @Bean
+    public KafkaTemplate<String, String> priority3KafkaTemplate(
+            ProducerFactory<String, String> producerFactory,
+            @Value("${notification.kafka.priority-3.linger-ms:50}") int lingerMs,
+            @Value("${notification.kafka.priority-3.batch-size:262144}") int batchSize,
+            @Value("${notification.kafka.priority-3.compression-type:lz4}") String compressionType) {
+        return new KafkaTemplate<>(producerFactory, producerOverrides(lingerMs, batchSize, compressionType));
+    }
+
+    private Map<String, Object> producerOverrides(int lingerMs, int batchSize, String compressionType) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        overrides.put(ProducerConfig.ACKS_CONFIG, "all");
+        return overrides;
     }
 }
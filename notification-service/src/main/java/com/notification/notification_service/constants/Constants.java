@@ -4,4 +4,13 @@ public class Constants {
     public static final String TOPIC_PRIORITY_1 = "priority-1";
     public static final String TOPIC_PRIORITY_2 = "priority-2";
     public static final String TOPIC_PRIORITY_3 = "priority-3";
+    // Compacted topic, key = template name. Consumed by every instance to evict template caches
+    public static final String TEMPLATE_EVENTS_TOPIC = "template-events";
+    // Stable per-instance id for consumer groups every instance joins on its own (event topics):
+    // notification.instance-id, else the hostname. Set it when running several instances on one host
+    public static final String INSTANCE_ID = "${notification.instance-id:#{T(java.net.InetAddress).getLocalHost().getHostName()}}";
+    // Redis keys of the scheduled (sendAt) notification store, see ScheduledNotificationStore
+    public static final String SCHEDULED_KEY_PREFIX = "scheduled:";
+    // Keyed by userId, published by whatever updates user preferences
+    public static final String PREFERENCE_EVENTS_TOPIC = "preference-events";
 }
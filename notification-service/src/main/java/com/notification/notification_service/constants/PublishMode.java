@@ -0,0 +1,6 @@
+package com.notification.notification_service.constants;
+
+public enum PublishMode {
+    ACKNOWLEDGED,    // Return 202 only after Kafka acknowledged the record
+    FIRE_AND_FORGET  // Return 202 as soon as the record is handed to the producer
+}
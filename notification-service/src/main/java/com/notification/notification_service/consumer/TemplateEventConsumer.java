@@ -0,0 +1,36 @@
+package com.notification.notification_service.consumer;
+
+import com.notification.notification_service.service.TemplatePriorityCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import static com.notification.notification_service.constants.Constants.INSTANCE_ID;
+import static com.notification.notification_service.constants.Constants.TEMPLATE_EVENTS_TOPIC;
+
+// Evicts changed templates from this instance's TemplatePriorityCache.
+// Every instance needs every event, so each one has its own consumer group, named after its
+// instance id (see Constants.INSTANCE_ID) so a restart resumes that group instead of leaving
+// another one behind. A new group starts from the latest offset - anything older is already
+// reflected in Redis/DB.
+@Component
+@Slf4j
+public class TemplateEventConsumer {
+    private final TemplatePriorityCache templatePriorityCache;
+
+    public TemplateEventConsumer(TemplatePriorityCache templatePriorityCache) {
+        this.templatePriorityCache = templatePriorityCache;
+    }
+
+    @KafkaListener(topics = TEMPLATE_EVENTS_TOPIC,
+            groupId = "notification-service-template-events-" + INSTANCE_ID,
+            properties = "auto.offset.reset=latest")
+    public void consumeTemplateEvent(ConsumerRecord<String, String> templateEvent) {
+        if (templateEvent.key() == null) {
+            return;
+        }
+        templatePriorityCache.invalidate(templateEvent.key());
+        log.debug("Template {} evicted from local cache", templateEvent.key());
+    }
+}
@@ -1,18 +1,32 @@
 package com.notification.notification_service.controllers;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.service.BatchNotificationService;
 import com.notification.notification_service.service.KafkaService;
+import com.notification.notification_service.service.MessageSerializer;
 import com.notification.notification_service.service.RedisService;
+import com.notification.notification_service.service.ScheduledNotificationDispatcher;
 import com.notification.notification_service.service.NotificationProcessingService;
+import com.notification.notification_service.service.exceptions.PublishBackpressureException;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.errors.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api")
@@ -22,16 +36,29 @@ public class NotificationsController {
     private final KafkaService kafkaService;
     private final RedisService redisService;
     private final NotificationProcessingService notificationProcessingService;
+    private final BatchNotificationService batchNotificationService;
+    private final MessageSerializer messageSerializer;
+    private final ScheduledNotificationDispatcher scheduledNotificationDispatcher;
+
+    // Maximum number of notifications accepted in one batch request
+    @Value("${notification.batch.max-size:10000}")
+    private int maxBatchSize;
 
     // Constructor (Spring injects dependencies here)
     public NotificationsController(
             KafkaService kafkaService,
             RedisService redisService,
-            NotificationProcessingService notificationProcessingService
+            NotificationProcessingService notificationProcessingService,
+            BatchNotificationService batchNotificationService,
+            MessageSerializer messageSerializer,
+            ScheduledNotificationDispatcher scheduledNotificationDispatcher
     ) {
         this.kafkaService = kafkaService;
         this.redisService = redisService;
         this.notificationProcessingService = notificationProcessingService;
+        this.batchNotificationService = batchNotificationService;
+        this.messageSerializer = messageSerializer;
+        this.scheduledNotificationDispatcher = scheduledNotificationDispatcher;
     }
 
     // Health Check Endpoint
@@ -65,17 +92,23 @@ public class NotificationsController {
                 notificationProcessingService.assignPriority(notificationRequest);
             }
 
-            // STEP 3: Forward to Kafka
+            // STEP 3: Notifications with a future sendAt wait in the scheduled store instead
+            if (scheduledNotificationDispatcher.isScheduled(notificationRequest)) {
+                scheduledNotificationDispatcher.schedule(List.of(notificationRequest));
+                return ResponseEntity.accepted().body("Notification scheduled for " + notificationRequest.getSendAt() + ".");
+            }
+
+            // STEP 4: Forward to Kafka
             // Routes to appropriate topic:
             //   - Priority 1 → "priority-1" topic
             //   - Priority 2 → "priority-2" topic
             //   - Priority 3 → "priority-3" topic
             kafkaService.sendNotification(notificationRequest);
 
-            // STEP 4: Log success
+            // STEP 5: Log success
             log.debug("Notification forwarded to Kafka with priority: {}", notificationRequest.getNotificationPriority());
 
-            // STEP 5: Return success response (HTTP 202 ACCEPTED)
+            // STEP 6: Return success response (HTTP 202 ACCEPTED)
             return ResponseEntity.accepted().body("Notification accepted for processing.");
 
         } catch (InvalidRequestException e) {
@@ -88,8 +121,20 @@ public class NotificationsController {
             log.error("Bad request: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
 
+        } catch (PublishBackpressureException e) {
+            // Too many notifications waiting for Kafka - ask the caller to slow down
+            log.warn("Backpressure: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
+
+        } catch (DataAccessException e) {
+            // Redis unavailable, the scheduled notification could not be stored
+            log.error("Failed to schedule notification: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Failed to schedule notification.");
+
         } catch (KafkaException e) {
-            // Failed to send to Kafka
+            // Failed to send to Kafka (or no acknowledgement in time)
             log.error("Failed to forward notification to Kafka: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing notification.");
 
@@ -99,4 +144,51 @@ public class NotificationsController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred.");
         }
     }
-}
\ No newline at end of file
+
+    // Send Notifications (Batch) Endpoint
+    // URL: POST /api/send-notifications
+    // Input: JSON array of NotificationRequests
+    // Output: per-item result array, so callers can retry only the rejected items
+    @PostMapping(value = "/send-notifications", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> sendNotifications(@RequestBody List<NotificationRequest> notificationRequests) {
+        return processBatch(notificationRequests);
+    }
+
+    // Same endpoint for NDJSON streams (one NotificationRequest JSON object per line)
+    // Content-Type: application/x-ndjson
+    @PostMapping(value = "/send-notifications", consumes = "application/x-ndjson")
+    public ResponseEntity<?> sendNotificationsNdjson(InputStream body) {
+        List<NotificationRequest> notificationRequests = new ArrayList<>();
+        try (MappingIterator<NotificationRequest> iterator = messageSerializer.readNotificationRequests(body)) {
+            // Read line by line: an oversized stream is rejected at its first extra item, not after parsing all of it
+            while (iterator.hasNextValue()) {
+                notificationRequests.add(iterator.nextValue());
+                if (notificationRequests.size() > maxBatchSize) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                            .body("Batch exceeds maximum of " + maxBatchSize);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Invalid NDJSON batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid NDJSON body.");
+        }
+        return processBatch(notificationRequests);
+    }
+
+    private ResponseEntity<?> processBatch(List<NotificationRequest> notificationRequests) {
+        if (notificationRequests == null || notificationRequests.isEmpty()) {
+            return ResponseEntity.badRequest().body("Batch cannot be empty");
+        }
+        if (notificationRequests.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Batch size " + notificationRequests.size() + " exceeds maximum of " + maxBatchSize);
+        }
+        try {
+            // Results are per item; rejected items carry the reason (HTTP 202 ACCEPTED)
+            return ResponseEntity.accepted().body(batchNotificationService.processBatch(notificationRequests));
+        } catch (Exception e) {
+            log.error("Unexpected error while processing batch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred.");
+        }
+    }
+}
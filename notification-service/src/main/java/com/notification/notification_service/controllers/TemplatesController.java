@@ -0,0 +1,45 @@
+package com.notification.notification_service.controllers;
+
+import com.notification.notification_service.dto.TemplatePriorityUpdate;
+import com.notification.notification_service.entity.Template;
+import com.notification.notification_service.service.TemplateService;
+import com.notification.notification_service.service.exceptions.TemplateNotFoundException;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/templates")
+public class TemplatesController {
+
+    // Dependencies (injected by Spring)
+    private final TemplateService templateService;
+
+    public TemplatesController(TemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    // Update Template Priority Endpoint
+    // URL: PUT /api/templates/{name}/priority
+    // Input: {"templatePriority": 1|2|3}
+    // Template caches in every service pick up the change via the "template-events" topic
+    @PutMapping("/{name}/priority")
+    public ResponseEntity<?> updatePriority(@PathVariable String name, @Valid @RequestBody TemplatePriorityUpdate update) {
+        try {
+            Template template = templateService.updatePriority(name, update.getTemplatePriority());
+            return ResponseEntity.ok(new TemplatePriorityUpdate(template.getTemplatePriority()));
+
+        } catch (TemplateNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+
+        } catch (KafkaException e) {
+            // DB and Redis are updated, but other instances may not have been told - caller should retry
+            log.error("Failed to publish template change: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Template updated but change was not propagated, retry.");
+        }
+    }
+}
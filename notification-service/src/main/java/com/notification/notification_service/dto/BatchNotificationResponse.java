@@ -0,0 +1,16 @@
+package com.notification.notification_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchNotificationResponse {
+    private int accepted;                   // Number of requests forwarded to Kafka
+    private int rejected;                   // Number of requests callers should fix/retry
+    private List<NotificationResult> results; // One entry per submitted request, in order
+}
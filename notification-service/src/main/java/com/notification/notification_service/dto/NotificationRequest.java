@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,4 +24,8 @@ public class NotificationRequest {
     @NotNull(message = "Content cannot be null")
     @Valid
     private Content content;
+
+    // Optional: deliver at (or shortly after) this instant, ISO-8601 e.g. "2026-01-31T08:00:00.250Z".
+    // null or in the past = send now
+    private Instant sendAt;
 }
@@ -0,0 +1,25 @@
+package com.notification.notification_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationResult {
+    public static final String ACCEPTED = "accepted";
+    public static final String REJECTED = "rejected";
+
+    private int index;       // Position of the request in the submitted batch
+    private String status;   // "accepted" or "rejected"
+    private String reason;   // Why the request was rejected (null when accepted)
+
+    public static NotificationResult accepted(int index) {
+        return new NotificationResult(index, ACCEPTED, null);
+    }
+
+    public static NotificationResult rejected(int index, String reason) {
+        return new NotificationResult(index, REJECTED, reason);
+    }
+}
@@ -0,0 +1,18 @@
+package com.notification.notification_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A notification as kept in the scheduled store (see ScheduledNotificationStore).
+// Serialized as the request's own fields plus "dispatchAttempts", so a stored plain
+// NotificationRequest reads back with 0 attempts.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledNotification {
+    @JsonUnwrapped
+    private NotificationRequest notificationRequest;
+    private int dispatchAttempts;   // Sends that failed to reach Kafka so far
+}
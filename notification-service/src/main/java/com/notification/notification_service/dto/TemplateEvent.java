@@ -0,0 +1,16 @@
+package com.notification.notification_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Value published to the compacted "template-events" topic (key = template name).
+// Subscribers only need the key to evict; the value keeps the latest state per template.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateEvent {
+    private String templateName;
+    private int templatePriority;
+    private long updatedAtEpochMs;
+}
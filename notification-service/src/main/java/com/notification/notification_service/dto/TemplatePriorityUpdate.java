@@ -0,0 +1,16 @@
+package com.notification.notification_service.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplatePriorityUpdate {
+    @Min(1)
+    @Max(3)
+    private int templatePriority;
+}
@@ -4,9 +4,14 @@ import com.notification.notification_service.entity.Template;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TemplateRepository extends JpaRepository<Template, Long> {
     Optional<Template> findByName(String name);
+
+    // Load several templates with one IN query (used by batch ingestion)
+    List<Template> findByNameIn(Collection<String> names);
 }
@@ -0,0 +1,182 @@
+package com.notification.notification_service.service;
+
+import com.notification.notification_service.dto.BatchNotificationResponse;
+import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.dto.NotificationResult;
+import com.notification.notification_service.service.exceptions.PublishBackpressureException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BatchNotificationService {
+
+    // STEP 1: Declare dependencies
+    private final Validator validator;
+    private final NotificationProcessingService notificationProcessingService;
+    private final KafkaService kafkaService;
+    private final ScheduledNotificationDispatcher scheduledNotificationDispatcher;
+
+    // Upper bound on how long a batch waits for Kafka acknowledgements
+    @Value("${notification.batch.ack-timeout-ms:30000}")
+    private long ackTimeoutMs;
+
+
+    // STEP 2: Constructor injection
+    public BatchNotificationService(Validator validator,
+                                    NotificationProcessingService notificationProcessingService,
+                                    KafkaService kafkaService,
+                                    ScheduledNotificationDispatcher scheduledNotificationDispatcher) {
+        this.validator = validator;
+        this.notificationProcessingService = notificationProcessingService;
+        this.kafkaService = kafkaService;
+        this.scheduledNotificationDispatcher = scheduledNotificationDispatcher;
+    }
+
+
+    // METHOD 1: processBatch()
+    // Purpose: Validate, prioritise and forward a batch of notifications in one pass
+    // Parameters: List of NotificationRequests as submitted by the caller
+    // Returns: BatchNotificationResponse with one accepted/rejected result per request (same order)
+    public BatchNotificationResponse processBatch(List<NotificationRequest> notificationRequests) {
+        NotificationResult[] results = new NotificationResult[notificationRequests.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<NotificationRequest> validRequests = new ArrayList<>();
+
+        // STEP 3: Validate every request, collecting rejections instead of failing the whole batch
+        for (int i = 0; i < notificationRequests.size(); i++) {
+            String reason = validate(notificationRequests.get(i));
+            if (reason != null) {
+                results[i] = NotificationResult.rejected(i, reason);
+            } else {
+                validIndexes.add(i);
+                validRequests.add(notificationRequests.get(i));
+            }
+        }
+
+        // STEP 4: Resolve priorities of all template names with one cache/DB round-trip
+        notificationProcessingService.assignPriorities(validRequests);
+
+        // STEP 5: Store the notifications with a future sendAt in one call
+        List<Integer> immediateIndexes = new ArrayList<>(validIndexes.size());
+        List<NotificationRequest> immediateRequests = new ArrayList<>(validRequests.size());
+        List<Integer> scheduledIndexes = new ArrayList<>();
+        List<NotificationRequest> scheduledRequests = new ArrayList<>();
+        for (int i = 0; i < validRequests.size(); i++) {
+            if (scheduledNotificationDispatcher.isScheduled(validRequests.get(i))) {
+                scheduledIndexes.add(validIndexes.get(i));
+                scheduledRequests.add(validRequests.get(i));
+            } else {
+                immediateIndexes.add(validIndexes.get(i));
+                immediateRequests.add(validRequests.get(i));
+            }
+        }
+        if (!scheduledRequests.isEmpty()) {
+            String reason = schedule(scheduledRequests);
+            for (int index : scheduledIndexes) {
+                results[index] = reason == null ? NotificationResult.accepted(index) : NotificationResult.rejected(index, reason);
+            }
+        }
+
+        // STEP 6: Hand the rest of the batch to Kafka, then wait once for all acknowledgements
+        List<CompletableFuture<SendResult<String, String>>> futures = kafkaService.sendNotifications(immediateRequests);
+        awaitAll(futures);
+
+        for (int i = 0; i < futures.size(); i++) {
+            int index = immediateIndexes.get(i);
+            CompletableFuture<SendResult<String, String>> future = futures.get(i);
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                results[index] = NotificationResult.accepted(index);
+            } else if (!future.isDone()) {
+                results[index] = NotificationResult.rejected(index, "Timed out waiting for Kafka acknowledgement");
+            } else {
+                results[index] = NotificationResult.rejected(index, getFailureReason(future));
+            }
+        }
+
+        int accepted = 0;
+        for (NotificationResult result : results) {
+            if (NotificationResult.ACCEPTED.equals(result.getStatus())) {
+                accepted++;
+            }
+        }
+        log.info("Batch processed. Accepted: {}, Rejected: {}", accepted, results.length - accepted);
+        return new BatchNotificationResponse(accepted, results.length - accepted, List.of(results));
+    }
+
+
+    // Returns the rejection reason, or null if the request is valid
+    private String validate(NotificationRequest notificationRequest) {
+        if (notificationRequest == null) {
+            return "Notification request cannot be null";
+        }
+
+        // Bean validation (@NotNull, @NotBlank, ...) - @Valid on a List does not cascade to elements
+        Set<ConstraintViolation<NotificationRequest>> violations = validator.validate(notificationRequest);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        // Business validation (same checks as the single notification endpoint)
+        try {
+            notificationProcessingService.validateRequest(notificationRequest);
+            return null;
+        } catch (ResponseStatusException e) {
+            return e.getReason();
+        }
+    }
+
+    // Returns the rejection reason of all scheduled requests, or null if they were stored
+    private String schedule(List<NotificationRequest> scheduledRequests) {
+        try {
+            scheduledNotificationDispatcher.schedule(scheduledRequests);
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to schedule {} notifications of batch: {}", scheduledRequests.size(), e.getMessage());
+            return "Failed to schedule notification";
+        }
+    }
+
+    private String getFailureReason(CompletableFuture<SendResult<String, String>> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PublishBackpressureException) {
+                return e.getCause().getMessage();
+            }
+        } catch (Exception e) {
+            // Cancelled - fall through to the generic reason
+        }
+        return "Failed to forward notification to Kafka";
+    }
+
+    private void awaitAll(List<CompletableFuture<SendResult<String, String>>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.error("Timed out after {} ms waiting for Kafka acknowledgements of batch", ackTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Individual failures are inspected per future by the caller
+            log.error("Some notifications of the batch failed to be forwarded to Kafka: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.notification.notification_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: a ring of slots, one per tick. An item due in n ticks goes into slot
+// (current + n) % size with (n / size) remaining rounds, so scheduling is O(1) and each tick
+// only looks at one slot. Precision is one tick.
+//
+// Not thread-safe: used only from the ScheduledNotificationDispatcher thread.
+class HashedTimingWheel<T> {
+    private final long tickMs;
+    private final List<Timeout<T>>[] slots;
+    private final int mask;
+    private long processedTick; // last tick whose slot was expired
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        int slotCount = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1; // next power of two
+        this.tickMs = tickMs;
+        this.slots = new List[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.mask = slotCount - 1;
+        this.processedTick = startMs / tickMs - 1;
+    }
+
+    // Items already due are expired on the next advance()
+    void schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.max(deadlineMs / tickMs, processedTick + 1);
+        long ticks = deadlineTick - (processedTick + 1);
+        slots[(int) (deadlineTick & mask)].add(new Timeout<>(item, ticks / slots.length));
+        size++;
+    }
+
+    // Expires everything due up to nowMs, tick by tick
+    void advance(long nowMs, Consumer<T> expired) {
+        long nowTick = nowMs / tickMs;
+        while (processedTick < nowTick) {
+            processedTick++;
+            int slot = (int) (processedTick & mask);
+            if (slots[slot].isEmpty()) {
+                continue;
+            }
+            List<Timeout<T>> remaining = new ArrayList<>();
+            for (Timeout<T> timeout : slots[slot]) {
+                if (timeout.rounds == 0) {
+                    size--;
+                    expired.accept(timeout.item);
+                } else {
+                    timeout.rounds--;
+                    remaining.add(timeout);
+                }
+            }
+            slots[slot] = remaining;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private long rounds;
+
+        Timeout(T item, long rounds) {
+            this.item = item;
+            this.rounds = rounds;
+        }
+    }
+}
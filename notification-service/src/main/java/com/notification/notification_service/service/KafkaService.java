@@ -1,73 +1,235 @@
 package com.notification.notification_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.notification_service.constants.PublishMode;
 import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.service.exceptions.PublishBackpressureException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.notification.notification_service.constants.Constants.*;
 
 @Service
 @Slf4j
 public class KafkaService {
 
-    // STEP 1: Declare KafkaTemplate dependency
+    // STEP 1: Declare KafkaTemplate dependencies
     // KafkaTemplate is Spring's abstraction for sending messages to Kafka topics
-    // <String, String> means: Key type is String, Value type is String
-       private final KafkaTemplate<String,String>kafkaTemplate;
+    // One template per priority, each tuned for its traffic (see KafkaConfig)
+    private final KafkaTemplate<String, String> priority1KafkaTemplate;
+    private final KafkaTemplate<String, String> priority2KafkaTemplate;
+    private final KafkaTemplate<String, String> priority3KafkaTemplate;
+
+    // Pre-built JSON writer (building an ObjectMapper per message dominated CPU)
+    private final MessageSerializer messageSerializer;
+
+    // ACKNOWLEDGED: wait for the broker before answering 202 (truthful acks for OTPs)
+    // FIRE_AND_FORGET: answer as soon as the record is buffered by the producer
+    private final PublishMode publishMode;
+
+    // How long a request waits for the broker acknowledgement in ACKNOWLEDGED mode
+    private final long ackTimeoutMs;
+
+    // How long a request waits for in-flight capacity before being rejected (backpressure)
+    private final long backpressureTimeoutMs;
+
+    // Bytes of records handed to the producer but not yet acknowledged
+    private final int maxInFlightBytes;
+    private final Semaphore inFlightBytes;
+    private final AtomicInteger inFlightRecords = new AtomicInteger();
+
 
-    
-    
     // STEP 2: Constructor injection
-    // Spring will automatically inject KafkaTemplate when creating this service
-       public KafkaService(KafkaTemplate<String,String>kafkaTemplate){
-              this.kafkaTemplate = kafkaTemplate;
-
-       }
-    
-    
-    
-    // METHOD 1: sendNotification() 
+    // Spring will automatically inject the KafkaTemplates when creating this service
+    public KafkaService(@Qualifier("priority1KafkaTemplate") KafkaTemplate<String, String> priority1KafkaTemplate,
+                        @Qualifier("priority2KafkaTemplate") KafkaTemplate<String, String> priority2KafkaTemplate,
+                        @Qualifier("priority3KafkaTemplate") KafkaTemplate<String, String> priority3KafkaTemplate,
+                        MessageSerializer messageSerializer,
+                        @Value("${notification.kafka.publish-mode:ACKNOWLEDGED}") PublishMode publishMode,
+                        @Value("${notification.kafka.ack-timeout-ms:5000}") long ackTimeoutMs,
+                        @Value("${notification.kafka.backpressure-timeout-ms:100}") long backpressureTimeoutMs,
+                        @Value("${notification.kafka.max-in-flight-bytes:33554432}") int maxInFlightBytes) {
+        this.priority1KafkaTemplate = priority1KafkaTemplate;
+        this.priority2KafkaTemplate = priority2KafkaTemplate;
+        this.priority3KafkaTemplate = priority3KafkaTemplate;
+        this.messageSerializer = messageSerializer;
+        this.publishMode = publishMode;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.backpressureTimeoutMs = backpressureTimeoutMs;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.inFlightBytes = new Semaphore(maxInFlightBytes);
+    }
+
+
+
+    // METHOD 1: sendNotification()
     // Purpose: Route notification to appropriate Kafka topic based on priority
     // Parameters: NotificationRequest object containing priority and notification data
-    // Returns: void (throws KafkaException on failure)
-    public void sendNotification(NotificationRequest notificationRequest){
-        try{
-            String notification=prepareMessage(notificationRequest);
-            int priority=notificationRequest.getNotificationPriority();
-    // STEP 3: Create public void sendNotification(NotificationRequest notificationRequest) method
-            switch (priority){
-                case 1:
-                    this.kafkaTemplate.send(TOPIC_PRIORITY_1,notification);
-                    break;
-                case 2:
-                    this.kafkaTemplate.send(TOPIC_PRIORITY_2,notification);
-                    break;
-                default:
-                    this.kafkaTemplate.send(TOPIC_PRIORITY_3,notification);
-            }
+    // Returns: void (throws KafkaException on failure,
+    //          PublishBackpressureException when too many bytes are already in flight)
+    public void sendNotification(NotificationRequest notificationRequest) {
+        int priority = notificationRequest.getNotificationPriority();
+        CompletableFuture<SendResult<String, String>> future = sendAsync(notificationRequest);
+
+        if (publishMode == PublishMode.FIRE_AND_FORGET) {
+            // Failures are still logged by the completion callback in sendAsync()
+            log.debug("Notification handed to Kafka producer with priority: {}", priority);
+            return;
+        }
+
+        try {
+            future.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
             log.info("Notification Successfully forwarded to Kafka with priority: " + priority);
+        } catch (ExecutionException e) {
+            throw new KafkaException("Failed to send notification", e.getCause());
+        } catch (TimeoutException e) {
+            throw new KafkaException("Timed out after " + ackTimeoutMs + " ms waiting for Kafka acknowledgement");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while waiting for Kafka acknowledgement", e);
+        }
+    }
+
+
+
+    // METHOD 2: sendNotifications()
+    // Purpose: Hand a whole batch to the producer without waiting on any single record.
+    //          The producer batches records per topic/partition internally.
+    // Parameters: List of NotificationRequests (priorities already assigned)
+    // Returns: One future per request (same order), completed when Kafka acknowledges the record
+    public List<CompletableFuture<SendResult<String, String>>> sendNotifications(List<NotificationRequest> notificationRequests) {
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(notificationRequests.size());
+        boolean overloaded = false;
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            if (overloaded) {
+                // Don't wait for capacity again for every remaining record of the batch
+                futures.add(CompletableFuture.failedFuture(new PublishBackpressureException("Publisher overloaded, retry later")));
+                continue;
+            }
+            try {
+                futures.add(sendAsync(notificationRequest));
+            } catch (PublishBackpressureException e) {
+                overloaded = true;
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        log.info("Batch of {} notifications handed to Kafka", notificationRequests.size());
+        return futures;
+    }
+
+
+
+    // METHOD 3: sendAsync()
+    // Purpose: Serialize and send one record, tracking it until Kafka acknowledges it
+    // Throws: PublishBackpressureException when in-flight capacity is exhausted
+    private CompletableFuture<SendResult<String, String>> sendAsync(NotificationRequest notificationRequest) {
+        String notification;
+        try {
+            notification = prepareMessage(notificationRequest);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new KafkaException("Failed to serialize notification", e));
+        }
+
+        // JSON is (almost) always ASCII, so the char count is a cheap estimate of the record size
+        int recordBytes = Math.min(notification.length(), maxInFlightBytes);
+        acquireInFlightCapacity(recordBytes);
+        inFlightRecords.incrementAndGet();
+
+        int priority = notificationRequest.getNotificationPriority();
+        CompletableFuture<SendResult<String, String>> future;
+        try {
+            // Keyed by userId: one user's notifications land on one partition and are processed
+            // in order, while different users spread over all partitions of the priority topic
+            future = getTemplate(priority).send(getTopic(priority), notificationRequest.getRecipient().getUserId(), notification);
         } catch (Exception e) {
-            throw new KafkaException("Failed to send notification", e);
+            releaseInFlightCapacity(recordBytes);
+            return CompletableFuture.failedFuture(new KafkaException("Failed to send notification", e));
+        }
+
+        future.whenComplete((result, exception) -> {
+            releaseInFlightCapacity(recordBytes);
+            if (exception != null) {
+                log.error("Kafka did not acknowledge notification with priority {}: {}", priority, exception.toString());
+            }
+        });
+        return future;
+    }
+
+    private void acquireInFlightCapacity(int recordBytes) {
+        try {
+            if (!inFlightBytes.tryAcquire(recordBytes, backpressureTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new PublishBackpressureException("Too many notifications waiting for Kafka acknowledgement, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PublishBackpressureException("Interrupted while waiting for Kafka capacity");
+        }
+    }
+
+    private void releaseInFlightCapacity(int recordBytes) {
+        inFlightBytes.release(recordBytes);
+        inFlightRecords.decrementAndGet();
+    }
+
+
+    private KafkaTemplate<String, String> getTemplate(int priority) {
+        switch (priority) {
+            case 1:
+                return priority1KafkaTemplate;
+            case 2:
+                return priority2KafkaTemplate;
+            default:
+                return priority3KafkaTemplate;
         }
     }
-       
-    
-    
-    
 
-    //  METHOD 2: prepareMessage() 
+    private String getTopic(int priority) {
+        switch (priority) {
+            case 1:
+                return TOPIC_PRIORITY_1;
+            case 2:
+                return TOPIC_PRIORITY_2;
+            default:
+                return TOPIC_PRIORITY_3;
+        }
+    }
+
+
+    // Flush buffered records on shutdown so fire-and-forget sends are not lost
+    @PreDestroy
+    public void flushInFlight() {
+        priority1KafkaTemplate.flush();
+        priority2KafkaTemplate.flush();
+        priority3KafkaTemplate.flush();
+        log.info("Kafka producers flushed on shutdown. Records still in flight: {}", inFlightRecords.get());
+    }
+
+
+
+
+    //  METHOD 4: prepareMessage()
     // Purpose: Convert NotificationRequest object to JSON string for Kafka
     // Parameters: NotificationRequest object
     // Returns: String (JSON representation)
     // Throws: JsonProcessingException if serialization fails
     private String prepareMessage(NotificationRequest notificationRequest) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(notificationRequest);
+        return messageSerializer.writeNotificationRequest(notificationRequest);
     }
 
-    
+
 }
@@ -0,0 +1,61 @@
+package com.notification.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.dto.ScheduledNotification;
+import com.notification.notification_service.dto.TemplateEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Shared JSON (de)serialization for the request hot paths.
+// ObjectMapper construction and per-type serializer lookup are expensive,
+// so readers/writers are built once from Spring's ObjectMapper and reused.
+// ObjectReader/ObjectWriter are immutable and thread-safe.
+@Component
+public class MessageSerializer {
+
+    private final ObjectWriter notificationRequestWriter;
+    private final ObjectReader notificationRequestReader;
+    private final ObjectWriter templateEventWriter;
+    private final ObjectWriter scheduledNotificationWriter;
+    private final ObjectReader scheduledNotificationReader;
+
+    public MessageSerializer(ObjectMapper objectMapper) {
+        this.notificationRequestWriter = objectMapper.writerFor(NotificationRequest.class);
+        this.notificationRequestReader = objectMapper.readerFor(NotificationRequest.class);
+        this.templateEventWriter = objectMapper.writerFor(TemplateEvent.class);
+        this.scheduledNotificationWriter = objectMapper.writerFor(ScheduledNotification.class);
+        this.scheduledNotificationReader = objectMapper.readerFor(ScheduledNotification.class);
+    }
+
+    public String writeNotificationRequest(NotificationRequest notificationRequest) throws JsonProcessingException {
+        return notificationRequestWriter.writeValueAsString(notificationRequest);
+    }
+
+    public NotificationRequest readNotificationRequest(String notificationRequest) throws JsonProcessingException {
+        return notificationRequestReader.readValue(notificationRequest);
+    }
+
+    // Streams whitespace/newline separated NotificationRequests (NDJSON)
+    public MappingIterator<NotificationRequest> readNotificationRequests(InputStream inputStream) throws IOException {
+        return notificationRequestReader.readValues(inputStream);
+    }
+
+    public String writeTemplateEvent(TemplateEvent templateEvent) throws JsonProcessingException {
+        return templateEventWriter.writeValueAsString(templateEvent);
+    }
+
+    public String writeScheduledNotification(ScheduledNotification scheduledNotification) throws JsonProcessingException {
+        return scheduledNotificationWriter.writeValueAsString(scheduledNotification);
+    }
+
+    public ScheduledNotification readScheduledNotification(String scheduledNotification) throws JsonProcessingException {
+        return scheduledNotificationReader.readValue(scheduledNotification);
+    }
+}
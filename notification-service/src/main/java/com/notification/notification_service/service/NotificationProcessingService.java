@@ -3,30 +3,37 @@ package com.notification.notification_service.service;
 import com.notification.notification_service.dto.Content;
 import com.notification.notification_service.dto.NotificationRequest;
 import com.notification.notification_service.dto.Recipient;
-import com.notification.notification_service.entity.Template;
-import com.notification.notification_service.repository.TemplateRepository;
-import com.notification.notification_service.service.exceptions.TemplateNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class NotificationProcessingService {
     
-    // STEP 1: Declare RedisService and TemplateRepository dependencies
-    private final RedisService redisService;
-    private final TemplateRepository templateRepository;
+    // STEP 1: Declare TemplatePriorityCache dependency (local cache -> Redis -> DB)
+    private final TemplatePriorityCache templatePriorityCache;
+
+    // How far ahead sendAt may be (scheduled notifications are kept in Redis until then)
+    private final Duration maxScheduleHorizon;
 
     
     
-    // STEP 2: Create constructor with RedisService and TemplateRepository parameters
-    public NotificationProcessingService(RedisService redisService, TemplateRepository templateRepository) {
-        this.redisService = redisService;
-        this.templateRepository = templateRepository;
+    // STEP 2: Create constructor with TemplatePriorityCache parameter
+    public NotificationProcessingService(TemplatePriorityCache templatePriorityCache,
+                                         @Value("${notification.scheduler.max-horizon-days:30}") long maxScheduleHorizonDays) {
+        this.templatePriorityCache = templatePriorityCache;
+        this.maxScheduleHorizon = Duration.ofDays(maxScheduleHorizonDays);
     }
     
     
@@ -57,6 +64,12 @@ public class NotificationProcessingService {
                 (content.getTemplateName() == null || content.getTemplateName().isEmpty())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either message or templateName must be provided");
         }
+
+        // Validate sendAt (optional; a past sendAt is sent right away)
+        Instant sendAt = notificationRequest.getSendAt();
+        if (sendAt != null && sendAt.isAfter(Instant.now().plus(maxScheduleHorizon))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sendAt cannot be more than " + maxScheduleHorizon.toDays() + " days ahead");
+        }
     }
     
     
@@ -71,38 +84,43 @@ public class NotificationProcessingService {
         String templateName = content.getTemplateName();
 
         if (templateName != null && !templateName.isEmpty()) {
-            // Using template - fetch priority from Redis or DB
-            int redisPriority = redisService.get(templateName);
-            if (redisPriority != -1) {
-                // Found in Redis cache
-                notificationRequest.setNotificationPriority(redisPriority);
-                return;
-            }
-
-            // Not found in Redis, check database
-            try {
-                Template template = templateRepository.findByName(templateName)
-                        .orElseThrow(() -> new TemplateNotFoundException("Template with name: " + templateName + " Not found"));
-                
-                int templatePriority = template.getTemplatePriority();
-                // Cache in Redis for future requests
-                if (templatePriority == 1 || templatePriority == 2 || templatePriority == 3) {
-                    redisService.set(templateName, templatePriority);
-                }
-                notificationRequest.setNotificationPriority(templatePriority);
-            } catch (TemplateNotFoundException e) {
-                log.error("{} For notificationRequest: {}", e, notificationRequest);
+            // Using template - fetch priority from local cache (backed by Redis, then DB)
+            int templatePriority = templatePriorityCache.getPriority(templateName);
+            if (templatePriority == TemplatePriorityCache.NOT_FOUND) {
+                log.error("Template with name: {} Not found. For notificationRequest: {}", templateName, notificationRequest);
                 // Default to medium priority if template not found
-                notificationRequest.setNotificationPriority(2);
-            } catch (Exception e) {
-                log.error("Unexpected Exception: {} For notificationRequest: {}", e, notificationRequest);
-                notificationRequest.setNotificationPriority(2);
+                templatePriority = 2;
             }
+            notificationRequest.setNotificationPriority(templatePriority);
         } else {
             // No template, assign default medium priority
             notificationRequest.setNotificationPriority(2);
         }
     }
 
-    
+
+    // STEP 5: Implement public void assignPriorities(List<NotificationRequest> notificationRequests)
+    // Batch version of assignPriority(): distinct template names are looked up in the local cache,
+    // its misses are loaded with one Redis MGET and (for the misses) one DB IN query
+    public void assignPriorities(List<NotificationRequest> notificationRequests) {
+        Set<String> templateNames = new HashSet<>();
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            String templateName = notificationRequest.getContent().getTemplateName();
+            if (notificationRequest.getNotificationPriority() == -1 && templateName != null && !templateName.isEmpty()) {
+                templateNames.add(templateName);
+            }
+        }
+
+        Map<String, Integer> templatePriorities = templatePriorityCache.getPriorities(templateNames);
+
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            if (notificationRequest.getNotificationPriority() != -1) {
+                continue;
+            }
+            String templateName = notificationRequest.getContent().getTemplateName();
+            // Unknown template or no template - default to medium priority
+            int priority = templateName == null ? 2 : templatePriorities.getOrDefault(templateName, 2);
+            notificationRequest.setNotificationPriority(priority);
+        }
+    }
 }
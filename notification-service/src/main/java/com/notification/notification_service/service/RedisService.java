@@ -2,8 +2,18 @@ package com.notification.notification_service.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -58,14 +68,14 @@ public class RedisService {
             // Check if template exists in cache
             if (o == null) {
                 // Template not found in Redis cache (cache miss)
-                log.info("{} template not available in Redis", templateName);
+                log.debug("{} template not available in Redis", templateName);
                 return -1; // Return -1 to indicate cache miss
             }
             
             // Convert String from Redis to integer priority
             // Redis stores everything as strings, parse back to int
             int priority = Integer.parseInt(o);
-            log.info("Retrieved priority {} for template {} from Redis", priority, templateName);
+            log.debug("Retrieved priority {} for template {} from Redis", priority, templateName);
             
             return priority; // Return the cached priority
             
@@ -75,5 +85,58 @@ public class RedisService {
             return -1; // Return -1 on error, caller will fallback to database
         }
     }
-    
-}
\ No newline at end of file
+
+
+    //  METHOD 3: getAll()
+    // Purpose: Retrieve priorities of many templates with a single MGET round-trip
+    // Parameters: templateNames (Collection<String>)
+    // Returns: Map of templateName -> priority, containing only cache hits
+    //          (empty map on error, caller will fallback to database)
+    public Map<String, Integer> getAll(Collection<String> templateNames) {
+        Map<String, Integer> priorities = new HashMap<>();
+        if (templateNames.isEmpty()) {
+            return priorities;
+        }
+        try {
+            List<String> keys = new ArrayList<>(templateNames);
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return priorities;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) != null) {
+                    priorities.put(keys.get(i), Integer.parseInt(values.get(i)));
+                }
+            }
+            log.debug("Retrieved {} of {} template priorities from Redis", priorities.size(), keys.size());
+        } catch (Exception e) {
+            log.error("Exception getting values from redis. Exception: " + e);
+        }
+        return priorities;
+    }
+
+
+    //  METHOD 4: setAll()
+    // Purpose: Store many template priorities in one pipelined round-trip
+    // Parameters: templatePriorities (Map of templateName -> priority)
+    // Returns: void
+    public void setAll(Map<String, Integer> templatePriorities) {
+        if (templatePriorities.isEmpty()) {
+            return;
+        }
+        try {
+            RedisSerializer<String> serializer = RedisSerializer.string();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                templatePriorities.forEach((templateName, priority) -> connection.stringCommands().set(
+                        serializer.serialize(templateName),
+                        serializer.serialize(Integer.toString(priority)),
+                        Expiration.from(1, TimeUnit.DAYS),
+                        RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Exception setting values to redis. Exception: " + e);
+        }
+    }
+
+}
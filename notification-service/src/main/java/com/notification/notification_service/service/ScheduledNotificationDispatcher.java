@@ -0,0 +1,312 @@
+package com.notification.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.dto.ScheduledNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Releases scheduled (sendAt) notifications to the priority topics on time.
+//
+// Notifications wait in Redis (ScheduledNotificationStore) until they are lookahead-ms away,
+// then move into an in-memory HashedTimingWheel that fires them with tick-ms precision.
+// Each shard of the store is dispatched by the one instance holding its lease.
+//
+// All wheel / bucket state is owned by the single dispatcher thread. Kafka callbacks only
+// hand results back through the two queues below.
+// A bucket is removed from Redis once all of its notifications were acknowledged by Kafka
+// (failed ones are stored again, retry-delay-ms later; after max-attempts failed sends they
+// go to the store's dead letter list instead). A crash before that re-sends the bucket:
+// delivery is at-least-once, duplicates are rejected by the priority-processor.
+@Service
+@Slf4j
+public class ScheduledNotificationDispatcher {
+
+    // STEP 1: Declare dependencies and settings
+    private final ScheduledNotificationStore scheduledNotificationStore;
+    private final KafkaService kafkaService;
+    private final MessageSerializer messageSerializer;
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long loadIntervalMs;
+    private final long lookaheadMs;
+    // Spread the notifications of one bucket (one second of sendAt) over this window instead of firing them in one burst
+    private final long smoothingMs;
+    private final long retryDelayMs;
+    private final int maxAttempts;
+    private final int bucketsPerLoad;
+    private final Duration leaseTime;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Counter stored;
+    private final Counter released;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    // Dispatcher thread state
+    private ScheduledExecutorService executor;
+    private HashedTimingWheel<Scheduled> wheel;
+    private final Map<BucketRef, Integer> loadedBuckets = new HashMap<>(); // bucket -> number of items read from Redis
+    private final List<ScheduledNotification> retryNotifications = new ArrayList<>();
+    private final List<ScheduledNotification> deadLetters = new ArrayList<>();
+    private final List<BucketRef> pendingRemovals = new ArrayList<>();
+    private long nextLoadMs;
+
+    // Written by Kafka callbacks, drained by the dispatcher thread
+    private final Queue<ScheduledNotification> failed = new ConcurrentLinkedQueue<>();
+    private final Queue<BucketRef> completed = new ConcurrentLinkedQueue<>();
+
+
+    // STEP 2: Constructor injection
+    public ScheduledNotificationDispatcher(ScheduledNotificationStore scheduledNotificationStore,
+                                           KafkaService kafkaService,
+                                           MessageSerializer messageSerializer,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${notification.scheduler.tick-ms:10}") long tickMs,
+                                           @Value("${notification.scheduler.wheel-size:4096}") int wheelSize,
+                                           @Value("${notification.scheduler.load-interval-ms:500}") long loadIntervalMs,
+                                           @Value("${notification.scheduler.lookahead-ms:2000}") long lookaheadMs,
+                                           @Value("${notification.scheduler.smoothing-ms:1000}") long smoothingMs,
+                                           @Value("${notification.scheduler.retry-delay-ms:1000}") long retryDelayMs,
+                                           @Value("${notification.scheduler.max-attempts:10}") int maxAttempts,
+                                           @Value("${notification.scheduler.buckets-per-load:50}") int bucketsPerLoad,
+                                           @Value("${notification.scheduler.lease-seconds:10}") long leaseSeconds) {
+        this.scheduledNotificationStore = scheduledNotificationStore;
+        this.kafkaService = kafkaService;
+        this.messageSerializer = messageSerializer;
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.loadIntervalMs = loadIntervalMs;
+        this.lookaheadMs = lookaheadMs;
+        this.smoothingMs = smoothingMs;
+        this.retryDelayMs = retryDelayMs;
+        this.maxAttempts = maxAttempts;
+        this.bucketsPerLoad = bucketsPerLoad;
+        this.leaseTime = Duration.ofSeconds(leaseSeconds);
+        this.stored = Counter.builder("notification.scheduled").tag("action", "stored").register(meterRegistry);
+        this.released = Counter.builder("notification.scheduled").tag("action", "released").register(meterRegistry);
+        this.retried = Counter.builder("notification.scheduled").tag("action", "retried").register(meterRegistry);
+        this.deadLettered = Counter.builder("notification.scheduled").tag("action", "dead-lettered").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> tick(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Notifications still in the wheel stay in Redis and are sent by the next lease holder
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+
+    // METHOD 1: isScheduled()
+    // Purpose: Whether a request has to wait for its sendAt (otherwise it is sent right away)
+    public boolean isScheduled(NotificationRequest notificationRequest) {
+        Instant sendAt = notificationRequest.getSendAt();
+        return sendAt != null && sendAt.toEpochMilli() > System.currentTimeMillis() + tickMs;
+    }
+
+
+    // METHOD 2: schedule()
+    // Purpose: Store notifications until their sendAt (priorities already assigned)
+    // Throws: JsonProcessingException, or a RuntimeException if Redis is unavailable
+    public void schedule(List<NotificationRequest> notificationRequests) throws JsonProcessingException {
+        List<ScheduledNotification> scheduledNotifications = new ArrayList<>(notificationRequests.size());
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            scheduledNotifications.add(new ScheduledNotification(notificationRequest, 0));
+        }
+        scheduledNotificationStore.schedule(scheduledNotifications);
+        stored.increment(notificationRequests.size());
+        log.debug("Scheduled {} notifications", notificationRequests.size());
+    }
+
+
+    // METHOD 3: tick()
+    // Purpose: One step of the dispatcher thread - load due buckets, fire due notifications,
+    //          then settle what Kafka acknowledged since the last tick
+    void tick(long now) {
+        try {
+            if (wheel == null) {
+                wheel = new HashedTimingWheel<>(tickMs, wheelSize, now);
+            }
+            if (now >= nextLoadMs) {
+                loadDueBuckets(now);
+                nextLoadMs = now + loadIntervalMs;
+            }
+
+            List<Scheduled> due = new ArrayList<>();
+            wheel.advance(now, due::add);
+            if (!due.isEmpty()) {
+                send(due);
+            }
+
+            settle(now);
+        } catch (Exception e) {
+            // Never let an exception cancel the periodic task
+            log.error("Exception in scheduled notification dispatcher: {}", e.toString());
+        }
+    }
+
+    private void loadDueBuckets(long now) {
+        long untilSecond = (now + lookaheadMs) / 1000;
+        for (int shard = 0; shard < scheduledNotificationStore.getShards(); shard++) {
+            try {
+                if (!scheduledNotificationStore.acquireLease(shard, instanceId, leaseTime)) {
+                    continue; // another instance dispatches this shard
+                }
+                Set<String> dueBuckets = scheduledNotificationStore.dueBuckets(shard, untilSecond, bucketsPerLoad);
+                if (dueBuckets == null) {
+                    continue;
+                }
+                for (String bucket : dueBuckets) {
+                    BucketRef bucketRef = new BucketRef(shard, bucket);
+                    if (!loadedBuckets.containsKey(bucketRef)) {
+                        loadBucket(bucketRef, now);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Exception loading scheduled notifications of shard {}. Exception: {}", shard, e.toString());
+            }
+        }
+    }
+
+    private void loadBucket(BucketRef bucketRef, long now) {
+        List<String> items = scheduledNotificationStore.read(bucketRef.shard(), bucketRef.bucket());
+        List<ScheduledNotification> scheduledNotifications = new ArrayList<>(items.size());
+        for (String item : items) {
+            try {
+                scheduledNotifications.add(messageSerializer.readScheduledNotification(item));
+            } catch (JsonProcessingException e) {
+                log.error("Dropping unreadable scheduled notification: {}", item);
+            }
+        }
+
+        loadedBuckets.put(bucketRef, items.size());
+        if (scheduledNotifications.isEmpty()) {
+            pendingRemovals.add(bucketRef);
+            return;
+        }
+        int count = scheduledNotifications.size();
+        AtomicInteger unacknowledged = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            ScheduledNotification scheduledNotification = scheduledNotifications.get(i);
+            long sendAt = scheduledNotification.getNotificationRequest().getSendAt().toEpochMilli();
+            long releaseAt = Math.max(sendAt, now) + smoothingMs * i / count;
+            wheel.schedule(new Scheduled(scheduledNotification, bucketRef, unacknowledged), releaseAt);
+        }
+    }
+
+    private void send(List<Scheduled> due) {
+        List<NotificationRequest> notificationRequests = new ArrayList<>(due.size());
+        for (Scheduled scheduled : due) {
+            notificationRequests.add(scheduled.scheduledNotification().getNotificationRequest());
+        }
+        List<CompletableFuture<SendResult<String, String>>> futures = kafkaService.sendNotifications(notificationRequests);
+        for (int i = 0; i < futures.size(); i++) {
+            Scheduled scheduled = due.get(i);
+            futures.get(i).whenComplete((result, exception) -> {
+                if (exception != null) {
+                    failed.add(scheduled.scheduledNotification());
+                }
+                // completed after failed: a settled bucket's failures are always visible to settle()
+                if (scheduled.unacknowledged().decrementAndGet() == 0) {
+                    completed.add(scheduled.bucketRef());
+                }
+            });
+        }
+        released.increment(due.size());
+    }
+
+    // Re-stores (or dead-letters) failed notifications, then removes fully acknowledged buckets.
+    // Removal waits until the re-store succeeded, so a Redis outage can't lose notifications.
+    private void settle(long now) {
+        BucketRef bucketRef;
+        while ((bucketRef = completed.poll()) != null) {
+            pendingRemovals.add(bucketRef);
+        }
+        ScheduledNotification scheduledNotification;
+        while ((scheduledNotification = failed.poll()) != null) {
+            scheduledNotification.setDispatchAttempts(scheduledNotification.getDispatchAttempts() + 1);
+            if (scheduledNotification.getDispatchAttempts() >= maxAttempts) {
+                deadLetters.add(scheduledNotification);
+            } else {
+                scheduledNotification.getNotificationRequest().setSendAt(Instant.ofEpochMilli(now + retryDelayMs));
+                retryNotifications.add(scheduledNotification);
+            }
+        }
+
+        if (!retryNotifications.isEmpty()) {
+            try {
+                scheduledNotificationStore.schedule(retryNotifications);
+                retried.increment(retryNotifications.size());
+                log.warn("{} scheduled notifications failed to reach Kafka, retrying in {} ms", retryNotifications.size(), retryDelayMs);
+                retryNotifications.clear();
+            } catch (Exception e) {
+                log.error("Exception re-storing failed scheduled notifications. Exception: {}", e.toString());
+                return;
+            }
+        }
+        if (!deadLetters.isEmpty()) {
+            try {
+                scheduledNotificationStore.deadLetter(deadLetters);
+                deadLettered.increment(deadLetters.size());
+                log.error("{} scheduled notifications failed to reach Kafka {} times, moved to the dead letter list", deadLetters.size(), maxAttempts);
+                deadLetters.clear();
+            } catch (Exception e) {
+                log.error("Exception dead-lettering failed scheduled notifications. Exception: {}", e.toString());
+                return;
+            }
+        }
+
+        while (!pendingRemovals.isEmpty()) {
+            BucketRef removal = pendingRemovals.get(pendingRemovals.size() - 1);
+            try {
+                // Notifications scheduled into the bucket after it was read stay, and are loaded again
+                scheduledNotificationStore.remove(removal.shard(), removal.bucket(), loadedBuckets.get(removal));
+            } catch (Exception e) {
+                log.error("Exception removing scheduled bucket {}. Exception: {}", removal, e.toString());
+                return;
+            }
+            pendingRemovals.remove(pendingRemovals.size() - 1);
+            loadedBuckets.remove(removal);
+        }
+    }
+
+    private record BucketRef(int shard, String bucket) {
+    }
+
+    // unacknowledged is shared by all notifications of the bucket
+    private record Scheduled(ScheduledNotification scheduledNotification, BucketRef bucketRef, AtomicInteger unacknowledged) {
+    }
+}
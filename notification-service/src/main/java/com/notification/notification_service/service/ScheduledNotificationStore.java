@@ -0,0 +1,149 @@
+package com.notification.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.dto.ScheduledNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.notification.notification_service.constants.Constants.SCHEDULED_KEY_PREFIX;
+
+// Persistent delay queue of notifications with a future sendAt, in Redis.
+//
+// Partitioned into shards by userId; each shard is a set of one-second buckets:
+// - scheduled:<shard>:<epochSecond>  LIST of ScheduledNotification JSON due in that second (RPUSH, O(1))
+// - scheduled:<shard>:buckets        ZSET of bucket seconds, the index of non-empty buckets
+// - scheduled:<shard>:lease          which notification-service instance dispatches the shard
+// - scheduled:dead-letter            LIST of notifications the dispatcher gave up on, kept for inspection
+// The dispatcher only ever reads the due head of an index, never scans stored notifications.
+@Service
+public class ScheduledNotificationStore {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MessageSerializer messageSerializer;
+    private final int shards;
+
+    private static final String DEAD_LETTER_KEY = SCHEDULED_KEY_PREFIX + "dead-letter";
+
+    // Trim + index cleanup in one step, so a notification scheduled into the bucket
+    // concurrently can't end up in a bucket that is no longer indexed
+    private static final RedisScript<Long> REMOVE_RELEASED_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('LTRIM', KEYS[1], ARGV[1], -1) " +
+            "local remaining = redis.call('LLEN', KEYS[1]) " +
+            "if remaining == 0 then redis.call('ZREM', KEYS[2], ARGV[2]) end " +
+            "return remaining", Long.class);
+
+    public ScheduledNotificationStore(RedisTemplate<String, String> redisTemplate,
+                                      MessageSerializer messageSerializer,
+                                      @Value("${notification.scheduler.shards:16}") int shards) {
+        this.redisTemplate = redisTemplate;
+        this.messageSerializer = messageSerializer;
+        this.shards = shards;
+    }
+
+
+    //  METHOD 1: schedule()
+    // Purpose: Store notifications until their sendAt, one pipelined round-trip for the whole list
+    // Throws: JsonProcessingException if a request can't be serialized,
+    //         RuntimeException (RedisConnectionFailureException, ...) if Redis is unavailable
+    public void schedule(List<ScheduledNotification> scheduledNotifications) throws JsonProcessingException {
+        RedisSerializer<String> serializer = RedisSerializer.string();
+        // shard -> bucket second -> notifications
+        Map<Integer, Map<Long, List<byte[]>>> buckets = new TreeMap<>();
+        for (ScheduledNotification scheduledNotification : scheduledNotifications) {
+            NotificationRequest notificationRequest = scheduledNotification.getNotificationRequest();
+            long second = notificationRequest.getSendAt().toEpochMilli() / 1000;
+            buckets.computeIfAbsent(shardOf(notificationRequest), shard -> new TreeMap<>())
+                    .computeIfAbsent(second, bucket -> new ArrayList<>())
+                    .add(serializer.serialize(messageSerializer.writeScheduledNotification(scheduledNotification)));
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            buckets.forEach((shard, shardBuckets) -> shardBuckets.forEach((second, items) -> {
+                String bucket = Long.toString(second);
+                connection.listCommands().rPush(serializer.serialize(bucketKey(shard, bucket)), items.toArray(new byte[0][]));
+                connection.zSetCommands().zAdd(serializer.serialize(indexKey(shard)), second, serializer.serialize(bucket));
+            }));
+            return null;
+        });
+    }
+
+
+    //  METHOD 2: dueBuckets()
+    // Purpose: Oldest buckets of a shard due at or before untilSecond
+    public Set<String> dueBuckets(int shard, long untilSecond, int limit) {
+        return redisTemplate.opsForZSet().rangeByScore(indexKey(shard), 0, untilSecond, 0, limit);
+    }
+
+
+    //  METHOD 3: read()
+    // Purpose: All notifications of one bucket (JSON), in scheduling order
+    public List<String> read(int shard, String bucket) {
+        return redisTemplate.opsForList().range(bucketKey(shard, bucket), 0, -1);
+    }
+
+
+    //  METHOD 4: remove()
+    // Purpose: Drop the first releasedCount notifications of a bucket once they were released,
+    //          and the bucket itself from the index if nothing was added to it meanwhile
+    // Returns: true if the bucket still holds notifications (scheduled after it was read)
+    public boolean remove(int shard, String bucket, int releasedCount) {
+        Long remaining = redisTemplate.execute(REMOVE_RELEASED_SCRIPT, List.of(bucketKey(shard, bucket), indexKey(shard)),
+                Integer.toString(releasedCount), bucket);
+        return remaining != null && remaining > 0;
+    }
+
+
+    //  METHOD 5: acquireLease()
+    // Purpose: Take or extend ownership of a shard for leaseTime
+    // Returns: true if this owner holds the shard
+    public boolean acquireLease(int shard, String owner, Duration leaseTime) {
+        String leaseKey = SCHEDULED_KEY_PREFIX + shard + ":lease";
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey, owner, leaseTime))) {
+            return true;
+        }
+        if (owner.equals(redisTemplate.opsForValue().get(leaseKey))) {
+            redisTemplate.expire(leaseKey, leaseTime);
+            return true;
+        }
+        return false;
+    }
+
+    //  METHOD 6: deadLetter()
+    // Purpose: Park notifications that can't be dispatched where they are no longer retried
+    // Throws: JsonProcessingException, or a RuntimeException if Redis is unavailable
+    public void deadLetter(List<ScheduledNotification> scheduledNotifications) throws JsonProcessingException {
+        List<String> items = new ArrayList<>(scheduledNotifications.size());
+        for (ScheduledNotification scheduledNotification : scheduledNotifications) {
+            items.add(messageSerializer.writeScheduledNotification(scheduledNotification));
+        }
+        redisTemplate.opsForList().rightPushAll(DEAD_LETTER_KEY, items);
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    private int shardOf(NotificationRequest notificationRequest) {
+        return Math.floorMod(notificationRequest.getRecipient().getUserId().hashCode(), shards);
+    }
+
+    private static String indexKey(int shard) {
+        return SCHEDULED_KEY_PREFIX + shard + ":buckets";
+    }
+
+    private static String bucketKey(int shard, String bucket) {
+        return SCHEDULED_KEY_PREFIX + shard + ":" + bucket;
+    }
+}
@@ -0,0 +1,166 @@
+package com.notification.notification_service.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.notification.notification_service.entity.Template;
+import com.notification.notification_service.repository.TemplateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// In-process cache of template name -> priority, sitting in front of Redis (second tier)
+// and the templates table (source of truth).
+//
+// - Size-bounded. Changes are pushed through the "template-events" topic (see TemplateEventConsumer),
+//   so entries are kept until evicted; notification.template-cache.ttl-seconds > 0 adds a safety TTL (0 = never)
+// - Unknown templates are cached as NOT_FOUND for a shorter negative TTL,
+//   so a typo in a client doesn't cost a Redis + DB round-trip per request
+// - Concurrent lookups of the same cold template wait on a single load
+// - hit/miss/eviction/load-time metrics are published as cache.* with cache=template-priority
+@Service
+@Slf4j
+public class TemplatePriorityCache {
+
+    // Marker for "template does not exist" (negative entry)
+    public static final int NOT_FOUND = -1;
+
+    private final RedisService redisService;
+    private final TemplateRepository templateRepository;
+    private final LoadingCache<String, Integer> cache;
+
+
+    public TemplatePriorityCache(RedisService redisService,
+                                 TemplateRepository templateRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.template-cache.max-size:10000}") long maxSize,
+                                 @Value("${notification.template-cache.ttl-seconds:0}") long ttlSeconds,
+                                 @Value("${notification.template-cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this.redisService = redisService;
+        this.templateRepository = templateRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PriorityExpiry(Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(negativeTtlSeconds)))
+                .recordStats()
+                .build(new TemplatePriorityLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "template-priority");
+    }
+
+
+    //  METHOD 1: getPriority()
+    // Purpose: Priority of one template
+    // Returns: 1/2/3, or NOT_FOUND for unknown templates (and when it couldn't be loaded)
+    public int getPriority(String templateName) {
+        try {
+            return cache.get(templateName);
+        } catch (Exception e) {
+            // Loader failures are not cached, the next request tries again
+            log.error("Exception loading priority of template {}: {}", templateName, e.toString());
+            return NOT_FOUND;
+        }
+    }
+
+
+    //  METHOD 2: getPriorities()
+    // Purpose: Priorities of many templates; misses are loaded together
+    //          (one Redis MGET, then one DB IN query for what Redis didn't have)
+    // Returns: Map of templateName -> priority, only for templates that exist
+    public Map<String, Integer> getPriorities(Collection<String> templateNames) {
+        Map<String, Integer> priorities = new HashMap<>();
+        if (templateNames.isEmpty()) {
+            return priorities;
+        }
+        try {
+            cache.getAll(templateNames).forEach((templateName, priority) -> {
+                if (priority != NOT_FOUND) {
+                    priorities.put(templateName, priority);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Exception loading priorities of templates {}: {}", templateNames, e.toString());
+        }
+        return priorities;
+    }
+
+
+    //  METHOD 3: invalidate()
+    // Purpose: Drop a template so the next lookup reloads it (template priority changed)
+    public void invalidate(String templateName) {
+        cache.invalidate(templateName);
+    }
+
+
+    // Second tier (Redis) first, then the database. Redis errors are treated as misses.
+    private class TemplatePriorityLoader implements CacheLoader<String, Integer> {
+
+        @Override
+        public Integer load(String templateName) {
+            return loadAll(Set.of(templateName)).get(templateName);
+        }
+
+        @Override
+        public Map<String, Integer> loadAll(Set<? extends String> templateNames) {
+            Map<String, Integer> priorities = new HashMap<>(redisService.getAll(new HashSet<>(templateNames)));
+
+            Set<String> missing = new HashSet<>(templateNames);
+            missing.removeAll(priorities.keySet());
+            if (missing.isEmpty()) {
+                return priorities;
+            }
+
+            Map<String, Integer> toCache = new HashMap<>();
+            for (Template template : templateRepository.findByNameIn(missing)) {
+                int templatePriority = template.getTemplatePriority();
+                priorities.put(template.getName(), templatePriority);
+                if (templatePriority == 1 || templatePriority == 2 || templatePriority == 3) {
+                    toCache.put(template.getName(), templatePriority);
+                }
+            }
+            redisService.setAll(toCache);
+
+            missing.removeAll(priorities.keySet());
+            if (!missing.isEmpty()) {
+                log.warn("Templates not found: {}", missing);
+                missing.forEach(templateName -> priorities.put(templateName, NOT_FOUND));
+            }
+            return priorities;
+        }
+    }
+
+
+    // Found templates live for the TTL (forever when 0), negative entries for the shorter negative TTL
+    private static class PriorityExpiry implements Expiry<String, Integer> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        PriorityExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String templateName, Integer priority, long currentTime) {
+            return priority == NOT_FOUND ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String templateName, Integer priority, long currentTime, long currentDuration) {
+            return expireAfterCreate(templateName, priority, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String templateName, Integer priority, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.notification.notification_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.notification_service.dto.TemplateEvent;
+import com.notification.notification_service.entity.Template;
+import com.notification.notification_service.repository.TemplateRepository;
+import com.notification.notification_service.service.exceptions.TemplateNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.notification.notification_service.constants.Constants.TEMPLATE_EVENTS_TOPIC;
+
+@Service
+@Slf4j
+public class TemplateService {
+
+    // STEP 1: Declare dependencies
+    private final TemplateRepository templateRepository;
+    private final RedisService redisService;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MessageSerializer messageSerializer;
+
+    // How long an update waits for the template event to be acknowledged
+    private final long ackTimeoutMs;
+
+
+    // STEP 2: Constructor injection
+    public TemplateService(TemplateRepository templateRepository,
+                           RedisService redisService,
+                           KafkaTemplate<String, String> kafkaTemplate,
+                           MessageSerializer messageSerializer,
+                           @Value("${notification.kafka.ack-timeout-ms:5000}") long ackTimeoutMs) {
+        this.templateRepository = templateRepository;
+        this.redisService = redisService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.messageSerializer = messageSerializer;
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+
+
+    // METHOD 1: updatePriority()
+    // Purpose: Change a template's priority and tell every template cache about it
+    //   1. Update the DB row (source of truth)
+    //   2. Overwrite the Redis entry, so reloads after eviction see the new value
+    //   3. Publish to "template-events" (key = template name); every notification-service
+    //      and priority processor instance evicts its local entry when it sees the event
+    // Throws: TemplateNotFoundException, KafkaException if the event wasn't acknowledged
+    //         (the update is idempotent, callers retry)
+    public Template updatePriority(String templateName, int templatePriority) {
+        Template template = templateRepository.findByName(templateName)
+                .orElseThrow(() -> new TemplateNotFoundException("Template with name: " + templateName + " Not found"));
+        template.setTemplatePriority(templatePriority);
+        template = templateRepository.save(template);
+
+        redisService.set(templateName, templatePriority);
+        publishTemplateEvent(template);
+        log.info("Template {} priority updated to {}", templateName, templatePriority);
+        return template;
+    }
+
+
+    private void publishTemplateEvent(Template template) {
+        TemplateEvent templateEvent = new TemplateEvent(template.getName(), template.getTemplatePriority(), System.currentTimeMillis());
+        try {
+            kafkaTemplate.send(TEMPLATE_EVENTS_TOPIC, template.getName(), messageSerializer.writeTemplateEvent(templateEvent))
+                    .get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (JsonProcessingException | ExecutionException | TimeoutException e) {
+            throw new KafkaException("Failed to publish template event for " + template.getName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while publishing template event for " + template.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.notification.notification_service.service.exceptions;
+
+public class PublishBackpressureException extends RuntimeException {
+    public PublishBackpressureException(String message) {
+        super(message);
+    }
+}
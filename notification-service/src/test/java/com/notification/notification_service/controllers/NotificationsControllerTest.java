@@ -0,0 +1,74 @@
+package com.notification.notification_service.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.notification_service.dto.BatchNotificationResponse;
+import com.notification.notification_service.service.BatchNotificationService;
+import com.notification.notification_service.service.KafkaService;
+import com.notification.notification_service.service.MessageSerializer;
+import com.notification.notification_service.service.NotificationProcessingService;
+import com.notification.notification_service.service.RedisService;
+import com.notification.notification_service.service.ScheduledNotificationDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationsControllerTest {
+    private static final String LINE = "{\"notificationPriority\":1,\"channels\":[\"email\"],"
+            + "\"recipient\":{},\"content\":{}}\n";
+
+    private BatchNotificationService batchNotificationService;
+    private NotificationsController controller;
+
+    @BeforeEach
+    void setUp() {
+        batchNotificationService = mock(BatchNotificationService.class);
+        controller = new NotificationsController(mock(KafkaService.class), mock(RedisService.class),
+                mock(NotificationProcessingService.class), batchNotificationService,
+                new MessageSerializer(new ObjectMapper().registerModule(new JavaTimeModule())),
+                mock(ScheduledNotificationDispatcher.class));
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 3);
+    }
+
+    @Test
+    void ndjsonBatchUpToMaxSizeIsProcessed() {
+        when(batchNotificationService.processBatch(anyList())).thenReturn(new BatchNotificationResponse(3, 0, List.of()));
+
+        ResponseEntity<?> response = controller.sendNotificationsNdjson(ndjson(LINE.repeat(3)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+    }
+
+    @Test
+    void ndjsonBatchIsRejectedAtTheFirstItemPastMaxSize() {
+        // The garbage after item 4 would be a 400 if the whole body were parsed first
+        ResponseEntity<?> response = controller.sendNotificationsNdjson(ndjson(LINE.repeat(4) + "not json"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(batchNotificationService, never()).processBatch(anyList());
+    }
+
+    @Test
+    void invalidNdjsonIsABadRequest() {
+        ResponseEntity<?> response = controller.sendNotificationsNdjson(ndjson(LINE + "not json"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static ByteArrayInputStream ndjson(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.notification.notification_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTest {
+    private static final long START = 1000;
+
+    // 10 ms ticks, 8 slots: one revolution is 80 ms
+    private HashedTimingWheel<String> wheel;
+    private final List<String> expired = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(10, 8, START);
+    }
+
+    @Test
+    void itemsExpireOnTheirTickNotBefore() {
+        wheel.schedule("a", START + 50);
+
+        wheel.advance(START + 49, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(START + 50, expired::add);
+        assertThat(expired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void precisionIsOneTick() {
+        wheel.schedule("a", START + 59);
+
+        wheel.advance(START + 50, expired::add);
+        assertThat(expired).containsExactly("a");
+    }
+
+    @Test
+    void itemsBeyondOneRevolutionWaitTheirRounds() {
+        // 19 ticks ahead: the slot comes round twice before the item is due
+        wheel.schedule("late", START + 190);
+        wheel.schedule("sameSlot", START + 30);
+
+        wheel.advance(START + 30, expired::add);
+        assertThat(expired).containsExactly("sameSlot");
+        wheel.advance(START + 110, expired::add);
+        wheel.advance(START + 189, expired::add);
+        assertThat(expired).containsExactly("sameSlot");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(START + 190, expired::add);
+        assertThat(expired).containsExactly("sameSlot", "late");
+    }
+
+    @Test
+    void itemsSharingASlotExpireInTheirOwnRevolution() {
+        wheel.schedule("second", START + 90);
+        wheel.schedule("first", START + 10);
+
+        wheel.advance(START + 80, expired::add);
+        assertThat(expired).containsExactly("first");
+
+        wheel.advance(START + 90, expired::add);
+        assertThat(expired).containsExactly("first", "second");
+    }
+
+    @Test
+    void overdueItemsExpireOnTheNextAdvance() {
+        wheel.schedule("overdue", START - 500);
+
+        wheel.advance(START, expired::add);
+        assertThat(expired).containsExactly("overdue");
+    }
+
+    @Test
+    void aLongAdvanceExpiresItemsTickByTickInDeadlineOrder() {
+        wheel.schedule("c", START + 300);
+        wheel.schedule("a", START + 10);
+        wheel.schedule("b", START + 150);
+        assertThat(wheel.size()).isEqualTo(3);
+
+        wheel.advance(START + 1000, expired::add);
+
+        assertThat(expired).containsExactly("a", "b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void itemsScheduledAfterAnAdvanceCountFromTheProcessedTick() {
+        wheel.advance(START + 500, expired::add);
+        wheel.schedule("a", START + 580);
+
+        wheel.advance(START + 570, expired::add);
+        assertThat(expired).isEmpty();
+        wheel.advance(START + 580, expired::add);
+        assertThat(expired).containsExactly("a");
+    }
+}
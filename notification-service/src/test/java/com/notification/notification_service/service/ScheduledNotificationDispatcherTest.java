@@ -0,0 +1,219 @@
+package com.notification.notification_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.notification_service.dto.NotificationRequest;
+import com.notification.notification_service.dto.Recipient;
+import com.notification.notification_service.dto.ScheduledNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScheduledNotificationDispatcherTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long SEND_AT = NOW + 1000;
+    private static final String BUCKET = Long.toString(SEND_AT / 1000);
+
+    private final MessageSerializer messageSerializer = new MessageSerializer(new ObjectMapper().registerModule(new JavaTimeModule()));
+    private ScheduledNotificationStore scheduledNotificationStore;
+    private KafkaService kafkaService;
+    // Notifications handed to Kafka, in send order
+    private final List<NotificationRequest> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduledNotificationStore = mock(ScheduledNotificationStore.class);
+        kafkaService = mock(KafkaService.class);
+        when(scheduledNotificationStore.getShards()).thenReturn(2);
+        when(scheduledNotificationStore.acquireLease(anyInt(), anyString(), any())).thenReturn(true);
+        when(scheduledNotificationStore.dueBuckets(anyInt(), anyLong(), anyInt())).thenReturn(Set.of());
+        acknowledgeSends(true);
+    }
+
+    @Test
+    void dueBucketsAreLoadedLookaheadAheadAndFiredAtSendAt() throws Exception {
+        storeBucket(0, notification("user-1", SEND_AT, 0));
+        ScheduledNotificationDispatcher dispatcher = dispatcher(0, 10);
+
+        dispatcher.tick(NOW);
+        verify(scheduledNotificationStore).dueBuckets(0, (NOW + 2000) / 1000, 50);
+        verify(scheduledNotificationStore).read(0, BUCKET);
+
+        dispatcher.tick(SEND_AT - 10);
+        assertThat(sent).isEmpty();
+
+        dispatcher.tick(SEND_AT);
+        assertThat(sent).extracting(notificationRequest -> notificationRequest.getRecipient().getUserId()).containsExactly("user-1");
+        // Loaded once, although the bucket is still indexed at the next load
+        verify(scheduledNotificationStore, times(1)).read(0, BUCKET);
+        // All acknowledged: the released notification is trimmed from the bucket
+        verify(scheduledNotificationStore).remove(0, BUCKET, 1);
+    }
+
+    @Test
+    void onlyShardsWhoseLeaseIsHeldAreDispatched() throws Exception {
+        storeBucket(1, notification("user-1", SEND_AT, 0));
+        when(scheduledNotificationStore.acquireLease(eq(1), anyString(), any())).thenReturn(false);
+        ScheduledNotificationDispatcher dispatcher = dispatcher(0, 10);
+
+        dispatcher.tick(NOW);
+        verify(scheduledNotificationStore).dueBuckets(eq(0), anyLong(), anyInt());
+        verify(scheduledNotificationStore, never()).dueBuckets(eq(1), anyLong(), anyInt());
+
+        // The holder went away: the lease is taken over at the next load
+        when(scheduledNotificationStore.acquireLease(eq(1), anyString(), any())).thenReturn(true);
+        dispatcher.tick(NOW + 400);
+        verify(scheduledNotificationStore, never()).read(eq(1), anyString());
+        dispatcher.tick(NOW + 500);
+        verify(scheduledNotificationStore).read(1, BUCKET);
+
+        dispatcher.tick(SEND_AT);
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    void aBucketIsSpreadOverTheSmoothingWindow() throws Exception {
+        storeBucket(0, notification("user-1", SEND_AT, 0), notification("user-2", SEND_AT, 0),
+                notification("user-3", SEND_AT, 0), notification("user-4", SEND_AT, 0));
+        ScheduledNotificationDispatcher dispatcher = dispatcher(100, 10);
+        dispatcher.tick(NOW);
+
+        dispatcher.tick(SEND_AT);
+        assertThat(sent).hasSize(1);
+        dispatcher.tick(SEND_AT + 50);
+        assertThat(sent).hasSize(3);
+        verify(scheduledNotificationStore, never()).remove(anyInt(), anyString(), anyInt());
+
+        dispatcher.tick(SEND_AT + 100);
+        assertThat(sent).extracting(notificationRequest -> notificationRequest.getRecipient().getUserId())
+                .containsExactly("user-1", "user-2", "user-3", "user-4");
+        verify(scheduledNotificationStore).remove(0, BUCKET, 4);
+    }
+
+    @Test
+    void failedSendsAreStoredAgainRetryDelayLater() throws Exception {
+        storeBucket(0, notification("user-1", SEND_AT, 0));
+        acknowledgeSends(false);
+        List<ScheduledNotification> retried = new ArrayList<>();
+        doAnswer(invocation -> retried.addAll(invocation.getArgument(0))).when(scheduledNotificationStore).schedule(anyList());
+        ScheduledNotificationDispatcher dispatcher = dispatcher(0, 10);
+        dispatcher.tick(NOW);
+
+        dispatcher.tick(SEND_AT);
+
+        assertThat(retried).singleElement().satisfies(scheduledNotification -> {
+            assertThat(scheduledNotification.getDispatchAttempts()).isEqualTo(1);
+            assertThat(scheduledNotification.getNotificationRequest().getSendAt()).isEqualTo(Instant.ofEpochMilli(SEND_AT + 1000));
+        });
+        verify(scheduledNotificationStore, never()).deadLetter(anyList());
+        verify(scheduledNotificationStore).remove(0, BUCKET, 1);
+    }
+
+    @Test
+    void sendsFailingMaxAttemptsTimesAreDeadLettered() throws Exception {
+        storeBucket(0, notification("user-1", SEND_AT, 9));
+        acknowledgeSends(false);
+        List<ScheduledNotification> deadLetters = new ArrayList<>();
+        doAnswer(invocation -> deadLetters.addAll(invocation.getArgument(0))).when(scheduledNotificationStore).deadLetter(anyList());
+        ScheduledNotificationDispatcher dispatcher = dispatcher(0, 10);
+        dispatcher.tick(NOW);
+
+        dispatcher.tick(SEND_AT);
+
+        assertThat(deadLetters).singleElement()
+                .satisfies(scheduledNotification -> assertThat(scheduledNotification.getDispatchAttempts()).isEqualTo(10));
+        verify(scheduledNotificationStore, never()).schedule(anyList());
+        verify(scheduledNotificationStore).remove(0, BUCKET, 1);
+    }
+
+    @Test
+    void theBucketStaysUntilFailedSendsAreStoredAgain() throws Exception {
+        storeBucket(0, notification("user-1", SEND_AT, 0));
+        acknowledgeSends(false);
+        doThrow(new IllegalStateException("redis down")).when(scheduledNotificationStore).schedule(anyList());
+        ScheduledNotificationDispatcher dispatcher = dispatcher(0, 10);
+        dispatcher.tick(NOW);
+
+        dispatcher.tick(SEND_AT);
+        dispatcher.tick(SEND_AT + 10);
+        verify(scheduledNotificationStore, never()).remove(anyInt(), anyString(), anyInt());
+
+        doThrow(new IllegalStateException("still down")).doNothing().when(scheduledNotificationStore).schedule(anyList());
+        dispatcher.tick(SEND_AT + 20);
+        dispatcher.tick(SEND_AT + 30);
+        verify(scheduledNotificationStore, atLeastOnce()).schedule(anyList());
+        verify(scheduledNotificationStore).remove(0, BUCKET, 1);
+    }
+
+    @Test
+    void storedPlainRequestsReadBackWithNoAttempts() throws Exception {
+        NotificationRequest notificationRequest = notification("user-1", SEND_AT, 0).getNotificationRequest();
+
+        ScheduledNotification scheduledNotification = messageSerializer.readScheduledNotification(
+                messageSerializer.writeNotificationRequest(notificationRequest));
+
+        assertThat(scheduledNotification.getDispatchAttempts()).isZero();
+        assertThat(scheduledNotification.getNotificationRequest()).isEqualTo(notificationRequest);
+    }
+
+    private ScheduledNotificationDispatcher dispatcher(long smoothingMs, int maxAttempts) {
+        return new ScheduledNotificationDispatcher(scheduledNotificationStore, kafkaService, messageSerializer, new SimpleMeterRegistry(),
+                10, 4096, 500, 2000, smoothingMs, 1000, maxAttempts, 50, 10);
+    }
+
+    private void storeBucket(int shard, ScheduledNotification... scheduledNotifications) throws Exception {
+        List<String> items = new ArrayList<>();
+        for (ScheduledNotification scheduledNotification : scheduledNotifications) {
+            items.add(messageSerializer.writeScheduledNotification(scheduledNotification));
+        }
+        when(scheduledNotificationStore.dueBuckets(eq(shard), anyLong(), anyInt())).thenReturn(Set.of(BUCKET));
+        when(scheduledNotificationStore.read(shard, BUCKET)).thenReturn(items);
+    }
+
+    private void acknowledgeSends(boolean acknowledged) {
+        when(kafkaService.sendNotifications(anyList())).thenAnswer(invocation -> {
+            List<NotificationRequest> notificationRequests = invocation.getArgument(0);
+            sent.addAll(notificationRequests);
+            List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < notificationRequests.size(); i++) {
+                futures.add(acknowledged ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+            }
+            return futures;
+        });
+    }
+
+    private static ScheduledNotification notification(String userId, long sendAtMs, int dispatchAttempts) {
+        Recipient recipient = new Recipient();
+        recipient.setUserId(userId);
+        NotificationRequest notificationRequest = new NotificationRequest();
+        notificationRequest.setNotificationPriority(1);
+        notificationRequest.setChannels(new String[]{"email"});
+        notificationRequest.setRecipient(recipient);
+        notificationRequest.setSendAt(Instant.ofEpochMilli(sendAtMs));
+        return new ScheduledNotification(notificationRequest, dispatchAttempts);
+    }
+}
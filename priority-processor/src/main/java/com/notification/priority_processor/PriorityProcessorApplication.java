@@ -0,0 +1,15 @@
+package com.notification.priority_processor;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+public class PriorityProcessorApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(PriorityProcessorApplication.class, args);
+	}
+
+}
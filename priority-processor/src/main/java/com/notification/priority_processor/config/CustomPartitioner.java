@@ -0,0 +1,68 @@
+package com.notification.priority_processor.config;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.notification.priority_processor.constants.Constants.CHANNEL_TOPIC_PRIORITIES;
+import static com.notification.priority_processor.constants.Constants.PRIORITY_KEY_PREFIX;
+import static com.notification.priority_processor.constants.Constants.PRIORITY_KEY_SEPARATOR;
+
+// Channel topics have N partitions per priority, interleaved: partition p carries priority p % 3 + 1
+// (the consumers read it the same way, see PriorityLanes in consumer-common).
+// Key "priority-N|userId" -> the partition of priority N picked by the murmur2 hash of the userId
+// (as Kafka's default partitioner does), so one user's notifications stay in order on one
+// partition while users spread over all partitions of the lane. Keys without a userId (e.g.
+// deferred before keys carried one) are spread over the lane round-robin.
+// Unknown keys go to the lowest priority. Topics with fewer than 3 partitions: priority N -> partition N-1, clamped.
+public class CustomPartitioner implements Partitioner {
+    // Round-robin position per topic and priority, for keys without a userId
+    private final ConcurrentMap<String, AtomicInteger> nextPartition = new ConcurrentHashMap<>();
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitionCount = cluster.partitionCountForTopic(topic);
+        int lane = CHANNEL_TOPIC_PRIORITIES - 1;
+        String recipient = null;
+        if (key instanceof String priorityKey && priorityKey.startsWith(PRIORITY_KEY_PREFIX)) {
+            int separator = priorityKey.indexOf(PRIORITY_KEY_SEPARATOR);
+            if (separator >= 0) {
+                recipient = priorityKey.substring(separator + PRIORITY_KEY_SEPARATOR.length());
+            }
+            try {
+                int priority = Integer.parseInt(priorityKey.substring(PRIORITY_KEY_PREFIX.length(), separator >= 0 ? separator : priorityKey.length()));
+                lane = Math.max(0, Math.min(priority - 1, CHANNEL_TOPIC_PRIORITIES - 1));
+            } catch (NumberFormatException ignored) {
+                // fall through to lowest priority lane
+            }
+        }
+        if (partitionCount < CHANNEL_TOPIC_PRIORITIES) {
+            return Math.max(0, Math.min(lane, partitionCount - 1));
+        }
+        // Partitions lane, lane + 3, lane + 6, ... below partitionCount
+        int lanePartitions = (partitionCount - lane + CHANNEL_TOPIC_PRIORITIES - 1) / CHANNEL_TOPIC_PRIORITIES;
+        int index;
+        if (recipient != null && !recipient.isEmpty()) {
+            index = Utils.toPositive(Utils.murmur2(recipient.getBytes(StandardCharsets.UTF_8))) % lanePartitions;
+        } else {
+            index = Math.floorMod(nextPartition.computeIfAbsent(topic + "#" + lane, k -> new AtomicInteger()).getAndIncrement(), lanePartitions);
+        }
+        return lane + index * CHANNEL_TOPIC_PRIORITIES;
+    }
+
+    @Override
+    public void close() {
+        // Perform any necessary cleanup
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        // Perform any necessary configuration
+    }
+}
@@ -0,0 +1,24 @@
+package com.notification.priority_processor.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    // Group the INSERTs of a poll into JDBC batches (see SendNotificationService.flush()).
+    // Ordering makes Hibernate send all notification rows, then all delivery_log rows,
+    // instead of alternating tables and breaking the batch on every row.
+    // On MySQL also add rewriteBatchedStatements=true to the JDBC URL, so a batch becomes one multi-row INSERT.
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(@Value("${processor.jpa.batch-size:50}") int batchSize) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            hibernateProperties.put(AvailableSettings.ORDER_INSERTS, true);
+            hibernateProperties.put(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+}
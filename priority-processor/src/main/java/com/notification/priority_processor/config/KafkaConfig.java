@@ -0,0 +1,88 @@
+package com.notification.priority_processor.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import static com.notification.priority_processor.constants.Constants.*;
+
+@Configuration
+public class KafkaConfig {
+
+    // Deliver a whole poll (List<ConsumerRecord>) per listener call, see KafkaPriorityBatchConsumer.
+    // The default: it is what lets SendNotificationService.flush() write a poll in one JDBC batch
+    @Value("${processor.listener.batch-enabled:true}")
+    private boolean batchEnabled;
+
+    // Channel topics get processor.channel-topics.partitions-per-priority partitions per priority
+    // (interleaved, see CustomPartitioner); each channel consumer group can run that many instances.
+    // Existing topics can only grow, and only by multiples of 3 keeps every lane the same size.
+    @Bean
+    public KafkaAdmin.NewTopics createTopic(@Value("${processor.channel-topics.partitions-per-priority:1}") int partitionsPerPriority){
+        int partitions = CHANNEL_TOPIC_PRIORITIES * Math.max(1, partitionsPerPriority);
+        NewTopic smsTopic = TopicBuilder
+                .name(SMS_TOPIC)
+                .partitions(partitions)
+                .build();
+        NewTopic emailTopic = TopicBuilder
+                .name(EMAIL_TOPIC)
+                .partitions(partitions)
+                .build();
+        NewTopic pushNTopic = TopicBuilder
+                .name(PUSH_N_TOPIC)
+                .partitions(partitions)
+                .build();
+
+        return new KafkaAdmin.NewTopics(smsTopic,emailTopic,pushNTopic);
+
+    }
+
+    // One listener container factory per priority topic, each with its own concurrency
+    // (consumer threads). Threads beyond the topic's partition count stay idle, so keep
+    // processor.priority-N.concurrency <= notification.kafka.priority-N.partitions.
+    // Records are keyed by userId upstream, so one user's notifications stay in order
+    // on one thread while other users' notifications proceed on the others.
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> priority1ListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${processor.priority-1.concurrency:3}") int concurrency) {
+        return listenerContainerFactory(configurer, consumerFactory, concurrency);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> priority2ListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${processor.priority-2.concurrency:2}") int concurrency) {
+        return listenerContainerFactory(configurer, consumerFactory, concurrency);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> priority3ListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${processor.priority-3.concurrency:1}") int concurrency) {
+        return listenerContainerFactory(configurer, consumerFactory, concurrency);
+    }
+
+    // Starts from Spring Boot's spring.kafka.listener.* settings, then applies the priority's concurrency
+    // (and batch mode; batch size is bounded by spring.kafka.consumer.max-poll-records)
+    private ConcurrentKafkaListenerContainerFactory<Object, Object> listenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(batchEnabled);
+        return factory;
+    }
+}
@@ -0,0 +1,27 @@
+package com.notification.priority_processor.constants;
+
+public class Constants {
+    public static final String TOPIC_PRIORITY_1 = "priority-1";
+    public static final String TOPIC_PRIORITY_2 = "priority-2";
+    public static final String TOPIC_PRIORITY_3 = "priority-3";
+    // Channel topic records are keyed "priority-<N>|<userId>"; CustomPartitioner routes them to a partition p
+    // with p % 3 == N-1, chosen by the hash of the userId
+    public static final String PRIORITY_KEY_PREFIX = "priority-";
+    public static final String PRIORITY_KEY_SEPARATOR = "|";
+    public static final int CHANNEL_TOPIC_PRIORITIES = 3;
+    public static final String SMS_TOPIC = "sms-topic";
+    public static final String EMAIL_TOPIC = "email-topic";
+    public static final String PUSH_N_TOPIC = "push-n-topic";
+    public static final String TEMPLATE_EVENTS_TOPIC = "template-events";
+    // Stable per-instance id for consumer groups every instance joins on its own (event topics):
+    // notification.instance-id, else the hostname. Set it when running several instances on one host
+    public static final String INSTANCE_ID = "${notification.instance-id:#{T(java.net.InetAddress).getLocalHost().getHostName()}}";
+    // Keyed by userId; any change to a user's preferences evicts that user's PreferenceSnapshot
+    public static final String PREFERENCE_EVENTS_TOPIC = "preference-events";
+    // Redis idempotency keys, "dedup:<notificationHash>" (see NotificationDeduplicator)
+    public static final String DEDUP_KEY_PREFIX = "dedup:";
+    // Redis delay store of DeferredDeliveryService
+    public static final String DEFERRED_INDEX_KEY = "deferred:buckets";
+    public static final String DEFERRED_BUCKET_KEY_PREFIX = "deferred:bucket:";
+    public static final String DEFERRED_LOCK_KEY_PREFIX = "deferred:lock:";
+}
@@ -0,0 +1,91 @@
+package com.notification.priority_processor.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.priority_processor.models.NotificationRequest;
+import com.notification.priority_processor.service.MessageSerializer;
+import com.notification.priority_processor.service.NotificationProcessingService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_1;
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_2;
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_3;
+
+/**
+ * Batch Kafka Consumer for Priority 1/2/3 Notifications
+ *
+ * Same topics, container factories and processor.priority-N.* settings as KafkaPriorityConsumer,
+ * but every listener call receives a whole poll. The batch is handed to
+ * NotificationProcessingService.processNotifications(), which loads the users, templates and
+ * preferences of all records with one IN query each.
+ *
+ * The default listener: one flush (one transaction, JDBC-batched INSERTs) per poll.
+ * processor.listener.batch-enabled=false switches back to KafkaPriorityConsumer.
+ *
+ * ERROR HANDLING:
+ * - Records that aren't valid JSON are logged and skipped, the rest of the batch is processed
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "processor.listener.batch-enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaPriorityBatchConsumer {
+    NotificationProcessingService notificationProcessingService;
+    MessageSerializer messageSerializer;
+
+    public KafkaPriorityBatchConsumer(NotificationProcessingService notificationProcessingService, MessageSerializer messageSerializer){
+        this.notificationProcessingService = notificationProcessingService;
+        this.messageSerializer = messageSerializer;
+    }
+
+    @KafkaListener(id = "priority-1-listener", topics = TOPIC_PRIORITY_1,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority1ListenerContainerFactory",
+            autoStartup = "${processor.priority-1.enabled:true}")
+    public void consumePriority1Requests(List<ConsumerRecord<String, String>> records){
+        consumeNotificationRequests(records, 1);
+    }
+
+    @KafkaListener(id = "priority-2-listener", topics = TOPIC_PRIORITY_2,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority2ListenerContainerFactory",
+            autoStartup = "${processor.priority-2.enabled:true}")
+    public void consumePriority2Requests(List<ConsumerRecord<String, String>> records){
+        consumeNotificationRequests(records, 2);
+    }
+
+    @KafkaListener(id = "priority-3-listener", topics = TOPIC_PRIORITY_3,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority3ListenerContainerFactory",
+            autoStartup = "${processor.priority-3.enabled:true}")
+    public void consumePriority3Requests(List<ConsumerRecord<String, String>> records){
+        consumeNotificationRequests(records, 3);
+    }
+
+    private void consumeNotificationRequests(List<ConsumerRecord<String, String>> records, int priority){
+        List<NotificationRequest> notificationRequests = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                notificationRequests.add(messageSerializer.readNotificationRequest(record.value()));
+            } catch (JsonProcessingException jsonProcessingException) {
+                log.error("Error parsing kafka consumed message to JSON (partition {}, offset {}). Exception: \n {}",
+                        record.partition(), record.offset(), jsonProcessingException.toString());
+            }
+        }
+        log.debug("Parsed {} of {} consumed Notification Requests with priority {}", notificationRequests.size(), records.size(), priority);
+        if (notificationRequests.isEmpty()) {
+            return;
+        }
+        try {
+            notificationProcessingService.processNotifications(notificationRequests, priority);
+        } catch (Exception exception) {
+            log.error("Unexpected Exception in NotificationProcessingService while processing batch of {} Notification Requests", notificationRequests.size());
+            log.error("Exception: {}", exception.toString());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.notification.priority_processor.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.priority_processor.models.NotificationRequest;
+import com.notification.priority_processor.service.MessageSerializer;
+import com.notification.priority_processor.service.NotificationProcessingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_1;
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_2;
+import static com.notification.priority_processor.constants.Constants.TOPIC_PRIORITY_3;
+
+/**
+ * Kafka Consumer for Priority 1/2/3 Notifications
+ *
+ * One listener container per priority topic, so every priority has its own consumer threads:
+ * a backlog of bulk priority-3 traffic never occupies the threads serving priority-1.
+ *
+ * CONFIGURATION (per instance):
+ * - processor.priority-N.enabled      consume priority-N at all (default true),
+ *                                     so an instance can run any subset of priorities
+ * - processor.priority-N.concurrency  consumer threads for priority-N (defaults 3/2/1, weighted towards P1),
+ *                                     see the priorityNListenerContainerFactory beans in KafkaConfig
+ *
+ * METRICS:
+ * - kafka.consumer.fetch.manager.records.lag{topic,partition} - per-partition lag, via /actuator/metrics
+ *
+ * FLOW:
+ * Kafka "priority-N" topic → consumePriorityNRequest() → NotificationProcessingService (priority N)
+ *
+ * Active only with processor.listener.batch-enabled=false. Every record is then processed and
+ * flushed on its own (a batch of one row), the default KafkaPriorityBatchConsumer flushes per poll.
+ */
+@Component
+@ConditionalOnProperty(name = "processor.listener.batch-enabled", havingValue = "false")
+@Slf4j
+public class KafkaPriorityConsumer {
+    NotificationProcessingService notificationProcessingService;
+    MessageSerializer messageSerializer;
+    
+    public KafkaPriorityConsumer(NotificationProcessingService notificationProcessingService, MessageSerializer messageSerializer){
+        this.notificationProcessingService = notificationProcessingService;
+        this.messageSerializer = messageSerializer;
+    }
+
+    @KafkaListener(id = "priority-1-listener", topics = TOPIC_PRIORITY_1,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority1ListenerContainerFactory",
+            autoStartup = "${processor.priority-1.enabled:true}")
+    public void consumePriority1Request(String notificationRequestString){
+        consumeNotificationRequest(notificationRequestString, 1);
+    }
+
+    @KafkaListener(id = "priority-2-listener", topics = TOPIC_PRIORITY_2,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority2ListenerContainerFactory",
+            autoStartup = "${processor.priority-2.enabled:true}")
+    public void consumePriority2Request(String notificationRequestString){
+        consumeNotificationRequest(notificationRequestString, 2);
+    }
+
+    @KafkaListener(id = "priority-3-listener", topics = TOPIC_PRIORITY_3,
+            groupId = "${processor.group-id:priority-processor}",
+            containerFactory = "priority3ListenerContainerFactory",
+            autoStartup = "${processor.priority-3.enabled:true}")
+    public void consumePriority3Request(String notificationRequestString){
+        consumeNotificationRequest(notificationRequestString, 3);
+    }
+
+    private void consumeNotificationRequest(String notificationRequestString, int priority){
+        try{
+            NotificationRequest notificationRequest = messageSerializer.readNotificationRequest(notificationRequestString);
+            log.debug("Successfully parsed Consumed Notification Request: {}", notificationRequest.toString());
+            try{
+                notificationProcessingService.processNotification(notificationRequest, priority);
+            } catch (Exception exception){
+                log.error("Unexpected Exception in NotificationProcessingService while processing Notification Request: {}", notificationRequest);
+                log.error("Exception: {}", exception.toString());
+            }
+        } catch (JsonProcessingException jsonProcessingException){
+            log.error("Error parsing kafka consumed message to JSON. Exception: \n {}", jsonProcessingException.toString());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.notification.priority_processor.consumer;
+
+import com.notification.priority_processor.service.PreferenceCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import static com.notification.priority_processor.constants.Constants.INSTANCE_ID;
+import static com.notification.priority_processor.constants.Constants.PREFERENCE_EVENTS_TOPIC;
+
+// Evicts users whose preferences changed from this instance's PreferenceCache.
+// Same subscription model as TemplateEventConsumer: every instance gets every event.
+@Component
+@Slf4j
+public class PreferenceEventConsumer {
+    PreferenceCache preferenceCache;
+
+    public PreferenceEventConsumer(PreferenceCache preferenceCache){
+        this.preferenceCache = preferenceCache;
+    }
+
+    @KafkaListener(topics = PREFERENCE_EVENTS_TOPIC,
+            groupId = "priority-processor-preference-events-" + INSTANCE_ID,
+            properties = "auto.offset.reset=latest")
+    public void consumePreferenceEvent(ConsumerRecord<String, String> preferenceEvent){
+        if (preferenceEvent.key() == null) {
+            return;
+        }
+        try {
+            preferenceCache.invalidate(Long.parseLong(preferenceEvent.key()));
+            log.debug("Preferences of userId {} evicted from local cache", preferenceEvent.key());
+        } catch (NumberFormatException e) {
+            log.error("Invalid userId in preference event key: {}", preferenceEvent.key());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.notification.priority_processor.consumer;
+
+import com.notification.priority_processor.service.TemplateCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import static com.notification.priority_processor.constants.Constants.INSTANCE_ID;
+import static com.notification.priority_processor.constants.Constants.TEMPLATE_EVENTS_TOPIC;
+
+// Evicts changed templates from this instance's TemplateCache.
+// Every instance needs every event: each one consumes in a group of its own, keyed by its
+// Constants.INSTANCE_ID, from the latest offset - older changes are already in the DB it reloads from.
+@Component
+@Slf4j
+public class TemplateEventConsumer {
+    TemplateCache templateCache;
+
+    public TemplateEventConsumer(TemplateCache templateCache){
+        this.templateCache = templateCache;
+    }
+
+    @KafkaListener(topics = TEMPLATE_EVENTS_TOPIC,
+            groupId = "priority-processor-template-events-" + INSTANCE_ID,
+            properties = "auto.offset.reset=latest")
+    public void consumeTemplateEvent(ConsumerRecord<String, String> templateEvent){
+        if (templateEvent.key() == null) {
+            return;
+        }
+        templateCache.invalidate(templateEvent.key());
+        log.debug("Template {} evicted from local cache", templateEvent.key());
+    }
+}
@@ -0,0 +1,20 @@
+package com.notification.priority_processor.models;
+
+import com.notification.priority_processor.models.enums.Channel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A channel message parked in the delay store (see DeferredDeliveryService),
+// sent to its channel topic unchanged once released
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeferredNotification {
+    private Long notificationId;
+    private Channel channel;
+    private String topic;
+    private String key;
+    private String message;     //serialized Sms/Email/PushN request
+    private long releaseAtEpochMs;
+}
@@ -1,4 +1,4 @@
-package com.notification.priority2_processor.models;
+package com.notification.priority_processor.models;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -1,7 +1,7 @@
-package com.notification.priority3_processor.models.db;
+package com.notification.priority_processor.models.db;
 
-import com.notification.priority3_processor.models.enums.Channel;
-import com.notification.priority3_processor.models.enums.Status;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,7 +16,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class DeliveryLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence (table-emulated on MySQL): IDs are reserved 50 at a time, so Hibernate
+    // can batch the INSERTs (IDENTITY forces one INSERT round-trip per save). Existing databases
+    // need the sequence seeded first: priority-processor/src/main/resources/db/notification-id-sequences.sql
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_log_seq")
+    @SequenceGenerator(name = "delivery_log_seq", sequenceName = "delivery_logs_seq", allocationSize = 50)
     private Long logId;
 
     @ManyToOne
@@ -42,4 +46,3 @@ public class DeliveryLog {
         this.errorMessage = errorMessage;
     }
 }
-
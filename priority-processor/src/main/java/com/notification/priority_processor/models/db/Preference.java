@@ -1,6 +1,6 @@
-package com.notification.priority2_processor.models.db;
+package com.notification.priority_processor.models.db;
 
-import com.notification.priority2_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Channel;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -39,4 +39,3 @@ public class Preference {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 }
-
@@ -1,4 +1,4 @@
-package com.notification.priority1_processor.models.db;
+package com.notification.priority_processor.models.db;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
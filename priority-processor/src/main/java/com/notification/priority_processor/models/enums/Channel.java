@@ -0,0 +1,5 @@
+package com.notification.priority_processor.models.enums;
+
+public enum Channel {
+    email, sms, push
+}
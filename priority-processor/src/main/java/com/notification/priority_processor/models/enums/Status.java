@@ -0,0 +1,6 @@
+package com.notification.priority_processor.models.enums;
+
+public enum Status {
+    // deferred: parked by priority-processor until it may be sent (e.g. the user's quiet hours end)
+    pending, sent, failed, deferred
+}
@@ -1,4 +1,4 @@
-package com.notification.priority2_processor.models.requests;
+package com.notification.priority_processor.models.requests;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
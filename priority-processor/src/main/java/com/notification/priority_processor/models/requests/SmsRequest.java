@@ -1,4 +1,4 @@
-package com.notification.priority3_processor.models.requests;
+package com.notification.priority_processor.models.requests;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
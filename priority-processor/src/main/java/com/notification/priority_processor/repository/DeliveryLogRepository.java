@@ -1,8 +1,8 @@
-package com.notification.priority3_processor.repo;
+package com.notification.priority_processor.repository;
 
-import com.notification.priority3_processor.models.db.DeliveryLog;
-import com.notification.priority3_processor.models.enums.Channel;
-import com.notification.priority3_processor.models.enums.Status;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -19,4 +19,3 @@ public interface DeliveryLogRepository extends JpaRepository<DeliveryLog, Long>
     // Find delivery logs by status
     List<DeliveryLog> findByStatus(Status status);
 }
-
@@ -0,0 +1,33 @@
+package com.notification.priority_processor.repository;
+
+import com.notification.priority_processor.models.db.Notification;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+    // Find notifications for a specific user
+    List<Notification> findByUserId(Long userId);
+
+    // Find notifications by user and channel
+    List<Notification> findByUserIdAndChannel(Long userId, Channel channel);
+
+    // Find notifications by status
+    List<Notification> findByStatus(Status status);
+
+    // Which of these hashes are already stored (duplicate check for a whole batch)
+    @Query("select n.notificationHash from Notification n where n.notificationHash in :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    // Hashes of recent notifications (seeds the in-memory duplicate filter)
+    @Query("select n.notificationHash from Notification n where n.createdAt >= :since")
+    List<String> findHashesCreatedAfter(@Param("since") LocalDateTime since);
+}
@@ -1,10 +1,11 @@
-package com.notification.priority2_processor.repo;
+package com.notification.priority_processor.repository;
 
-import com.notification.priority2_processor.models.db.Preference;
-import com.notification.priority2_processor.models.enums.Channel;
+import com.notification.priority_processor.models.db.Preference;
+import com.notification.priority_processor.models.enums.Channel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +16,7 @@ public interface PreferenceRepository extends JpaRepository<Preference, Long> {
 
     // Find preferences for a user and specific channel
     Optional<Preference> findByUserIdAndChannel(Long userId, Channel channel);
-}
 
+    // Find preferences of many users with one IN query (batch processing)
+    List<Preference> findByUserIdIn(Collection<Long> userIds);
+}
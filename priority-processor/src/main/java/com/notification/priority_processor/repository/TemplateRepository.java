@@ -1,14 +1,18 @@
-package com.notification.priority3_processor.repo;
+package com.notification.priority_processor.repository;
 
-import com.notification.priority3_processor.models.db.Template;
+import com.notification.priority_processor.models.db.Template;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TemplateRepository extends JpaRepository<Template, Long> {
     // Find a template by name
     Optional<Template> findByName(String name);
-}
 
+    // Find several templates with one IN query (batch processing)
+    List<Template> findByNameIn(Collection<String> names);
+}
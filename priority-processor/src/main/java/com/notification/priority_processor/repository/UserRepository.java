@@ -1,6 +1,6 @@
-package com.notification.priority3_processor.repo;
+package com.notification.priority_processor.repository;
 
-import com.notification.priority3_processor.models.db.User;
+import com.notification.priority_processor.models.db.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +11,3 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 }
-
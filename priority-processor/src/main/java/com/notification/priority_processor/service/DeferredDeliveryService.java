@@ -0,0 +1,212 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.DeferredNotification;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.db.Notification;
+import com.notification.priority_processor.models.enums.Status;
+import com.notification.priority_processor.repository.DeliveryLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.notification.priority_processor.constants.Constants.*;
+
+// Delay store for notifications that may not be sent yet (quiet hours).
+//
+// Notifications are parked in Redis in one-minute buckets:
+// - deferred:bucket:<epochMinute>  LIST of DeferredNotification JSON released in that minute
+// - deferred:buckets               ZSET of bucket minutes (score = minute), the index of non-empty buckets
+// Quiet hours end on a minute boundary, so everyone whose quiet hours end at 07:00 shares one
+// bucket and is released in bulk. A tick only reads the due head of the index (ZRANGEBYSCORE),
+// never the parked notifications themselves, so its cost doesn't grow with the number parked.
+//
+// Releasing a bucket (any instance may do it, a per-bucket lock keeps it to one at a time):
+// read a chunk, send it to the channel topics, wait for Kafka, then trim it from the list.
+// A crash in between re-sends that chunk on the next tick (at-least-once, like the topics themselves).
+@Service
+@Slf4j
+public class DeferredDeliveryService {
+    private final StringRedisTemplate redisTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MessageSerializer messageSerializer;
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final int chunkSize;
+    private final int bucketsPerTick;
+    private final Duration lockTimeout;
+    private final Counter parked;
+    private final Counter released;
+
+    public DeferredDeliveryService(StringRedisTemplate redisTemplate, KafkaTemplate<String, String> kafkaTemplate,
+                                   MessageSerializer messageSerializer, DeliveryLogRepository deliveryLogRepository, MeterRegistry meterRegistry,
+                                   @Value("${processor.deferred.chunk-size:500}") int chunkSize,
+                                   @Value("${processor.deferred.buckets-per-tick:10}") int bucketsPerTick,
+                                   @Value("${processor.deferred.lock-timeout-seconds:60}") long lockTimeoutSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.messageSerializer = messageSerializer;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.chunkSize = chunkSize;
+        this.bucketsPerTick = bucketsPerTick;
+        this.lockTimeout = Duration.ofSeconds(lockTimeoutSeconds);
+        this.parked = Counter.builder("notification.deferred").tag("action", "parked").register(meterRegistry);
+        this.released = Counter.builder("notification.deferred").tag("action", "released").register(meterRegistry);
+    }
+
+
+    // Parks notifications until their releaseAtEpochMs (one pipelined round-trip for the whole list).
+    // If Redis is unavailable they are marked failed - sending them now would ignore the quiet hours.
+    public void park(List<DeferredNotification> deferredNotifications) {
+        Map<Long, List<String>> buckets = new TreeMap<>();
+        for (DeferredNotification deferredNotification : deferredNotifications) {
+            try {
+                buckets.computeIfAbsent(bucketOf(deferredNotification.getReleaseAtEpochMs()), minute -> new ArrayList<>())
+                        .add(messageSerializer.writeDeferredNotification(deferredNotification));
+            } catch (Exception e) {
+                log.error("Exception serializing deferred notification {}: {}", deferredNotification.getNotificationId(), e.toString());
+                markFailed(List.of(deferredNotification), "Failed to defer notification");
+            }
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                buckets.forEach((minute, items) -> {
+                    redis.rPush(DEFERRED_BUCKET_KEY_PREFIX + minute, items.toArray(new String[0]));
+                    redis.zAdd(DEFERRED_INDEX_KEY, minute, Long.toString(minute));
+                });
+                return null;
+            });
+            buckets.values().forEach(items -> parked.increment(items.size()));
+            log.info("Parked {} deferred notifications in {} buckets", deferredNotifications.size(), buckets.size());
+        } catch (Exception e) {
+            log.error("Exception parking deferred notifications in redis. Exception: {}", e.toString());
+            markFailed(deferredNotifications, "Failed to defer notification");
+        }
+    }
+
+
+    // Releases every due bucket (oldest first, bucketsPerTick at a time)
+    @Scheduled(fixedDelayString = "${processor.deferred.poll-interval-ms:1000}")
+    public void releaseDue() {
+        long nowMinute = bucketOf(System.currentTimeMillis());
+        Set<String> dueBuckets;
+        try {
+            dueBuckets = redisTemplate.opsForZSet().rangeByScore(DEFERRED_INDEX_KEY, 0, nowMinute, 0, bucketsPerTick);
+        } catch (Exception e) {
+            log.error("Exception reading deferred buckets from redis. Exception: {}", e.toString());
+            return;
+        }
+        if (dueBuckets == null) {
+            return;
+        }
+        for (String bucket : dueBuckets) {
+            try {
+                releaseBucket(bucket, nowMinute);
+            } catch (Exception e) {
+                log.error("Exception releasing deferred bucket {}. Exception: {}", bucket, e.toString());
+            }
+        }
+    }
+
+    private void releaseBucket(String bucket, long nowMinute) throws Exception {
+        String lockKey = DEFERRED_LOCK_KEY_PREFIX + bucket;
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, "1", lockTimeout))) {
+            return; // another instance is releasing it
+        }
+        String bucketKey = DEFERRED_BUCKET_KEY_PREFIX + bucket;
+        try {
+            List<String> chunk;
+            while (!(chunk = redisTemplate.opsForList().range(bucketKey, 0, chunkSize - 1)).isEmpty()) {
+                releaseChunk(chunk, nowMinute);
+                redisTemplate.opsForList().trim(bucketKey, chunk.size(), -1);
+                redisTemplate.expire(lockKey, lockTimeout); // large buckets take many chunks
+            }
+            redisTemplate.opsForZSet().remove(DEFERRED_INDEX_KEY, bucket);
+            // A late park() into this minute after the last read: keep the bucket indexed
+            Long remaining = redisTemplate.opsForList().size(bucketKey);
+            if (remaining != null && remaining > 0) {
+                redisTemplate.opsForZSet().add(DEFERRED_INDEX_KEY, bucket, Double.parseDouble(bucket));
+            }
+        } finally {
+            redisTemplate.delete(lockKey);
+        }
+    }
+
+    private void releaseChunk(List<String> chunk, long nowMinute) throws Exception {
+        List<DeferredNotification> deferredNotifications = new ArrayList<>(chunk.size());
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(chunk.size());
+        for (String item : chunk) {
+            DeferredNotification deferredNotification;
+            try {
+                deferredNotification = messageSerializer.readDeferredNotification(item);
+            } catch (Exception e) {
+                log.error("Dropping unreadable deferred notification: {}", item);
+                continue;
+            }
+            deferredNotifications.add(deferredNotification);
+            futures.add(kafkaTemplate.send(deferredNotification.getTopic(), deferredNotification.getKey(), deferredNotification.getMessage()));
+        }
+
+        List<DeferredNotification> retry = new ArrayList<>();
+        List<DeliveryLog> deliveryLogs = new ArrayList<>(deferredNotifications.size());
+        for (int i = 0; i < futures.size(); i++) {
+            DeferredNotification deferredNotification = deferredNotifications.get(i);
+            try {
+                futures.get(i).get(lockTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                deliveryLogs.add(new DeliveryLog(notificationRef(deferredNotification.getNotificationId()), deferredNotification.getChannel(),
+                        Status.pending, "Released from deferred queue, scheduled to kafka"));
+            } catch (Exception e) {
+                log.error("Failed to forward deferred notification {} to Kafka, retrying next minute: {}", deferredNotification.getNotificationId(), e.toString());
+                deferredNotification.setReleaseAtEpochMs((nowMinute + 1) * 60_000);
+                retry.add(deferredNotification);
+            }
+        }
+        deliveryLogRepository.saveAll(deliveryLogs);
+        released.increment(deliveryLogs.size());
+        if (!retry.isEmpty()) {
+            park(retry);
+        }
+    }
+
+    private void markFailed(List<DeferredNotification> deferredNotifications, String reason) {
+        List<DeliveryLog> deliveryLogs = new ArrayList<>(deferredNotifications.size());
+        for (DeferredNotification deferredNotification : deferredNotifications) {
+            deliveryLogs.add(new DeliveryLog(notificationRef(deferredNotification.getNotificationId()), deferredNotification.getChannel(), Status.failed, reason));
+        }
+        try {
+            deliveryLogRepository.saveAll(deliveryLogs);
+        } catch (Exception e) {
+            log.error("Exception saving delivery logs of deferred notifications: {}", e.toString());
+        }
+    }
+
+    // Only the ID is needed for the delivery log's foreign key
+    private static Notification notificationRef(Long notificationId) {
+        Notification notification = new Notification();
+        notification.setId(notificationId);
+        return notification;
+    }
+
+    private static long bucketOf(long epochMs) {
+        return epochMs / 60_000;
+    }
+}
@@ -0,0 +1,81 @@
+package com.notification.priority_processor.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over notification hashes (SHA-256 hex, see NotificationHelperService.getXHash()).
+// The hashes are already uniformly distributed, so the bit positions are taken straight from
+// their first 32 hex digits (double hashing) instead of hashing again.
+//
+// Two generations: once the current one holds expectedInsertions hashes it becomes the previous
+// one and a fresh generation starts, so the filter remembers the last 1-2 x expectedInsertions
+// hashes at the configured false positive rate instead of filling up.
+// Thread-safe (the consumer threads of all priorities share one filter).
+class HashBloomFilter {
+    private final long expectedInsertions;
+    private final int bitCount;
+    private final int hashFunctions;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    HashBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, 64), Integer.MAX_VALUE - 63);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.current = new Generation(bitCount);
+        this.previous = new Generation(bitCount);
+    }
+
+    boolean mightContain(String hash) {
+        long h1 = Long.parseUnsignedLong(hash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hash, 16, 32, 16);
+        return current.mightContain(h1, h2) || previous.mightContain(h1, h2);
+    }
+
+    void put(String hash) {
+        long h1 = Long.parseUnsignedLong(hash, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(hash, 16, 32, 16);
+        Generation generation = current;
+        generation.put(h1, h2);
+        if (generation.insertions.incrementAndGet() == expectedInsertions) {
+            // Keep answering for the full generation while the fresh one is swapped in
+            previous = generation;
+            current = new Generation(bitCount);
+        }
+    }
+
+    private class Generation {
+        private final AtomicLongArray words;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Generation(int bits) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = bitIndex(h1, h2, i);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            for (int i = 0; i < hashFunctions; i++) {
+                int bit = bitIndex(h1, h2, i);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(bit >>> 6);
+                } while ((word & mask) == 0 && !words.compareAndSet(bit >>> 6, word, word | mask));
+            }
+        }
+
+        private int bitIndex(long h1, long h2, int i) {
+            return (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.priority_processor.models.DeferredNotification;
+import com.notification.priority_processor.models.NotificationRequest;
+import com.notification.priority_processor.models.requests.EmailRequest;
+import com.notification.priority_processor.models.requests.PushNRequest;
+import com.notification.priority_processor.models.requests.SmsRequest;
+import org.springframework.stereotype.Component;
+
+// Shared JSON (de)serialization for the per-message hot paths.
+// ObjectMapper construction and per-type serializer lookup are expensive,
+// so readers/writers are built once from Spring's ObjectMapper and reused.
+// ObjectReader/ObjectWriter are immutable and thread-safe.
+@Component
+public class MessageSerializer {
+
+    private final ObjectReader notificationRequestReader;
+    private final ObjectReader placeholdersReader;
+    private final ObjectWriter emailRequestWriter;
+    private final ObjectWriter smsRequestWriter;
+    private final ObjectWriter pushNRequestWriter;
+    private final ObjectReader deferredNotificationReader;
+    private final ObjectWriter deferredNotificationWriter;
+
+    public MessageSerializer(ObjectMapper objectMapper) {
+        this.notificationRequestReader = objectMapper.readerFor(NotificationRequest.class);
+        this.placeholdersReader = objectMapper.readerFor(String[].class);
+        this.emailRequestWriter = objectMapper.writerFor(EmailRequest.class);
+        this.smsRequestWriter = objectMapper.writerFor(SmsRequest.class);
+        this.pushNRequestWriter = objectMapper.writerFor(PushNRequest.class);
+        this.deferredNotificationReader = objectMapper.readerFor(DeferredNotification.class);
+        this.deferredNotificationWriter = objectMapper.writerFor(DeferredNotification.class);
+    }
+
+    public NotificationRequest readNotificationRequest(String notificationRequest) throws JsonProcessingException {
+        return notificationRequestReader.readValue(notificationRequest);
+    }
+
+    // Template placeholders are stored as a JSON array of names
+    public String[] readPlaceholders(String placeholders) throws JsonProcessingException {
+        return placeholdersReader.readValue(placeholders);
+    }
+
+    public String writeEmailRequest(EmailRequest emailRequest) throws JsonProcessingException {
+        return emailRequestWriter.writeValueAsString(emailRequest);
+    }
+
+    public String writeSmsRequest(SmsRequest smsRequest) throws JsonProcessingException {
+        return smsRequestWriter.writeValueAsString(smsRequest);
+    }
+
+    public String writePushNRequest(PushNRequest pushNRequest) throws JsonProcessingException {
+        return pushNRequestWriter.writeValueAsString(pushNRequest);
+    }
+
+    public DeferredNotification readDeferredNotification(String deferredNotification) throws JsonProcessingException {
+        return deferredNotificationReader.readValue(deferredNotification);
+    }
+
+    public String writeDeferredNotification(DeferredNotification deferredNotification) throws JsonProcessingException {
+        return deferredNotificationWriter.writeValueAsString(deferredNotification);
+    }
+}
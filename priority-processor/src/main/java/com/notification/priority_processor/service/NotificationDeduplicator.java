@@ -0,0 +1,144 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.notification.priority_processor.constants.Constants.DEDUP_KEY_PREFIX;
+
+// Decides which notification hashes of a batch are new, without a failed INSERT per duplicate.
+//
+// 1. Redis idempotency window: SET dedup:<hash> NX EX <window> for the whole batch in one pipelined
+//    round-trip. A hash that is already claimed was written (or is being written) by some instance
+//    within the window -> duplicate, rejected without touching MySQL.
+// 2. Bloom filter of recently written hashes (seeded from the notifications table at startup):
+//    a hash Redis let through but the filter has seen may be older than the window, and only those
+//    are checked against the table (one IN query). Filter misses skip MySQL entirely.
+// If Redis is unavailable every hash goes to the IN query, as before.
+// The unique notificationHash column stays the last line of defence (see SendNotificationService.flush()).
+@Service
+@Slf4j
+public class NotificationDeduplicator {
+    private final StringRedisTemplate redisTemplate;
+    private final NotificationRepository notificationRepository;
+    private final HashBloomFilter recentHashes;
+    private final Duration window;
+    private final Duration seedPeriod;
+    private final Counter rejectedByRedis;
+    private final Counter rejectedByDatabase;
+
+    public NotificationDeduplicator(StringRedisTemplate redisTemplate, NotificationRepository notificationRepository, MeterRegistry meterRegistry,
+                                    @Value("${processor.dedup.window-seconds:86400}") long windowSeconds,
+                                    @Value("${processor.dedup.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                    @Value("${processor.dedup.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                    @Value("${processor.dedup.bloom.seed-hours:24}") long seedHours) {
+        this.redisTemplate = redisTemplate;
+        this.notificationRepository = notificationRepository;
+        this.recentHashes = new HashBloomFilter(expectedInsertions, falsePositiveRate);
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.seedPeriod = Duration.ofHours(seedHours);
+        this.rejectedByRedis = Counter.builder("notification.duplicates.rejected").tag("source", "redis").register(meterRegistry);
+        this.rejectedByDatabase = Counter.builder("notification.duplicates.rejected").tag("source", "database").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            List<String> hashes = notificationRepository.findHashesCreatedAfter(LocalDateTime.now().minus(seedPeriod));
+            hashes.forEach(recentHashes::put);
+            log.info("Duplicate filter seeded with {} notification hashes from the last {}", hashes.size(), seedPeriod);
+        } catch (Exception e) {
+            log.error("Exception seeding duplicate filter, relying on Redis only. Exception: {}", e.toString());
+        }
+    }
+
+
+    // Returns the hashes that are new. They stay claimed in Redis for the window,
+    // call release() if they end up not being written.
+    public Set<String> claimNew(Collection<String> hashes) {
+        Set<String> newHashes = new HashSet<>(hashes.size());
+        List<String> toVerify = new ArrayList<>();
+
+        List<String> keys = new ArrayList<>(hashes);
+        List<Object> claimed = claim(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String hash = keys.get(i);
+            if (claimed == null) {
+                toVerify.add(hash);
+            } else if (!Boolean.TRUE.equals(claimed.get(i))) {
+                rejectedByRedis.increment();
+            } else if (recentHashes.mightContain(hash)) {
+                toVerify.add(hash);
+            } else {
+                newHashes.add(hash);
+            }
+        }
+
+        if (!toVerify.isEmpty()) {
+            Set<String> existing = new HashSet<>(notificationRepository.findExistingHashes(toVerify));
+            for (String hash : toVerify) {
+                if (existing.contains(hash)) {
+                    rejectedByDatabase.increment();
+                } else {
+                    newHashes.add(hash);
+                }
+            }
+        }
+        return newHashes;
+    }
+
+    // Hashes that were written (committed)
+    public void written(Collection<String> hashes) {
+        hashes.forEach(recentHashes::put);
+    }
+
+    // Give back claims of hashes that were not written, so a retry isn't taken for a duplicate
+    public void release(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>(hashes.size());
+            hashes.forEach(hash -> keys.add(DEDUP_KEY_PREFIX + hash));
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.error("Exception releasing duplicate claims in redis. Exception: {}", e.toString());
+        }
+    }
+
+    // One SET NX EX per hash, pipelined. Returns the SET results in order, or null when Redis failed.
+    private List<Object> claim(List<String> hashes) {
+        try {
+            RedisSerializer<String> serializer = RedisSerializer.string();
+            Expiration expiration = Expiration.from(window);
+            return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String hash : hashes) {
+                    connection.stringCommands().set(serializer.serialize(DEDUP_KEY_PREFIX + hash), serializer.serialize("1"),
+                            expiration, RedisStringCommands.SetOption.ifAbsent());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Exception claiming notification hashes in redis, checking the database instead. Exception: {}", e.toString());
+            return null;
+        }
+    }
+}
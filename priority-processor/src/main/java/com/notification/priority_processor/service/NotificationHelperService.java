@@ -0,0 +1,76 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.requests.EmailRequest;
+import com.notification.priority_processor.models.requests.PushNRequest;
+import com.notification.priority_processor.models.requests.SmsRequest;
+import com.notification.priority_processor.service.exceptions.PreferenceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+@Service
+@Slf4j
+public class NotificationHelperService {
+    // true: notifications hitting quiet hours are parked until they end (see DeferredDeliveryService)
+    // false: they are dropped, as before
+    boolean deferQuietHours;
+
+    public NotificationHelperService(@Value("${processor.deferred.quiet-hours-enabled:true}") boolean deferQuietHours){
+        this.deferQuietHours = deferQuietHours;
+    }
+
+    // channelRule is the user's cached rule for the channel (null if the user has none, see PreferenceCache)
+    public PreferenceDecision preferenceCheck(PreferenceSnapshot.ChannelRule channelRule, Long userId, Channel channel, int priority) {
+        if (channelRule == null) {
+            log.error(channel+" preference not found for userId: {}",userId);
+            throw new PreferenceNotFoundException(channel+" preference not found for userId: " + userId);
+        }
+
+        if(!channelRule.enabled()) {
+            log.info("Preference: Channel is disabled. Preference for userId {} and channel {} is: {}",userId,channel,channelRule);
+            return PreferenceDecision.DENIED;
+        }
+
+        //Channel enabled, check priority enabled
+        if(!channelRule.allowsPriority(priority)) {
+            log.info("Preference: Priority {} is disabled for channel {}. Preference for userId {} and channel {} is: {}",priority,channel,userId,channel,channelRule);
+            return PreferenceDecision.DENIED;
+        }
+
+        //Priority also enabled, check quiet hours
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        int minuteOfDay = PreferenceCache.minuteOfDay(now.toLocalTime());
+        if(channelRule.inQuietHours(minuteOfDay)){
+            if (!deferQuietHours) {
+                log.info("Preference: Quiet hours is active. Preference for userId {} and channel {} is: {}",userId,channel,channelRule);
+                return PreferenceDecision.DENIED;
+            }
+            LocalDateTime releaseAt = now.plusMinutes(channelRule.minutesUntilQuietHoursEnd(minuteOfDay));
+            log.info("Preference: Quiet hours is active, deferring until {}. Preference for userId {} and channel {} is: {}",releaseAt,userId,channel,channelRule);
+            return PreferenceDecision.deferredUntil(releaseAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        return PreferenceDecision.ALLOWED;
+    }
+
+    public String getSmsHash(SmsRequest smsRequest, Long userId, int priority) {
+        String text = priority+"&"+smsRequest.getMessage()+"&"+smsRequest.getMobileNumber()+"&"+userId.toString();
+        return DigestUtils.sha256Hex(text);
+    }
+
+    public String getPushNHash(PushNRequest pushNRequest, Long userId, int priority) {
+        String text = priority+"&"+pushNRequest.getTitle()+"&"+pushNRequest.getMessage()+"&"+pushNRequest.getAction()+"&"+userId.toString();
+        return DigestUtils.sha256Hex(text);
+    }
+
+    public String getEmailHash(EmailRequest emailRequest, Long userId, int priority) {
+        String text = priority+"&"+emailRequest.getEmailSubject()+"&"+emailRequest.getMessage()+"&"+ Arrays.toString(emailRequest.getEmailAttachments())+"&"+userId.toString();
+        return DigestUtils.sha256Hex(text);
+    }
+}
@@ -0,0 +1,199 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.priority_processor.models.Content;
+import com.notification.priority_processor.models.NotificationRequest;
+import com.notification.priority_processor.models.PushNotification;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.requests.EmailRequest;
+import com.notification.priority_processor.models.requests.PushNRequest;
+import com.notification.priority_processor.models.requests.SmsRequest;
+import com.notification.priority_processor.models.db.Template;
+import com.notification.priority_processor.models.db.User;
+import com.notification.priority_processor.repository.UserRepository;
+import com.notification.priority_processor.service.exceptions.PlaceholderNotFoundInRequestException;
+import com.notification.priority_processor.service.exceptions.TemplateNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.attribute.UserPrincipalNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class NotificationProcessingService {
+    MessageSerializer messageSerializer;
+    TemplateCache templateCache;
+    UserRepository userRepository;
+    SendNotificationService sendNotificationService;
+    PreferenceCache preferenceCache;
+
+    public NotificationProcessingService(MessageSerializer messageSerializer,TemplateCache templateCache, UserRepository userRepository, SendNotificationService sendNotificationService,
+                                         PreferenceCache preferenceCache){
+        this.messageSerializer = messageSerializer;
+        this.templateCache = templateCache;
+        this.userRepository = userRepository;
+        this.sendNotificationService = sendNotificationService;
+        this.preferenceCache = preferenceCache;
+    }
+
+    // A batch of one: its own transaction and no JDBC batching (record listener only, see KafkaPriorityConsumer)
+    public void processNotification(NotificationRequest notificationRequest, int priority) {
+        processNotifications(List.of(notificationRequest), priority);
+    }
+
+    // Batch version of processNotification(): everything the batch references is loaded up front
+    // with one IN query per table (users, templates, preferences - the latter two only for cache misses) instead of per record/channel,
+    // and the resulting notifications are written and forwarded together (see SendNotificationService.flush())
+    public void processNotifications(List<NotificationRequest> notificationRequests, int priority) {
+        Set<Long> userIds = new HashSet<>();
+        Set<String> templateNames = new HashSet<>();
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            try {
+                userIds.add(Long.parseLong(notificationRequest.getRecipient().getUserId()));
+            } catch (NumberFormatException e) {
+                // reported when the record itself is processed
+            }
+            if (notificationRequest.getContent().isUsingTemplates()) {
+                templateNames.add(notificationRequest.getContent().getTemplateName());
+            }
+        }
+
+        Map<String, Template> templates = templateCache.getTemplates(templateNames);
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+        Map<Long, PreferenceSnapshot> preferences = preferenceCache.getPreferences(userIds);
+
+        NotificationWriteBatch batch = new NotificationWriteBatch();
+        for (NotificationRequest notificationRequest : notificationRequests) {
+            try {
+                processNotification(notificationRequest, templates, users, preferences, priority, batch);
+            } catch (Exception exception) {
+                log.error("Unexpected Exception while processing Notification Request: {}", notificationRequest);
+                log.error("Exception: {}", exception.toString());
+            }
+        }
+        sendNotificationService.flush(batch);
+    }
+
+    private void processNotification(NotificationRequest notificationRequest, Map<String, Template> templates,
+                                     Map<Long, User> users, Map<Long, PreferenceSnapshot> preferences, int priority,
+                                     NotificationWriteBatch batch) {
+
+        if (notificationRequest.getContent().isUsingTemplates()){
+            prepareMessageFromTemplate(notificationRequest, templates.get(notificationRequest.getContent().getTemplateName()));
+        }
+
+        //Channel validation done at Notification Service
+        ArrayList<Channel> channels = getChannels(notificationRequest.getChannels());
+        Long userId = Long.parseLong(notificationRequest.getRecipient().getUserId());
+        try {
+            //Get user (loaded with the batch)
+            User user = users.get(userId);
+            if (user == null) {
+                log.error("User with userId: " + userId + " Not found");
+                throw new UserPrincipalNotFoundException("User with userId: " + userId + " Not found");
+            }
+            PreferenceSnapshot userPreferences = preferences.getOrDefault(userId, PreferenceSnapshot.EMPTY);
+
+            if(channels.contains(Channel.email)){
+                try {
+                    prepareAndSendEmailNotification(notificationRequest, user.getEmail(), user, userPreferences.get(Channel.email), priority, batch);
+                } catch (Exception exception){
+                    log.error("Unexpected Exception while processing Email Notification Request: {}", notificationRequest);
+                    log.error("Exception: {}", exception.toString());
+                }
+            }
+            if(channels.contains(Channel.sms)){
+                try{
+                    prepareAndSendSMSNotification(notificationRequest.getContent().getMessage(),user.getPhone(),user, userPreferences.get(Channel.sms), priority, batch);
+                }catch (Exception exception){
+                    log.error("Unexpected Exception while processing SMS Notification Request: {}", notificationRequest);
+                    log.error("Exception: {}", exception.toString());
+                }
+
+            }
+            if(channels.contains(Channel.push)){
+                try{
+                    prepareAndSendPushNotification(notificationRequest,user, userPreferences.get(Channel.push), priority, batch);
+                }catch (Exception exception){
+                    log.error("Unexpected Exception while processing Push Notification Request: {}", notificationRequest);
+                    log.error("Exception: {}", exception.toString());
+                }
+            }
+        } catch (UserPrincipalNotFoundException e) {
+            log.error("User with userId: " + userId + " Not found for Notification Request: "+notificationRequest);
+        }
+    }
+
+    private void prepareMessageFromTemplate(NotificationRequest notificationRequest, Template usedTemplate) {
+        String templateName = notificationRequest.getContent().getTemplateName();
+        try{
+            if (usedTemplate == null) {
+                log.error("Template with name: " + templateName + " Not found");
+                throw new TemplateNotFoundException("Template with name: " + templateName + " Not found");
+            }
+            System.out.println("Used Template: "+usedTemplate.toString());
+            Map<String,String> placeholdersInRequest = notificationRequest.getContent().getPlaceholders();
+            String[] requiredPlaceholders = messageSerializer.readPlaceholders(usedTemplate.getPlaceholders());
+
+            String updatedMessage = replacePlaceholdersInMessageContent(usedTemplate.getContent(),placeholdersInRequest,requiredPlaceholders);
+            notificationRequest.getContent().setMessage(updatedMessage);
+            System.out.println("Updated message: "+updatedMessage);
+        } catch (TemplateNotFoundException | PlaceholderNotFoundInRequestException e){
+            log.error(e+" For notificationRequest: "+notificationRequest);
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing String placeholders to Json from usedTemplate. "+e+" For notificationRequest: "+notificationRequest);
+        }
+    }
+
+    private String replacePlaceholdersInMessageContent(String content, Map<String, String> placeholdersInRequest, String[] requiredPlaceholders) throws PlaceholderNotFoundInRequestException {
+        for(String s: requiredPlaceholders){ //check all req. placeholders exist in request
+            if(!placeholdersInRequest.containsKey(s)){
+                throw new PlaceholderNotFoundInRequestException("Value for "+s+" not found in the request for using content template");
+            }
+        }
+        for(String s: requiredPlaceholders){
+            content = content.replace("{"+s+"}",placeholdersInRequest.get(s));
+        }
+        return content;
+    }
+
+    private void prepareAndSendPushNotification(NotificationRequest notificationRequest, User user, PreferenceSnapshot.ChannelRule pushPreference, int priority, NotificationWriteBatch batch) {
+        Content content = notificationRequest.getContent();
+        PushNotification pushNotification = content.getPushNotification();
+        PushNRequest pushNRequest = new PushNRequest(pushNotification.getTitle(),content.getMessage(),pushNotification.getAction().getUrl());
+        sendNotificationService.sendPushNRequest(pushNRequest, user, pushPreference, priority, batch);
+    }
+
+    private void prepareAndSendSMSNotification(String message, String phone, User user, PreferenceSnapshot.ChannelRule smsPreference, int priority, NotificationWriteBatch batch) {
+        SmsRequest smsRequest = new SmsRequest(phone,message);
+        sendNotificationService.sendSmsRequest(smsRequest, user, smsPreference, priority, batch);
+    }
+
+    private void prepareAndSendEmailNotification(NotificationRequest notificationRequest, String email, User user, PreferenceSnapshot.ChannelRule emailPreference, int priority, NotificationWriteBatch batch) {
+        Content content = notificationRequest.getContent();
+
+        EmailRequest emailRequest = new EmailRequest(email,content.getMessage(),content.getEmailSubject(),content.getEmailAttachments());
+        sendNotificationService.sendEmailRequest(emailRequest,user, emailPreference, priority, batch);
+    }
+
+    private ArrayList<Channel> getChannels(String[] channels) {
+        ArrayList<Channel> channelList = new ArrayList<>();
+        for (String s: channels){
+            if(s.equals("email")){
+                channelList.add(Channel.email);
+            } else if(s.equals("sms")){
+                channelList.add(Channel.sms);
+            } else if(s.equals("push")){
+                channelList.add(Channel.push);
+            }
+        }
+        return channelList;
+    }
+}
@@ -0,0 +1,39 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.db.Notification;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Notifications of one poll, collected by SendNotificationService.sendXRequest()
+// and written together by SendNotificationService.flush()
+public class NotificationWriteBatch {
+
+    @Getter
+    private final List<Entry> entries = new ArrayList<>();
+
+    void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // Builds the channel message once the notification has its ID
+    @FunctionalInterface
+    interface MessageWriter {
+        String write(Long notificationId) throws Exception;
+    }
+
+    // allowed = false: only a failed delivery log is written (user preferences), nothing is sent
+    // releaseAtEpochMs > 0: allowed, but parked until then (see DeferredDeliveryService)
+    record Entry(Notification notification, boolean allowed, String reason, String topic, String key,
+                 MessageWriter messageWriter, String description, long releaseAtEpochMs) {
+
+        boolean deferred() {
+            return allowed && releaseAtEpochMs > 0;
+        }
+    }
+}
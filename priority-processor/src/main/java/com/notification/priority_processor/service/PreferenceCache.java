@@ -0,0 +1,107 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.priority_processor.models.db.Preference;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.repository.PreferenceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+// In-process cache of userId -> PreferenceSnapshot (all channels of the user, pre-parsed).
+// Entries expire after processor.preference-cache.ttl-seconds and are evicted earlier by a
+// "preference-events" message (see PreferenceEventConsumer).
+// Users without any preference are cached too (empty snapshot), so they don't hit the DB per message.
+// hit/miss/eviction metrics are published as cache.* with cache=user-preferences
+@Service
+@Slf4j
+public class PreferenceCache {
+    private final PreferenceRepository preferenceRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, PreferenceSnapshot> cache;
+
+    public PreferenceCache(PreferenceRepository preferenceRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${processor.preference-cache.max-size:100000}") long maxSize,
+                           @Value("${processor.preference-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.preferenceRepository = preferenceRepository;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-preferences");
+    }
+
+    // Snapshots of a whole batch of users; all misses are loaded with one IN query
+    public Map<Long, PreferenceSnapshot> getPreferences(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return cache.getAll(userIds, missing -> {
+            Map<Long, EnumMap<Channel, PreferenceSnapshot.ChannelRule>> rules = new HashMap<>();
+            for (Preference preference : preferenceRepository.findByUserIdIn(new HashSet<>(missing))) {
+                rules.computeIfAbsent(preference.getUser().getId(), id -> new EnumMap<>(Channel.class))
+                        .put(preference.getChannel(), compile(preference));
+            }
+            Map<Long, PreferenceSnapshot> snapshots = new HashMap<>();
+            for (Long userId : missing) {
+                EnumMap<Channel, PreferenceSnapshot.ChannelRule> userRules = rules.get(userId);
+                snapshots.put(userId, userRules == null ? PreferenceSnapshot.EMPTY : new PreferenceSnapshot(userRules));
+            }
+            return snapshots;
+        });
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    // Parses the JSON columns once. Unparseable values don't block the notification (as before):
+    // bad allowedMessagesPriority -> all priorities allowed, bad quietHours -> no quiet hours.
+    private PreferenceSnapshot.ChannelRule compile(Preference preference) {
+        int priorityMask = PreferenceSnapshot.ChannelRule.ALL_PRIORITIES;
+        try {
+            int mask = 0;
+            for (int priority : objectMapper.readValue(preference.getAllowedMessagesPriority(), int[].class)) {
+                if (priority >= 0 && priority < Integer.SIZE) {
+                    mask |= 1 << priority;
+                }
+            }
+            priorityMask = mask;
+        } catch (Exception e) {
+            log.error("Error parsing allowedPriority from String to Json. Channel preference: {}", preference);
+        }
+
+        int quietStartMinute = PreferenceSnapshot.ChannelRule.NO_QUIET_HOURS;
+        int quietEndMinute = PreferenceSnapshot.ChannelRule.NO_QUIET_HOURS;
+        try {
+            JsonNode quietHours = objectMapper.readTree(preference.getQuietHours());
+            if (quietHours.get("quietHoursEnabled").asBoolean()) {
+                quietStartMinute = minuteOfDay(LocalTime.parse(quietHours.get("start").asText()));
+                quietEndMinute = minuteOfDay(LocalTime.parse(quietHours.get("end").asText()));
+            }
+        } catch (Exception e) {
+            log.error("Error parsing quietHours from String to Json. Channel preference: {}", preference);
+            quietStartMinute = PreferenceSnapshot.ChannelRule.NO_QUIET_HOURS;
+        }
+        return new PreferenceSnapshot.ChannelRule(preference.isEnabled(), priorityMask, quietStartMinute, quietEndMinute);
+    }
+
+    static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
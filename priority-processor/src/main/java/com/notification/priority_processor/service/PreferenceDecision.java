@@ -0,0 +1,14 @@
+package com.notification.priority_processor.service;
+
+// Result of NotificationHelperService.preferenceCheck()
+// DEFERRED: allowed, but not before releaseAtEpochMs (quiet hours)
+public record PreferenceDecision(Outcome outcome, long releaseAtEpochMs) {
+    public enum Outcome { ALLOWED, DENIED, DEFERRED }
+
+    static final PreferenceDecision ALLOWED = new PreferenceDecision(Outcome.ALLOWED, 0);
+    static final PreferenceDecision DENIED = new PreferenceDecision(Outcome.DENIED, 0);
+
+    static PreferenceDecision deferredUntil(long releaseAtEpochMs) {
+        return new PreferenceDecision(Outcome.DEFERRED, releaseAtEpochMs);
+    }
+}
@@ -0,0 +1,53 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.enums.Channel;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Immutable, pre-parsed preferences of one user (all channels), cached by PreferenceCache.
+// The JSON columns are parsed once when the snapshot is built, so checking a notification
+// against it is a couple of int comparisons.
+public final class PreferenceSnapshot {
+    static final PreferenceSnapshot EMPTY = new PreferenceSnapshot(new EnumMap<>(Channel.class));
+
+    private final Map<Channel, ChannelRule> rules;
+
+    PreferenceSnapshot(EnumMap<Channel, ChannelRule> rules) {
+        this.rules = Collections.unmodifiableMap(rules);
+    }
+
+    // null if the user has no preference for the channel
+    public ChannelRule get(Channel channel) {
+        return rules.get(channel);
+    }
+
+    // priorityMask: bit N set = priority N allowed
+    // quietStartMinute/quietEndMinute: minutes of the day, NO_QUIET_HOURS when disabled;
+    // start > end is an interval over midnight
+    public record ChannelRule(boolean enabled, int priorityMask, int quietStartMinute, int quietEndMinute) {
+        public static final int NO_QUIET_HOURS = -1;
+        // Used when allowedMessagesPriority can't be parsed (all priorities allowed, as before)
+        public static final int ALL_PRIORITIES = (1 << 1) | (1 << 2) | (1 << 3);
+
+        public boolean allowsPriority(int priority) {
+            return priority >= 0 && priority < Integer.SIZE && (priorityMask & (1 << priority)) != 0;
+        }
+
+        public boolean inQuietHours(int minuteOfDay) {
+            if (quietStartMinute == NO_QUIET_HOURS) {
+                return false;
+            }
+            if (quietStartMinute > quietEndMinute) { //midnight interval
+                return minuteOfDay >= quietStartMinute || minuteOfDay < quietEndMinute;
+            }
+            return minuteOfDay >= quietStartMinute && minuteOfDay < quietEndMinute;
+        }
+
+        // Minutes from minuteOfDay (inside the quiet hours) until they end
+        public int minutesUntilQuietHoursEnd(int minuteOfDay) {
+            return Math.floorMod(quietEndMinute - minuteOfDay, 24 * 60);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.notification.priority_processor.models.DeferredNotification;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.db.Notification;
+import com.notification.priority_processor.models.db.User;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
+import com.notification.priority_processor.models.requests.EmailRequest;
+import com.notification.priority_processor.models.requests.PushNRequest;
+import com.notification.priority_processor.models.requests.SmsRequest;
+import com.notification.priority_processor.repository.DeliveryLogRepository;
+import com.notification.priority_processor.repository.NotificationRepository;
+import com.notification.priority_processor.service.exceptions.PreferenceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.notification.priority_processor.constants.Constants.*;
+
+@Service
+@Slf4j
+public class SendNotificationService {
+    KafkaTemplate<String , String> kafkaTemplate;
+    MessageSerializer messageSerializer;
+    NotificationRepository notificationRepository;
+    DeliveryLogRepository deliveryLogRepository;
+    NotificationHelperService notificationHelperService;
+    TransactionTemplate transactionTemplate;
+    NotificationDeduplicator notificationDeduplicator;
+    DeferredDeliveryService deferredDeliveryService;
+
+
+    public SendNotificationService(KafkaTemplate<String, String> kafkaTemplate,
+                                   NotificationRepository notificationRepository, DeliveryLogRepository deliveryLogRepository,
+                                   MessageSerializer messageSerializer, NotificationHelperService notificationHelperService,
+                                   TransactionTemplate transactionTemplate, NotificationDeduplicator notificationDeduplicator,
+                                   DeferredDeliveryService deferredDeliveryService){
+        this.kafkaTemplate = kafkaTemplate;
+        this.messageSerializer = messageSerializer;
+        this.notificationRepository = notificationRepository;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.notificationHelperService = notificationHelperService;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationDeduplicator = notificationDeduplicator;
+        this.deferredDeliveryService = deferredDeliveryService;
+    }
+
+
+
+    // The sendXRequest() methods only stage the notification in the batch;
+    // nothing is written or sent until flush(batch)
+
+    public void sendSmsRequest(SmsRequest smsRequest, User user, PreferenceSnapshot.ChannelRule channelPreference, int priority, NotificationWriteBatch batch) {
+        try{
+            Notification notification = new Notification(user, Channel.sms, smsRequest.getMessage(), messageSerializer.writeSmsRequest(smsRequest), notificationHelperService.getSmsHash(smsRequest, user.getId(), priority));
+            stage(batch, notification, channelPreference, user, priority, SMS_TOPIC, notificationId -> {
+                smsRequest.setNotificationId(notificationId);
+                return messageSerializer.writeSmsRequest(smsRequest);
+            }, "SmsRequest: " + smsRequest);
+        } catch (JsonProcessingException e){
+            log.error("Exception parsing requestContent to String: {}", e.toString());
+        }
+    }
+
+    public void sendPushNRequest(PushNRequest pushNRequest, User user, PreferenceSnapshot.ChannelRule channelPreference, int priority, NotificationWriteBatch batch) {
+        try{
+            Notification notification = new Notification(user, Channel.push, pushNRequest.getTitle() + pushNRequest.getMessage(), messageSerializer.writePushNRequest(pushNRequest),notificationHelperService.getPushNHash(pushNRequest, user.getId(), priority));
+            stage(batch, notification, channelPreference, user, priority, PUSH_N_TOPIC, notificationId -> {
+                pushNRequest.setNotificationId(notificationId);
+                return messageSerializer.writePushNRequest(pushNRequest);
+            }, "PushNRequest: " + pushNRequest);
+        } catch (JsonProcessingException e){
+            log.error("Exception parsing requestContent to String: {}", e.toString());
+        }
+    }
+
+    public void sendEmailRequest(EmailRequest emailRequest, User user, PreferenceSnapshot.ChannelRule channelPreference, int priority, NotificationWriteBatch batch) {
+        try{
+            Notification notification = new Notification(user, Channel.email, "emailSubject: " + emailRequest.getEmailSubject() + " message: " + emailRequest.getMessage() + " attachments: " + Arrays.toString(emailRequest.getEmailAttachments())
+                    , messageSerializer.writeEmailRequest(emailRequest), notificationHelperService.getEmailHash(emailRequest, user.getId(), priority));
+            stage(batch, notification, channelPreference, user, priority, EMAIL_TOPIC, notificationId -> {
+                emailRequest.setNotificationId(notificationId);
+                return messageSerializer.writeEmailRequest(emailRequest);
+            }, "EmailRequest: " + emailRequest);
+        } catch (JsonProcessingException e){
+            log.error("Exception parsing requestContent to String: {}", e.toString());
+        }
+    }
+
+    private void stage(NotificationWriteBatch batch, Notification notification, PreferenceSnapshot.ChannelRule channelPreference, User user, int priority,
+                       String topic, NotificationWriteBatch.MessageWriter messageWriter, String description) {
+        Channel channel = notification.getChannel();
+        boolean allowed;
+        long releaseAtEpochMs = 0;
+        String reason = "Scheduled to kafka";
+        try {
+            PreferenceDecision decision = notificationHelperService.preferenceCheck(channelPreference, user.getId(), channel, priority);
+            switch (decision.outcome()) {
+                case ALLOWED -> {
+                    allowed = true;
+                    log.info("Preference: {} is allowed acc to preferences. UserId: {}, {}", channel, user.getId(), description);
+                }
+                case DEFERRED -> {
+                    allowed = true;
+                    releaseAtEpochMs = decision.releaseAtEpochMs();
+                    reason = "Deferred until " + Instant.ofEpochMilli(releaseAtEpochMs) + " (quiet hours)";
+                    log.info("Preference: Deferring {} until quiet hours end. UserId: {}, {}", channel, user.getId(), description);
+                }
+                default -> {
+                    allowed = false;
+                    log.info("Preference: Not sending {} as per user preferences. UserId: {}, {}", channel, user.getId(), description);
+                    reason = "Not sending notification as per user: "+user.getId()+" preferences";
+                }
+            }
+        } catch (PreferenceNotFoundException e) {
+            allowed = false;
+            reason = e.getMessage();
+        }
+        batch.add(new NotificationWriteBatch.Entry(notification, allowed, reason, topic, PRIORITY_KEY_PREFIX + priority + PRIORITY_KEY_SEPARATOR + user.getId(), messageWriter, description, releaseAtEpochMs));
+    }
+
+
+
+    // Writes a batch (normally one poll):
+    // 1. Drops duplicates - repeated within the batch, or already seen (see NotificationDeduplicator)
+    // 2. Inserts all notifications and delivery logs in one transaction; with pooled IDs and
+    //    hibernate.jdbc.batch_size these go out as JDBC batches when the transaction commits
+    // 3. After commit, forwards the allowed notifications to their channel topics
+    //    (deferred ones are parked in DeferredDeliveryService instead)
+    // If the batch still hits the unique hash constraint (a duplicate older than the Redis window
+    // that this instance's filter has never seen), it falls back to one transaction per notification.
+    public void flush(NotificationWriteBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<NotificationWriteBatch.Entry> entries = withoutDuplicates(batch.getEntries());
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(entries));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} notifications hit a duplicate, writing them one by one. {}", entries.size(), e.getMostSpecificCause().toString());
+            forward(saveOneByOne(entries));
+            return;
+        } catch (RuntimeException e) {
+            notificationDeduplicator.release(hashesOf(entries));
+            throw e;
+        }
+        notificationDeduplicator.written(hashesOf(entries));
+        forward(entries);
+    }
+
+    private List<NotificationWriteBatch.Entry> withoutDuplicates(List<NotificationWriteBatch.Entry> entries) {
+        Set<String> hashes = new HashSet<>();
+        List<NotificationWriteBatch.Entry> unique = new ArrayList<>(entries.size());
+        for (NotificationWriteBatch.Entry entry : entries) {
+            if (hashes.add(entry.notification().getNotificationHash())) {
+                unique.add(entry);
+            } else {
+                log.error("Duplicate notification request. {}", entry.description());
+            }
+        }
+
+        Set<String> newHashes = notificationDeduplicator.claimNew(hashes);
+        if (newHashes.size() == unique.size()) {
+            return unique;
+        }
+        List<NotificationWriteBatch.Entry> notSeen = new ArrayList<>(newHashes.size());
+        for (NotificationWriteBatch.Entry entry : unique) {
+            if (newHashes.contains(entry.notification().getNotificationHash())) {
+                notSeen.add(entry);
+            } else {
+                log.error("Duplicate notification request. {}", entry.description());
+            }
+        }
+        return notSeen;
+    }
+
+    private List<NotificationWriteBatch.Entry> saveOneByOne(List<NotificationWriteBatch.Entry> entries) {
+        List<NotificationWriteBatch.Entry> saved = new ArrayList<>(entries.size());
+        List<NotificationWriteBatch.Entry> failed = new ArrayList<>();
+        for (NotificationWriteBatch.Entry entry : entries) {
+            entry.notification().setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> save(List.of(entry)));
+                saved.add(entry);
+            } catch (DataIntegrityViolationException duplicate) {
+                log.error("Duplicate notification request. {}", entry.description());
+            } catch (RuntimeException e) {
+                log.error("Failed to save {} notification {}: {}", entry.notification().getChannel(), entry.description(), e.toString());
+                failed.add(entry);
+            }
+        }
+        notificationDeduplicator.written(hashesOf(saved));
+        notificationDeduplicator.release(hashesOf(failed));
+        return saved;
+    }
+
+    private List<String> hashesOf(List<NotificationWriteBatch.Entry> entries) {
+        List<String> hashes = new ArrayList<>(entries.size());
+        for (NotificationWriteBatch.Entry entry : entries) {
+            hashes.add(entry.notification().getNotificationHash());
+        }
+        return hashes;
+    }
+
+    private void save(List<NotificationWriteBatch.Entry> entries) {
+        List<Notification> notifications = new ArrayList<>(entries.size());
+        List<DeliveryLog> deliveryLogs = new ArrayList<>(entries.size());
+        for (NotificationWriteBatch.Entry entry : entries) {
+            Notification notification = entry.notification();
+            notifications.add(notification);
+            Status status = entry.deferred() ? Status.deferred : entry.allowed() ? Status.pending : Status.failed;
+            deliveryLogs.add(new DeliveryLog(notification, notification.getChannel(), status, entry.reason()));
+        }
+        notificationRepository.saveAll(notifications);
+        deliveryLogRepository.saveAll(deliveryLogs);
+    }
+
+    private void forward(List<NotificationWriteBatch.Entry> entries) {
+        List<DeferredNotification> deferred = new ArrayList<>();
+        for (NotificationWriteBatch.Entry entry : entries) {
+            if (!entry.allowed()) {
+                continue;
+            }
+            Notification notification = entry.notification();
+            try {
+                String notificationString = entry.messageWriter().write(notification.getId());
+                if (entry.deferred()) {
+                    deferred.add(new DeferredNotification(notification.getId(), notification.getChannel(), entry.topic(), entry.key(),
+                            notificationString, entry.releaseAtEpochMs()));
+                    continue;
+                }
+                kafkaTemplate.send(entry.topic(), entry.key(), notificationString).whenComplete((result, exception) -> {
+                    if (exception != null) {
+                        log.error("Failed to forward {} notification {}, to Kafka: \n{}", notification.getChannel(), entry.description(), exception.toString());
+                        deliveryLogRepository.save(new DeliveryLog(notification, notification.getChannel(), Status.failed, "Failed to forward to kafka"));
+                    }
+                });
+                log.info("{} sent to kafka. Delivery Log updated. UserId: {}, {}", notification.getChannel(), notification.getUser().getId(), entry.description());
+            } catch (Exception e) {
+                log.error("Failed to forward {} notification {}, to Kafka: \n{}", notification.getChannel(), entry.description(), e.toString());
+                deliveryLogRepository.save(new DeliveryLog(notification, notification.getChannel(), Status.failed, "Failed to forward to kafka"));
+            }
+        }
+        if (!deferred.isEmpty()) {
+            deferredDeliveryService.park(deferred);
+        }
+    }
+}
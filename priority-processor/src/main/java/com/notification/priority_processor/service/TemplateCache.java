@@ -0,0 +1,56 @@
+package com.notification.priority_processor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.priority_processor.models.db.Template;
+import com.notification.priority_processor.repository.TemplateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+// In-process cache of templates by name, so rendering doesn't query the templates table per message.
+// Entries are kept until evicted by a "template-events" message (see TemplateEventConsumer)
+// or by the size bound. processor.template-cache.ttl-seconds > 0 adds a safety TTL for templates
+// changed without an event (0 = never expire, as notification.template-cache.ttl-seconds).
+// Unknown templates are not cached.
+// Concurrent misses for the same template share one DB lookup.
+@Service
+public class TemplateCache {
+    private final TemplateRepository templateRepository;
+    private final Cache<String, Template> cache;
+
+    public TemplateCache(TemplateRepository templateRepository,
+                         @Value("${processor.template-cache.max-size:10000}") long maxSize,
+                         @Value("${processor.template-cache.ttl-seconds:0}") long ttlSeconds) {
+        this.templateRepository = templateRepository;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize);
+        if (ttlSeconds > 0) {
+            builder.expireAfterWrite(Duration.ofSeconds(ttlSeconds));
+        }
+        this.cache = builder.build();
+    }
+
+    // Templates of a whole batch; all misses are loaded with one IN query.
+    // Returns only the templates that exist.
+    public Map<String, Template> getTemplates(Collection<String> templateNames) {
+        if (templateNames.isEmpty()) {
+            return Map.of();
+        }
+        return cache.getAll(templateNames, missing -> {
+            Map<String, Template> templates = new HashMap<>();
+            for (Template template : templateRepository.findByNameIn(new HashSet<>(missing))) {
+                templates.put(template.getName(), template);
+            }
+            return templates;
+        });
+    }
+
+    public void invalidate(String templateName) {
+        cache.invalidate(templateName);
+    }
+}
@@ -1,4 +1,4 @@
-package com.notification.priority1_processor.service.exceptions;
+package com.notification.priority_processor.service.exceptions;
 
 public class DuplicateNotificationFoundException extends RuntimeException {
     public DuplicateNotificationFoundException(String message) {
@@ -1,4 +1,4 @@
-package com.notification.priority1_processor.service.exceptions;
+package com.notification.priority_processor.service.exceptions;
 
 public class TemplateNotFoundException extends RuntimeException {
     public TemplateNotFoundException(String message) {
@@ -0,0 +1,33 @@
+-- ID sequences of notifications and delivery_logs
+--
+-- Notification and DeliveryLog (priority-processor and the email/sms/push consumers) take their
+-- IDs from pooled sequences with allocationSize = 50 instead of AUTO_INCREMENT. Run this once on
+-- an existing database before deploying that version, with the writers stopped. The sequences
+-- must start above the IDs already in the tables; one created by Hibernate's schema update would
+-- start at 1 and hand out IDs that collide with existing rows.
+--
+-- MySQL has no sequences, Hibernate emulates each one with a single-row table (column next_val)
+-- and moves next_val forward by 50 per allocation. The pooled optimizer hands out
+-- (next_val - 49) .. next_val, so next_val starts at MAX(id) + 50 and the first ID is MAX(id) + 1.
+-- The AUTO_INCREMENT on the id columns can stay, explicit IDs bypass it.
+
+CREATE TABLE IF NOT EXISTS notifications_seq (
+    next_val BIGINT NOT NULL
+) ENGINE = InnoDB;
+
+DELETE FROM notifications_seq;
+INSERT INTO notifications_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM notifications;
+
+CREATE TABLE IF NOT EXISTS delivery_logs_seq (
+    next_val BIGINT NOT NULL
+) ENGINE = InnoDB;
+
+-- log_id is the key column as mapped by priority-processor
+DELETE FROM delivery_logs_seq;
+INSERT INTO delivery_logs_seq (next_val)
+SELECT COALESCE(MAX(log_id), 0) + 50 FROM delivery_logs;
+
+-- Databases with native sequences (PostgreSQL, H2, Oracle, ...) use real ones instead, e.g.
+--   CREATE SEQUENCE notifications_seq START WITH <MAX(id) + 50> INCREMENT BY 50;
+--   CREATE SEQUENCE delivery_logs_seq START WITH <MAX(log_id) + 50> INCREMENT BY 50;
@@ -1,10 +1,10 @@
-package com.notification.priority1_processor;
+package com.notification.priority_processor;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
-class Priority1ProcessorApplicationTests {
+class PriorityProcessorApplicationTests {
 
 	@Test
 	void contextLoads() {
@@ -0,0 +1,172 @@
+package com.notification.priority_processor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.priority_processor.config.JpaConfig;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.db.Notification;
+import com.notification.priority_processor.models.db.User;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
+import com.notification.priority_processor.repository.DeliveryLogRepository;
+import com.notification.priority_processor.repository.NotificationRepository;
+import com.notification.priority_processor.repository.UserRepository;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.type.format.jackson.JacksonJsonFormatMapper;
+import org.hibernate.type.format.jaxb.JaxbXmlFormatMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification + DeliveryLog rows inserted per second.
+ *
+ * "perRow" is the old write path: notificationRepository.save() and deliveryLogRepository.save()
+ * for every notification, each committing on its own.
+ * "batched" is SendNotificationService.flush(): saveAll() of a whole poll in one transaction.
+ * batchSize is hibernate.jdbc.batch_size (1 = JDBC batching off).
+ *
+ * Runs against in-memory H2 by default. For MySQL pass the datasource, e.g.
+ *   -Dbenchmark.jdbc.url="jdbc:mysql://localhost:3306/bench?rewriteBatchedStatements=true"
+ *   -Dbenchmark.jdbc.username=root -Dbenchmark.jdbc.password=...
+ * (the schema is created and dropped by Hibernate, use an empty database)
+ *
+ * Run: mvn -pl priority-processor test-compile exec:java
+ *        -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.notification.priority_processor.benchmark.NotificationWriteBenchmark
+ * (or run main() from the IDE)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationWriteBenchmark {
+
+    // Notifications per invocation (one poll)
+    private static final int ROWS = 200;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private NotificationRepository notificationRepository;
+    private DeliveryLogRepository deliveryLogRepository;
+    private TransactionTemplate transactionTemplate;
+    private User user;
+    private long sequence;
+
+    // Deliberately not a @Configuration / @SpringBootConfiguration: it lives under the application's
+    // package, and component scanning would otherwise apply its Kafka exclusion to every context
+    @EnableAutoConfiguration(exclude = KafkaAutoConfiguration.class)
+    @EntityScan("com.notification.priority_processor.models.db")
+    @EnableJpaRepositories("com.notification.priority_processor.repository")
+    @Import(JpaConfig.class)
+    static class WriteBenchmarkApplication {
+
+        // Hibernate's default JSON/XML mappers register every Jackson module on the classpath, and
+        // the Scala module pulled in by spring-kafka-test doesn't match this Jackson version
+        @Bean
+        HibernatePropertiesCustomizer plainFormatMappers() {
+            return hibernateProperties -> {
+                hibernateProperties.put(AvailableSettings.JSON_FORMAT_MAPPER, new JacksonJsonFormatMapper(new ObjectMapper()));
+                hibernateProperties.put(AvailableSettings.XML_FORMAT_MAPPER, new JaxbXmlFormatMapper());
+            };
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(WriteBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1"),
+                        "spring.datasource.username=" + System.getProperty("benchmark.jdbc.username", "sa"),
+                        "spring.datasource.password=" + System.getProperty("benchmark.jdbc.password", ""),
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "processor.jpa.batch-size=" + batchSize)
+                .run();
+        notificationRepository = context.getBean(NotificationRepository.class);
+        deliveryLogRepository = context.getBean(DeliveryLogRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        user = context.getBean(UserRepository.class).save(new User(null, "Jane", "user@example.com", "+15550100", null, null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void perRow() {
+        for (Notification notification : newNotifications()) {
+            notificationRepository.save(notification);
+            deliveryLogRepository.save(new DeliveryLog(notification, Channel.sms, Status.pending, "Scheduled to kafka"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batched() {
+        List<Notification> notifications = newNotifications();
+        List<DeliveryLog> deliveryLogs = new ArrayList<>(ROWS);
+        for (Notification notification : notifications) {
+            deliveryLogs.add(new DeliveryLog(notification, Channel.sms, Status.pending, "Scheduled to kafka"));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationRepository.saveAll(notifications);
+            deliveryLogRepository.saveAll(deliveryLogs);
+        });
+    }
+
+    private List<Notification> newNotifications() {
+        List<Notification> notifications = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long n = sequence++;
+            notifications.add(new Notification(user, Channel.sms, "Hi Jane, your OTP is 123456",
+                    "{\"phone\":\"+15550100\",\"message\":\"Hi Jane, your OTP is 123456\"}", "hash-" + n));
+        }
+        return notifications;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(NotificationWriteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
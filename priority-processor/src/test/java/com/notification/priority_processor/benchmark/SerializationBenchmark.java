@@ -0,0 +1,145 @@
+package com.notification.priority_processor.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.priority_processor.models.Action;
+import com.notification.priority_processor.models.Content;
+import com.notification.priority_processor.models.NotificationRequest;
+import com.notification.priority_processor.models.PushNotification;
+import com.notification.priority_processor.models.Recipient;
+import com.notification.priority_processor.models.requests.EmailRequest;
+import com.notification.priority_processor.models.requests.PushNRequest;
+import com.notification.priority_processor.models.requests.SmsRequest;
+import com.notification.priority_processor.service.MessageSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages/second for each request type, before and after MessageSerializer.
+ *
+ * "perMessageMapper" is the old hot path (new ObjectMapper() for every message),
+ * "cached" goes through the pre-built ObjectReader/ObjectWriter.
+ *
+ * Run: mvn -pl priority-processor test-compile exec:java
+ *        -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.notification.priority_processor.benchmark.SerializationBenchmark
+ * (or run main() from the IDE)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private MessageSerializer messageSerializer;
+    // Same cached writer notification-service's MessageSerializer uses for NotificationRequest
+    private ObjectWriter notificationRequestWriter;
+
+    private NotificationRequest notificationRequest;
+    private String notificationRequestJson;
+    private EmailRequest emailRequest;
+    private SmsRequest smsRequest;
+    private PushNRequest pushNRequest;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        messageSerializer = new MessageSerializer(objectMapper);
+        notificationRequestWriter = objectMapper.writerFor(NotificationRequest.class);
+
+        notificationRequest = new NotificationRequest(1, new String[]{"email", "sms", "push"},
+                new Recipient("42", "user@example.com"),
+                new Content(true, "otp", Map.of("name", "Jane", "otp", "123456"),
+                        "Hi {name}, your OTP is {otp}", "Your OTP", new String[0],
+                        new PushNotification("OTP", new Action("app://otp"))));
+        notificationRequestJson = new ObjectMapper().writeValueAsString(notificationRequest);
+
+        emailRequest = new EmailRequest("user@example.com", "Hi Jane, your OTP is 123456", "Your OTP", new String[0], 1001L);
+        smsRequest = new SmsRequest("+15550100", "Hi Jane, your OTP is 123456", 1002L);
+        pushNRequest = new PushNRequest("OTP", "Hi Jane, your OTP is 123456", null, 1003L);
+    }
+
+    // NotificationRequest: read by the priority consumers (and written by notification-service)
+
+    @Benchmark
+    public NotificationRequest readNotificationRequestPerMessageMapper() throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.treeToValue(mapper.readTree(notificationRequestJson), NotificationRequest.class);
+    }
+
+    @Benchmark
+    public NotificationRequest readNotificationRequestCached() throws JsonProcessingException {
+        return messageSerializer.readNotificationRequest(notificationRequestJson);
+    }
+
+    @Benchmark
+    public String writeNotificationRequestPerMessageMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(notificationRequest);
+    }
+
+    @Benchmark
+    public String writeNotificationRequestCached() throws JsonProcessingException {
+        return notificationRequestWriter.writeValueAsString(notificationRequest);
+    }
+
+    // EmailRequest
+
+    @Benchmark
+    public String writeEmailRequestPerMessageMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(emailRequest);
+    }
+
+    @Benchmark
+    public String writeEmailRequestCached() throws JsonProcessingException {
+        return messageSerializer.writeEmailRequest(emailRequest);
+    }
+
+    // SmsRequest
+
+    @Benchmark
+    public String writeSmsRequestPerMessageMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(smsRequest);
+    }
+
+    @Benchmark
+    public String writeSmsRequestCached() throws JsonProcessingException {
+        return messageSerializer.writeSmsRequest(smsRequest);
+    }
+
+    // PushNRequest
+
+    @Benchmark
+    public String writePushNRequestPerMessageMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(pushNRequest);
+    }
+
+    @Benchmark
+    public String writePushNRequestCached() throws JsonProcessingException {
+        return messageSerializer.writePushNRequest(pushNRequest);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
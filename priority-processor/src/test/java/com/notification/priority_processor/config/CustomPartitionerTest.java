@@ -0,0 +1,104 @@
+package com.notification.priority_processor.config;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomPartitionerTest {
+    private static final String TOPIC = "email-topic";
+    private static final Node BROKER = new Node(0, "localhost", 9092);
+
+    private final CustomPartitioner partitioner = new CustomPartitioner();
+
+    @Test
+    void aPriorityAlwaysLandsOnItsOwnLane() {
+        // 10 partitions: lane 1 gets 4 of them, lanes 2 and 3 get 3
+        Cluster cluster = cluster(10);
+
+        for (int priority = 1; priority <= 3; priority++) {
+            for (int user = 0; user < 200; user++) {
+                int partition = partition("priority-" + priority + "|user-" + user, cluster);
+                assertThat(partition).isBetween(0, 9);
+                assertThat(partition % 3).isEqualTo(priority - 1);
+            }
+        }
+    }
+
+    @Test
+    void oneUserAlwaysGetsTheSamePartition() {
+        Cluster cluster = cluster(12);
+        int partition = partition("priority-2|user-42", cluster);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(partition("priority-2|user-42", cluster)).isEqualTo(partition);
+        }
+        // Another partitioner instance (another processor) agrees
+        assertThat(new CustomPartitioner().partition(TOPIC, "priority-2|user-42", null, null, null, cluster)).isEqualTo(partition);
+    }
+
+    @Test
+    void usersSpreadOverEveryPartitionOfTheLane() {
+        Cluster cluster = cluster(12);
+        Set<Integer> partitions = new HashSet<>();
+
+        for (int user = 0; user < 200; user++) {
+            partitions.add(partition("priority-1|user-" + user, cluster));
+        }
+
+        assertThat(partitions).containsExactlyInAnyOrder(0, 3, 6, 9);
+    }
+
+    @Test
+    void keysWithoutAUserIdRoundRobinWithinTheLane() {
+        Cluster cluster = cluster(12);
+        List<Integer> partitions = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            partitions.add(partition(i % 2 == 0 ? "priority-3" : "priority-3|", cluster));
+        }
+
+        assertThat(partitions).containsExactly(2, 5, 8, 11, 2, 5, 8, 11);
+        // Each lane keeps its own position
+        assertThat(partition("priority-1", cluster)).isZero();
+    }
+
+    @Test
+    void unknownKeysGoToTheLowestPriority() {
+        Cluster cluster = cluster(12);
+
+        assertThat(partition("user-42", cluster) % 3).isEqualTo(2);
+        assertThat(partition("priority-x|user-42", cluster) % 3).isEqualTo(2);
+        assertThat(partitioner.partition(TOPIC, null, null, null, null, cluster) % 3).isEqualTo(2);
+        // Out of range priorities are clamped
+        assertThat(partition("priority-9|user-42", cluster) % 3).isEqualTo(2);
+        assertThat(partition("priority-0|user-42", cluster) % 3).isZero();
+    }
+
+    @Test
+    void topicsWithFewerPartitionsThanPrioritiesAreClamped() {
+        assertThat(partition("priority-1|user-42", cluster(2))).isZero();
+        assertThat(partition("priority-2|user-42", cluster(2))).isEqualTo(1);
+        assertThat(partition("priority-3|user-42", cluster(2))).isEqualTo(1);
+        assertThat(partition("priority-3|user-42", cluster(1))).isZero();
+    }
+
+    private int partition(String key, Cluster cluster) {
+        return partitioner.partition(TOPIC, key, null, null, null, cluster);
+    }
+
+    private static Cluster cluster(int partitionCount) {
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitions.add(new PartitionInfo(TOPIC, partition, BROKER, new Node[]{BROKER}, new Node[]{BROKER}));
+        }
+        return new Cluster("cluster", List.of(BROKER), partitions, Set.of(), Set.of());
+    }
+}
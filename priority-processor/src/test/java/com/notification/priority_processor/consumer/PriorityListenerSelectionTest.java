@@ -0,0 +1,32 @@
+package com.notification.priority_processor.consumer;
+
+import com.notification.priority_processor.service.MessageSerializer;
+import com.notification.priority_processor.service.NotificationProcessingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PriorityListenerSelectionTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(NotificationProcessingService.class, () -> mock(NotificationProcessingService.class))
+            .withBean(MessageSerializer.class, () -> mock(MessageSerializer.class))
+            .withUserConfiguration(KafkaPriorityConsumer.class, KafkaPriorityBatchConsumer.class);
+
+    @Test
+    void theBatchListenerIsTheDefault() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(KafkaPriorityBatchConsumer.class);
+            assertThat(context).doesNotHaveBean(KafkaPriorityConsumer.class);
+        });
+    }
+
+    @Test
+    void theRecordListenerIsOptIn() {
+        contextRunner.withPropertyValues("processor.listener.batch-enabled=false").run(context -> {
+            assertThat(context).hasSingleBean(KafkaPriorityConsumer.class);
+            assertThat(context).doesNotHaveBean(KafkaPriorityBatchConsumer.class);
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.priority_processor.models.DeferredNotification;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
+import com.notification.priority_processor.repository.DeliveryLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.notification.priority_processor.constants.Constants.DEFERRED_BUCKET_KEY_PREFIX;
+import static com.notification.priority_processor.constants.Constants.DEFERRED_INDEX_KEY;
+import static com.notification.priority_processor.constants.Constants.DEFERRED_LOCK_KEY_PREFIX;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeferredDeliveryServiceTest {
+    private static final String BUCKET = "1000";
+    private static final String BUCKET_KEY = DEFERRED_BUCKET_KEY_PREFIX + BUCKET;
+
+    private final MessageSerializer messageSerializer = new MessageSerializer(new ObjectMapper());
+    private StringRedisTemplate redisTemplate;
+    private ListOperations<String, String> listOperations;
+    private ZSetOperations<String, String> zSetOperations;
+    private ValueOperations<String, String> valueOperations;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private DeliveryLogRepository deliveryLogRepository;
+    private DeferredDeliveryService deferredDeliveryService;
+
+    // Contents of the due bucket's Redis list
+    private final List<String> bucket = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        listOperations = mock(ListOperations.class);
+        zSetOperations = mock(ZSetOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        deliveryLogRepository = mock(DeliveryLogRepository.class);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(zSetOperations.rangeByScore(eq(DEFERRED_INDEX_KEY), eq(0.0), anyDouble(), eq(0L), eq(10L)))
+                .thenReturn(new LinkedHashSet<>(List.of(BUCKET)));
+        when(valueOperations.setIfAbsent(eq(DEFERRED_LOCK_KEY_PREFIX + BUCKET), anyString(), any())).thenReturn(true);
+        when(listOperations.range(eq(BUCKET_KEY), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long end = Math.min(invocation.<Long>getArgument(2) + 1, bucket.size());
+            return new ArrayList<>(bucket.subList(0, (int) end));
+        });
+        when(listOperations.size(BUCKET_KEY)).thenAnswer(invocation -> (long) bucket.size());
+        doAnswer(invocation -> {
+            bucket.subList(0, (int) (long) invocation.<Long>getArgument(1)).clear();
+            return null;
+        }).when(listOperations).trim(eq(BUCKET_KEY), anyLong(), eq(-1L));
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        deferredDeliveryService = new DeferredDeliveryService(redisTemplate, kafkaTemplate, messageSerializer, deliveryLogRepository,
+                new SimpleMeterRegistry(), 2, 10, 60);
+    }
+
+    @Test
+    void releaseDueDrainsTheBucketInChunksInOrder() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            bucket.add(messageSerializer.writeDeferredNotification(deferred(id, 60_000_000)));
+        }
+
+        deferredDeliveryService.releaseDue();
+
+        assertThat(bucket).isEmpty();
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(5)).send(eq("email-topic"), eq("priority-1|7"), messages.capture());
+        assertThat(messages.getAllValues()).containsExactly("message-1", "message-2", "message-3", "message-4", "message-5");
+        // Chunks of 2: three reads that found items, one that found the bucket empty
+        verify(listOperations, times(4)).range(eq(BUCKET_KEY), eq(0L), eq(1L));
+        assertThat(releasedLogs()).hasSize(5).allMatch(deliveryLog -> deliveryLog.getStatus() == Status.pending);
+        verify(zSetOperations).remove(DEFERRED_INDEX_KEY, BUCKET);
+        verify(zSetOperations, never()).add(anyString(), anyString(), anyDouble());
+        verify(redisTemplate).delete(DEFERRED_LOCK_KEY_PREFIX + BUCKET);
+    }
+
+    @Test
+    void aBucketLockedByAnotherInstanceIsLeftAlone() throws Exception {
+        bucket.add(messageSerializer.writeDeferredNotification(deferred(1, 60_000_000)));
+        when(valueOperations.setIfAbsent(eq(DEFERRED_LOCK_KEY_PREFIX + BUCKET), anyString(), any())).thenReturn(false);
+
+        deferredDeliveryService.releaseDue();
+
+        assertThat(bucket).hasSize(1);
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+        verify(redisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void aBucketParkedIntoWhileDrainingStaysIndexed() throws Exception {
+        bucket.add(messageSerializer.writeDeferredNotification(deferred(1, 60_000_000)));
+        when(listOperations.size(BUCKET_KEY)).thenReturn(1L);
+
+        deferredDeliveryService.releaseDue();
+
+        verify(zSetOperations).remove(DEFERRED_INDEX_KEY, BUCKET);
+        verify(zSetOperations).add(DEFERRED_INDEX_KEY, BUCKET, 1000.0);
+    }
+
+    @Test
+    void unreadableItemsAreDroppedAndFailedSendsParkedForTheNextMinute() throws Exception {
+        bucket.add("not json");
+        bucket.add(messageSerializer.writeDeferredNotification(deferred(1, 60_000_000)));
+        bucket.add(messageSerializer.writeDeferredNotification(deferred(2, 60_000_000)));
+        when(kafkaTemplate.send(anyString(), anyString(), eq("message-2")))
+                .thenReturn(CompletableFuture.<SendResult<String, String>>failedFuture(new IllegalStateException("broker down")));
+        StringRedisConnection connection = capturePipeline();
+
+        long before = System.currentTimeMillis() / 60_000;
+        deferredDeliveryService.releaseDue();
+
+        assertThat(bucket).isEmpty();
+        assertThat(releasedLogs()).extracting(deliveryLog -> deliveryLog.getNotification().getId()).containsExactly(1L);
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> items = ArgumentCaptor.forClass(String.class);
+        verify(connection).rPush(key.capture(), items.capture());
+        long retryMinute = Long.parseLong(key.getValue().substring(DEFERRED_BUCKET_KEY_PREFIX.length()));
+        assertThat(retryMinute).isBetween(before + 1, System.currentTimeMillis() / 60_000 + 1);
+        DeferredNotification retried = messageSerializer.readDeferredNotification(items.getValue());
+        assertThat(retried.getNotificationId()).isEqualTo(2L);
+        assertThat(retried.getReleaseAtEpochMs()).isEqualTo(retryMinute * 60_000);
+    }
+
+    @Test
+    void parkGroupsNotificationsByReleaseMinute() throws Exception {
+        StringRedisConnection connection = capturePipeline();
+
+        deferredDeliveryService.park(List.of(deferred(1, 60_000 * 7 + 5), deferred(2, 60_000 * 7 + 59_999), deferred(3, 60_000 * 8)));
+
+        verify(connection).rPush(DEFERRED_BUCKET_KEY_PREFIX + 7, messageSerializer.writeDeferredNotification(deferred(1, 60_000 * 7 + 5)),
+                messageSerializer.writeDeferredNotification(deferred(2, 60_000 * 7 + 59_999)));
+        verify(connection).rPush(DEFERRED_BUCKET_KEY_PREFIX + 8, messageSerializer.writeDeferredNotification(deferred(3, 60_000 * 8)));
+        verify(connection).zAdd(DEFERRED_INDEX_KEY, 7, "7");
+        verify(connection).zAdd(DEFERRED_INDEX_KEY, 8, "8");
+    }
+
+    @Test
+    void parkMarksTheNotificationsFailedWhenRedisIsDown() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(new IllegalStateException("redis down"));
+
+        deferredDeliveryService.park(List.of(deferred(1, 60_000)));
+
+        assertThat(releasedLogs()).singleElement().satisfies(deliveryLog -> {
+            assertThat(deliveryLog.getStatus()).isEqualTo(Status.failed);
+            assertThat(deliveryLog.getNotification().getId()).isEqualTo(1L);
+        });
+    }
+
+    // Runs the pipelined callbacks against a mock connection
+    private StringRedisConnection capturePipeline() {
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        return connection;
+    }
+
+    // Delivery logs of all saveAll() calls (one per released chunk)
+    @SuppressWarnings("unchecked")
+    private List<DeliveryLog> releasedLogs() {
+        ArgumentCaptor<Iterable<DeliveryLog>> deliveryLogs = ArgumentCaptor.forClass(Iterable.class);
+        verify(deliveryLogRepository, atLeastOnce()).saveAll(deliveryLogs.capture());
+        List<DeliveryLog> released = new ArrayList<>();
+        deliveryLogs.getAllValues().forEach(chunk -> chunk.forEach(released::add));
+        return released;
+    }
+
+    private static DeferredNotification deferred(long notificationId, long releaseAtEpochMs) {
+        return new DeferredNotification(notificationId, Channel.email, "email-topic", "priority-1|7",
+                "message-" + notificationId, releaseAtEpochMs);
+    }
+}
@@ -0,0 +1,98 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDeduplicatorTest {
+    private static final String H1 = hash(1);
+    private static final String H2 = hash(2);
+    private static final String H3 = hash(3);
+
+    private StringRedisTemplate redisTemplate;
+    private NotificationRepository notificationRepository;
+    private NotificationDeduplicator notificationDeduplicator;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        notificationRepository = mock(NotificationRepository.class);
+        notificationDeduplicator = new NotificationDeduplicator(redisTemplate, notificationRepository, new SimpleMeterRegistry(),
+                86400, 1000, 0.01, 24);
+        when(notificationRepository.findExistingHashes(anyCollection())).thenReturn(List.of());
+    }
+
+    @Test
+    void hashesClaimedInRedisAndUnknownToTheFilterAreNewWithoutADatabaseQuery() {
+        claimResults(true, true);
+
+        assertThat(notificationDeduplicator.claimNew(List.of(H1, H2))).containsExactlyInAnyOrder(H1, H2);
+        verify(notificationRepository, never()).findExistingHashes(anyCollection());
+    }
+
+    @Test
+    void hashesAlreadyClaimedInRedisAreDuplicates() {
+        claimResults(true, false, true);
+
+        assertThat(notificationDeduplicator.claimNew(List.of(H1, H2, H3))).containsExactlyInAnyOrder(H1, H3);
+        verify(notificationRepository, never()).findExistingHashes(anyCollection());
+    }
+
+    @Test
+    void hashesTheFilterHasSeenAreCheckedAgainstTheTable() {
+        // Written earlier, so past the Redis window they are only known to the filter
+        notificationDeduplicator.written(List.of(H1, H2));
+        claimResults(true, true, true);
+        when(notificationRepository.findExistingHashes(anyCollection())).thenReturn(List.of(H1));
+
+        assertThat(notificationDeduplicator.claimNew(List.of(H1, H2, H3))).containsExactlyInAnyOrder(H2, H3);
+        verify(notificationRepository).findExistingHashes(List.of(H1, H2));
+    }
+
+    @Test
+    void everyHashIsCheckedAgainstTheTableWhenRedisIsDown() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+        when(notificationRepository.findExistingHashes(anyCollection())).thenReturn(List.of(H2));
+
+        assertThat(notificationDeduplicator.claimNew(List.of(H1, H2))).containsExactly(H1);
+        verify(notificationRepository).findExistingHashes(List.of(H1, H2));
+    }
+
+    @Test
+    void releaseDeletesTheClaims() {
+        notificationDeduplicator.release(List.of(H1, H2));
+
+        verify(redisTemplate).delete(List.of("dedup:" + H1, "dedup:" + H2));
+    }
+
+    @Test
+    void releaseOfNothingSkipsRedis() {
+        notificationDeduplicator.release(List.of());
+
+        verify(redisTemplate, never()).delete(anyCollection());
+    }
+
+    private void claimResults(Boolean... results) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(new ArrayList<>(List.of(results)));
+    }
+
+    // SHA-256 hex, as produced by NotificationHelperService
+    private static String hash(int n) {
+        return String.format("%016x", n * 0x9E3779B97F4A7C15L).repeat(4);
+    }
+}
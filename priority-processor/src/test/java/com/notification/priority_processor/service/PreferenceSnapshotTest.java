@@ -0,0 +1,115 @@
+package com.notification.priority_processor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.priority_processor.models.db.Preference;
+import com.notification.priority_processor.models.db.User;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.repository.PreferenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.notification.priority_processor.service.PreferenceSnapshot.ChannelRule.ALL_PRIORITIES;
+import static com.notification.priority_processor.service.PreferenceSnapshot.ChannelRule.NO_QUIET_HOURS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreferenceSnapshotTest {
+    private static final int H22 = 22 * 60;
+    private static final int H07 = 7 * 60;
+
+    @Test
+    void quietHoursWithinADay() {
+        PreferenceSnapshot.ChannelRule rule = new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, 13 * 60, 14 * 60 + 30);
+
+        assertThat(rule.inQuietHours(13 * 60 - 1)).isFalse();
+        assertThat(rule.inQuietHours(13 * 60)).isTrue();
+        assertThat(rule.inQuietHours(14 * 60 + 29)).isTrue();
+        assertThat(rule.inQuietHours(14 * 60 + 30)).isFalse();
+        assertThat(rule.minutesUntilQuietHoursEnd(13 * 60)).isEqualTo(90);
+    }
+
+    @Test
+    void quietHoursOverMidnight() {
+        PreferenceSnapshot.ChannelRule rule = new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, H22, H07);
+
+        assertThat(rule.inQuietHours(H22 - 1)).isFalse();
+        assertThat(rule.inQuietHours(H22)).isTrue();
+        assertThat(rule.inQuietHours(23 * 60 + 59)).isTrue();
+        assertThat(rule.inQuietHours(0)).isTrue();
+        assertThat(rule.inQuietHours(H07 - 1)).isTrue();
+        assertThat(rule.inQuietHours(H07)).isFalse();
+        assertThat(rule.inQuietHours(12 * 60)).isFalse();
+    }
+
+    @Test
+    void minutesUntilQuietHoursEndCountAcrossMidnight() {
+        PreferenceSnapshot.ChannelRule rule = new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, H22, H07);
+
+        assertThat(rule.minutesUntilQuietHoursEnd(H22)).isEqualTo(9 * 60);
+        assertThat(rule.minutesUntilQuietHoursEnd(23 * 60 + 59)).isEqualTo(7 * 60 + 1);
+        assertThat(rule.minutesUntilQuietHoursEnd(0)).isEqualTo(H07);
+        assertThat(rule.minutesUntilQuietHoursEnd(H07 - 1)).isEqualTo(1);
+    }
+
+    @Test
+    void noQuietHoursAndEmptyIntervalsNeverMatch() {
+        PreferenceSnapshot.ChannelRule none = new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, NO_QUIET_HOURS, NO_QUIET_HOURS);
+        PreferenceSnapshot.ChannelRule empty = new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, H22, H22);
+
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            assertThat(none.inQuietHours(minute)).isFalse();
+            assertThat(empty.inQuietHours(minute)).isFalse();
+        }
+    }
+
+    @Test
+    void priorityMask() {
+        PreferenceSnapshot.ChannelRule rule = new PreferenceSnapshot.ChannelRule(true, (1 << 1) | (1 << 3), NO_QUIET_HOURS, NO_QUIET_HOURS);
+
+        assertThat(rule.allowsPriority(1)).isTrue();
+        assertThat(rule.allowsPriority(2)).isFalse();
+        assertThat(rule.allowsPriority(3)).isTrue();
+        assertThat(rule.allowsPriority(-1)).isFalse();
+        assertThat(rule.allowsPriority(Integer.SIZE)).isFalse();
+    }
+
+    @Test
+    void preferenceCacheCompilesTheJsonColumnsOnce() {
+        PreferenceRepository preferenceRepository = mock(PreferenceRepository.class);
+        when(preferenceRepository.findByUserIdIn(anyCollection())).thenReturn(List.of(
+                preference(1L, Channel.email, "[1, 2]", "{\"quietHoursEnabled\": true, \"start\": \"22:00\", \"end\": \"07:00\"}"),
+                preference(1L, Channel.sms, "not json", "{\"quietHoursEnabled\": false, \"start\": \"22:00\", \"end\": \"07:00\"}"),
+                preference(1L, Channel.push, "[3]", "not json")));
+        PreferenceCache preferenceCache = new PreferenceCache(preferenceRepository, new ObjectMapper(), new SimpleMeterRegistry(), 100, 300);
+
+        Map<Long, PreferenceSnapshot> snapshots = preferenceCache.getPreferences(List.of(1L, 2L));
+        preferenceCache.getPreferences(List.of(1L, 2L));
+
+        verify(preferenceRepository, times(1)).findByUserIdIn(anyCollection());
+        PreferenceSnapshot snapshot = snapshots.get(1L);
+        assertThat(snapshot.get(Channel.email)).isEqualTo(new PreferenceSnapshot.ChannelRule(true, (1 << 1) | (1 << 2), H22, H07));
+        // Unparseable columns fall back to all priorities / no quiet hours
+        assertThat(snapshot.get(Channel.sms)).isEqualTo(new PreferenceSnapshot.ChannelRule(true, ALL_PRIORITIES, NO_QUIET_HOURS, NO_QUIET_HOURS));
+        assertThat(snapshot.get(Channel.push).quietStartMinute()).isEqualTo(NO_QUIET_HOURS);
+        // Users without preferences are cached as an empty snapshot
+        assertThat(snapshots.get(2L)).isSameAs(PreferenceSnapshot.EMPTY);
+    }
+
+    private static Preference preference(Long userId, Channel channel, String allowedMessagesPriority, String quietHours) {
+        User user = new User();
+        user.setId(userId);
+        Preference preference = new Preference();
+        preference.setUser(user);
+        preference.setChannel(channel);
+        preference.setAllowedMessagesPriority(allowedMessagesPriority);
+        preference.setQuietHours(quietHours);
+        return preference;
+    }
+}
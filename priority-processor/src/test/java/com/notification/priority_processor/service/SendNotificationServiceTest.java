@@ -0,0 +1,230 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.DeferredNotification;
+import com.notification.priority_processor.models.db.DeliveryLog;
+import com.notification.priority_processor.models.db.Notification;
+import com.notification.priority_processor.models.db.User;
+import com.notification.priority_processor.models.enums.Channel;
+import com.notification.priority_processor.models.enums.Status;
+import com.notification.priority_processor.repository.DeliveryLogRepository;
+import com.notification.priority_processor.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SendNotificationServiceTest {
+    private static final String TOPIC = "email-topic";
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private NotificationRepository notificationRepository;
+    private DeliveryLogRepository deliveryLogRepository;
+    private TransactionTemplate transactionTemplate;
+    private NotificationDeduplicator notificationDeduplicator;
+    private DeferredDeliveryService deferredDeliveryService;
+    private SendNotificationService sendNotificationService;
+
+    // Notifications passed to saveAll(), per transaction
+    private final List<List<Notification>> savedBatches = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        notificationRepository = mock(NotificationRepository.class);
+        deliveryLogRepository = mock(DeliveryLogRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        notificationDeduplicator = mock(NotificationDeduplicator.class);
+        deferredDeliveryService = mock(DeferredDeliveryService.class);
+        sendNotificationService = new SendNotificationService(kafkaTemplate, notificationRepository, deliveryLogRepository,
+                mock(MessageSerializer.class), mock(NotificationHelperService.class), transactionTemplate,
+                notificationDeduplicator, deferredDeliveryService);
+
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(new CompletableFuture<>());
+        when(notificationDeduplicator.claimNew(anyCollection())).thenAnswer(invocation -> new HashSet<>(invocation.<Collection<String>>getArgument(0)));
+        when(notificationRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Notification> notifications = new ArrayList<>();
+            invocation.<Iterable<Notification>>getArgument(0).forEach(notification -> {
+                notification.setId(ids.incrementAndGet());
+                notifications.add(notification);
+            });
+            savedBatches.add(notifications);
+            return notifications;
+        });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void flushWritesTheBatchInOneTransactionAndForwardsIt() {
+        NotificationWriteBatch batch = batchOf(allowed("h1"), allowed("h2"), allowed("h3"));
+
+        sendNotificationService.flush(batch);
+
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        assertThat(savedBatches).hasSize(1);
+        assertThat(hashes(savedBatches.get(0))).containsExactly("h1", "h2", "h3");
+        verify(kafkaTemplate, times(3)).send(eq(TOPIC), anyString(), anyString());
+        verify(notificationDeduplicator).written(List.of("h1", "h2", "h3"));
+    }
+
+    @Test
+    void flushDropsRepeatedHashesWithinTheBatch() {
+        NotificationWriteBatch batch = batchOf(allowed("h1"), allowed("h1"), allowed("h2"));
+
+        sendNotificationService.flush(batch);
+
+        verify(notificationDeduplicator).claimNew(new HashSet<>(List.of("h1", "h2")));
+        assertThat(hashes(savedBatches.get(0))).containsExactly("h1", "h2");
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), anyString(), anyString());
+    }
+
+    @Test
+    void flushDropsHashesTheDeduplicatorHasSeen() {
+        when(notificationDeduplicator.claimNew(anyCollection())).thenReturn(new HashSet<>(List.of("h2")));
+
+        sendNotificationService.flush(batchOf(allowed("h1"), allowed("h2"), allowed("h3")));
+
+        assertThat(hashes(savedBatches.get(0))).containsExactly("h2");
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), anyString(), anyString());
+    }
+
+    @Test
+    void flushWritesNothingWhenEveryHashIsADuplicate() {
+        when(notificationDeduplicator.claimNew(anyCollection())).thenReturn(new HashSet<>());
+
+        sendNotificationService.flush(batchOf(allowed("h1")));
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void flushLogsButDoesNotSendDisallowedNotifications() {
+        sendNotificationService.flush(batchOf(allowed("h1"), new NotificationWriteBatch.Entry(
+                notification("h2"), false, "preferences", TOPIC, "priority-1|1", id -> "message-" + id, "h2", 0)));
+
+        ArgumentCaptor<Iterable<DeliveryLog>> deliveryLogs = deliveryLogCaptor();
+        verify(deliveryLogRepository).saveAll(deliveryLogs.capture());
+        assertThat(deliveryLogs.getValue()).extracting(DeliveryLog::getStatus).containsExactly(Status.pending, Status.failed);
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), anyString(), eq("message-101"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushParksDeferredNotificationsInsteadOfSendingThem() {
+        sendNotificationService.flush(batchOf(allowed("h1"), new NotificationWriteBatch.Entry(
+                notification("h2"), true, "quiet hours", TOPIC, "priority-1|1", id -> "message-" + id, "h2", 5000)));
+
+        ArgumentCaptor<List<DeferredNotification>> parked = ArgumentCaptor.forClass(List.class);
+        verify(deferredDeliveryService).park(parked.capture());
+        assertThat(parked.getValue()).singleElement().satisfies(deferred -> {
+            assertThat(deferred.getNotificationId()).isEqualTo(102L);
+            assertThat(deferred.getMessage()).isEqualTo("message-102");
+            assertThat(deferred.getReleaseAtEpochMs()).isEqualTo(5000);
+        });
+        ArgumentCaptor<Iterable<DeliveryLog>> deliveryLogs = deliveryLogCaptor();
+        verify(deliveryLogRepository).saveAll(deliveryLogs.capture());
+        assertThat(deliveryLogs.getValue()).extracting(DeliveryLog::getStatus).containsExactly(Status.pending, Status.deferred);
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void flushFallsBackToOneTransactionPerNotificationOnADuplicateKey() {
+        // The batch transaction hits the unique hash; then h2 is the duplicate and h3 fails for another reason
+        int[] transactions = {0};
+        doAnswer(invocation -> {
+            transactions[0]++;
+            if (transactions[0] == 1 || transactions[0] == 3) {
+                throw new DataIntegrityViolationException("duplicate notificationHash");
+            }
+            if (transactions[0] == 4) {
+                throw new IllegalStateException("connection reset");
+            }
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        NotificationWriteBatch batch = batchOf(allowed("h1"), allowed("h2"), allowed("h3"));
+        batch.getEntries().forEach(entry -> entry.notification().setId(1L));
+
+        sendNotificationService.flush(batch);
+
+        assertThat(transactions[0]).isEqualTo(4);
+        assertThat(savedBatches).hasSize(1);
+        assertThat(hashes(savedBatches.get(0))).containsExactly("h1");
+        // IDs handed out by the rolled back batch are cleared before the retry
+        assertThat(batch.getEntries().get(1).notification().getId()).isNull();
+        verify(notificationDeduplicator).written(List.of("h1"));
+        verify(notificationDeduplicator).release(List.of("h3"));
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), anyString(), eq("message-101"));
+    }
+
+    @Test
+    void flushReleasesTheClaimsWhenTheBatchFails() {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("database down");
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThatThrownBy(() -> sendNotificationService.flush(batchOf(allowed("h1"), allowed("h2"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(notificationDeduplicator).release(List.of("h1", "h2"));
+        verify(notificationDeduplicator, never()).written(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    private static NotificationWriteBatch batchOf(NotificationWriteBatch.Entry... entries) {
+        NotificationWriteBatch batch = new NotificationWriteBatch();
+        for (NotificationWriteBatch.Entry entry : entries) {
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private static NotificationWriteBatch.Entry allowed(String hash) {
+        return new NotificationWriteBatch.Entry(notification(hash), true, "Scheduled to kafka", TOPIC, "priority-1|1",
+                id -> "message-" + id, hash, 0);
+    }
+
+    private static Notification notification(String hash) {
+        User user = new User();
+        user.setId(1L);
+        return new Notification(user, Channel.email, "message", "{}", hash);
+    }
+
+    private static List<String> hashes(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getNotificationHash).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Iterable<DeliveryLog>> deliveryLogCaptor() {
+        return ArgumentCaptor.forClass(Iterable.class);
+    }
+}
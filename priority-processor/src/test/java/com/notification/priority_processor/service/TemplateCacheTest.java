@@ -0,0 +1,75 @@
+package com.notification.priority_processor.service;
+
+import com.notification.priority_processor.models.db.Template;
+import com.notification.priority_processor.repository.TemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TemplateCacheTest {
+    private TemplateRepository templateRepository;
+    private TemplateCache templateCache;
+
+    @BeforeEach
+    void setUp() {
+        templateRepository = mock(TemplateRepository.class);
+        when(templateRepository.findByNameIn(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .filter(name -> name.startsWith("welcome"))
+                .map(TemplateCacheTest::template)
+                .toList());
+        // ttl-seconds = 0: kept until invalidated or evicted by size
+        templateCache = new TemplateCache(templateRepository, 100, 0);
+    }
+
+    @Test
+    void templatesAreLoadedOnceAndKept() {
+        assertThat(templateCache.getTemplates(List.of("welcome", "welcome-back"))).containsOnlyKeys("welcome", "welcome-back");
+        assertThat(templateCache.getTemplates(List.of("welcome"))).containsOnlyKeys("welcome");
+
+        verify(templateRepository, times(1)).findByNameIn(anyCollection());
+    }
+
+    @Test
+    void onlyMissesAreLoaded() {
+        templateCache.getTemplates(List.of("welcome"));
+
+        templateCache.getTemplates(List.of("welcome", "welcome-back"));
+
+        verify(templateRepository).findByNameIn(Set.of("welcome-back"));
+    }
+
+    @Test
+    void unknownTemplatesAreNotCached() {
+        assertThat(templateCache.getTemplates(List.of("missing"))).isEmpty();
+        templateCache.getTemplates(List.of("missing"));
+
+        verify(templateRepository, times(2)).findByNameIn(Set.of("missing"));
+    }
+
+    @Test
+    void anInvalidatedTemplateIsLoadedAgain() {
+        templateCache.getTemplates(List.of("welcome"));
+
+        templateCache.invalidate("welcome");
+        templateCache.getTemplates(List.of("welcome"));
+
+        verify(templateRepository, times(2)).findByNameIn(Set.of("welcome"));
+    }
+
+    private static Template template(String name) {
+        Template template = new Template();
+        template.setName(name);
+        template.setContent("Hi {name}");
+        return template;
+    }
+}
@@ -1,13 +0,0 @@
-package com.notification.priority1_processor;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class Priority1ProcessorApplication {
-
-	public static void main(String[] args) {
-		SpringApplication.run(Priority1ProcessorApplication.class, args);
-	}
-
-}
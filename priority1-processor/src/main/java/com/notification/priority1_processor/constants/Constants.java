@@ -1,10 +0,0 @@
-package com.notification.priority1_processor.constants;
-
-public class Constants {
-    public static final String TOPIC_PRIORITY_1 = "priority-1";
-    public static final String PRIORITY_KEY_FOR_PARTITIONS = "priority-1";
-    public static final int PRIORITY = 1;
-    public static final String SMS_TOPIC = "sms-topic";
-    public static final String EMAIL_TOPIC = "email-topic";
-    public static final String PUSH_N_TOPIC = "push-n-topic";
-}
\ No newline at end of file
@@ -1,41 +0,0 @@
-package com.notification.priority1_processor.models.db;
-
-import com.notification.priority1_processor.models.enums.Channel;
-import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "preferences")
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class Preference {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @ManyToOne
-    @JoinColumn(name = "user_id", nullable = false)
-    private User user;
-
-    @Enumerated(EnumType.STRING)
-    private Channel channel;
-
-    private boolean isEnabled = true;
-
-    @Column(columnDefinition = "JSON")
-    private String allowedMessagesPriority;
-
-    @Column(columnDefinition = "JSON")
-    private String quietHours;
-
-    @Column(name = "created_at", updatable = false)
-    private LocalDateTime createdAt = LocalDateTime.now();
-
-    @Column(name = "updated_at")
-    private LocalDateTime updatedAt = LocalDateTime.now();
-}
@@ -1,5 +0,0 @@
-package com.notification.priority1_processor.models.enums;
-
-public enum Channel {
-    email, sms, push
-}
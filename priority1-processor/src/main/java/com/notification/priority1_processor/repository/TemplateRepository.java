@@ -1,13 +0,0 @@
-package com.notification.priority1_processor.repository;
-
-import com.notification.priority1_processor.models.db.Template;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-
-@Repository
-public interface TemplateRepository extends JpaRepository<Template, Long> {
-    // Find a template by name
-    Optional<Template> findByName(String name);
-}
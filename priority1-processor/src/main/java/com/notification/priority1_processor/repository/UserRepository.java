@@ -1,13 +0,0 @@
-package com.notification.priority1_processor.repository;
-
-import com.notification.priority1_processor.models.db.User;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-
-@Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    Optional<User> findByEmail(String email);
-}
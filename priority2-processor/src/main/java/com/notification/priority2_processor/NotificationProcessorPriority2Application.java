@@ -1,13 +0,0 @@
-package com.notification.priority2_processor;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class NotificationProcessorPriority2Application {
-
-	public static void main(String[] args) {
-		SpringApplication.run(NotificationProcessorPriority2Application.class, args);
-	}
-
-}
@@ -1,10 +0,0 @@
-package com.notification.priority2_processor.constants;
-
-public class Constants {
-    public static final String TOPIC_PRIORITY_2 = "priority-2";
-    public static final String PRIORITY_KEY_FOR_PARTITIONS = "priority-2";
-    public static final int PRIORITY = 2;
-    public static final String SMS_TOPIC = "sms-topic";
-    public static final String EMAIL_TOPIC = "email-topic";
-    public static final String PUSH_N_TOPIC = "push-n-topic";
-}
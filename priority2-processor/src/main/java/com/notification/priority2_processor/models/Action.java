@@ -1,12 +0,0 @@
-package com.notification.priority2_processor.models;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class Action {
-    private String url;
-}
@@ -1,37 +0,0 @@
-package com.notification.priority2_processor.models.db;
-
-import jakarta.persistence.*;
-import lombok.*;
-
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "templates")
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class Template {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    private String name;
-
-    @Column(columnDefinition = "TEXT")
-    private String content;
-
-    @Column(columnDefinition = "JSON")
-    private String placeholders;
-
-    @Column(name = "template_priority")
-    private int templatePriority;
-
-    @Column(name = "created_at", updatable = false)
-    private LocalDateTime createdAt = LocalDateTime.now();
-
-    @Column(name = "updated_at")
-    private LocalDateTime updatedAt = LocalDateTime.now();
-}
-
-
-
@@ -1,5 +0,0 @@
-package com.notification.priority2_processor.models.enums;
-
-public enum Channel {
-    email, sms, push
-}
@@ -1,24 +0,0 @@
-package com.notification.priority2_processor.models.requests;
-
-import com.fasterxml.jackson.databind.JsonNode;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class EmailRequest {
-    private String emailId;
-    private String message;
-    private String emailSubject;
-    private String[] emailAttachments;
-    private Long notificationId;
-
-    public EmailRequest(String emailId, String message, String emailSubject, String[] emailAttachments){
-        this.emailId = emailId;
-        this.message = message;
-        this.emailSubject = emailSubject;
-        this.emailAttachments = emailAttachments;
-    }
-}
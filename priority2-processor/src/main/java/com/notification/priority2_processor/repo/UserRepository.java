@@ -1,14 +0,0 @@
-package com.notification.priority2_processor.repo;
-
-import com.notification.priority2_processor.models.db.User;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-
-@Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    Optional<User> findByEmail(String email);
-}
-
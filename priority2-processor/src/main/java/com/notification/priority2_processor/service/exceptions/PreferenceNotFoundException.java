@@ -1,8 +0,0 @@
-package com.notification.priority2_processor.service.exceptions;
-
-public class PreferenceNotFoundException extends RuntimeException {
-    public PreferenceNotFoundException(String message) {
-        super(message);
-    }
-}
-
@@ -1,8 +0,0 @@
-package com.notification.priority2_processor.service.exceptions;
-
-public class TemplateNotFoundException extends RuntimeException {
-    public TemplateNotFoundException(String message) {
-        super(message);
-    }
-}
-
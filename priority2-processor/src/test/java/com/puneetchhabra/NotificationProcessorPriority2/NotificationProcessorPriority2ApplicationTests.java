@@ -1,13 +0,0 @@
-package com.notification.priority2_processor;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@SpringBootTest
-class NotificationProcessorPriority2ApplicationTests {
-
-	@Test
-	void contextLoads() {
-	}
-
-}
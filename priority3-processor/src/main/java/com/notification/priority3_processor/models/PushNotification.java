@@ -1,12 +0,0 @@
-package com.notification.priority3_processor.models;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor @AllArgsConstructor
-public class PushNotification {
-    private String title;
-    private Action action;
-}
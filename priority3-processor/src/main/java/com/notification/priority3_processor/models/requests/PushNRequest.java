@@ -1,21 +0,0 @@
-package com.notification.priority3_processor.models.requests;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class PushNRequest {
-    private String title;
-    private String message;
-    private String action;
-    private Long notificationId;
-
-    public PushNRequest(String title, String message, String action){
-        this.title = title;
-        this.message = message;
-        this.action = action;
-    }
-}
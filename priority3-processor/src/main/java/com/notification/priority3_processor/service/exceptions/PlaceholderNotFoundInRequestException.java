@@ -1,8 +0,0 @@
-package com.notification.priority3_processor.service.exceptions;
-
-public class PlaceholderNotFoundInRequestException extends RuntimeException {
-    public PlaceholderNotFoundInRequestException(String message) {
-        super(message);
-    }
-}
-
@@ -1,8 +0,0 @@
-package com.notification.priority3_processor.service.exceptions;
-
-public class PreferenceNotFoundException extends RuntimeException {
-    public PreferenceNotFoundException(String message) {
-        super(message);
-    }
-}
-
@@ -1,8 +0,0 @@
-package com.notification.priority3_processor.service.exceptions;
-
-public class TemplateNotFoundException extends RuntimeException {
-    public TemplateNotFoundException(String message) {
-        super(message);
-    }
-}
-
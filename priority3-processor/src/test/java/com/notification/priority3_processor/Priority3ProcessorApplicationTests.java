@@ -1,13 +0,0 @@
-package com.notification.priority3_processor;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@SpringBootTest
-class Priority3ProcessorApplicationTests {
-
-	@Test
-	void contextLoads() {
-	}
-
-}
@@ -0,0 +1,29 @@
+package com.notification.pushconsumer.config;
+
+import com.notification.consumercommon.ratelimit.RateLimiter;
+import com.notification.consumercommon.ratelimit.RateLimiterFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Rate limit of the FCM API
+ *
+ * Configured by rate-limit.fcm.* (see RateLimiterFactory). Defaults match the FCM
+ * quota of 600 push notifications/minute (10/s), shared through Redis by every push-consumer instance.
+ */
+@Configuration
+public class RateLimiterConfig {
+
+    @Bean
+    public RateLimiterFactory rateLimiterFactory(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        return new RateLimiterFactory(redisTemplate, meterRegistry, environment);
+    }
+
+    @Bean
+    public RateLimiter fcmRateLimiter(RateLimiterFactory rateLimiterFactory) {
+        return rateLimiterFactory.create("fcm");
+    }
+}
@@ -0,0 +1,29 @@
+package com.notification.pushconsumer.config;
+
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.resilience.VendorGuardFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Circuit breaker and adaptive concurrency limit of the FCM calls
+ *
+ * Configured by circuit-breaker.fcm.* and concurrency-limit.fcm.* (see VendorGuardFactory).
+ * While the circuit is open, push notifications fail fast into the retry topics and
+ * PriorityAwarePartitionConsumer pauses its partitions.
+ */
+@Configuration
+public class VendorGuardConfig {
+
+    @Bean
+    public VendorGuardFactory vendorGuardFactory(MeterRegistry meterRegistry, Environment environment) {
+        return new VendorGuardFactory(meterRegistry, environment);
+    }
+
+    @Bean
+    public VendorGuard fcmGuard(VendorGuardFactory vendorGuardFactory) {
+        return vendorGuardFactory.create("fcm");
+    }
+}
@@ -5,8 +5,10 @@ package com.notification.pushconsumer.constants;
  * 
  * TOPIC: Kafka topic name for push notifications (push-topic)
  * GROUP_ID: Kafka consumer group identifier (push-consumer)
+ * CHANNEL: Prefix of the retry tier topics (push-retry-30s, ...) and the dead-letter topic (push-dlt)
  */
 public class Constants {
     public static final String TOPIC = "push-topic";
     public static final String GROUP_ID = "push-consumer";
+    public static final String CHANNEL = "push";
 }
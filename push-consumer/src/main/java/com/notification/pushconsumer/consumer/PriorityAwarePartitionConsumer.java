@@ -1,19 +1,30 @@
 package com.notification.pushconsumer.consumer;
 
+import com.notification.consumercommon.offset.OffsetCommitter;
+import com.notification.consumercommon.offset.PartitionLagTracker;
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.scheduling.PriorityLaneAssignor;
+import com.notification.consumercommon.scheduling.PriorityLanes;
+import com.notification.consumercommon.scheduling.PriorityRecordScheduler;
 import com.notification.pushconsumer.service.MessageHandlerService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.Arrays;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
 
 import static com.notification.pushconsumer.constants.Constants.GROUP_ID;
 import static com.notification.pushconsumer.constants.Constants.TOPIC;
@@ -22,75 +33,116 @@ import static com.notification.pushconsumer.constants.Constants.TOPIC;
  * PriorityAwarePartitionConsumer - Implements partition-level priority enforcement for push notifications
  * 
  * Architecture:
- * - push-topic has 3 partitions: 0 (priority1), 1 (priority2), 2 (priority3)
- * - Manually assigns all 3 partitions instead of using subscribe()
- * - Dynamically pauses/resumes partitions based on pending messages
+ * - push-topic has N partitions per priority, interleaved: 0, 3, ... (priority1), 1, 4, ... (priority2),
+ *   2, 5, ... (priority3), see PriorityLanes
+ * - Subscribes as a group; PriorityLaneAssignor gives every instance partitions of each priority,
+ *   so up to N instances can run side by side
+ * - Polls all assigned partitions together; PriorityRecordScheduler decides the order records are handled in
+ * - On revocation the records still buffered for the partition are dropped (its new owner polls them)
  * 
- * Priority Logic:
- * 1. If partition 0 (priority1) has messages:
- *    - Pause partitions 1 and 2 (process only priority1)
- * 2. Else if partition 1 (priority2) has messages:
- *    - Resume partition 1, pause partition 2 (process only priority2)
- * 3. Else:
- *    - Resume all partitions (process priority3)
+ * Vendor outage:
+ * - While the vendor's circuit breaker is open (VendorGuardConfig) all partitions are paused,
+ *   they resume on their own once it lets trial calls through
  * 
- * This ensures high-priority push notifications are always processed before lower priorities.
+ * Priority Logic (priority-scheduler.* properties):
+ * 1. While all priorities have records, they are handled 8:3:1 (deficit round-robin)
+ * 2. A priority2/priority3 record that waited longer than 10s/30s goes first
+ * 3. A priority with 500 records buffered has its partitions paused until half of them are handled
+ * 
+ * Offsets of handled records are committed in batches by OffsetCommitter (auto-commit is disabled);
+ * records replayed after a crash are skipped by DeliveryDeduplicator if already sent.
+ * Per-partition lag is published as consumer.partition.lag (PartitionLagTracker).
+ * High-priority push notifications get the largest share without starving lower priorities.
  */
 @Component
 @Slf4j
 public class PriorityAwarePartitionConsumer {
     private ConsumerFactory consumerFactory;
     private MessageHandlerService messageHandlerService;
+    private VendorGuard fcmGuard;
+    private Environment environment;
+    private MeterRegistry meterRegistry;
 
-    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, MessageHandlerService messageHandlerService) {
+    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, MessageHandlerService messageHandlerService, VendorGuard fcmGuard,
+                                          Environment environment, MeterRegistry meterRegistry) {
         this.consumerFactory = consumerFactory;
         this.messageHandlerService = messageHandlerService;
+        this.fcmGuard = fcmGuard;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
     }
 
     @EventListener
     public void onAppStarted(ApplicationStartedEvent applicationStartedEvent) {
-        KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID, "push-consumer");
-
-        TopicPartition PARTITION_PRIORITY_1 = new TopicPartition(TOPIC, 0);
-        TopicPartition PARTITION_PRIORITY_2 = new TopicPartition(TOPIC, 1);
-        TopicPartition PARTITION_PRIORITY_3 = new TopicPartition(TOPIC, 2);
+        // Offsets are committed by this loop once records are handled, not when they are polled
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, PriorityLaneAssignor.class.getName());
+        KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID, "push-consumer", null, overrides);
+
+        PriorityRecordScheduler scheduler = new PriorityRecordScheduler(environment);
+        PartitionLagTracker lagTracker = new PartitionLagTracker(meterRegistry, environment);
+        OffsetCommitter offsetCommitter = new OffsetCommitter(environment);
+
+        // Group-managed assignment, so several instances can share push-topic
+        consumer.subscribe(List.of(TOPIC), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                // Commit what was handled; buffered records are left to the new owner
+                scheduler.remove(partitions);
+                lagTracker.remove(partitions);
+                offsetCommitter.revoked(consumer, partitions);
+                log.info("Partitions revoked: {}", partitions);
+            }
 
-        consumer.assign(Arrays.asList(
-                PARTITION_PRIORITY_1,
-                PARTITION_PRIORITY_2,
-                PARTITION_PRIORITY_3
-        ));
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                offsetCommitter.assigned(partitions);
+                log.info("Partitions assigned: {}", partitions);
+            }
+        });
 
+        // Set while all partitions are paused because the vendor is unavailable
+        boolean pausedForVendor = false;
         while (true) {
             try {
-                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(Arrays.asList(
-                        PARTITION_PRIORITY_1, PARTITION_PRIORITY_2, PARTITION_PRIORITY_3
-                ));
-
-                long positionP1 = consumer.position(PARTITION_PRIORITY_1);
-                long positionP2 = consumer.position(PARTITION_PRIORITY_2);
-                long positionP3 = consumer.position(PARTITION_PRIORITY_3);
-
-                boolean hasPriority1Messages = (endOffsets.get(PARTITION_PRIORITY_1) - positionP1) > 0;
-
-                if (hasPriority1Messages) {
-                    consumer.pause(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                    log.debug("Priority 1 messages detected. Pausing Priority 2 and 3.");
-                } else {
-                    boolean hasPriority2Messages = (endOffsets.get(PARTITION_PRIORITY_2) - positionP2) > 0;
-
-                    if (hasPriority2Messages) {
-                        consumer.pause(Arrays.asList(PARTITION_PRIORITY_3));
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2));
-                        log.debug("Priority 2 messages detected. Pausing Priority 3.");
-                    } else {
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                        log.debug("No high priority messages. Processing all partitions.");
+                // Vendor outage: take no new records until the circuit breaker lets calls through again
+                if (!fcmGuard.isAvailable()) {
+                    if (!pausedForVendor) {
+                        log.warn("FCM unavailable, pausing all partitions");
+                        pausedForVendor = true;
                     }
+                    consumer.pause(consumer.assignment());
+                    // A rebalance in this poll may assign partitions that aren't paused yet; keep what they return
+                    scheduler.addAll(consumer.poll(Duration.ofMillis(500)));
+                    continue;
+                }
+                if (pausedForVendor) {
+                    // applyBackpressure below resumes the partitions whose lane isn't full
+                    pausedForVendor = false;
+                    log.info("FCM available again, resuming partitions");
                 }
 
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
-                records.forEach(record -> processRecord(record));
+                scheduler.applyBackpressure(consumer);
+
+                // Poll all partitions at once; don't wait for more while records are buffered
+                ConsumerRecords<String, String> records = consumer.poll(scheduler.isEmpty() ? Duration.ofMillis(500) : Duration.ZERO);
+                scheduler.addAll(records);
+                // From the fetch metadata of this poll, no broker call
+                lagTracker.update(consumer);
+
+                // Handle one scheduling round, then poll again so new priority 1 records join quickly
+                for (int i = 0; i < scheduler.getRoundSize() && !scheduler.isEmpty(); i++) {
+                    ConsumerRecord<String, String> record = scheduler.next();
+                    Runnable handled = offsetCommitter.track(record);
+                    try {
+                        processRecord(record);
+                    } finally {
+                        handled.run();
+                    }
+                }
+                // Batched by offset-commit.* (see OffsetCommitter)
+                offsetCommitter.maybeCommit(consumer);
             } catch (Exception e) {
                 log.error("Error in priority-aware consumer: {}", e.getMessage(), e);
             }
@@ -100,10 +152,10 @@ public class PriorityAwarePartitionConsumer {
     private void processRecord(ConsumerRecord record) {
         log.debug("Record Received: \n" + "Offset: " + record.offset()
                 + ", Key: " + record.key() + ", Value: " + record.value());
-        processMessage(record.value().toString());
+        processMessage(record.value().toString(), PriorityLanes.priorityOf(record.partition()));
     }
 
-    private void processMessage(String message) {
-        messageHandlerService.handlePushRequest(message);
+    private void processMessage(String message, int priority) {
+        messageHandlerService.handlePushRequest(message, priority);
     }
 }
@@ -0,0 +1,68 @@
+package com.notification.pushconsumer.consumer;
+
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryTopicConsumer;
+import com.notification.pushconsumer.service.MessageHandlerService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static com.notification.pushconsumer.constants.Constants.GROUP_ID;
+
+/**
+ * Retry Topics Consumer
+ *
+ * Runs one RetryTopicConsumer thread (and consumer group) per retry tier topic, see RetryConfig.
+ * Failed push notifications come back through MessageHandlerService.handleRetryRequest once their backoff is
+ * over, next to - not in - the priority loop of PriorityAwarePartitionConsumer. Like that loop,
+ * they pause while the vendor's circuit breaker is open.
+ */
+@Component
+@Slf4j
+public class RetryTopicsConsumer {
+    private ConsumerFactory consumerFactory;
+    private RetryPolicy retryPolicy;
+    private MessageHandlerService messageHandlerService;
+    private VendorGuard fcmGuard;
+    private List<RetryTopicConsumer> retryConsumers = new ArrayList<>();
+
+    public RetryTopicsConsumer(ConsumerFactory consumerFactory, RetryPolicy retryPolicy, MessageHandlerService messageHandlerService,
+                               VendorGuard fcmGuard){
+        this.consumerFactory = consumerFactory;
+        this.retryPolicy = retryPolicy;
+        this.messageHandlerService = messageHandlerService;
+        this.fcmGuard = fcmGuard;
+    }
+
+    // Ahead of PriorityAwarePartitionConsumer, whose listener never returns
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAppStarted(ApplicationStartedEvent applicationStartedEvent){
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        for (String topic : retryPolicy.getTierTopics()) {
+            Consumer<String, String> consumer = (Consumer<String, String>) consumerFactory.createConsumer(GROUP_ID + "." + topic, topic, null, overrides);
+            RetryTopicConsumer retryConsumer = new RetryTopicConsumer(consumer, topic, messageHandlerService::handleRetryRequest, fcmGuard::isAvailable);
+            retryConsumers.add(retryConsumer);
+            new Thread(retryConsumer, topic + "-consumer").start();
+            log.info("Consuming retries from {}", topic);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        retryConsumers.forEach(RetryTopicConsumer::stop);
+    }
+}
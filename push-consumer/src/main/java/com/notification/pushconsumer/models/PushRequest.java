@@ -21,6 +21,10 @@ public class PushRequest {
     private String message;
     private String action;
     private Long notificationId;
+    // Not sent by priority-processor: set from the partition, kept when the request is republished for a retry
+    private int priority;
+    // Deliveries already attempted, counted by FailedNotificationsHandlerService
+    private int attempt;
 
     public PushRequest(String title, String message, String action) {
         this.title = title;
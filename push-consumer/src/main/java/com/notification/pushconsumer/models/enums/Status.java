@@ -6,5 +6,6 @@ package com.notification.pushconsumer.models.enums;
 public enum Status {
     pending,
     sent,
-    failed
+    failed,
+    deferred    // parked by priority-processor until it may be sent (e.g. the user's quiet hours end)
 }
@@ -1,18 +1,125 @@
 package com.notification.pushconsumer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryPublisher;
 import com.notification.pushconsumer.models.PushRequest;
+import com.notification.pushconsumer.models.db.DeliveryLog;
+import com.notification.pushconsumer.models.db.Notification;
+import com.notification.pushconsumer.models.enums.Channel;
+import com.notification.pushconsumer.models.enums.Status;
+import com.notification.pushconsumer.repo.DeliveryLogRepository;
+import com.notification.pushconsumer.repo.NotificationRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+import java.util.Optional;
+
 /**
  * FailedNotificationsHandlerService - Handles failed push notification delivery attempts
+ *
+ * Responsibilities:
+ * 1. Republish the failed request to a retry tier topic (push-retry-30s / -5m / -1h), with
+ *    jittered exponential backoff and a number of attempts depending on its priority (RetryPolicy)
+ * 2. Once its attempts are used up: publish it to the dead-letter topic push-dlt and mark the
+ *    notification failed
+ * 3. Record every failed attempt in delivery_logs (status failed, vendor error, what happens next)
+ * 4. Requeue requests the VendorGuard refused (vendor not called) without counting an attempt
+ *
+ * Nothing is retried inline: the poll loop moves on to the next record right away.
  */
 @Service
 @Slf4j
 public class FailedNotificationsHandlerService {
-    
-    public void handleFailedRequest(PushRequest pushRequest) {
-        log.error("Failed to send push notification for Notification Id: {}. PushRequest: {}", 
-                 pushRequest.getNotificationId(), pushRequest);
+    ObjectWriter pushRequestWriter;
+    RetryPolicy retryPolicy;
+    RetryPublisher retryPublisher;
+    DeliveryLogRepository deliveryLogRepository;
+    NotificationRepository notificationRepository;
+
+    public FailedNotificationsHandlerService(ObjectMapper mapper, RetryPolicy retryPolicy, RetryPublisher retryPublisher,
+                                             DeliveryLogRepository deliveryLogRepository,
+                                             NotificationRepository notificationRepository) {
+        this.pushRequestWriter = mapper.writerFor(PushRequest.class);
+        this.retryPolicy = retryPolicy;
+        this.retryPublisher = retryPublisher;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Handle failed push notification request: schedule its retry, or give up on it
+     *
+     * @param pushRequest The failed push notification request
+     * @param error        What went wrong (vendor status and response)
+     */
+    public void handleFailedRequest(PushRequest pushRequest, String error) {
+        int attemptsMade = pushRequest.getAttempt() + 1;
+        pushRequest.setAttempt(attemptsMade);
+        RetryPolicy.RetryDecision decision = retryPolicy.next(pushRequest.getPriority(), attemptsMade);
+        String attempt = "Attempt " + attemptsMade + " of " + retryPolicy.maxAttempts(pushRequest.getPriority()) + " failed: " + error;
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(pushRequest.getNotificationId(), null),
+                    pushRequestWriter.writeValueAsString(pushRequest));
+        } catch (Exception exception) {
+            log.error("Failed to send push notification for Notification Id: {} and could not publish it to {}, giving up. PushRequest: {}. Exception: {}",
+                    pushRequest.getNotificationId(), decision.topic(), pushRequest, exception.toString());
+            recordAttempt(pushRequest, attempt + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+
+        if (decision.deadLetter()) {
+            log.error("Failed to send push notification for Notification Id: {}, no attempts left, moved to {}. PushRequest: {}",
+                    pushRequest.getNotificationId(), decision.topic(), pushRequest);
+            recordAttempt(pushRequest, attempt + ". Moved to " + decision.topic(), true);
+        } else {
+            log.warn("Failed to send push notification for Notification Id: {} (attempt {}), retrying in {} ms via {}",
+                    pushRequest.getNotificationId(), attemptsMade, decision.delayMs(), decision.topic());
+            recordAttempt(pushRequest, attempt + ". Retry in " + decision.delayMs() / 1000 + "s via " + decision.topic(), false);
+        }
+    }
+
+    /**
+     * Handle a request the vendor guard refused (circuit open, no concurrency slot): the vendor
+     * was not called, so it goes back to its retry tier with its attempt count unchanged
+     *
+     * @param pushRequest The refused push request
+     * @param reason      Why it was refused
+     */
+    public void handleRefusedRequest(PushRequest pushRequest, String reason) {
+        RetryPolicy.RetryDecision decision = retryPolicy.requeue(pushRequest.getAttempt());
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(pushRequest.getNotificationId(), null),
+                    pushRequestWriter.writeValueAsString(pushRequest));
+        } catch (Exception exception) {
+            log.error("Push for Notification Id: {} not sent ({}) and could not be published to {}, giving up. PushRequest: {}. Exception: {}",
+                    pushRequest.getNotificationId(), reason, decision.topic(), pushRequest, exception.toString());
+            recordAttempt(pushRequest, "Not sent: " + reason + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+        log.warn("Push for Notification Id: {} not sent ({}), requeued in {} ms via {}",
+                pushRequest.getNotificationId(), reason, decision.delayMs(), decision.topic());
+    }
+
+    private void recordAttempt(PushRequest pushRequest, String errorMessage, boolean givenUp) {
+        try {
+            Optional<Notification> notification = notificationRepository.findById(pushRequest.getNotificationId());
+            if (notification.isEmpty()) {
+                log.error("Notification with Id: " + pushRequest.getNotificationId() + " Not found while trying to create delivery log of failed attempt");
+                return;
+            }
+            if (givenUp) {
+                notification.get().setStatus(Status.failed);
+                notificationRepository.save(notification.get());
+            }
+            deliveryLogRepository.save(new DeliveryLog(notification.get(), Channel.push, Status.failed, errorMessage));
+        } catch (Exception exception) {
+            log.error("Exception while creating delivery log of failed attempt for pushRequest: {}", pushRequest);
+            log.error("Exception: {}", exception.toString());
+        }
     }
 }
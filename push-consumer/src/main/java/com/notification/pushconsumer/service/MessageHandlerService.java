@@ -1,74 +1,86 @@
 package com.notification.pushconsumer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.ratelimit.RateLimiter;
 import com.notification.pushconsumer.models.PushRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalTime;
-
 /**
  * MessageHandlerService - Handles rate limiting and JSON deserialization for push notification requests
  * 
  * Responsibilities:
- * 1. Rate limiting: Enforces 600 push notifications/minute limit
+ * 1. Rate limiting: Enforces the push provider (FCM) rate limit, see RateLimiterConfig
  * 2. JSON deserialization: Parses Kafka message string to PushRequest object
  * 3. Delegates to PushProcessingService for actual push notification sending
+ * 4. Sends retries of failed push notifications, from the retry tier topics (see RetryTopicsConsumer)
+ * 5. Skips push notifications already delivered (DeliveryDeduplicator), e.g. replayed after a restart
  */
 @Service
 @Slf4j
 public class MessageHandlerService {
-    ObjectMapper mapper;
+    // Built once: a reader bound to PushRequest skips the per-message type lookup and the JsonNode tree
+    ObjectReader pushRequestReader;
     PushProcessingService pushProcessingService;
+    RateLimiter fcmRateLimiter;
+    DeliveryDeduplicator deliveryDeduplicator;
 
-    public MessageHandlerService(ObjectMapper mapper, PushProcessingService pushProcessingService) {
-        this.mapper = mapper;
+    public MessageHandlerService(ObjectMapper mapper, PushProcessingService pushProcessingService, RateLimiter fcmRateLimiter,
+                                 DeliveryDeduplicator deliveryDeduplicator) {
+        this.pushRequestReader = mapper.readerFor(PushRequest.class);
         this.pushProcessingService = pushProcessingService;
+        this.fcmRateLimiter = fcmRateLimiter;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
-    
-    private int sentRequests = 0;
-    private LocalTime startTime = LocalTime.now();
-    private LocalTime endTime = startTime.plusMinutes(1);
 
-    public void handlePushRequest(String pushRequestString) {
+    /**
+     * @param priority 1 (highest) to 3, from the partition the record came from
+     */
+    public void handlePushRequest(String pushRequestString, int priority) {
         log.info("Push Request Received: " + pushRequestString);
 
-        if (sentRequests == 0) {
-            startTime = LocalTime.now();
-            endTime = startTime.plusMinutes(1);
-        }
-        
         try {
-            JsonNode pushRequestJson = mapper.readTree(pushRequestString);
-            PushRequest pushRequest = mapper.treeToValue(pushRequestJson, PushRequest.class);
+            PushRequest pushRequest = pushRequestReader.readValue(pushRequestString);
             log.debug("Successfully parsed Consumed Push Request: {}", pushRequest.toString());
-            
-            try {
-                pushProcessingService.processPush(pushRequest);
-                sentRequests++;
-            } catch (Exception exception) {
-                log.error("Unexpected Exception in PushProcessingService while processing Push Request: {}", pushRequest);
-                log.error("Exception: {}", exception.toString());
-            }
+            // Kept with the request in case it has to be retried
+            pushRequest.setPriority(priority);
+            processPushRequest(pushRequest);
         } catch (JsonProcessingException jsonProcessingException) {
             log.error("Error parsing kafka consumed message to JSON. Exception: \n {}", jsonProcessingException.toString());
         }
+    }
+
+    /**
+     * Retry of a failed push notification, called by RetryTopicsConsumer once it is due
+     */
+    public void handleRetryRequest(String pushRequestString) {
+        log.info("Push Retry Request Received: " + pushRequestString);
+
+        try {
+            processPushRequest(pushRequestReader.readValue(pushRequestString));
+        } catch (JsonProcessingException jsonProcessingException) {
+            log.error("Error parsing retried kafka message to JSON. Exception: \n {}", jsonProcessingException.toString());
+        }
+    }
 
-        if (LocalTime.now().isAfter(endTime)) {
-            sentRequests = 0;
+    private void processPushRequest(PushRequest pushRequest) {
+        // Replayed after a restart/rebalance, or retried, after it was already sent
+        if (deliveryDeduplicator.isDelivered(pushRequest.getNotificationId())) {
+            log.info("Notification {} already delivered, skipping", pushRequest.getNotificationId());
+            return;
         }
-        
-        if (sentRequests >= 600) {
-            try {
-                log.debug("Rate Limit of this minute reached. Forcing thread to sleep for remaining " + 
-                         (endTime.getSecond() - LocalTime.now().getSecond()) + " seconds");
-                Thread.sleep((endTime.getSecond() - LocalTime.now().getSecond()) * 1000);
-                sentRequests = 0;
-            } catch (InterruptedException e) {
-                log.error("Unexpected error while thread sleeping w.r.t Rate limiting: " + e.toString());
-            }
+        try {
+            fcmRateLimiter.acquire();
+            pushProcessingService.processPush(pushRequest);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for FCM rate limit. Push Request not sent: {}", pushRequest);
+        } catch (Exception exception) {
+            log.error("Unexpected Exception in PushProcessingService while processing Push Request: {}", pushRequest);
+            log.error("Exception: {}", exception.toString());
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.notification.pushconsumer.service;
 
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.pushconsumer.models.PushRequest;
 import com.notification.pushconsumer.models.SendPushResponse;
 import com.notification.pushconsumer.models.db.DeliveryLog;
@@ -22,22 +24,34 @@ public class PushProcessingService {
     DeliveryLogRepository deliveryLogRepository;
     NotificationRepository notificationRepository;
     FailedNotificationsHandlerService failedNotificationsHandlerService;
+    DeliveryDeduplicator deliveryDeduplicator;
     
     public PushProcessingService(PushService pushService, 
                                 FailedNotificationsHandlerService failedNotificationsHandlerService,
                                 DeliveryLogRepository deliveryLogRepository, 
-                                NotificationRepository notificationRepository) {
+                                NotificationRepository notificationRepository,
+                                DeliveryDeduplicator deliveryDeduplicator) {
         this.pushService = pushService;
         this.notificationRepository = notificationRepository;
         this.deliveryLogRepository = deliveryLogRepository;
         this.failedNotificationsHandlerService = failedNotificationsHandlerService;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
 
     public void processPush(PushRequest pushRequest) {
-        SendPushResponse response = sendPushToVendors(pushRequest);
+        SendPushResponse response;
+        try {
+            response = sendPushToVendors(pushRequest);
+        } catch (VendorGuard.VendorUnavailableException exception) {
+            // The push service was not called: requeued without using up an attempt
+            failedNotificationsHandlerService.handleRefusedRequest(pushRequest, exception.getMessage());
+            return;
+        }
 
         try {
             if (response.getStatus() >= 200 && response.getStatus() < 300) {
+                // Before the database updates, so a failing update can't get it sent again on replay
+                deliveryDeduplicator.markDelivered(pushRequest.getNotificationId());
                 Notification notification = notificationRepository.findById(pushRequest.getNotificationId())
                         .orElseThrow(() -> {
                             log.error("Notification with Id: " + pushRequest.getNotificationId() + " Not found");
@@ -62,7 +76,7 @@ public class PushProcessingService {
                     log.error("Exception: {}", exception.toString());
                 }
             } else {
-                failedNotificationsHandlerService.handleFailedRequest(pushRequest);
+                failedNotificationsHandlerService.handleFailedRequest(pushRequest, "Push Service status " + response.getStatus() + ": " + response.getMessage());
             }
         } catch (NotificationNotFoundException exception) {
             log.error("Notification with Id: " + pushRequest.getNotificationId() + 
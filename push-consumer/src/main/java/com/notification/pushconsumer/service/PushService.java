@@ -1,5 +1,6 @@
 package com.notification.pushconsumer.service;
 
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.pushconsumer.models.PushRequest;
 import com.notification.pushconsumer.models.SendPushResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -14,12 +15,25 @@ import org.springframework.stereotype.Service;
  * 
  * Note: This is a placeholder implementation
  * In production, integrate with FCM, OneSignal, or other push notification providers
+ * 
+ * Calls go through the FCM VendorGuard (circuit breaker + adaptive concurrency limit, see
+ * VendorGuardConfig); VendorUnavailableException means not sent because the breaker is open or
+ * the limit reached.
  */
 @Service
 @Slf4j
 public class PushService {
+    private final VendorGuard fcmGuard;
+
+    public PushService(VendorGuard fcmGuard) {
+        this.fcmGuard = fcmGuard;
+    }
 
     public SendPushResponse sendPushNotification(PushRequest pushRequest) {
+        return fcmGuard.call(() -> callFcm(pushRequest), response -> VendorGuard.isVendorFailure(response.getStatus()));
+    }
+
+    private SendPushResponse callFcm(PushRequest pushRequest) {
         // TODO: Integrate with FCM or other push notification service
         // For now, returning success to simulate push sending
         log.info("Push Notification Request (Notification Id: {}). Title: {}, Message: {}, Action: {}", 
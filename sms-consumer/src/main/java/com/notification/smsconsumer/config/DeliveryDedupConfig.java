@@ -0,0 +1,25 @@
+package com.notification.smsconsumer.config;
+
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static com.notification.smsconsumer.constants.Constants.CHANNEL;
+
+/**
+ * Delivered SMS, by notificationId
+ *
+ * Configured by dedup.sms.* (see DeliveryDeduplicator). Records replayed after a restart or
+ * rebalance are skipped once Twilio accepted them, shared through Redis by every sms-consumer instance.
+ */
+@Configuration
+public class DeliveryDedupConfig {
+
+    @Bean
+    public DeliveryDeduplicator deliveryDeduplicator(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        return new DeliveryDeduplicator(CHANNEL, redisTemplate, meterRegistry, environment);
+    }
+}
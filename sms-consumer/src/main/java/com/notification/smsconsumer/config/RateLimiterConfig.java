@@ -0,0 +1,29 @@
+package com.notification.smsconsumer.config;
+
+import com.notification.consumercommon.ratelimit.RateLimiter;
+import com.notification.consumercommon.ratelimit.RateLimiterFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Rate limit of the Twilio API
+ *
+ * Configured by rate-limit.twilio.* (see RateLimiterFactory). Defaults match the Twilio
+ * quota of 600 SMS/minute (10/s), shared through Redis by every sms-consumer instance.
+ */
+@Configuration
+public class RateLimiterConfig {
+
+    @Bean
+    public RateLimiterFactory rateLimiterFactory(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Environment environment) {
+        return new RateLimiterFactory(redisTemplate, meterRegistry, environment);
+    }
+
+    @Bean
+    public RateLimiter twilioRateLimiter(RateLimiterFactory rateLimiterFactory) {
+        return rateLimiterFactory.create("twilio");
+    }
+}
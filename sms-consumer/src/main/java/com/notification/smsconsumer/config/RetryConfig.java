@@ -0,0 +1,41 @@
+package com.notification.smsconsumer.config;
+
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static com.notification.smsconsumer.constants.Constants.CHANNEL;
+
+/**
+ * Retry pipeline of failed Twilio deliveries
+ *
+ * Configured by retry.sms.* (see RetryPolicy). Failed SMS go to the sms-retry-30s / -5m / -1h
+ * tier topics, consumed by RetryTopicsConsumer, and end up in sms-dlt once their attempts are used up.
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    public RetryPolicy retryPolicy(Environment environment) {
+        return new RetryPolicy(CHANNEL, environment);
+    }
+
+    @Bean
+    public RetryPublisher retryPublisher(KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry) {
+        return new RetryPublisher(kafkaTemplate, meterRegistry);
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics retryTopics(RetryPolicy retryPolicy) {
+        return new KafkaAdmin.NewTopics(retryPolicy.getTopics().stream()
+                .map(topic -> TopicBuilder.name(topic).partitions(retryPolicy.getPartitions()).build())
+                .toArray(NewTopic[]::new));
+    }
+}
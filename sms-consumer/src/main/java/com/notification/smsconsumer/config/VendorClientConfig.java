@@ -0,0 +1,34 @@
+package com.notification.smsconsumer.config;
+
+import com.notification.consumercommon.http.VendorHttpClientFactory;
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Twilio client, built once (replaces Twilio.init() per SMS)
+ *
+ * Connections are pooled and kept alive (http-client.twilio.*, see VendorHttpClientFactory),
+ * so consecutive SMS reuse the TLS connection instead of opening one per SMS.
+ */
+@Configuration
+public class VendorClientConfig {
+
+    @Bean
+    public VendorHttpClientFactory vendorHttpClientFactory(MeterRegistry meterRegistry, Environment environment) {
+        return new VendorHttpClientFactory(meterRegistry, environment);
+    }
+
+    @Bean
+    public TwilioRestClient twilioRestClient(VendorHttpClientFactory vendorHttpClientFactory,
+                                             @Value("${twilio.account.sid}") String accountSid,
+                                             @Value("${twilio.auth.token}") String authToken) {
+        return new TwilioRestClient.Builder(accountSid, authToken)
+                .httpClient(new NetworkHttpClient(vendorHttpClientFactory.builder("twilio")))
+                .build();
+    }
+}
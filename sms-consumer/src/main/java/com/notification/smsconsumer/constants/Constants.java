@@ -5,8 +5,10 @@ package com.notification.smsconsumer.constants;
  * 
  * TOPIC: Kafka topic name for SMS notifications (sms-topic)
  * GROUP_ID: Kafka consumer group identifier (sms-consumer)
+ * CHANNEL: Prefix of the retry tier topics (sms-retry-30s, ...) and the dead-letter topic (sms-dlt)
  */
 public class Constants {
     public static final String TOPIC = "sms-topic";
     public static final String GROUP_ID = "sms-consumer";
+    public static final String CHANNEL = "sms";
 }
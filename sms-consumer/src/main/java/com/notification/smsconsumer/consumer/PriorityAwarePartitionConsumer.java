@@ -1,19 +1,30 @@
 package com.notification.smsconsumer.consumer;
 
+import com.notification.consumercommon.offset.OffsetCommitter;
+import com.notification.consumercommon.offset.PartitionLagTracker;
+import com.notification.consumercommon.resilience.VendorGuard;
+import com.notification.consumercommon.scheduling.PriorityLaneAssignor;
+import com.notification.consumercommon.scheduling.PriorityLanes;
+import com.notification.consumercommon.scheduling.PriorityRecordScheduler;
 import com.notification.smsconsumer.service.MessageHandlerService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.Arrays;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
 
 import static com.notification.smsconsumer.constants.Constants.GROUP_ID;
 import static com.notification.smsconsumer.constants.Constants.TOPIC;
@@ -22,36 +33,53 @@ import static com.notification.smsconsumer.constants.Constants.TOPIC;
  * PriorityAwarePartitionConsumer - Implements partition-level priority enforcement for SMS notifications
  * 
  * Architecture:
- * - sms-topic has 3 partitions: 0 (priority1), 1 (priority2), 2 (priority3)
- * - Manually assigns all 3 partitions instead of using subscribe()
- * - Dynamically pauses/resumes partitions based on pending messages
+ * - sms-topic has N partitions per priority, interleaved: 0, 3, ... (priority1), 1, 4, ... (priority2),
+ *   2, 5, ... (priority3), see PriorityLanes
+ * - Subscribes as a group; PriorityLaneAssignor gives every instance partitions of each priority,
+ *   so up to N instances can run side by side
+ * - Polls all assigned partitions together; PriorityRecordScheduler decides the order records are handled in
+ * - On revocation the records still buffered for the partition are dropped (its new owner polls them)
  * 
- * Priority Logic:
- * 1. If partition 0 (priority1) has messages:
- *    - Pause partitions 1 and 2 (process only priority1)
- * 2. Else if partition 1 (priority2) has messages:
- *    - Resume partition 1, pause partition 2 (process only priority2)
- * 3. Else:
- *    - Resume all partitions (process priority3)
+ * Vendor outage:
+ * - While the vendor's circuit breaker is open (VendorGuardConfig) all partitions are paused,
+ *   they resume on their own once it lets trial calls through
+ * 
+ * Priority Logic (weighted, priority-scheduler.* properties):
+ * 1. Polled records are buffered per priority
+ * 2. While all priorities have records, out of every 12 handled 8 are priority1,
+ *    3 priority2 and 1 priority3 (deficit round-robin)
+ * 3. A priority2/priority3 record that waited longer than its max age (10s/30s) goes first
+ * 4. A priority with 500 records buffered has its partitions paused until half of them are handled
  * 
  * How it works:
- * - Uses endOffsets() to check if messages are pending in each partition
- * - Compares endOffset with current position to determine pending count
- * - Pauses lower priority partitions when higher priority has messages
- * - Runs in infinite loop checking priorities before each poll
+ * - One scheduling round (12 records) is handled per poll, so new priority1 messages
+ *   never wait behind more than one round
+ * - Auto-commit is disabled: OffsetCommitter commits the offsets of handled records in
+ *   batches (commitAsync, every second or 500 records); buffered records and those handled
+ *   since the last commit are re-delivered after a crash, DeliveryDeduplicator skips the
+ *   ones already sent
+ * - Per-partition lag is published as consumer.partition.lag (PartitionLagTracker),
+ *   taken from the fetch metadata of each poll instead of a broker call
  * 
- * This ensures high-priority SMS are always processed before lower priorities
- * even if lower priority messages arrived first.
+ * Unlike the former strict pausing, a steady stream of priority1 SMS can no longer
+ * starve priority3 - it is slowed down, never stopped.
  */
 @Component
 @Slf4j
 public class PriorityAwarePartitionConsumer {
     private ConsumerFactory consumerFactory;
     private MessageHandlerService messageHandlerService;
+    private VendorGuard twilioGuard;
+    private Environment environment;
+    private MeterRegistry meterRegistry;
 
-    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, MessageHandlerService messageHandlerService) {
+    public PriorityAwarePartitionConsumer(ConsumerFactory consumerFactory, MessageHandlerService messageHandlerService, VendorGuard twilioGuard,
+                                          Environment environment, MeterRegistry meterRegistry) {
         this.consumerFactory = consumerFactory;
         this.messageHandlerService = messageHandlerService;
+        this.twilioGuard = twilioGuard;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -60,60 +88,75 @@ public class PriorityAwarePartitionConsumer {
      */
     @EventListener
     public void onAppStarted(ApplicationStartedEvent applicationStartedEvent) {
-        KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID, "sms-consumer");
-
-        // Define the 3 partitions for priority levels
-        TopicPartition PARTITION_PRIORITY_1 = new TopicPartition(TOPIC, 0);
-        TopicPartition PARTITION_PRIORITY_2 = new TopicPartition(TOPIC, 1);
-        TopicPartition PARTITION_PRIORITY_3 = new TopicPartition(TOPIC, 2);
+        // Offsets are committed by this loop once records are handled, not when they are polled
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, PriorityLaneAssignor.class.getName());
+        KafkaConsumer<String, String> consumer = (KafkaConsumer<String, String>) consumerFactory.createConsumer(GROUP_ID, "sms-consumer", null, overrides);
+
+        PriorityRecordScheduler scheduler = new PriorityRecordScheduler(environment);
+        PartitionLagTracker lagTracker = new PartitionLagTracker(meterRegistry, environment);
+        OffsetCommitter offsetCommitter = new OffsetCommitter(environment);
+
+        // Group-managed assignment, so several instances can share sms-topic
+        consumer.subscribe(List.of(TOPIC), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                // Commit what was handled; buffered records are left to the new owner
+                scheduler.remove(partitions);
+                lagTracker.remove(partitions);
+                offsetCommitter.revoked(consumer, partitions);
+                log.info("Partitions revoked: {}", partitions);
+            }
 
-        // Manually assign all partitions (not subscribe - we need manual control)
-        consumer.assign(Arrays.asList(
-                PARTITION_PRIORITY_1,
-                PARTITION_PRIORITY_2,
-                PARTITION_PRIORITY_3
-        ));
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                offsetCommitter.assigned(partitions);
+                log.info("Partitions assigned: {}", partitions);
+            }
+        });
 
-        // Infinite loop to continuously process messages with priority awareness
+        // Set while all partitions are paused because the vendor is unavailable
+        boolean pausedForVendor = false;
         while (true) {
             try {
-                // Fetch end offsets for all partitions to know where messages end
-                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(Arrays.asList(
-                        PARTITION_PRIORITY_1, PARTITION_PRIORITY_2, PARTITION_PRIORITY_3
-                ));
-
-                // Get current positions (where we're currently reading from)
-                long positionP1 = consumer.position(PARTITION_PRIORITY_1);
-                long positionP2 = consumer.position(PARTITION_PRIORITY_2);
-                long positionP3 = consumer.position(PARTITION_PRIORITY_3);
-
-                // Check if each partition has pending messages
-                // Pending count = endOffset - currentPosition
-                boolean hasPriority1Messages = (endOffsets.get(PARTITION_PRIORITY_1) - positionP1) > 0;
-
-                if (hasPriority1Messages) {
-                    // Priority 1 has messages - pause lower priorities
-                    consumer.pause(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                    log.debug("Priority 1 messages detected. Pausing Priority 2 and 3.");
-                } else {
-                    // No priority 1 messages - check priority 2
-                    boolean hasPriority2Messages = (endOffsets.get(PARTITION_PRIORITY_2) - positionP2) > 0;
-
-                    if (hasPriority2Messages) {
-                        // Priority 2 has messages - pause only priority 3
-                        consumer.pause(Arrays.asList(PARTITION_PRIORITY_3));
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2));
-                        log.debug("Priority 2 messages detected. Pausing Priority 3.");
-                    } else {
-                        // No priority 1 or 2 messages - process priority 3
-                        consumer.resume(Arrays.asList(PARTITION_PRIORITY_2, PARTITION_PRIORITY_3));
-                        log.debug("No high priority messages. Processing all partitions.");
+                // Vendor outage: take no new records until the circuit breaker lets calls through again
+                if (!twilioGuard.isAvailable()) {
+                    if (!pausedForVendor) {
+                        log.warn("Twilio unavailable, pausing all partitions");
+                        pausedForVendor = true;
                     }
+                    consumer.pause(consumer.assignment());
+                    // A rebalance in this poll may assign partitions that aren't paused yet; keep what they return
+                    scheduler.addAll(consumer.poll(Duration.ofMillis(500)));
+                    continue;
+                }
+                if (pausedForVendor) {
+                    // applyBackpressure below resumes the partitions whose lane isn't full
+                    pausedForVendor = false;
+                    log.info("Twilio available again, resuming partitions");
                 }
 
-                // Poll for new messages from active (non-paused) partitions
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
-                records.forEach(record -> processRecord(record));
+                scheduler.applyBackpressure(consumer);
+
+                // Poll all partitions at once; don't wait for more while records are buffered
+                ConsumerRecords<String, String> records = consumer.poll(scheduler.isEmpty() ? Duration.ofMillis(500) : Duration.ZERO);
+                scheduler.addAll(records);
+                // From the fetch metadata of this poll, no broker call
+                lagTracker.update(consumer);
+
+                // Handle one scheduling round, then poll again so new priority 1 records join quickly
+                for (int i = 0; i < scheduler.getRoundSize() && !scheduler.isEmpty(); i++) {
+                    ConsumerRecord<String, String> record = scheduler.next();
+                    Runnable handled = offsetCommitter.track(record);
+                    try {
+                        processRecord(record);
+                    } finally {
+                        handled.run();
+                    }
+                }
+                // Batched by offset-commit.* (see OffsetCommitter)
+                offsetCommitter.maybeCommit(consumer);
             } catch (Exception e) {
                 log.error("Error in priority-aware consumer: {}", e.getMessage(), e);
             }
@@ -126,13 +169,13 @@ public class PriorityAwarePartitionConsumer {
     private void processRecord(ConsumerRecord record) {
         log.debug("Record Received: \n" + "Offset: " + record.offset()
                 + ", Key: " + record.key() + ", Value: " + record.value());
-        processMessage(record.value().toString());
+        processMessage(record.value().toString(), PriorityLanes.priorityOf(record.partition()));
     }
 
     /**
      * Delegate message processing to MessageHandlerService
      */
-    private void processMessage(String message) {
-        messageHandlerService.handleSmsRequest(message);
+    private void processMessage(String message, int priority) {
+        messageHandlerService.handleSmsRequest(message, priority);
     }
 }
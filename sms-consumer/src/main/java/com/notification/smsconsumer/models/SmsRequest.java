@@ -19,6 +19,10 @@ public class SmsRequest {
     private String mobileNumber;
     private String message;
     private Long notificationId;
+    // Not sent by priority-processor: set from the partition, kept when the request is republished for a retry
+    private int priority;
+    // Deliveries already attempted, counted by FailedNotificationsHandlerService
+    private int attempt;
 
     public SmsRequest(String mobileNumber, String message) {
         this.mobileNumber = mobileNumber;
@@ -17,7 +17,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class DeliveryLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Must match priority-processor, which inserts with the same pooled sequence (seeded by
+    // priority-processor/src/main/resources/db/notification-id-sequences.sql)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_log_seq")
+    @SequenceGenerator(name = "delivery_log_seq", sequenceName = "delivery_logs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
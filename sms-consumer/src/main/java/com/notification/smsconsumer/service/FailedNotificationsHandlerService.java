@@ -1,45 +1,125 @@
 package com.notification.smsconsumer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.consumercommon.retry.RetryPolicy;
+import com.notification.consumercommon.retry.RetryPublisher;
 import com.notification.smsconsumer.models.SmsRequest;
+import com.notification.smsconsumer.models.db.DeliveryLog;
+import com.notification.smsconsumer.models.db.Notification;
+import com.notification.smsconsumer.models.enums.Channel;
+import com.notification.smsconsumer.models.enums.Status;
+import com.notification.smsconsumer.repo.DeliveryLogRepository;
+import com.notification.smsconsumer.repo.NotificationRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+import java.util.Optional;
+
 /**
  * FailedNotificationsHandlerService - Handles failed SMS delivery attempts
- * 
+ *
  * Responsibilities:
- * 1. Log failed SMS requests for monitoring
- * 2. Implement retry strategy (future enhancement)
- * 3. Store failed notifications for manual intervention
- * 
- * Future Enhancements:
- * - Exponential backoff retry strategy
- * - Dead letter queue for permanently failed SMS
- * - Alerting system for high failure rates
- * - Database logging of failures with error details
+ * 1. Republish the failed request to a retry tier topic (sms-retry-30s / -5m / -1h), with
+ *    jittered exponential backoff and a number of attempts depending on its priority (RetryPolicy)
+ * 2. Once its attempts are used up: publish it to the dead-letter topic sms-dlt and mark the
+ *    notification failed
+ * 3. Record every failed attempt in delivery_logs (status failed, vendor error, what happens next)
+ * 4. Requeue requests the VendorGuard refused (vendor not called) without counting an attempt
+ *
+ * Nothing is retried inline: the poll loop moves on to the next record right away.
  */
 @Service
 @Slf4j
 public class FailedNotificationsHandlerService {
-    
+    ObjectWriter smsRequestWriter;
+    RetryPolicy retryPolicy;
+    RetryPublisher retryPublisher;
+    DeliveryLogRepository deliveryLogRepository;
+    NotificationRepository notificationRepository;
+
+    public FailedNotificationsHandlerService(ObjectMapper mapper, RetryPolicy retryPolicy, RetryPublisher retryPublisher,
+                                             DeliveryLogRepository deliveryLogRepository,
+                                             NotificationRepository notificationRepository) {
+        this.smsRequestWriter = mapper.writerFor(SmsRequest.class);
+        this.retryPolicy = retryPolicy;
+        this.retryPublisher = retryPublisher;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
     /**
-     * Handle failed SMS request
-     * Currently logs the failure for monitoring
-     * 
+     * Handle failed SMS request: schedule its retry, or give up on it
+     *
      * @param smsRequest The failed SMS request
+     * @param error        What went wrong (vendor status and response)
      */
-    public void handleFailedRequest(SmsRequest smsRequest) {
-        // Log failed request
-        log.error("Failed to send SMS for Notification Id: {}. SmsRequest: {}", 
-                 smsRequest.getNotificationId(), smsRequest);
-        
-        // TODO: Implement retry strategy
-        // - Could use exponential backoff
-        // - Could republish to a retry topic in Kafka
-        // - Could store in database for manual retry
-        
-        // TODO: Implement alerting
-        // - Send alert if failure rate exceeds threshold
-        // - Notify operations team for critical failures
+    public void handleFailedRequest(SmsRequest smsRequest, String error) {
+        int attemptsMade = smsRequest.getAttempt() + 1;
+        smsRequest.setAttempt(attemptsMade);
+        RetryPolicy.RetryDecision decision = retryPolicy.next(smsRequest.getPriority(), attemptsMade);
+        String attempt = "Attempt " + attemptsMade + " of " + retryPolicy.maxAttempts(smsRequest.getPriority()) + " failed: " + error;
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(smsRequest.getNotificationId(), null),
+                    smsRequestWriter.writeValueAsString(smsRequest));
+        } catch (Exception exception) {
+            log.error("Failed to send SMS for Notification Id: {} and could not publish it to {}, giving up. SmsRequest: {}. Exception: {}",
+                    smsRequest.getNotificationId(), decision.topic(), smsRequest, exception.toString());
+            recordAttempt(smsRequest, attempt + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+
+        if (decision.deadLetter()) {
+            log.error("Failed to send SMS for Notification Id: {}, no attempts left, moved to {}. SmsRequest: {}",
+                    smsRequest.getNotificationId(), decision.topic(), smsRequest);
+            recordAttempt(smsRequest, attempt + ". Moved to " + decision.topic(), true);
+        } else {
+            log.warn("Failed to send SMS for Notification Id: {} (attempt {}), retrying in {} ms via {}",
+                    smsRequest.getNotificationId(), attemptsMade, decision.delayMs(), decision.topic());
+            recordAttempt(smsRequest, attempt + ". Retry in " + decision.delayMs() / 1000 + "s via " + decision.topic(), false);
+        }
+    }
+
+    /**
+     * Handle a request the vendor guard refused (circuit open, no concurrency slot): the vendor
+     * was not called, so it goes back to its retry tier with its attempt count unchanged
+     *
+     * @param smsRequest The refused SMS request
+     * @param reason     Why it was refused
+     */
+    public void handleRefusedRequest(SmsRequest smsRequest, String reason) {
+        RetryPolicy.RetryDecision decision = retryPolicy.requeue(smsRequest.getAttempt());
+
+        try {
+            retryPublisher.publish(decision, Objects.toString(smsRequest.getNotificationId(), null),
+                    smsRequestWriter.writeValueAsString(smsRequest));
+        } catch (Exception exception) {
+            log.error("Sms for Notification Id: {} not sent ({}) and could not be published to {}, giving up. SmsRequest: {}. Exception: {}",
+                    smsRequest.getNotificationId(), reason, decision.topic(), smsRequest, exception.toString());
+            recordAttempt(smsRequest, "Not sent: " + reason + ". Could not be published to " + decision.topic(), true);
+            return;
+        }
+        log.warn("Sms for Notification Id: {} not sent ({}), requeued in {} ms via {}",
+                smsRequest.getNotificationId(), reason, decision.delayMs(), decision.topic());
+    }
+
+    private void recordAttempt(SmsRequest smsRequest, String errorMessage, boolean givenUp) {
+        try {
+            Optional<Notification> notification = notificationRepository.findById(smsRequest.getNotificationId());
+            if (notification.isEmpty()) {
+                log.error("Notification with Id: " + smsRequest.getNotificationId() + " Not found while trying to create delivery log of failed attempt");
+                return;
+            }
+            if (givenUp) {
+                notification.get().setStatus(Status.failed);
+                notificationRepository.save(notification.get());
+            }
+            deliveryLogRepository.save(new DeliveryLog(notification.get(), Channel.sms, Status.failed, errorMessage));
+        } catch (Exception exception) {
+            log.error("Exception while creating delivery log of failed attempt for smsRequest: {}", smsRequest);
+            log.error("Exception: {}", exception.toString());
+        }
     }
 }
@@ -1,90 +1,99 @@
 package com.notification.smsconsumer.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.ratelimit.RateLimiter;
 import com.notification.smsconsumer.models.SmsRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalTime;
-
 /**
  * MessageHandlerService - Handles rate limiting and JSON deserialization for SMS requests
  * 
  * Responsibilities:
- * 1. Rate limiting: Enforces 600 SMS/minute limit (Twilio rate limit)
+ * 1. Rate limiting: Enforces the Twilio rate limit (see RateLimiterConfig)
  * 2. JSON deserialization: Parses Kafka message string to SmsRequest object
  * 3. Delegates to SmsProcessingService for actual SMS sending
+ * 4. Sends retries of failed SMS, from the retry tier topics (see RetryTopicsConsumer)
+ * 5. Skips SMS already delivered (DeliveryDeduplicator), e.g. replayed after a restart
  * 
  * Rate Limiting Logic:
- * - Tracks sentRequests counter
- * - Resets counter every minute (startTime to endTime)
- * - When 600 limit reached, sleeps thread until next minute
+ * - Each SMS takes a permit from the Twilio RateLimiter, shared by all sms-consumer instances
+ * - Waits only until the next permit is due (milliseconds), not until the next minute
  * - Prevents exceeding third-party SMS provider rate limits
  */
 @Service
 @Slf4j
 public class MessageHandlerService {
-    ObjectMapper mapper;
+    // Built once: a reader bound to SmsRequest skips the per-message type lookup and the JsonNode tree
+    ObjectReader smsRequestReader;
     SmsProcessingService smsProcessingService;
+    RateLimiter twilioRateLimiter;
+    DeliveryDeduplicator deliveryDeduplicator;
 
-    public MessageHandlerService(ObjectMapper mapper, SmsProcessingService smsProcessingService) {
-        this.mapper = mapper;
+    public MessageHandlerService(ObjectMapper mapper, SmsProcessingService smsProcessingService, RateLimiter twilioRateLimiter,
+                                 DeliveryDeduplicator deliveryDeduplicator) {
+        this.smsRequestReader = mapper.readerFor(SmsRequest.class);
         this.smsProcessingService = smsProcessingService;
+        this.twilioRateLimiter = twilioRateLimiter;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
-    
-    private int sentRequests = 0;
-    private LocalTime startTime = LocalTime.now();
-    private LocalTime endTime = startTime.plusMinutes(1);
 
     /**
      * Handle SMS request from Kafka consumer
      * Applies rate limiting and delegates to processing service
      * 
      * @param smsRequestString JSON string from Kafka message
+     * @param priority 1 (highest) to 3, from the partition the record came from
      */
-    public void handleSmsRequest(String smsRequestString) {
+    public void handleSmsRequest(String smsRequestString, int priority) {
         log.info("SMS Request Received: " + smsRequestString);
 
-        // Initialize rate limiting window
-        if (sentRequests == 0) {
-            startTime = LocalTime.now();
-            endTime = startTime.plusMinutes(1);
-        }
-        
         try {
             // Deserialize JSON to SmsRequest object
-            JsonNode smsRequestJson = mapper.readTree(smsRequestString);
-            SmsRequest smsRequest = mapper.treeToValue(smsRequestJson, SmsRequest.class);
+            SmsRequest smsRequest = smsRequestReader.readValue(smsRequestString);
             log.debug("Successfully parsed Consumed Sms Request: {}", smsRequest.toString());
-            
-            try {
-                smsProcessingService.processSms(smsRequest);
-                sentRequests++;
-            } catch (Exception exception) {
-                log.error("Unexpected Exception in SmsProcessingService while processing Sms Request: {}", smsRequest);
-                log.error("Exception: {}", exception.toString());
-            }
+            // Kept with the request in case it has to be retried
+            smsRequest.setPriority(priority);
+            processSmsRequest(smsRequest);
         } catch (JsonProcessingException jsonProcessingException) {
             log.error("Error parsing kafka consumed message to JSON. Exception: \n {}", jsonProcessingException.toString());
         }
+    }
+
+    /**
+     * Handle retry of a failed SMS, called by RetryTopicsConsumer once it is due
+     * 
+     * @param smsRequestString JSON string from the retry topic, with priority and attempt count
+     */
+    public void handleRetryRequest(String smsRequestString) {
+        log.info("SMS Retry Request Received: " + smsRequestString);
 
-        // Reset counter if minute elapsed
-        if (LocalTime.now().isAfter(endTime)) {
-            sentRequests = 0;
+        try {
+            processSmsRequest(smsRequestReader.readValue(smsRequestString));
+        } catch (JsonProcessingException jsonProcessingException) {
+            log.error("Error parsing retried kafka message to JSON. Exception: \n {}", jsonProcessingException.toString());
+        }
+    }
+
+    private void processSmsRequest(SmsRequest smsRequest) {
+        // Replayed after a restart/rebalance, or retried, after it was already sent
+        if (deliveryDeduplicator.isDelivered(smsRequest.getNotificationId())) {
+            log.info("Notification {} already delivered, skipping", smsRequest.getNotificationId());
+            return;
         }
-        
-        // Rate limiting: Sleep if 600 SMS/minute limit reached
-        if (sentRequests >= 600) {
-            try {
-                log.debug("Rate Limit of this minute reached. Forcing thread to sleep for remaining " + 
-                         (endTime.getSecond() - LocalTime.now().getSecond()) + " seconds");
-                Thread.sleep((endTime.getSecond() - LocalTime.now().getSecond()) * 1000);
-                sentRequests = 0;
-            } catch (InterruptedException e) {
-                log.error("Unexpected error while thread sleeping w.r.t Rate limiting: " + e.toString());
-            }
+        try {
+            // Rate limiting: wait for a Twilio permit
+            twilioRateLimiter.acquire();
+            smsProcessingService.processSms(smsRequest);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for Twilio rate limit. Sms Request not sent: {}", smsRequest);
+        } catch (Exception exception) {
+            log.error("Unexpected Exception in SmsProcessingService while processing Sms Request: {}", smsRequest);
+            log.error("Exception: {}", exception.toString());
         }
     }
 }
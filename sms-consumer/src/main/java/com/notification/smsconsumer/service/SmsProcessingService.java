@@ -1,5 +1,7 @@
 package com.notification.smsconsumer.service;
 
+import com.notification.consumercommon.dedup.DeliveryDeduplicator;
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.smsconsumer.models.SendSmsResponse;
 import com.notification.smsconsumer.models.SmsRequest;
 import com.notification.smsconsumer.models.db.DeliveryLog;
@@ -25,10 +27,13 @@ import org.springframework.stereotype.Service;
  * 1. Receive SmsRequest from MessageHandlerService (after rate limiting)
  * 2. Call SmsService to send via Twilio
  * 3. If status 200-299 (success):
+ *    - Mark it delivered (DeliveryDeduplicator), so a replayed record isn't sent again
  *    - Update notification status to 'sent' in database
  *    - Create delivery log with 'sent' status
  * 4. If status >= 300 (failure):
- *    - Delegate to FailedNotificationsHandlerService for retry/logging
+ *    - Delegate to FailedNotificationsHandlerService (delivery log, retry topic or dead-letter topic)
+ * 5. If the Twilio VendorGuard refused the call (circuit open, no concurrency slot):
+ *    - Requeue via FailedNotificationsHandlerService, without using up an attempt
  */
 @Service
 @Slf4j
@@ -37,15 +42,18 @@ public class SmsProcessingService {
     DeliveryLogRepository deliveryLogRepository;
     NotificationRepository notificationRepository;
     FailedNotificationsHandlerService failedNotificationsHandlerService;
+    DeliveryDeduplicator deliveryDeduplicator;
     
     public SmsProcessingService(SmsService smsService, 
                                FailedNotificationsHandlerService failedNotificationsHandlerService,
                                DeliveryLogRepository deliveryLogRepository, 
-                               NotificationRepository notificationRepository) {
+                               NotificationRepository notificationRepository,
+                               DeliveryDeduplicator deliveryDeduplicator) {
         this.smsService = smsService;
         this.notificationRepository = notificationRepository;
         this.deliveryLogRepository = deliveryLogRepository;
         this.failedNotificationsHandlerService = failedNotificationsHandlerService;
+        this.deliveryDeduplicator = deliveryDeduplicator;
     }
 
     /**
@@ -54,10 +62,18 @@ public class SmsProcessingService {
      * @param smsRequest The SMS request containing mobile number, message, notificationId
      */
     public void processSms(SmsRequest smsRequest) {
-        SendSmsResponse response = sendSmsToVendors(smsRequest);
+        SendSmsResponse response;
+        try {
+            response = sendSmsToVendors(smsRequest);
+        } catch (VendorGuard.VendorUnavailableException exception) {
+            failedNotificationsHandlerService.handleRefusedRequest(smsRequest, exception.getMessage());
+            return;
+        }
 
         try {
             if (response.getStatus() >= 200 && response.getStatus() < 300) {
+                // Before the database updates, so a failing update can't get it sent again on replay
+                deliveryDeduplicator.markDelivered(smsRequest.getNotificationId());
                 // SMS sent successfully - update database
                 Notification notification = notificationRepository.findById(smsRequest.getNotificationId())
                         .orElseThrow(() -> {
@@ -84,7 +100,7 @@ public class SmsProcessingService {
                 }
             } else {
                 // SMS send failed - delegate to failure handler
-                failedNotificationsHandlerService.handleFailedRequest(smsRequest);
+                failedNotificationsHandlerService.handleFailedRequest(smsRequest, "Twilio status " + response.getStatus() + ": " + response.getMessage());
             }
         } catch (NotificationNotFoundException exception) {
             log.error("Notification with Id: " + smsRequest.getNotificationId() + 
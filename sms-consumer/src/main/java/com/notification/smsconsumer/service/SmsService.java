@@ -1,8 +1,10 @@
 package com.notification.smsconsumer.service;
 
+import com.notification.consumercommon.resilience.VendorGuard;
 import com.notification.smsconsumer.models.SendSmsResponse;
 import com.notification.smsconsumer.models.SmsRequest;
-import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +15,7 @@ import org.springframework.stereotype.Service;
  * SmsService - Twilio integration for actual SMS delivery
  * 
  * Responsibilities:
- * 1. Initializes Twilio SDK with account credentials
+ * 1. Uses the shared, pooled TwilioRestClient (see VendorClientConfig)
  * 2. Creates Twilio Message with from/to phone numbers and message content
  * 3. Makes API call to Twilio to send SMS
  * 4. Returns response with status code and message
@@ -26,30 +28,40 @@ import org.springframework.stereotype.Service;
  * 
  * Response Status Codes:
  * - 200: SMS sent successfully
- * - 500: Exception occurred during Twilio API call
+ * - 4xx/5xx: Twilio API error (its HTTP status)
+ * - 500: Other exception occurred during Twilio API call
+ * 
+ * Calls that are not made (Twilio circuit breaker open or concurrency limit reached, see
+ * VendorGuardConfig) throw VendorGuard.VendorUnavailableException instead.
  */
 @Service
 @Slf4j
 public class SmsService {
     
-    @Value("${twilio.account.sid}")
-    private String accountSid;
-    
-    @Value("${twilio.auth.token}")
-    private String authToken;
+    private final TwilioRestClient twilioRestClient;
+    private final VendorGuard twilioGuard;
     
     @Value("${twilio.phone.number}")
     private String twilioPhoneNumber;
 
+    public SmsService(TwilioRestClient twilioRestClient, VendorGuard twilioGuard) {
+        this.twilioRestClient = twilioRestClient;
+        this.twilioGuard = twilioGuard;
+    }
+
     /**
      * Send SMS via Twilio API
      * 
      * @param smsRequest The SMS request containing mobile number and message
      * @return SendSmsResponse with status code and response message
+     * @throws VendorGuard.VendorUnavailableException if not sent: Twilio circuit breaker open or
+     *         concurrency limit reached (VendorGuardConfig)
      */
     public SendSmsResponse sendSms(SmsRequest smsRequest) {
-        Twilio.init(accountSid, authToken);
+        return twilioGuard.call(() -> callTwilio(smsRequest), response -> VendorGuard.isVendorFailure(response.getStatus()));
+    }
 
+    private SendSmsResponse callTwilio(SmsRequest smsRequest) {
         try {
             Message message = Message
                     .creator(
@@ -57,12 +69,17 @@ public class SmsService {
                             new PhoneNumber(twilioPhoneNumber),
                             smsRequest.getMessage()
                     )
-                    .create();
+                    .create(twilioRestClient);
 
             log.info("Sms Request (Notification Id: {}). Response from Twilio: \n Status: {}, Body: {}, Twilio_Message: {}", 
                     smsRequest.getNotificationId(), message.getStatus(), message.getBody(), message.toString());
             
             return new SendSmsResponse(200, "Sid: " + message.getSid() + " Body: " + message.getBody());
+        } catch (ApiException exception) {
+            // Keep Twilio's status: an invalid number (400) says nothing about Twilio's health, a 429/503 does
+            log.error("Something went wrong with Twilio. Exception: {}", exception.toString());
+            int status = exception.getStatusCode() != null ? exception.getStatusCode() : 500;
+            return new SendSmsResponse(status, "Exception occurred in Sms Service-Twilio: " + exception.getMessage());
         } catch (Exception exception) {
             log.error("Something went wrong with Twilio. Exception: {}", exception.toString());
             return new SendSmsResponse(500, "Exception occurred in Sms Service-Twilio");